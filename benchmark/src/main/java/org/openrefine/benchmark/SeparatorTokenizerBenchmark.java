@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.openrefine.benchmark;
+
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.refine.importers.CsvTokenizer;
+
+import au.com.bytecode.opencsv.CSVParser;
+
+/**
+ * Compares the tokenization of CSV text line by line with {@link CSVParser}, as
+ * done by the importer by default, and with {@link CsvTokenizer}.
+ */
+public class SeparatorTokenizerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan {
+
+        @Param({ "10000" })
+        public int rowCount;
+
+        @Param({ "0", "10" })
+        public int quotedPercentage;
+
+        public String text;
+        public char[] chars;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(1234);
+            StringBuilder sb = new StringBuilder();
+            for (int r = 0; r < rowCount; r++) {
+                for (int c = 0; c < 10; c++) {
+                    if (c > 0) {
+                        sb.append(',');
+                    }
+                    if (random.nextInt(100) < quotedPercentage) {
+                        sb.append("\"quoted, \"\"value\"\"\n").append(r).append('"');
+                    } else {
+                        sb.append("value").append(random.nextInt(1000));
+                    }
+                }
+                sb.append('\n');
+            }
+            text = sb.toString();
+            chars = text.toCharArray();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void csvParser(ExecutionPlan plan, Blackhole blackhole) throws IOException {
+        CSVParser parser = new CSVParser(",", CSVParser.DEFAULT_QUOTE_CHARACTER, (char) 0, false,
+                CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE, false);
+        LineNumberReader reader = new LineNumberReader(new StringReader(plan.text));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            blackhole.consume(parser.parseLineMulti(line));
+            while (parser.isPending()) {
+                blackhole.consume(parser.parseLineMulti(reader.readLine()));
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void csvTokenizer(ExecutionPlan plan, Blackhole blackhole) {
+        CsvTokenizer tokenizer = new CsvTokenizer(",", CSVParser.DEFAULT_QUOTE_CHARACTER, false, false);
+        blackhole.consume(tokenizer.tokenize(plan.chars, 0, plan.chars.length, true));
+    }
+}
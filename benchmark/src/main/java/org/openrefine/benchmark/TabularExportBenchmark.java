@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.openrefine.benchmark;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.refine.browsing.Engine;
+import com.google.refine.exporters.CsvExporter;
+import com.google.refine.exporters.CustomizableTabularExporterUtilities;
+import com.google.refine.exporters.TabularSerializer;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.ModelException;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+import au.com.bytecode.opencsv.CSVWriter;
+
+/**
+ * Measures the throughput of exporting a project as CSV and TSV, compared to
+ * serializing the same rows with opencsv's {@link CSVWriter}.
+ */
+public class TabularExportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan {
+
+        @Param({ "10000" })
+        public int rowCount;
+
+        @Param({ "10" })
+        public int columnCount;
+
+        public Project project;
+        public Engine engine;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ModelException {
+            Random random = new Random(1234);
+            project = new Project();
+            for (int c = 0; c < columnCount; c++) {
+                project.columnModel.addColumn(c, new Column(c, "Column " + c), false);
+            }
+            for (int r = 0; r < rowCount; r++) {
+                Row row = new Row(columnCount);
+                for (int c = 0; c < columnCount; c++) {
+                    Serializable value = c % 3 == 0 ? (Serializable) random.nextInt(100000) : "value, " + random.nextInt(1000);
+                    row.setCell(c, new Cell(value, null));
+                }
+                project.rows.add(row);
+            }
+            project.update();
+            engine = new Engine(project);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void openCsvWriter(ExecutionPlan plan, Blackhole blackhole) throws IOException {
+        StringWriter writer = new StringWriter();
+        final CSVWriter csvWriter = new CSVWriter(writer, ',');
+        CustomizableTabularExporterUtilities.exportRows(plan.project, plan.engine, null, new TabularSerializer() {
+
+            @Override
+            public void startFile(JsonNode options) {
+            }
+
+            @Override
+            public void endFile() {
+            }
+
+            @Override
+            public void addRow(List<CellData> cells, boolean isHeader) {
+                String[] strings = new String[cells.size()];
+                for (int i = 0; i < strings.length; i++) {
+                    CellData cellData = cells.get(i);
+                    strings[i] = cellData != null && cellData.text != null ? cellData.text : "";
+                }
+                csvWriter.writeNext(strings, false);
+            }
+        });
+        csvWriter.close();
+        blackhole.consume(writer.getBuffer().length());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void csvExporter(ExecutionPlan plan, Blackhole blackhole) throws IOException {
+        StringWriter writer = new StringWriter();
+        new CsvExporter().export(plan.project, null, plan.engine, writer);
+        blackhole.consume(writer.getBuffer().length());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+    @Fork(1)
+    public void tsvExporter(ExecutionPlan plan, Blackhole blackhole) throws IOException {
+        StringWriter writer = new StringWriter();
+        new CsvExporter('\t').export(plan.project, null, plan.engine, writer);
+        blackhole.consume(writer.getBuffer().length());
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2017, Tony Opara
+ *        All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this 
+ *   list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, 
+ *   this list of conditions and the following disclaimer in the documentation 
+ *   and/or other materials provided with the distribution.
+ * 
+ * Neither the name of Google nor the names of its contributors may be used to 
+ * endorse or promote products derived from this software without specific 
+ * prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; 
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, 
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR 
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF 
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.refine.extension.database;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.extension.database.model.DatabaseColumn;
+import com.google.refine.extension.database.model.DatabaseQueryInfo;
+import com.google.refine.importers.TabularImportingParserBase.TableDataReader;
+import com.google.refine.importing.ImportingJob;
+
+/**
+ * Reads the results of a query in a single pass over one {@link ResultSet},
+ * fetched from the server by batches of the given size. Numbers and booleans
+ * are read as such, other values as text.
+ * <p>
+ * This replaces {@link DBQueryResultImportReader}, which runs the query again for
+ * each batch, unless the "create.streaming" property of the extension is false.
+ */
+public class DBQueryResultStreamingReader implements TableDataReader {
+    
+    private static final Logger logger = LoggerFactory.getLogger("DBQueryResultStreamingReader");
+
+    private final ImportingJob job;
+    private final String querySource;    
+    private List<DatabaseColumn> dbColumns;
+    private final int batchSize;    
+    
+    private boolean end = false;
+    private boolean usedHeaders = false;
+    private DatabaseService databaseService;
+    private DatabaseQueryInfo dbQueryInfo;
+    private int processedRows = 0;
+    private ResultSet resultSet;
+    private int[] sqlTypes;
+    private int[] sqlScales;
+    
+    
+    public DBQueryResultStreamingReader(
+            ImportingJob job, 
+            DatabaseService databaseService,
+            String querySource,
+            List<DatabaseColumn> columns,
+            DatabaseQueryInfo dbQueryInfo,
+            int batchSize) {
+      
+        this.job = job;
+        this.querySource = querySource;
+        this.batchSize = batchSize;
+        this.dbColumns = columns;
+        this.databaseService = databaseService;
+        this.dbQueryInfo = dbQueryInfo;
+        if(logger.isDebugEnabled()) {
+            logger.debug("batchSize:" + batchSize);
+        }
+
+    }
+
+    @Override
+    public List<Object> getNextRowOfCells() throws IOException {
+        if (!usedHeaders) {
+            List<Object> row = new ArrayList<Object>(dbColumns.size());
+            for (DatabaseColumn cd : dbColumns) {
+                row.add(cd.getName());
+            }
+            usedHeaders = true;
+            return row;
+        }
+        if (end) {
+            return null;
+        }
+        
+        try {
+            if (resultSet == null) {
+                resultSet = databaseService.executeStreamingQuery(
+                        dbQueryInfo.getDbConfig(), dbQueryInfo.getQuery(), batchSize);
+                ResultSetMetaData metadata = resultSet.getMetaData();
+                sqlTypes = new int[Math.min(metadata.getColumnCount(), dbColumns.size())];
+                sqlScales = new int[sqlTypes.length];
+                for (int i = 0; i < sqlTypes.length; i++) {
+                    sqlTypes[i] = metadata.getColumnType(i + 1);
+                    sqlScales[i] = metadata.getScale(i + 1);
+                }
+            }
+            
+            if (!resultSet.next()) {
+                if(logger.isDebugEnabled()) {
+                    logger.debug("[[processedRows:{} ]]", processedRows);
+                }
+                close();
+                return null;
+            }
+            
+            List<Object> rowOfCells = new ArrayList<Object>(sqlTypes.length);
+            for (int i = 0; i < sqlTypes.length; i++) {
+                rowOfCells.add(getCellValue(i + 1, sqlTypes[i], sqlScales[i]));
+            }
+            
+            processedRows++;
+            if (processedRows % 10000 == 0) {
+                setProgress(job, querySource, -1);
+                if(logger.isDebugEnabled()) {
+                    logger.debug("[[ {} rows processed... ]]",processedRows); 
+                }
+            }
+            return rowOfCells;
+        } catch (SQLException e) {
+            logger.error("SQLException::{}", e);
+            close();
+            throw new IOException(e);
+        } catch (DatabaseServiceException e) {
+            logger.error("DatabaseServiceException::{}", e);
+            throw new IOException(e);
+        }
+    }
+    
+    /**
+     * Reads a value with the getter matching its SQL type, rather than parsing
+     * its text. Blank text is read as null.
+     */
+    private Object getCellValue(int index, int sqlType, int scale) throws SQLException {
+        switch (sqlType) {
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.INTEGER:
+        case Types.BIGINT: {
+            Object value = resultSet.getObject(index);
+            if (value instanceof BigInteger) {
+                // unsigned BIGINT
+                BigInteger bigInteger = (BigInteger) value;
+                return bigInteger.bitLength() < 64 ? (Object) bigInteger.longValue() : bigInteger.toString();
+            } else if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            return value instanceof Boolean ? value : toText(value);
+        }
+        case Types.REAL:
+        case Types.FLOAT:
+        case Types.DOUBLE: {
+            double d = resultSet.getDouble(index);
+            if (resultSet.wasNull()) {
+                return null;
+            }
+            return Double.isInfinite(d) || Double.isNaN(d) ? (Object) Double.toString(d) : (Object) d;
+        }
+        case Types.NUMERIC:
+        case Types.DECIMAL: {
+            BigDecimal decimal = resultSet.getBigDecimal(index);
+            if (decimal == null) {
+                return null;
+            }
+            if (scale <= 0) {
+                // integers, unless the column has no declared scale
+                try {
+                    return decimal.longValueExact();
+                } catch (ArithmeticException e) {
+                    if (decimal.scale() <= 0) {
+                        return decimal.toPlainString();
+                    }
+                }
+            }
+            // read as doubles even when whole, so that the column has a single type
+            double d = decimal.doubleValue();
+            return Double.isInfinite(d) ? (Object) decimal.toPlainString() : (Object) d;
+        }
+        case Types.BOOLEAN: {
+            boolean b = resultSet.getBoolean(index);
+            return resultSet.wasNull() ? null : (Object) b;
+        }
+        default:
+            return toText(resultSet.getString(index));
+        }
+    }
+    
+    private static Object toText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString();
+        return text.isEmpty() ? null : text;
+    }
+    
+    /**
+     * Releases the query, which is only done automatically once all its rows
+     * have been read.
+     */
+    public void close() {
+        end = true;
+        if (resultSet != null) {
+            databaseService.closeStreamingQuery(resultSet);
+            resultSet = null;
+        }
+    }
+    
+    private static void setProgress(ImportingJob job, String querySource, int percent) {
+        job.setProgress(percent, "Reading " + querySource);
+    }
+ 
+    public List<DatabaseColumn> getColumns() {
+        return dbColumns;
+    }
+
+    
+    public void setColumns(List<DatabaseColumn> columns) {
+        this.dbColumns = columns;
+    }
+
+    
+    public int getProcessedRows() {
+        return processedRows;
+    }
+
+    
+    public boolean isEnd() {
+        return end;
+    }
+}
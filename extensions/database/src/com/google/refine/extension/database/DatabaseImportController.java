@@ -408,16 +408,27 @@ public class DatabaseImportController implements ImportingController {
     
         long startTime = System.currentTimeMillis() ;
         
-        TabularImportingParserBase.readTable(
-                project,
-                metadata,
-                job,
-                new DBQueryResultImportReader(job, databaseService, querySource, columns, dbQueryInfo, getCreateBatchSize()),
-                querySource,
-                limit,
-                options,
-                exceptions
-            );
+        if (DatabaseModuleImpl.isImportStreamingEnabled()) {
+            DBQueryResultStreamingReader reader = new DBQueryResultStreamingReader(
+                    job, databaseService, querySource, columns, dbQueryInfo, getCreateBatchSize());
+            try {
+                TabularImportingParserBase.readTable(project, job, reader, limit, options, exceptions);
+            } finally {
+                // the import stops before the end of the results when canceled or limited
+                reader.close();
+            }
+        } else {
+            TabularImportingParserBase.readTable(
+                    project,
+                    metadata,
+                    job,
+                    new DBQueryResultImportReader(job, databaseService, querySource, columns, dbQueryInfo, getCreateBatchSize()),
+                    querySource,
+                    limit,
+                    options,
+                    exceptions
+                );
+        }
         
         long endTime = System.currentTimeMillis() ;
         if(logger.isDebugEnabled()) {
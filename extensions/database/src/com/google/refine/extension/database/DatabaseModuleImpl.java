@@ -76,6 +76,17 @@ public class DatabaseModuleImpl extends ButterflyModuleImpl {
         return extensionProperties.getProperty("create.batchSize", DEFAULT_CREATE_PROJ_BATCH_SIZE);
     }
 
+    /**
+     * Whether projects are created by reading the results of the query in a single
+     * pass, with {@link DBQueryResultStreamingReader}.
+     */
+    public static boolean isImportStreamingEnabled() {
+        if(extensionProperties == null) {
+            return true;
+        }
+        return Boolean.parseBoolean(extensionProperties.getProperty("create.streaming", "true").trim());
+    }
+
     public static String getImportPreviewBatchSize() {
         if(extensionProperties == null) {
             return DEFAULT_PREVIEW_BATCH_SIZE;
@@ -29,6 +29,9 @@
 package com.google.refine.extension.database;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -153,4 +156,74 @@ public abstract class DatabaseService {
     
     public abstract List<DatabaseRow> getRows(DatabaseConfiguration dbConfig, String query) throws DatabaseServiceException;
 
+    /**
+     * Executes a query and returns its results as a forward-only ResultSet,
+     * fetched from the server by batches rather than all at once where the
+     * driver supports it. The ResultSet must be released with
+     * {@link #closeStreamingQuery(ResultSet)}.
+     */
+    public ResultSet executeStreamingQuery(DatabaseConfiguration dbConfig, String query, int fetchSize)
+            throws DatabaseServiceException {
+        Connection connection = getConnection(dbConfig);
+        Statement statement = null;
+        try {
+            statement = createStreamingStatement(connection, fetchSize);
+            return statement.executeQuery(query);
+        } catch (SQLException e) {
+            logger.error("SQLException::", e);
+            if (statement != null) {
+                closeStatement(statement);
+            }
+            closeConnection(connection);
+            throw new DatabaseServiceException(true, e.getSQLState(), e.getErrorCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a statement whose results are read as they are fetched.
+     */
+    protected Statement createStreamingStatement(Connection connection, int fetchSize) throws SQLException {
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
+    /**
+     * Closes a ResultSet returned by {@link #executeStreamingQuery(DatabaseConfiguration, String, int)},
+     * along with its statement and the connection it was opened with.
+     */
+    public void closeStreamingQuery(ResultSet resultSet) {
+        try {
+            Statement statement = resultSet.getStatement();
+            resultSet.close();
+            if (statement != null) {
+                Connection connection = statement.getConnection();
+                closeStatement(statement);
+                closeConnection(connection);
+            }
+        } catch (SQLException e) {
+            logger.warn("SQLException while closing query::", e);
+        }
+    }
+
+    private void closeConnection(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("SQLException while closing connection::", e);
+        }
+    }
+
+    /**
+     * Closes a statement created by {@link #createStreamingStatement(Connection, int)},
+     * restoring its connection to the state it was found in.
+     */
+    protected void closeStatement(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.warn("SQLException while closing statement::", e);
+        }
+    }
+
 }
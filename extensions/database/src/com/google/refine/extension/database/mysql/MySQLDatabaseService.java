@@ -218,6 +218,13 @@ public class MySQLDatabaseService extends DatabaseService {
         return  MySQLConnectionManager.getInstance().getConnection(dbConfig, true);
     }
 
+    @Override
+    protected Statement createStreamingStatement(Connection connection, int fetchSize) throws SQLException {
+        // Connector/J only streams rows one by one with this fetch size, and would
+        // otherwise read all of them in memory
+        return super.createStreamingStatement(connection, Integer.MIN_VALUE);
+    }
+
     @Override
     public DatabaseInfo testQuery(DatabaseConfiguration dbConfig, String query)
             throws DatabaseServiceException {
@@ -213,6 +213,25 @@ public class PgSQLDatabaseService extends DatabaseService {
         return PgSQLConnectionManager.getInstance().getConnection(dbConfig, true);
     }
 
+    @Override
+    protected Statement createStreamingStatement(Connection connection, int fetchSize) throws SQLException {
+        // the driver only reads results through a cursor inside a transaction
+        connection.setAutoCommit(false);
+        return super.createStreamingStatement(connection, fetchSize);
+    }
+
+    @Override
+    protected void closeStatement(Statement statement) {
+        try {
+            Connection connection = statement.getConnection();
+            super.closeStatement(statement);
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.warn("SQLException while ending transaction::", e);
+        }
+    }
+
     @Override
     public DatabaseInfo testQuery(DatabaseConfiguration dbConfig, String query)
             throws DatabaseServiceException {
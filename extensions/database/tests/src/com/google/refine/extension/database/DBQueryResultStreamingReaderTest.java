@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.extension.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterTest;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.refine.extension.database.model.DatabaseColumn;
+import com.google.refine.extension.database.model.DatabaseQueryInfo;
+import com.google.refine.extension.database.sqlite.SQLiteDatabaseService;
+import com.google.refine.importing.ImportingJob;
+
+@Test(groups = { "requiresSQLite" })
+public class DBQueryResultStreamingReaderTest extends DBExtensionTests {
+
+    private static final String DB_NAME = "import_reader_test_db.sqlite";
+
+    private DatabaseConfiguration testDbConfig;
+
+    @BeforeTest
+    public void beforeTest() throws DatabaseServiceException, SQLException {
+        testDbConfig = new DatabaseConfiguration();
+        testDbConfig.setDatabaseName(DB_NAME);
+        testDbConfig.setDatabaseType(SQLiteDatabaseService.DB_NAME);
+        DatabaseService.DBType.registerDatabase(SQLiteDatabaseService.DB_NAME, SQLiteDatabaseService.getInstance());
+
+        Connection connection = DatabaseService.get(SQLiteDatabaseService.DB_NAME).getConnection(testDbConfig);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS typed_data");
+            statement.executeUpdate("CREATE TABLE typed_data (ID INTEGER, NAME VARCHAR(20), PRICE REAL, AMOUNT DECIMAL(10,2))");
+            statement.executeUpdate("INSERT INTO typed_data VALUES (1, 'first', 1.5, 2.5), (2, '', NULL, NULL), (3, 'third', 3.25, 4)");
+        }
+    }
+
+    @AfterTest
+    public void afterTest() {
+        File f = new File(DB_NAME);
+        if (f.exists()) {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testStreamTypedRows() throws DatabaseServiceException, IOException {
+        DatabaseService service = DatabaseService.get(SQLiteDatabaseService.DB_NAME);
+        String query = "SELECT * FROM typed_data ORDER BY ID";
+        List<DatabaseColumn> columns = service.getColumns(testDbConfig, query);
+
+        DBQueryResultStreamingReader reader = new DBQueryResultStreamingReader(Mockito.mock(ImportingJob.class),
+                service, "test", columns, new DatabaseQueryInfo(testDbConfig, query), 2);
+        try {
+            Assert.assertEquals(reader.getNextRowOfCells(), Arrays.asList("ID", "NAME", "PRICE", "AMOUNT"));
+            Assert.assertEquals(reader.getNextRowOfCells(), Arrays.asList(1L, "first", 1.5, 2.5));
+            Assert.assertEquals(reader.getNextRowOfCells(), Arrays.asList(2L, null, null, null));
+            Assert.assertEquals(reader.getNextRowOfCells(), Arrays.asList(3L, "third", 3.25, 4.0));
+            Assert.assertNull(reader.getNextRowOfCells());
+            Assert.assertTrue(reader.isEnd());
+            Assert.assertEquals(reader.getProcessedRows(), 3);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testCloseStreamingQueryClosesConnection() throws DatabaseServiceException, SQLException {
+        DatabaseService service = DatabaseService.get(SQLiteDatabaseService.DB_NAME);
+        ResultSet resultSet = service.executeStreamingQuery(testDbConfig, "SELECT * FROM typed_data", 2);
+        Connection connection = resultSet.getStatement().getConnection();
+
+        service.closeStreamingQuery(resultSet);
+        Assert.assertTrue(connection.isClosed());
+    }
+}
@@ -45,6 +45,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.slf4j.Logger;
@@ -73,7 +78,7 @@ public abstract class ProjectManager {
     // If a project has been idle this long, flush it from memory
     static protected final int PROJECT_FLUSH_DELAY = 1000 * 60 * 15; // 15 minutes
     
-    // Don't spend more than this much time saving projects if doing a quick save
+    // Don't wait more than this much time for quick saves running in the background
     static protected final int QUICK_SAVE_MAX_TIME = 1000 * 30; // 30 secs
 
 
@@ -101,6 +106,17 @@ public abstract class ProjectManager {
      */
     transient protected Map<Long, Project> _projects;
 
+    /**
+     *  Where quick saves write modified projects, so that they do not hold up the
+     *  caller. Created on the first quick save.
+     */
+    transient private ExecutorService _saveExecutor;
+
+    /**
+     *  The ids of the projects queued or being saved by the save executor.
+     */
+    transient private final Set<Long> _projectsBeingSaved = ConcurrentHashMap.newKeySet();
+
     static public ProjectManager singleton;
 
     protected ProjectManager(){
@@ -113,6 +129,21 @@ public abstract class ProjectManager {
     }
     
     public void dispose() {
+        ExecutorService saveExecutor;
+        synchronized (this) {
+            saveExecutor = _saveExecutor;
+            _saveExecutor = null;
+        }
+        if (saveExecutor != null) {
+            saveExecutor.shutdown();
+            try {
+                if (!saveExecutor.awaitTermination(QUICK_SAVE_MAX_TIME, TimeUnit.MILLISECONDS)) {
+                    logger.warn("Projects still being saved in the background");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         save(true); // complete save
 
         for (Project project : _projects.values()) {
@@ -224,6 +255,17 @@ public abstract class ProjectManager {
      */
     protected abstract void saveProject(Project project) throws IOException;
 
+    /**
+     * Save project to the data store without holding it up for longer than needed,
+     * as done for quick saves in the background. Changes made to the project while
+     * it is saved must leave it modified. Defaults to {@link #saveProject(Project)}.
+     * @param project
+     * @throws IOException
+     */
+    protected void saveProjectSnapshot(Project project) throws IOException {
+        saveProject(project);
+    }
+
     /**
      * Save workspace and all projects to data store
      * @param allModified
@@ -306,17 +348,14 @@ public abstract class ProjectManager {
                 }
             });
 
-            logger.info(allModified ?
-                "Saving all modified projects ..." :
-                "Saving some modified projects ..."
-            );
+            if (!allModified) {
+                saveProjectsInBackground(records);
+                return;
+            }
 
-            for (int i = 0;
-                 i < records.size() &&
-                    (allModified || (LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - 
-                            startTimeOfSave.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() < QUICK_SAVE_MAX_TIME));
-                 i++) {
+            logger.info("Saving all modified projects ...");
 
+            for (int i = 0; i < records.size(); i++) {
                 try {
                     saveProject(records.get(i).project);
                 } catch (Exception e) {
@@ -328,6 +367,45 @@ public abstract class ProjectManager {
         }
     }
 
+    /**
+     * Queues modified projects to be saved one at a time on a background thread, most
+     * overdue first. Projects which are still queued from a previous quick save are
+     * skipped; they stay modified until saved, so they are not flushed meanwhile.
+     */
+    protected void saveProjectsInBackground(List<SaveRecord> records) {
+        ExecutorService executor;
+        synchronized (this) {
+            if (_saveExecutor == null) {
+                _saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "project-autosave");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            executor = _saveExecutor;
+        }
+
+        logger.info("Saving some modified projects ...");
+
+        for (SaveRecord record : records) {
+            Project project = record.project;
+            if (!_projectsBeingSaved.add(project.id)) {
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    saveProjectSnapshot(project);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    // In case we're running low on memory, free as much as we can
+                    disposeUnmodifiedProjects();
+                } finally {
+                    _projectsBeingSaved.remove(project.id);
+                }
+            });
+        }
+    }
+
     /**
      * Flush all unmodified projects from memory.
      */
@@ -33,6 +33,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.browsing;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -40,12 +42,16 @@ import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.refine.browsing.facets.Facet;
+import com.google.refine.browsing.facets.FacetConfig;
 import com.google.refine.browsing.util.ConjunctiveFilteredRecords;
 import com.google.refine.browsing.util.ConjunctiveFilteredRows;
 import com.google.refine.browsing.util.FilteredRecordsAsFilteredRows;
+import com.google.refine.browsing.util.FusedRowFilters;
+import com.google.refine.browsing.util.RowBitmapCache;
 import com.google.refine.model.Project;
-import com.google.refine.model.Row;
+import com.google.refine.util.ParsingUtilities;
 
 /**
  * Faceted browsing engine.
@@ -92,24 +98,8 @@ public class Engine  {
 
     @JsonIgnore
     public FilteredRows getAllRows() {
-        return new FilteredRows() {
-            @Override
-            public void accept(Project project, RowVisitor visitor) {
-                try {
-                    visitor.start(project);
-
-                    int c = project.rows.size();
-                    for (int rowIndex = 0; rowIndex < c; rowIndex++) {
-                        Row row = project.rows.get(rowIndex);
-                        if (visitor.visit(project, rowIndex, row)) {
-                            break;
-                        }
-                    }
-                } finally {
-                    visitor.end(project);
-                }
-            }
-        };
+        // no filter: visits all rows, in parallel when possible
+        return new ConjunctiveFilteredRows();
     }
 
     @JsonIgnore
@@ -122,11 +112,17 @@ public class Engine  {
             return new FilteredRecordsAsFilteredRows(getFilteredRecords(except));
         } else if (_config.getMode().equals(Mode.RowBased)) {
             ConjunctiveFilteredRows cfr = new ConjunctiveFilteredRows();
-            for (Facet facet : _facets) {
+            for (int i = 0; i < _facets.size(); i++) {
+                Facet facet = _facets.get(i);
                 if (facet != except) {
                     RowFilter rowFilter = facet.getRowFilter(_project);
                     if (rowFilter != null) {
-                        cfr.add(rowFilter);
+                        BitSet rows = RowBitmapCache.get(_project, getCacheKey(i), rowFilter.getColumnDependencies());
+                        if (rows != null) {
+                            cfr.add(rows);
+                        } else {
+                            cfr.add(rowFilter);
+                        }
                     }
                 }
             }
@@ -182,12 +178,38 @@ public class Engine  {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * @return the key under which the rows matched by the i-th facet are cached, or
+     *         null if they should not be cached
+     */
+    protected String getCacheKey(int i) {
+        List<FacetConfig> facetConfigs = _config.getFacetConfigs();
+        if (facetConfigs.size() != _facets.size()) {
+            return null;
+        }
+        FacetConfig facetConfig = facetConfigs.get(i);
+        try {
+            return facetConfig.getJsonType() + ":" + ParsingUtilities.mapper.writeValueAsString(facetConfig);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
     public void computeFacets() {
         if (_config.getMode().equals(Mode.RowBased)) {
-            for (Facet facet : _facets) {
-                FilteredRows filteredRows = getFilteredRows(facet);
+            List<RowFilter> rowFilters = new ArrayList<>(_facets.size());
+            List<String> cacheKeys = new ArrayList<>(_facets.size());
+            for (int i = 0; i < _facets.size(); i++) {
+                rowFilters.add(_facets.get(i).getRowFilter(_project));
+                cacheKeys.add(getCacheKey(i));
+            }
+
+            // evaluate each facet's filter once per row, rather than once per other facet
+            FusedRowFilters fusedRowFilters = new FusedRowFilters(_project, rowFilters, cacheKeys);
+            for (int i = 0; i < _facets.size(); i++) {
+                FilteredRows filteredRows = fusedRowFilters.getFilteredRows(i);
 
-                facet.computeChoices(_project, filteredRows);
+                _facets.get(i).computeChoices(_project, filteredRows);
             }
         } else if (_config.getMode().equals(Mode.RecordBased)) {
             for (Facet facet : _facets) {
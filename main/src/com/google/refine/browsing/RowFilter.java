@@ -33,6 +33,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.browsing;
 
+import java.util.Set;
+
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 
@@ -42,4 +44,21 @@ import com.google.refine.model.Row;
  */
 public interface RowFilter {
     public boolean filterRow(Project project, int rowIndex, Row row);
+
+    /**
+     * @return true if {@link #filterRow(Project, int, Row)} can be called
+     *         concurrently from several threads
+     */
+    default public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * @return the names of the columns whose cells determine whether a row matches,
+     *         or null if unknown. Filters with known dependencies can have their
+     *         results cached until one of these columns changes.
+     */
+    default public Set<String> getColumnDependencies() {
+        return null;
+    }
 }
@@ -53,7 +53,7 @@ import com.google.refine.browsing.filters.AnyRowRecordFilter;
 import com.google.refine.browsing.filters.ExpressionEqualRowFilter;
 import com.google.refine.browsing.util.ExpressionNominalValueGrouper;
 import com.google.refine.expr.Evaluable;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -258,7 +258,7 @@ public class ListFacet implements Facet {
         }
         
         try {
-            _eval = MetaParser.parse(_config.expression);
+            _eval = ParsedExpressionCache.parse(_config.expression);
         } catch (ParsingException e) {
             _errorMessage = e.getMessage();
         }
@@ -51,7 +51,7 @@ import com.google.refine.browsing.util.NumericBinRecordIndex;
 import com.google.refine.browsing.util.NumericBinRowIndex;
 import com.google.refine.browsing.util.RowEvaluable;
 import com.google.refine.expr.Evaluable;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -286,7 +286,7 @@ public class RangeFacet implements Facet {
         }
         
         try {
-            _eval = MetaParser.parse(_config._expression);
+            _eval = ParsedExpressionCache.parse(_config._expression);
         } catch (ParsingException e) {
             _errorMessage = e.getMessage();
         }
@@ -43,22 +43,25 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordVisitor;
-import com.google.refine.browsing.RowVisitor;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
 import com.google.refine.model.Record;
 import com.google.refine.model.Row;
 
-public class ScatterplotDrawingRowVisitor implements RowVisitor, RecordVisitor {
+public class ScatterplotDrawingRowVisitor implements MergeableRowVisitor, RecordVisitor {
 
     int col_x;
     int col_y;
     int dim_x;
     int dim_y;
 
+    int size;
+    int rotation;
     double l;
     double dot;
+    Color color;
 
     double min_x;
     double max_x;
@@ -73,6 +76,13 @@ public class ScatterplotDrawingRowVisitor implements RowVisitor, RecordVisitor {
     public ScatterplotDrawingRowVisitor(
             int col_x, int col_y, double min_x, double max_x, double min_y, double max_y,
             int size, int dim_x, int dim_y, int rotation, double dot, Color color)  
+    {
+        this(col_x, col_y, min_x, max_x, min_y, max_y, size, dim_x, dim_y, rotation, dot, color, false);
+    }
+
+    private ScatterplotDrawingRowVisitor(
+            int col_x, int col_y, double min_x, double max_x, double min_y, double max_y,
+            int size, int dim_x, int dim_y, int rotation, double dot, Color color, boolean partial)
     {
         this.col_x = col_x;
         this.col_y = col_y;
@@ -83,6 +93,9 @@ public class ScatterplotDrawingRowVisitor implements RowVisitor, RecordVisitor {
         this.dot = dot;
         this.dim_x = dim_x;
         this.dim_y = dim_y;
+        this.size = size;
+        this.rotation = rotation;
+        this.color = color;
         
         l = size;
         r = ScatterplotFacet.createRotationMatrix(rotation, l);
@@ -99,7 +112,7 @@ public class ScatterplotDrawingRowVisitor implements RowVisitor, RecordVisitor {
         g2.setColor(color);
         g2.setPaint(color);
         
-        if (r != null) {
+        if (r != null && !partial) {
             /*
              *  Fill in the negative quadrants to give a hint of how the plot has been rotated.
              */
@@ -114,6 +127,7 @@ public class ScatterplotDrawingRowVisitor implements RowVisitor, RecordVisitor {
     }
     
     public void setColor(Color color) {
+        this.color = color;
         g2.setColor(color);
         g2.setPaint(color);
     }
@@ -149,6 +163,20 @@ public class ScatterplotDrawingRowVisitor implements RowVisitor, RecordVisitor {
         return false;
     }
     
+    @Override
+    public MergeableRowVisitor fork(Project project) {
+        // partial visitors draw on transparent layers which are then painted over this image
+        return new ScatterplotDrawingRowVisitor(
+                col_x, col_y, min_x, max_x, min_y, max_y, size, dim_x, dim_y, rotation, dot, color, true);
+    }
+
+    @Override
+    public void merge(MergeableRowVisitor partial) {
+        Graphics2D g = image.createGraphics();
+        g.drawImage(((ScatterplotDrawingRowVisitor) partial).image, 0, 0, null);
+        g.dispose();
+    }
+
     @Override
     public boolean visit(Project project, Record record) {
         for (int r = record.fromRowIndex; r < record.toRowIndex; r++) {
@@ -62,7 +62,7 @@ import com.google.refine.browsing.util.NumericBinIndex;
 import com.google.refine.browsing.util.NumericBinRecordIndex;
 import com.google.refine.browsing.util.NumericBinRowIndex;
 import com.google.refine.expr.Evaluable;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -357,7 +357,7 @@ public class ScatterplotFacet implements Facet {
         }
         
         try {
-            eval_x = MetaParser.parse(config.expression_x);
+            eval_x = ParsedExpressionCache.parse(config.expression_x);
         } catch (ParsingException e) {
             errorMessage_x = e.getMessage();
         }
@@ -378,7 +378,7 @@ public class ScatterplotFacet implements Facet {
         }
         
         try {
-            eval_y = MetaParser.parse(config.expression_y);
+            eval_y = ParsedExpressionCache.parse(config.expression_y);
         } catch (ParsingException e) {
             errorMessage_y = e.getMessage();
         }
@@ -509,7 +509,7 @@ public class ScatterplotFacet implements Facet {
         String key = "numeric-bin:" + mode + ":" + expression;
         if (eval == null) {
             try {
-                eval = MetaParser.parse(expression);
+                eval = ParsedExpressionCache.parse(expression);
             } catch (ParsingException e) {
                 logger.warn("Error parsing expression",e);
             }
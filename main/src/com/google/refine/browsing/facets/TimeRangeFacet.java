@@ -50,7 +50,7 @@ import com.google.refine.browsing.util.TimeBinIndex;
 import com.google.refine.browsing.util.TimeBinRecordIndex;
 import com.google.refine.browsing.util.TimeBinRowIndex;
 import com.google.refine.expr.Evaluable;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -236,7 +236,7 @@ public class TimeRangeFacet implements Facet {
         }
         
         try {
-            _eval = MetaParser.parse(_config._expression);
+            _eval = ParsedExpressionCache.parse(_config._expression);
         } catch (ParsingException e) {
             _errorMessage = e.getMessage();
         }
@@ -34,7 +34,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.browsing.filters;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.browsing.RowFilter;
 import com.google.refine.expr.Evaluable;
@@ -72,6 +74,23 @@ abstract public class DualExpressionsNumberComparisonRowFilter implements RowFil
         _y_cellIndex = y_cellIndex;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return _x_evaluable.isThreadSafe() && _y_evaluable.isThreadSafe();
+    }
+
+    @Override
+    public Set<String> getColumnDependencies() {
+        Set<String> x = _x_evaluable.getColumnDependencies(_x_columnName);
+        Set<String> y = _y_evaluable.getColumnDependencies(_y_columnName);
+        if (x == null || y == null) {
+            return null;
+        }
+        Set<String> dependencies = new HashSet<>(x);
+        dependencies.addAll(y);
+        return dependencies;
+    }
+
     @Override
     public boolean filterRow(Project project, int rowIndex, Row row) {
         Cell x_cell = _x_cellIndex < 0 ? null : row.getCell(_x_cellIndex);
@@ -35,6 +35,7 @@ package com.google.refine.browsing.filters;
 
 import java.util.Collection;
 import java.util.Properties;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.refine.browsing.RowFilter;
@@ -81,6 +82,16 @@ public class ExpressionEqualRowFilter implements RowFilter {
         _invert = invert;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return _evaluable.isThreadSafe();
+    }
+
+    @Override
+    public Set<String> getColumnDependencies() {
+        return _evaluable.getColumnDependencies(_columnName);
+    }
+
     @Override
     public boolean filterRow(Project project, int rowIndex, Row row) {
         return _invert ?
@@ -35,6 +35,7 @@ package com.google.refine.browsing.filters;
 
 import java.util.Collection;
 import java.util.Properties;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.refine.browsing.RowFilter;
@@ -71,6 +72,16 @@ abstract public class ExpressionNumberComparisonRowFilter implements RowFilter {
         _selectError = selectError;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return _rowEvaluable.isThreadSafe();
+    }
+
+    @Override
+    public Set<String> getColumnDependencies() {
+        return _rowEvaluable.getColumnDependencies();
+    }
+
     @Override
     public boolean filterRow(Project project, int rowIndex, Row row) {
         Properties bindings = ExpressionUtils.createBindings(project);
@@ -35,6 +35,7 @@ package com.google.refine.browsing.filters;
 
 import java.util.Collection;
 import java.util.Properties;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.refine.browsing.RowFilter;
@@ -62,6 +63,16 @@ abstract public class ExpressionStringComparisonRowFilter implements RowFilter {
         _cellIndex = cellIndex;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return _evaluable.isThreadSafe();
+    }
+
+    @Override
+    public Set<String> getColumnDependencies() {
+        return _evaluable.getColumnDependencies(_columnName);
+    }
+
     @Override
     public boolean filterRow(Project project, int rowIndex, Row row) {
         Cell cell = _cellIndex < 0 ? null : row.getCell(_cellIndex);
@@ -34,6 +34,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.browsing.util;
 
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
@@ -64,4 +65,14 @@ public class ExpressionBasedRowEvaluable implements RowEvaluable {
         
         return _eval.evaluate(bindings);
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return _eval.isThreadSafe();
+    }
+
+    @Override
+    public Set<String> getColumnDependencies() {
+        return _eval.getColumnDependencies(_columnName);
+    }
 }
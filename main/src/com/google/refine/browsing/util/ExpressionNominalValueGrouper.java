@@ -41,8 +41,8 @@ import java.util.Map;
 import java.util.Properties;
 
 import com.google.refine.browsing.DecoratedValue;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordVisitor;
-import com.google.refine.browsing.RowVisitor;
 import com.google.refine.browsing.facets.NominalFacetChoice;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
@@ -56,7 +56,7 @@ import com.google.refine.util.StringUtils;
  * Visit matched rows or records and group them into facet choices based on the values computed
  * from a given expression.
  */
-public class ExpressionNominalValueGrouper implements RowVisitor, RecordVisitor {
+public class ExpressionNominalValueGrouper implements MergeableRowVisitor, RecordVisitor {
     static public class IndexedNominalFacetChoice extends NominalFacetChoice {
         int _latestIndex;
 
@@ -121,6 +121,28 @@ public class ExpressionNominalValueGrouper implements RowVisitor, RecordVisitor
         return false;
     }
 
+    @Override
+    public MergeableRowVisitor fork(Project project) {
+        return _evaluable.isThreadSafe() ? new ExpressionNominalValueGrouper(_evaluable, _columnName, _cellIndex) : null;
+    }
+
+    @Override
+    public void merge(MergeableRowVisitor partial) {
+        ExpressionNominalValueGrouper other = (ExpressionNominalValueGrouper) partial;
+        for (Map.Entry<Object, IndexedNominalFacetChoice> entry : other.choices.entrySet()) {
+            IndexedNominalFacetChoice choice = choices.get(entry.getKey());
+            if (choice == null) {
+                choices.put(entry.getKey(), entry.getValue());
+            } else {
+                // partial visitors cover disjoint rows, so counts simply add up
+                choice.count += entry.getValue().count;
+                choice._latestIndex = Math.max(choice._latestIndex, entry.getValue()._latestIndex);
+            }
+        }
+        blankCount += other.blankCount;
+        errorCount += other.errorCount;
+    }
+
     @Override
     public boolean visit(Project project, Record record) {
         Properties bindings = ExpressionUtils.createBindings(project);
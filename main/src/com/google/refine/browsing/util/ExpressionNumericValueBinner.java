@@ -36,8 +36,8 @@ package com.google.refine.browsing.util;
 import java.util.Collection;
 import java.util.Properties;
 
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordVisitor;
-import com.google.refine.browsing.RowVisitor;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.model.Project;
 import com.google.refine.model.Record;
@@ -47,7 +47,7 @@ import com.google.refine.model.Row;
  * Visit matched rows or records and slot them into bins based on the numbers computed
  * from a given expression.
  */
-public class ExpressionNumericValueBinner implements RowVisitor, RecordVisitor {
+public class ExpressionNumericValueBinner implements MergeableRowVisitor, RecordVisitor {
     /*
      * Configuration
      */
@@ -99,6 +99,23 @@ public class ExpressionNumericValueBinner implements RowVisitor, RecordVisitor {
         return false;
     }
     
+    @Override
+    public MergeableRowVisitor fork(Project project) {
+        return _rowEvaluable.isThreadSafe() ? new ExpressionNumericValueBinner(_rowEvaluable, _index) : null;
+    }
+
+    @Override
+    public void merge(MergeableRowVisitor partial) {
+        ExpressionNumericValueBinner other = (ExpressionNumericValueBinner) partial;
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] += other.bins[i];
+        }
+        numericCount += other.numericCount;
+        nonNumericCount += other.nonNumericCount;
+        blankCount += other.blankCount;
+        errorCount += other.errorCount;
+    }
+
     @Override
     public boolean visit(Project project, Record record) {
         resetFlags();
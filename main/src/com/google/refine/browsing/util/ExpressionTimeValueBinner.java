@@ -37,8 +37,8 @@ import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.Properties;
 
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RecordVisitor;
-import com.google.refine.browsing.RowVisitor;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.model.Project;
 import com.google.refine.model.Record;
@@ -48,7 +48,7 @@ import com.google.refine.model.Row;
  * Visit matched rows or records and slot them into bins based on the date computed
  * from a given expression.
  */
-public class ExpressionTimeValueBinner implements RowVisitor, RecordVisitor {
+public class ExpressionTimeValueBinner implements MergeableRowVisitor, RecordVisitor {
 
     /*
      * Configuration
@@ -101,6 +101,23 @@ public class ExpressionTimeValueBinner implements RowVisitor, RecordVisitor {
         return false;
     }
     
+    @Override
+    public MergeableRowVisitor fork(Project project) {
+        return _rowEvaluable.isThreadSafe() ? new ExpressionTimeValueBinner(_rowEvaluable, _index) : null;
+    }
+
+    @Override
+    public void merge(MergeableRowVisitor partial) {
+        ExpressionTimeValueBinner other = (ExpressionTimeValueBinner) partial;
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] += other.bins[i];
+        }
+        timeCount += other.timeCount;
+        nonTimeCount += other.nonTimeCount;
+        blankCount += other.blankCount;
+        errorCount += other.errorCount;
+    }
+
     @Override
     public boolean visit(Project project, Record record) {
         resetFlags();
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.browsing.util;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.google.refine.ProjectManager;
+
+/**
+ * Holds the thread pool used to visit rows in parallel, and decides how many chunks
+ * a scan over a given number of rows should be split into.
+ * <p>
+ * The number of worker threads is set by the "browsing.parallelism" preference.
+ * It defaults to 1, which keeps all row scans sequential.
+ */
+public class ParallelRowScanner {
+
+    static public final String PARALLELISM_PREFERENCE = "browsing.parallelism";
+
+    /**
+     * Scans over fewer rows than this per chunk are not worth splitting.
+     */
+    static protected int s_minChunkSize = 8192;
+
+    static private ForkJoinPool s_pool;
+
+    /**
+     * @return the configured number of worker threads for row scans
+     */
+    static public int getParallelism() {
+        if (ProjectManager.singleton == null) {
+            return 1;
+        }
+        int parallelism = ProjectManager.singleton.getPreferenceStore().getInteger(PARALLELISM_PREFERENCE, 1);
+        return Math.max(1, Math.min(parallelism, Runtime.getRuntime().availableProcessors() * 4));
+    }
+
+    /**
+     * @param rowCount
+     *            the number of rows to scan
+     * @return the number of chunks to split the scan into, 1 if the scan should be
+     *         sequential
+     */
+    static public int getChunkCount(int rowCount) {
+        int parallelism = getParallelism();
+        if (parallelism <= 1) {
+            return 1;
+        }
+        // a few chunks per thread, to keep all threads busy when filters are uneven
+        return Math.max(1, Math.min(parallelism * 4, rowCount / s_minChunkSize));
+    }
+
+    /**
+     * @return the pool to run chunks on, created with the current parallelism. When
+     *         the parallelism changes, the previous pool is not shut down, as scans
+     *         may still be submitting to it: its threads end once it is idle.
+     */
+    static synchronized public ForkJoinPool getPool() {
+        int parallelism = getParallelism();
+        if (s_pool == null || s_pool.getParallelism() != parallelism) {
+            s_pool = new ForkJoinPool(parallelism);
+        }
+        return s_pool;
+    }
+}
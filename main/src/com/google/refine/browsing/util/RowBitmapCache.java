@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+
+/**
+ * Caches the rows matched by row filters, so that a facet's filter is not evaluated
+ * again when only the other facets change.
+ * <p>
+ * Each bitmap is stored in the precomputes of all the columns its filter depends on.
+ * It is only used if it is still found in all of them: since
+ * {@link Column#clearPrecomputes()} is called on every cell-level or row-level change
+ * to a column, this invalidates the bitmap as soon as one of these columns changes.
+ */
+public class RowBitmapCache {
+
+    static final String PRECOMPUTE_KEY = "row-bitmaps";
+
+    /**
+     * Number of bitmaps kept per column, the least recently used ones being dropped
+     * first.
+     */
+    static protected int s_maxEntriesPerColumn = 32;
+
+    static protected class Entry {
+        final int rowCount;
+        final BitSet rows;
+
+        Entry(int rowCount, BitSet rows) {
+            this.rowCount = rowCount;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * @param project
+     *            the project the filter applies to
+     * @param key
+     *            a key identifying the filter, such as its facet configuration
+     * @param columnNames
+     *            the columns the filter depends on
+     * @return the cached rows matched by the filter, or null if they are not cached
+     *         or no longer valid. The returned bitmap must not be modified.
+     */
+    static public BitSet get(Project project, String key, Set<String> columnNames) {
+        if (key == null || columnNames == null || columnNames.isEmpty()) {
+            return null;
+        }
+        Entry entry = null;
+        for (String columnName : columnNames) {
+            Column column = project.columnModel.getColumnByName(columnName);
+            if (column == null) {
+                return null;
+            }
+            Entry e;
+            synchronized (column) {
+                e = getEntries(column).get(key);
+            }
+            if (e == null || (entry != null && e != entry)) {
+                return null;
+            }
+            entry = e;
+        }
+        return entry.rowCount == project.rows.size() ? entry.rows : null;
+    }
+
+    /**
+     * Stores the rows matched by a filter. Nothing is stored if the filter does not
+     * depend on any known column.
+     */
+    static public void put(Project project, String key, Set<String> columnNames, BitSet rows) {
+        if (key == null || columnNames == null || columnNames.isEmpty()) {
+            return;
+        }
+        Entry entry = new Entry(project.rows.size(), rows);
+        for (String columnName : columnNames) {
+            Column column = project.columnModel.getColumnByName(columnName);
+            if (column != null) {
+                synchronized (column) {
+                    getEntries(column).put(key, entry);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static protected Map<String, Entry> getEntries(Column column) {
+        Map<String, Entry> entries = (Map<String, Entry>) column.getPrecompute(PRECOMPUTE_KEY);
+        if (entries == null) {
+            entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > s_maxEntriesPerColumn;
+                }
+            };
+            column.setPrecompute(PRECOMPUTE_KEY, entries);
+        }
+        return entries;
+    }
+}
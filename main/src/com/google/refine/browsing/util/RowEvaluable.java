@@ -34,10 +34,27 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.browsing.util;
 
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 
 public interface RowEvaluable {
     public Object eval(Project project, int rowIndex, Row row, Properties bindings);
+
+    /**
+     * @return true if this can be evaluated concurrently from several threads,
+     *         each with their own bindings
+     */
+    default public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * @return the names of the columns read when evaluating a row, or null if
+     *         unknown
+     */
+    default public Set<String> getColumnDependencies() {
+        return null;
+    }
 }
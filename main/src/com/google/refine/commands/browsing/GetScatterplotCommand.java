@@ -56,7 +56,7 @@ import com.google.refine.browsing.facets.ScatterplotFacet;
 import com.google.refine.browsing.util.NumericBinIndex;
 import com.google.refine.commands.Command;
 import com.google.refine.expr.Evaluable;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -175,7 +175,7 @@ public class GetScatterplotCommand extends Command {
         }
 
         try {
-            eval_x = MetaParser.parse(o.expression_x);
+            eval_x = ParsedExpressionCache.parse(o.expression_x);
         } catch (ParsingException e) {
             logger.warn("error parsing expression", e);
         }
@@ -190,7 +190,7 @@ public class GetScatterplotCommand extends Command {
         }
 
         try {
-            eval_y = MetaParser.parse(o.expression_y);
+            eval_y = ParsedExpressionCache.parse(o.expression_y);
         } catch (ParsingException e) {
             logger.warn("error parsing expression", e);
         }
@@ -59,6 +59,7 @@ public class AddColumnByFetchingURLsCommand extends EngineDependentCommand {
         int delay = Integer.parseInt(request.getParameter("delay"));
         String onError = request.getParameter("onError");
         boolean cacheResponses = Boolean.parseBoolean(request.getParameter("cacheResponses"));
+        String concurrency = request.getParameter("concurrency");
         ObjectMapper mapper = new ObjectMapper();
         List<HttpHeader> headers = Arrays.asList(mapper.readValue(request.getParameter("httpHeaders"), HttpHeader[].class));
 
@@ -71,7 +72,8 @@ public class AddColumnByFetchingURLsCommand extends EngineDependentCommand {
             columnInsertIndex,
             delay,
             cacheResponses,
-            headers
+            headers,
+            concurrency == null || concurrency.isEmpty() ? 1 : Integer.parseInt(concurrency)
         );
     }
 
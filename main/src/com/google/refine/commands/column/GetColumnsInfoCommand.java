@@ -45,7 +45,7 @@ import com.google.refine.browsing.util.NumericBinIndex;
 import com.google.refine.browsing.util.NumericBinRowIndex;
 import com.google.refine.commands.Command;
 import com.google.refine.expr.Evaluable;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -85,7 +85,7 @@ public class GetColumnsInfoCommand extends Command {
         String key = "numeric-bin:" + expression;
         Evaluable eval = null;
         try {
-            eval = MetaParser.parse(expression);
+            eval = ParsedExpressionCache.parse(expression);
         } catch (ParsingException e) {
             // this should never happen
         }
@@ -57,7 +57,7 @@ import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.expr.HasFields;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.expr.WrappedCell;
 import com.google.refine.expr.WrappedRow;
@@ -147,7 +147,7 @@ public class PreviewExpressionCommand extends Command {
             int length = rowIndices.size();
             
             try {
-                Evaluable eval = MetaParser.parse(expression);
+                Evaluable eval = ParsedExpressionCache.parse(expression);
                 
                 List<ExpressionValue> evaluated = new ArrayList<>();
                 Properties bindings = ExpressionUtils.createBindings(project);
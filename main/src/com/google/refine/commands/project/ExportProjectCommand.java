@@ -59,11 +59,16 @@ public class ExportProjectCommand extends Command {
             Project project = getProject(request);
             ProjectManager.singleton.ensureProjectSaved(project.id);
 
-            response.setHeader("Content-Type", "application/x-gzip");
+            boolean zstd = "zstd".equals(request.getParameter("compression"));
+            response.setHeader("Content-Type", zstd ? "application/zstd" : "application/x-gzip");
 
             OutputStream os = response.getOutputStream();
             try {
-                FileProjectManager.gzipTarToOutputStream(project, os);
+                if (zstd) {
+                    FileProjectManager.zstdTarToOutputStream(project, os);
+                } else {
+                    FileProjectManager.gzipTarToOutputStream(project, os);
+                }
             } finally {
                 os.close();
             }
@@ -98,8 +98,9 @@ public class CsvExporter implements WriterExporter{
                 Boolean.parseBoolean(params.getProperty("printColumnHeader")) :
                 true;
         
-        final CSVWriter csvWriter = 
-            new CSVWriter(writer, separator.charAt(0), CSVWriter.DEFAULT_QUOTE_CHARACTER, lineSeparator);
+        final CsvRowWriter csvWriter =
+            new CsvRowWriter(writer, separator.charAt(0), lineSeparator, quoteAll);
+        final IOException[] error = new IOException[1];
         
         TabularSerializer serializer = new TabularSerializer() {
             @Override
@@ -112,22 +113,22 @@ public class CsvExporter implements WriterExporter{
 
             @Override
             public void addRow(List<CellData> cells, boolean isHeader) {
-                if (!isHeader || printColumnHeader) {
-                    String[] strings = new String[cells.size()];
-                    for (int i = 0; i < strings.length; i++) {
-                        CellData cellData = cells.get(i);
-                        strings[i] =
-                            (cellData != null && cellData.text != null) ?
-                            cellData.text :
-                            "";
+                if ((!isHeader || printColumnHeader) && error[0] == null) {
+                    try {
+                        csvWriter.writeRow(cells);
+                    } catch (IOException e) {
+                        // reported once the rows have been visited
+                        error[0] = e;
                     }
-                    csvWriter.writeNext(strings, quoteAll);
                 }
             }
         };
         
         CustomizableTabularExporterUtilities.exportRows(project, engine, params, serializer);
         
+        if (error[0] != null) {
+            throw error[0];
+        }
         csvWriter.close();
     }
 
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.exporters;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.google.refine.exporters.TabularSerializer.CellData;
+
+/**
+ * Writes rows of cells as separator-based text, with the same quoting as
+ * opencsv's CSVWriter: fields containing the quote character, the separator
+ * or a line break are quoted, and quotes inside them are doubled.
+ * <p>
+ * Fields are copied into a character buffer which is handed to the underlying
+ * writer once full, so no intermediate string is built for each row.
+ */
+public class CsvRowWriter {
+
+    static final private char QUOTE = '"';
+    static final private int BUFFER_SIZE = 8192;
+
+    final private Writer _writer;
+    final private char _separator;
+    final private String _lineSeparator;
+    final private boolean _quoteAll;
+    final private char[] _buffer = new char[BUFFER_SIZE];
+    private int _length = 0;
+
+    public CsvRowWriter(Writer writer, char separator, String lineSeparator, boolean quoteAll) {
+        _writer = writer;
+        _separator = separator;
+        _lineSeparator = lineSeparator;
+        _quoteAll = quoteAll;
+    }
+
+    /**
+     * Writes the text of the given cells as one line. Missing cells and cells
+     * without text are written as empty fields.
+     */
+    public void writeRow(List<CellData> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                append(_separator);
+            }
+            CellData cellData = cells.get(i);
+            writeField(cellData != null && cellData.text != null ? cellData.text : "");
+        }
+        append(_lineSeparator);
+    }
+
+    private void writeField(String text) throws IOException {
+        boolean special = needsQuotes(text);
+        if (_quoteAll || special) {
+            append(QUOTE);
+        }
+        if (special) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == QUOTE) {
+                    append(QUOTE);
+                }
+                append(c);
+            }
+        } else {
+            append(text);
+        }
+        if (_quoteAll || special) {
+            append(QUOTE);
+        }
+    }
+
+    private boolean needsQuotes(String text) {
+        return text.indexOf(QUOTE) >= 0 || text.indexOf(_separator) >= 0 ||
+                text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+    }
+
+    private void append(char c) throws IOException {
+        if (_length == _buffer.length) {
+            flushBuffer();
+        }
+        _buffer[_length++] = c;
+    }
+
+    private void append(String s) throws IOException {
+        int start = 0;
+        while (start < s.length()) {
+            if (_length == _buffer.length) {
+                flushBuffer();
+            }
+            int end = Math.min(s.length(), start + _buffer.length - _length);
+            s.getChars(start, end, _buffer, _length);
+            _length += end - start;
+            start = end;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        _writer.write(_buffer, 0, _length);
+        _length = 0;
+    }
+
+    /**
+     * Writes out the buffered text and flushes the underlying writer.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        _writer.flush();
+    }
+
+    /**
+     * Writes out the buffered text and closes the underlying writer.
+     */
+    public void close() throws IOException {
+        flushBuffer();
+        _writer.close();
+    }
+}
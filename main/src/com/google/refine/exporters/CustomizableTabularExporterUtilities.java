@@ -132,14 +132,24 @@ abstract public class CustomizableTabularExporterUtilities {
             }
         }
         
+        // resolve the columns and formatters once rather than for every row
+        final int columnCount = columnNames.size();
+        final Column[] columns = new Column[columnCount];
+        final CellFormatter[] formatters = new CellFormatter[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            String name = columnNames.get(i);
+            columns[i] = project.columnModel.getColumnByName(name);
+            formatters[i] = columnNameToFormatter.get(name);
+        }
+        
         RowVisitor visitor = new RowVisitor() {
             int rowCount = 0;
+            final List<CellData> cells = new ArrayList<TabularSerializer.CellData>(columnCount);
             
             @Override
             public void start(Project project) {
                 serializer.startFile(options);
                 if (outputColumnHeaders) {
-                    List<CellData> cells = new ArrayList<TabularSerializer.CellData>(columnNames.size());
                     for (String name : columnNames) {
                         cells.add(new CellData(name, name, name, null));
                     }
@@ -149,13 +159,12 @@ abstract public class CustomizableTabularExporterUtilities {
 
             @Override
             public boolean visit(Project project, int rowIndex, Row row) {
-                List<CellData> cells = new ArrayList<TabularSerializer.CellData>(columnNames.size());
+                cells.clear();
                 int nonNullCount = 0;
                 
-                for (String columnName : columnNames) {
-                    Column column = project.columnModel.getColumnByName(columnName);
-                    CellFormatter formatter = columnNameToFormatter.get(columnName);
-                    CellData cellData = formatter.format(
+                for (int i = 0; i < columnCount; i++) {
+                    Column column = columns[i];
+                    CellData cellData = formatters[i].format(
                         project,
                         column,
                         row.getCell(column.getCellIndex()));
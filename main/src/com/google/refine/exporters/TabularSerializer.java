@@ -55,5 +55,9 @@ public interface TabularSerializer {
     
     public void endFile();
     
+    /**
+     * Adds a row to the output. The list of cells is reused for the following
+     * rows, so it must not be kept after this call.
+     */
     public void addRow(List<CellData> cells, boolean isHeader);
 }
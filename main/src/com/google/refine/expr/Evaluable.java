@@ -34,6 +34,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.expr;
 
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Interface for evaluable expressions in any arbitrary language.
@@ -46,4 +47,30 @@ public interface Evaluable {
      * @return
      */
     public Object evaluate(Properties bindings);
+
+    /**
+     * Whether this expression can be evaluated concurrently from several threads,
+     * as long as each thread uses its own bindings. Expressions which rely on shared
+     * mutable state (or on an interpreter which is not thread-safe) must return false,
+     * which is the default.
+     * 
+     * @return true if concurrent evaluation is safe
+     */
+    default public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Returns the names of the columns whose cells this expression reads, when
+     * evaluated on a row. Expressions which read other rows, other projects or
+     * anything else outside of the current row must return null, which is the
+     * default.
+     * 
+     * @param baseColumn
+     *            the name of the column the expression is evaluated on, if any
+     * @return the set of column names, or null if it cannot be determined
+     */
+    default public Set<String> getColumnDependencies(String baseColumn) {
+        return null;
+    }
 }
@@ -56,7 +56,7 @@ public class ExpressionUtils {
     }
 
     static public Properties createBindings(Project project) {
-        Properties bindings = new Properties();
+        Properties bindings = new Bindings();
 
         bindings.put("true", true);
         bindings.put("false", false);
@@ -74,6 +74,18 @@ public class ExpressionUtils {
     static public void bind(Properties bindings, Row row, int rowIndex, String columnName, Cell cell) {
         Project project = (Project) bindings.get("project");
 
+        if (bindings instanceof Bindings) {
+            ((Bindings) bindings).bind(project, row, rowIndex, columnName, cell);
+        } else {
+            bindStandardVariables(bindings, project, row, rowIndex, columnName, cell);
+        }
+
+        for (Binder binder : s_binders) {
+            binder.bind(bindings, row, rowIndex, columnName, cell);
+        }
+    }
+
+    static private void bindStandardVariables(Properties bindings, Project project, Row row, int rowIndex, String columnName, Cell cell) {
         bindings.put("rowIndex", rowIndex);
         bindings.put("row", new WrappedRow(project, rowIndex, row));
         bindings.put("cells", new CellTuple(project, row));
@@ -85,6 +97,7 @@ public class ExpressionUtils {
         if (cell == null) {
             bindings.remove("cell");
             bindings.remove("value");
+            bindings.remove("recon");
         } else {
             bindings.put("cell", new WrappedCell(project, columnName, cell));
             if (cell.value == null) {
@@ -92,11 +105,28 @@ public class ExpressionUtils {
             } else {
                 bindings.put("value", cell.value);
             }
+            if (cell.recon == null) {
+                bindings.remove("recon");
+            } else {
+                bindings.put("recon", cell.recon);
+            }
         }
+    }
 
-        for (Binder binder : s_binders) {
-            binder.bind(bindings, row, rowIndex, columnName, cell);
+    /**
+     * @return the union of the column dependencies of the given expressions, or null
+     *         if any of them is unknown
+     */
+    static public Set<String> getColumnDependencies(Evaluable[] evaluables, String baseColumn) {
+        Set<String> dependencies = new HashSet<>();
+        for (Evaluable evaluable : evaluables) {
+            Set<String> d = evaluable.getColumnDependencies(baseColumn);
+            if (d == null) {
+                return null;
+            }
+            dependencies.addAll(d);
         }
+        return dependencies;
     }
 
     static public boolean isError(Object o) {
@@ -41,6 +41,7 @@ import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.refine.grel.GrelCompiler;
 import com.google.refine.grel.Parser;
 
 import clojure.lang.IFn;
@@ -176,6 +177,7 @@ abstract public class MetaParser {
     static protected Evaluable parseGREL(String s) throws ParsingException {
         Parser parser = new Parser(s);
         
-        return parser.getExpression();
+        Evaluable expression = parser.getExpression();
+        return GrelCompiler.isEnabled() ? GrelCompiler.compile(expression) : expression;
     }
 }
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.expr;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.grel.GrelCompiler;
+
+/**
+ * Keeps the most recently parsed expressions, so that the expressions of facets,
+ * previews and operations are not parsed again on every request.
+ * <p>
+ * Only expressions which can be evaluated concurrently are cached, since the
+ * same instance is handed out to every caller. Others, such as Jython ones, are
+ * parsed on every call.
+ */
+public class ParsedExpressionCache {
+
+    static final public int DEFAULT_MAX_SIZE = 512;
+
+    static final private Map<String, Evaluable> s_cache = new LinkedHashMap<String, Evaluable>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Evaluable> eldest) {
+            if (size() > getMaxSize()) {
+                s_evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    static private long s_hits;
+    static private long s_misses;
+    static private long s_evictions;
+
+    /**
+     * Parses an expression like {@link MetaParser#parse(String)}, reusing the result
+     * of a previous call with the same language and source text when possible.
+     * 
+     * @param s
+     *            the expression, possibly with a language prefix
+     * @return the parsed expression, which must not be modified
+     * @throws ParsingException
+     */
+    static public Evaluable parse(String s) throws ParsingException {
+        String key = getKey(s);
+        synchronized (s_cache) {
+            Evaluable eval = s_cache.get(key);
+            if (eval != null) {
+                s_hits++;
+                return eval;
+            }
+            s_misses++;
+        }
+
+        Evaluable eval = MetaParser.parse(s);
+        if (eval.isThreadSafe()) {
+            synchronized (s_cache) {
+                s_cache.put(key, eval);
+            }
+        }
+        return eval;
+    }
+
+    /**
+     * @return the language and the source text of the expression, in the form
+     *         "language:source". GREL expressions are cached separately depending
+     *         on whether they are compiled, so that changing the
+     *         "grel.compileExpressions" preference applies to cached ones too.
+     */
+    static protected String getKey(String s) {
+        String language = "grel";
+        String source = s;
+        int colon = s.indexOf(':');
+        if (colon >= 0) {
+            String prefix = s.substring(0, colon).toLowerCase();
+            if ("gel".equals(prefix)) {
+                prefix = "grel";
+            }
+            if (MetaParser.getLanguageInfo(prefix) != null) {
+                language = prefix;
+                source = s.substring(colon + 1);
+            }
+        }
+        if ("grel".equals(language) && !GrelCompiler.isEnabled()) {
+            language = "grel-interpreted";
+        }
+        return language + ":" + source;
+    }
+
+    static protected int getMaxSize() {
+        return ProjectManager.singleton == null ? DEFAULT_MAX_SIZE :
+            ProjectManager.singleton.getPreferenceStore().getInteger("expressions.parsedCacheSize", DEFAULT_MAX_SIZE);
+    }
+
+    static public void clear() {
+        synchronized (s_cache) {
+            s_cache.clear();
+        }
+    }
+
+    static public int size() {
+        synchronized (s_cache) {
+            return s_cache.size();
+        }
+    }
+
+    static public long getHitCount() {
+        synchronized (s_cache) {
+            return s_hits;
+        }
+    }
+
+    static public long getMissCount() {
+        synchronized (s_cache) {
+            return s_misses;
+        }
+    }
+
+    static public long getEvictionCount() {
+        synchronized (s_cache) {
+            return s_evictions;
+        }
+    }
+}
@@ -93,6 +93,18 @@ public class Cross implements Function {
         return new EvalError(ControlFunctionRegistry.getFunctionName(this) + " expects a cell or value, a project name to look up (optional), and a column name in that project (optional)");
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        // lookups are computed lazily in a shared cache
+        return false;
+    }
+
+    @Override
+    public boolean isPure() {
+        // reads rows of another project
+        return false;
+    }
+
     @Override
     public String getDescription() {
         return "Looks up the given value in the target column of the target project, returns an array of matched rows. Two values match if and only if they have the same string representation. " +
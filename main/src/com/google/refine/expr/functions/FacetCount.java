@@ -39,7 +39,7 @@ import com.google.refine.browsing.Engine;
 import com.google.refine.browsing.util.ExpressionNominalValueGrouper;
 import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.grel.ControlFunctionRegistry;
 import com.google.refine.grel.Function;
@@ -65,7 +65,7 @@ public class FacetCount implements Function {
             ExpressionNominalValueGrouper grouper = (ExpressionNominalValueGrouper) column.getPrecompute(key);
             if (grouper == null) {
                 try {
-                    Evaluable eval = MetaParser.parse(facetExpression);
+                    Evaluable eval = ParsedExpressionCache.parse(facetExpression);
                     Engine engine = new Engine(project);
 
                     grouper = new ExpressionNominalValueGrouper(eval, columnName, column.getCellIndex());
@@ -83,6 +83,18 @@ public class FacetCount implements Function {
             " expects a choice value, an expression as a string, and a column name");
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        // facet counts are cached lazily in the column precomputes
+        return false;
+    }
+
+    @Override
+    public boolean isPure() {
+        // reads all rows of the given column
+        return false;
+    }
+
     @Override
     public String getDescription() {
         return "Returns the facet count corresponding to the given choice value, by looking for the facetExpression in the choiceValue in columnName.";
@@ -49,6 +49,11 @@ public class Now implements Function {
         return null;
     }
 
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+
     @Override
     public String getDescription() {
         return "Returns the current time according to your system clock, in the ISO 8601 extended format (converted to UTC). For example, 10:53am (and 00 seconds) on November 26th 2020 in EST returns [date 2020-11-26T15:53:00Z].";
@@ -44,23 +44,20 @@ import au.com.bytecode.opencsv.CSVParser;
 
 public class SmartSplit implements Function {
 
-    static final protected CSVParser s_tabParser = new CSVParser(
-        '\t',
-        CSVParser.DEFAULT_QUOTE_CHARACTER,
-        CSVParser.DEFAULT_ESCAPE_CHARACTER,
-        CSVParser.DEFAULT_STRICT_QUOTES,
-        CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE,
-        false
-    );
-
-    static final protected CSVParser s_commaParser = new CSVParser(
-        ',',
-        CSVParser.DEFAULT_QUOTE_CHARACTER,
-        CSVParser.DEFAULT_ESCAPE_CHARACTER,
-        CSVParser.DEFAULT_STRICT_QUOTES,
-        CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE,
-        false
-    );    
+    /**
+     * CSVParser keeps the state of the line being parsed, so a new one is created
+     * for each call: expressions may be evaluated on several threads at once.
+     */
+    static protected CSVParser newParser(char separator) {
+        return new CSVParser(
+            separator,
+            CSVParser.DEFAULT_QUOTE_CHARACTER,
+            CSVParser.DEFAULT_ESCAPE_CHARACTER,
+            CSVParser.DEFAULT_STRICT_QUOTES,
+            CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE,
+            false
+        );
+    }
 
     @Override
     public Object call(Properties bindings, Object[] args) {
@@ -84,11 +81,7 @@ public class SmartSplit implements Function {
             
             if (parser == null) {
                 int tab = s.indexOf('\t');
-                if (tab >= 0) {
-                    parser = s_tabParser;
-                } else {
-                    parser = s_commaParser;
-                }
+                parser = newParser(tab >= 0 ? '\t' : ',');
             }
             
             try {
@@ -35,6 +35,7 @@ package com.google.refine.grel;
 
 import java.util.Properties;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -57,4 +58,23 @@ public interface Function  {
     
     @JsonProperty("returns")
     public String getReturns();
+
+    /**
+     * @return false if this function relies on shared mutable state, so that
+     *         expressions calling it must not be evaluated concurrently
+     */
+    @JsonIgnore
+    default public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * @return false if the result of this function does not only depend on its
+     *         arguments, for instance because it reads other rows or projects, or
+     *         the clock
+     */
+    @JsonIgnore
+    default public boolean isPure() {
+        return true;
+    }
 }
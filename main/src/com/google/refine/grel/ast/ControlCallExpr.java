@@ -34,9 +34,11 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.grel.ast;
 
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.grel.Control;
 
 /**
@@ -60,6 +62,29 @@ public class ControlCallExpr implements Evaluable {
         }
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        for (Evaluable arg : _args) {
+            if (!arg.isThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<String> getColumnDependencies(String baseColumn) {
+        return ExpressionUtils.getColumnDependencies(_args, baseColumn);
+    }
+
+    public Evaluable[] getArgs() {
+        return _args;
+    }
+
+    public Control getControl() {
+        return _control;
+    }
+
     @Override
     public String toString() {
         StringBuffer sb = new StringBuffer();
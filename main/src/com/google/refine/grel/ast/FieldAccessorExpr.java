@@ -33,7 +33,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.grel.ast;
 
+import java.util.Collections;
 import java.util.Properties;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -73,6 +75,28 @@ public class FieldAccessorExpr implements Evaluable {
         }
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return _inner.isThreadSafe();
+    }
+
+    @Override
+    public Set<String> getColumnDependencies(String baseColumn) {
+        // cells.name only reads the named column
+        if (_inner instanceof VariableExpr && "cells".equals(((VariableExpr) _inner).getName())) {
+            return Collections.singleton(_fieldName);
+        }
+        return _inner.getColumnDependencies(baseColumn);
+    }
+
+    public Evaluable getInner() {
+        return _inner;
+    }
+
+    public String getFieldName() {
+        return _fieldName;
+    }
+
     @Override
     public String toString() {
         return _inner.toString() + "." + _fieldName;
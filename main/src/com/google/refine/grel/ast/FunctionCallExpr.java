@@ -33,11 +33,14 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.grel.ast;
 
+import java.util.Collections;
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.functions.Get;
 import com.google.refine.grel.Function;
 
 /**
@@ -72,6 +75,38 @@ public class FunctionCallExpr implements Evaluable {
         }
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        for (Evaluable arg : _args) {
+            if (!arg.isThreadSafe()) {
+                return false;
+            }
+        }
+        return _function.isThreadSafe();
+    }
+
+    @Override
+    public Set<String> getColumnDependencies(String baseColumn) {
+        if (!_function.isPure()) {
+            return null;
+        }
+        // cells["name"] only reads the named column
+        if (_function instanceof Get && _args.length == 2 && _args[0] instanceof VariableExpr
+                && "cells".equals(((VariableExpr) _args[0]).getName())
+                && _args[1] instanceof LiteralExpr && ((LiteralExpr) _args[1]).getValue() instanceof String) {
+            return Collections.singleton((String) ((LiteralExpr) _args[1]).getValue());
+        }
+        return ExpressionUtils.getColumnDependencies(_args, baseColumn);
+    }
+
+    public Evaluable[] getArgs() {
+        return _args;
+    }
+
+    public Function getFunction() {
+        return _function;
+    }
+
     @Override
     public String toString() {
         StringBuffer sb = new StringBuffer();
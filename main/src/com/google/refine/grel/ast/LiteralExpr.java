@@ -33,7 +33,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.grel.ast;
 
+import java.util.Collections;
 import java.util.Properties;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.google.refine.expr.Evaluable;
@@ -53,6 +55,20 @@ public class LiteralExpr implements Evaluable {
         return _value;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public Set<String> getColumnDependencies(String baseColumn) {
+        return Collections.emptySet();
+    }
+
+    public Object getValue() {
+        return _value;
+    }
+
     @Override
     public String toString() {
         return _value instanceof String ? new TextNode((String) _value).toString() : _value.toString();
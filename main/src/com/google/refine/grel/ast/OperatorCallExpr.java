@@ -34,6 +34,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.grel.ast;
 
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
@@ -141,6 +142,29 @@ public class OperatorCallExpr implements Evaluable {
         return null;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        for (Evaluable arg : _args) {
+            if (!arg.isThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<String> getColumnDependencies(String baseColumn) {
+        return ExpressionUtils.getColumnDependencies(_args, baseColumn);
+    }
+
+    public Evaluable[] getArgs() {
+        return _args;
+    }
+
+    public String getOperator() {
+        return _op;
+    }
+
     @Override
     public String toString() {
         StringBuffer sb = new StringBuffer();
@@ -33,7 +33,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.grel.ast;
 
+import java.util.Collections;
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.expr.Evaluable;
 
@@ -52,6 +54,22 @@ public class VariableExpr implements Evaluable {
         return bindings.get(_name);
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public Set<String> getColumnDependencies(String baseColumn) {
+        if ("value".equals(_name) || "cell".equals(_name) || "recon".equals(_name)) {
+            return baseColumn == null ? null : Collections.singleton(baseColumn);
+        } else if ("row".equals(_name) || "cells".equals(_name) || "record".equals(_name) || "project".equals(_name)) {
+            return null;
+        }
+        // other variables are constants, the row index or bound by controls
+        return Collections.emptySet();
+    }
+
     @Override
     public String toString() {
         return _name;
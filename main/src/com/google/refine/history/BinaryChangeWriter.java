@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.history;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.refine.expr.EvalError;
+import com.google.refine.model.Cell;
+import com.google.refine.util.ParsingUtilities;
+import com.google.refine.util.Pool;
+
+/**
+ * Writes the binary form of a {@link BinaryChange}.
+ * <p>
+ * Integers are written as variable-length quantities. Cells are written as a tag
+ * byte followed by their value. String values go through a dictionary shared by the
+ * whole change: the first occurrence of a string is written in full and assigns it
+ * the next number, and later occurrences only write that number. Recon objects are
+ * added to the pool and referred to by id, as in the text form.
+ */
+public class BinaryChangeWriter {
+
+    static final int TAG_NULL_CELL = 0;
+    static final int TAG_NULL_VALUE = 1;
+    static final int TAG_NEW_STRING = 2;
+    static final int TAG_STRING_REF = 3;
+    static final int TAG_STRING = 4; // not added to the dictionary
+    static final int TAG_INTEGER = 5;
+    static final int TAG_LONG = 6;
+    static final int TAG_DOUBLE = 7;
+    static final int TAG_TRUE = 8;
+    static final int TAG_FALSE = 9;
+    static final int TAG_DATE = 10;
+    static final int TAG_ERROR = 11;
+    static final int TAG_JSON = 12; // any other cell, in the text form
+    static final int RECON_FLAG = 0x80;
+
+    /**
+     * Dictionaries stop growing at this size, so that changes with mostly distinct
+     * values do not keep all of them in memory while they are read and written.
+     */
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+    static final int MAX_DICTIONARY_STRING_LENGTH = 256;
+
+    final protected DataOutputStream _out;
+    final protected Pool _pool;
+    final protected Map<String, Integer> _dictionary = new HashMap<>();
+
+    public BinaryChangeWriter(OutputStream out, Pool pool) {
+        _out = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+        _pool = pool;
+    }
+
+    public Pool getPool() {
+        return _pool;
+    }
+
+    public void writeBoolean(boolean b) throws IOException {
+        _out.writeBoolean(b);
+    }
+
+    public void writeVarInt(int n) throws IOException {
+        writeVarLong(n & 0xFFFFFFFFL);
+    }
+
+    public void writeVarLong(long n) throws IOException {
+        while ((n & ~0x7FL) != 0) {
+            _out.writeByte((int) ((n & 0x7F) | 0x80));
+            n >>>= 7;
+        }
+        _out.writeByte((int) n);
+    }
+
+    /**
+     * Writes an integer which may be negative, such as the difference between
+     * two row indices, without spending five bytes on small negative numbers.
+     */
+    public void writeSignedVarInt(int n) throws IOException {
+        writeVarInt((n << 1) ^ (n >> 31));
+    }
+
+    /**
+     * Writes a string, which can be null.
+     */
+    public void writeString(String s) throws IOException {
+        if (s == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        _out.write(bytes);
+    }
+
+    /**
+     * Writes row indices as the differences between consecutive ones, which are
+     * small for changes which visit rows in order.
+     */
+    public void writeRowIndices(int[] rows) throws IOException {
+        int previous = 0;
+        for (int row : rows) {
+            writeSignedVarInt(row - previous);
+            previous = row;
+        }
+    }
+
+    public void writeCell(Cell cell) throws IOException {
+        if (cell == null) {
+            _out.writeByte(TAG_NULL_CELL);
+            return;
+        }
+        int reconFlag = cell.recon != null ? RECON_FLAG : 0;
+        Object value = cell.value;
+        if (value == null) {
+            _out.writeByte(TAG_NULL_VALUE | reconFlag);
+        } else if (value instanceof String) {
+            String s = (String) value;
+            Integer index = _dictionary.get(s);
+            if (index != null) {
+                _out.writeByte(TAG_STRING_REF | reconFlag);
+                writeVarInt(index);
+            } else if (_dictionary.size() < MAX_DICTIONARY_SIZE && s.length() <= MAX_DICTIONARY_STRING_LENGTH) {
+                _dictionary.put(s, _dictionary.size());
+                _out.writeByte(TAG_NEW_STRING | reconFlag);
+                writeString(s);
+            } else {
+                _out.writeByte(TAG_STRING | reconFlag);
+                writeString(s);
+            }
+        } else if (value instanceof Integer) {
+            _out.writeByte(TAG_INTEGER | reconFlag);
+            _out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            _out.writeByte(TAG_LONG | reconFlag);
+            _out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            _out.writeByte(TAG_DOUBLE | reconFlag);
+            _out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            _out.writeByte(((Boolean) value ? TAG_TRUE : TAG_FALSE) | reconFlag);
+        } else if (value instanceof OffsetDateTime || value instanceof LocalDateTime) {
+            // stored as an instant, like in the text form
+            Instant instant = value instanceof OffsetDateTime ?
+                    ((OffsetDateTime) value).toInstant() :
+                    ((LocalDateTime) value).toInstant(ZoneOffset.UTC);
+            _out.writeByte(TAG_DATE | reconFlag);
+            writeString(ParsingUtilities.instantToString(instant));
+        } else if (value instanceof EvalError) {
+            _out.writeByte(TAG_ERROR | reconFlag);
+            writeString(((EvalError) value).message);
+        } else {
+            if (cell.recon != null) {
+                _pool.pool(cell.recon);
+            }
+            _out.writeByte(TAG_JSON);
+            writeString(ParsingUtilities.saveWriter.writeValueAsString(cell));
+            return;
+        }
+        if (cell.recon != null) {
+            _pool.pool(cell.recon);
+            writeVarLong(cell.recon.id);
+        }
+    }
+
+    public void flush() throws IOException {
+        _out.flush();
+    }
+}
@@ -33,6 +33,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.history;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -104,6 +106,43 @@ public class History  {
         change.save(writer, options);
     }
 
+    /**
+     * @return whether the change can be saved with {@link #writeOneBinaryChange}
+     */
+    static public boolean hasBinaryForm(Change change) {
+        if (!(change instanceof BinaryChange)) {
+            return false;
+        }
+        try {
+            // a subclass inheriting the loader of its parent would be read back as the parent
+            Method load = change.getClass().getMethod("loadBinary", BinaryChangeReader.class);
+            return load.getDeclaringClass() == change.getClass();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static public Change readOneBinaryChange(InputStream in, Pool pool) throws Exception {
+        BinaryChangeReader reader = new BinaryChangeReader(new BufferedInputStream(in), pool);
+        /* String version = */ reader.readString();
+
+        String className = reader.readString();
+        Class<? extends Change> klass = getChangeClass(className);
+
+        Method load = klass.getMethod("loadBinary", BinaryChangeReader.class);
+
+        return (Change) load.invoke(null, reader);
+    }
+
+    static public void writeOneBinaryChange(OutputStream out, BinaryChange change, Pool pool) throws IOException {
+        BinaryChangeWriter writer = new BinaryChangeWriter(new BufferedOutputStream(out), pool);
+        writer.writeString(RefineServlet.VERSION);
+        writer.writeString(change.getClass().getName());
+
+        change.saveBinary(writer);
+        writer.flush();
+    }
+
     @SuppressWarnings("unchecked")
     static public Class<? extends Change> getChangeClass(String className) throws ClassNotFoundException {
         return (Class<? extends Change>) RefineServlet.getClass(className);
@@ -145,6 +145,7 @@ public class HistoryEntry {
         }
 
         synchronized (project) {
+            project.materializeRows();
             getChange().apply(project);
 
             // When a change is applied, it can hang on to old data (in order to be able
@@ -166,6 +167,7 @@ public class HistoryEntry {
         if (getChange() == null) {
             _manager.loadChange(this);
         }
+        project.materializeRows();
         getChange().revert(project);
     }
 
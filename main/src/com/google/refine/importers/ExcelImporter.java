@@ -38,6 +38,8 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,12 +47,17 @@ import org.apache.poi.ooxml.POIXMLException;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.poifs.filesystem.FileMagic;
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -84,26 +91,21 @@ public class ExcelImporter extends TabularImportingParserBase {
                 ObjectNode fileRecord = fileRecords.get(index);
                 File file = ImportingUtilities.getFile(job, fileRecord);
 
+                if (FileMagic.valueOf(file) == FileMagic.OOXML) {
+                    addXlsxSheetRecords(sheetRecords, file);
+                    continue;
+                }
+
                 Workbook wb = null;
                 try {
-                    wb = FileMagic.valueOf(file) == FileMagic.OOXML ? new XSSFWorkbook(file) :
-                                 new HSSFWorkbook(new POIFSFileSystem(file));
+                    wb = new HSSFWorkbook(new POIFSFileSystem(file));
 
                     int sheetCount = wb.getNumberOfSheets();
                     for (int i = 0; i < sheetCount; i++) {
                         Sheet sheet = wb.getSheetAt(i);
                         int rows = sheet.getLastRowNum() - sheet.getFirstRowNum() + 1;
 
-                        ObjectNode sheetRecord = ParsingUtilities.mapper.createObjectNode();
-                        JSONUtilities.safePut(sheetRecord, "name",  file.getName() + "#" + sheet.getSheetName());
-                        JSONUtilities.safePut(sheetRecord, "fileNameAndSheetIndex", file.getName() + "#" + i);
-                        JSONUtilities.safePut(sheetRecord, "rows", rows);
-                        if (rows > 1) {
-                            JSONUtilities.safePut(sheetRecord, "selected", true);
-                        } else {
-                            JSONUtilities.safePut(sheetRecord, "selected", false);
-                        }
-                        JSONUtilities.append(sheetRecords, sheetRecord);
+                        addSheetRecord(sheetRecords, file, i, sheet.getSheetName(), rows);
                     }
                 } finally {
                     if (wb != null) {
@@ -115,12 +117,59 @@ public class ExcelImporter extends TabularImportingParserBase {
             logger.error("Error generating parser UI initialization data for Excel file", e);
         } catch (IllegalArgumentException e) {
             logger.error("Error generating parser UI initialization data for Excel file (only Excel 97 & later supported)", e);
-        } catch (POIXMLException|InvalidFormatException e) {
+        } catch (POIXMLException|OpenXML4JException e) {
             logger.error("Error generating parser UI initialization data for Excel file - invalid XML", e);
         }
         
         return options;
     }
+
+    /**
+     * Lists the sheets of an OOXML workbook without loading them: the row counts
+     * are read from the sheet dimensions, or by scanning the rows.
+     */
+    private void addXlsxSheetRecords(ArrayNode sheetRecords, File file)
+            throws IOException, OpenXML4JException {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            List<String> sheetNames = new ArrayList<>();
+            List<PackagePart> sheetParts = getSheetParts(new XSSFReader(pkg), sheetNames);
+            for (int i = 0; i < sheetParts.size(); i++) {
+                int rows;
+                try (InputStream sheetStream = sheetParts.get(i).getInputStream()) {
+                    rows = XlsxSheetDataReader.countRows(sheetStream);
+                }
+                addSheetRecord(sheetRecords, file, i, sheetNames.get(i), rows);
+            }
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private void addSheetRecord(ArrayNode sheetRecords, File file, int index, String sheetName, int rows) {
+        ObjectNode sheetRecord = ParsingUtilities.mapper.createObjectNode();
+        JSONUtilities.safePut(sheetRecord, "name",  file.getName() + "#" + sheetName);
+        JSONUtilities.safePut(sheetRecord, "fileNameAndSheetIndex", file.getName() + "#" + index);
+        JSONUtilities.safePut(sheetRecord, "rows", rows);
+        if (rows > 1) {
+            JSONUtilities.safePut(sheetRecord, "selected", true);
+        } else {
+            JSONUtilities.safePut(sheetRecord, "selected", false);
+        }
+        JSONUtilities.append(sheetRecords, sheetRecord);
+    }
+
+    static private List<PackagePart> getSheetParts(XSSFReader reader, List<String> sheetNames)
+            throws IOException, OpenXML4JException {
+        List<PackagePart> sheetParts = new ArrayList<>();
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            sheets.next().close();
+            sheetNames.add(sheets.getSheetName());
+            sheetParts.add(sheets.getSheetPart());
+        }
+        return sheetParts;
+    }
     
     @Override
     public void parseOneFile(
@@ -139,9 +188,11 @@ public class ExcelImporter extends TabularImportingParserBase {
         }
         
         try {
-            wb = FileMagic.valueOf(inputStream) == FileMagic.OOXML ?
-                new XSSFWorkbook(inputStream) :
-                new HSSFWorkbook(new POIFSFileSystem(inputStream));
+            if (FileMagic.valueOf(inputStream) == FileMagic.OOXML) {
+                parseXlsxFile(project, job, fileSource, inputStream, limit, options, exceptions);
+                return;
+            }
+            wb = new HSSFWorkbook(new POIFSFileSystem(inputStream));
         } catch (IOException e) {
             exceptions.add(new ImportException(
                 "Attempted to parse as an Excel file but failed. " +
@@ -230,6 +281,63 @@ public class ExcelImporter extends TabularImportingParserBase {
         }
     }
     
+    /**
+     * Reads the selected sheets of an OOXML workbook row by row, instead of
+     * building the whole workbook in memory. The package is opened from a
+     * temporary copy of the stream, since opening it from a stream would
+     * hold all of its uncompressed parts in memory.
+     */
+    private void parseXlsxFile(
+        Project project,
+        ImportingJob job,
+        String fileSource,
+        InputStream inputStream,
+        int limit,
+        ObjectNode options,
+        List<Exception> exceptions
+    ) throws IOException {
+        File tempFile = File.createTempFile("openrefine-import", ".xlsx");
+        OPCPackage pkg = null;
+        try {
+            Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            pkg = OPCPackage.open(tempFile, PackageAccess.READ);
+
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            List<String> sheetNames = new ArrayList<>();
+            List<PackagePart> sheetParts = getSheetParts(reader, sheetNames);
+
+            ArrayNode sheets = (ArrayNode) options.get("sheets");
+            for (int i = 0; i < sheets.size(); i++) {
+                ObjectNode sheetObj = (ObjectNode) sheets.get(i);
+                // value is fileName#sheetIndex
+                String[] fileNameAndSheetIndex = sheetObj.get("fileNameAndSheetIndex").asText().split("#");
+                if (!fileNameAndSheetIndex[0].equals(fileSource))
+                    continue;
+
+                int sheetIndex = Integer.parseInt(fileNameAndSheetIndex[1]);
+                XlsxSheetDataReader dataReader = new XlsxSheetDataReader(
+                        sheetParts.get(sheetIndex).getInputStream(), sharedStrings, reader.getStylesTable());
+                try {
+                    TabularImportingParserBase.readTable(project, job, dataReader, limit, options, exceptions);
+                } finally {
+                    dataReader.close();
+                }
+            }
+        } catch (POIXMLException | OpenXML4JException | SAXException e) {
+            exceptions.add(new ImportException(
+                    "Attempted to parse as an Excel file but failed. " +
+                    "Invalid XML.",
+                    e
+                ));
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+            tempFile.delete();
+        }
+    }
+
     static protected Cell extractCell(org.apache.poi.ss.usermodel.Cell cell) {
         CellType cellType = cell.getCellType();
         if (cellType.equals(CellType.FORMULA)) {
@@ -210,24 +210,32 @@ public class ImporterUtilities {
         final long totalSize2 = totalSize;
         return new MultiFileReadingProgress() {
             long totalBytesRead = 0;
+            // bytes read so far from the files being read, which can be several at once
+            final Map<String, Long> bytesReadByFile = new HashMap<>();
             
             void setProgress(String fileSource, long bytesRead) {
-                job.setProgress(totalSize2 == 0 ? -1 : (int) (100 * (totalBytesRead + bytesRead) / totalSize2),
+                bytesReadByFile.put(fileSource, bytesRead);
+                long inProgress = 0;
+                for (long l : bytesReadByFile.values()) {
+                    inProgress += l;
+                }
+                job.setProgress(totalSize2 == 0 ? -1 : (int) (100 * (totalBytesRead + inProgress) / totalSize2),
                     "Reading " + fileSource);
             }
             
             @Override
-            public void startFile(String fileSource) {
+            synchronized public void startFile(String fileSource) {
                 setProgress(fileSource, 0);
             }
 
             @Override
-            public void readingFile(String fileSource, long bytesRead) {
+            synchronized public void readingFile(String fileSource, long bytesRead) {
                 setProgress(fileSource, bytesRead);
             }
 
             @Override
-            public void endFile(String fileSource, long bytesRead) {
+            synchronized public void endFile(String fileSource, long bytesRead) {
+                bytesReadByFile.remove(fileSource);
                 totalBytesRead += bytesRead;
             }
         };
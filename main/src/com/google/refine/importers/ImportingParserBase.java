@@ -38,13 +38,20 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.NotImplementedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.importers.ImporterUtilities.MultiFileReadingProgress;
 import com.google.refine.importing.EncodingGuesser;
@@ -53,6 +60,7 @@ import com.google.refine.importing.ImportingParser;
 import com.google.refine.importing.ImportingUtilities;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
+import com.google.refine.model.ColumnModel;
 import com.google.refine.model.ModelException;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
@@ -81,11 +89,22 @@ abstract public class ImportingParserBase implements ImportingParser {
         return options;
     }
     
+    /**
+     * Preference giving the number of files parsed concurrently when importing
+     * several files at once. Files are parsed one after the other by default.
+     */
+    static final public String PARALLEL_FILES_PREF = "importing.parallelFiles";
+
     @Override
     public void parse(Project project, ProjectMetadata metadata,
             final ImportingJob job, List<ObjectNode> fileRecords, String format,
             int limit, ObjectNode options, List<Exception> exceptions) {
         MultiFileReadingProgress progress = ImporterUtilities.createMultiFileReadingProgress(job, fileRecords);
+        int parallelFiles = Math.min(getParallelFiles(), fileRecords.size());
+        if (parallelFiles > 1) {
+            parseInParallel(project, metadata, job, fileRecords, limit, options, exceptions, progress, parallelFiles);
+            return;
+        }
         for (ObjectNode fileRecord : fileRecords) {
             if (job.canceled) {
                 break;
@@ -102,6 +121,157 @@ abstract public class ImportingParserBase implements ImportingParser {
             }
         }
     }
+
+    static protected int getParallelFiles() {
+        if (ProjectManager.singleton == null) {
+            return 1;
+        }
+        return Math.max(1, ProjectManager.singleton.getPreferenceStore().getInteger(PARALLEL_FILES_PREF, 1));
+    }
+
+    /**
+     * Parses each file into a project of its own on a pool of threads, then
+     * appends their rows to the project in file order, matching columns by name
+     * as parsing the files one after the other would.
+     */
+    protected void parseInParallel(Project project, ProjectMetadata metadata,
+            final ImportingJob job, List<ObjectNode> fileRecords,
+            final int limit, ObjectNode options, List<Exception> exceptions,
+            final MultiFileReadingProgress progress, int parallelFiles) {
+        final List<FileBuffer> buffers = new ArrayList<>(fileRecords.size());
+        for (ObjectNode fileRecord : fileRecords) {
+            buffers.add(new FileBuffer(fileRecord));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelFiles, runnable -> {
+            Thread thread = new Thread(runnable, "import-" + job.id);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(buffers.size());
+            for (final FileBuffer buffer : buffers) {
+                futures.add(executor.submit(() -> {
+                    if (job.canceled || isLimitReached(buffers, buffer, limit)) {
+                        return;
+                    }
+                    try {
+                        parseOneFile(buffer.project, buffer.metadata, job, buffer.fileRecord,
+                                limit, options, buffer.exceptions, progress);
+                    } catch (IOException e) {
+                        buffer.exceptions.add(e);
+                    }
+                    buffer.parsed = true;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    buffers.get(i).exceptions.add(e.getCause() instanceof Exception ?
+                            (Exception) e.getCause() : e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    exceptions.add(e);
+                    return;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (FileBuffer buffer : buffers) {
+            if (job.canceled) {
+                break;
+            }
+            exceptions.addAll(buffer.exceptions);
+            if (buffer.parsed) {
+                appendBuffer(project, metadata, buffer, limit);
+            }
+            if (limit > 0 && project.rows.size() >= limit) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * A file is not worth parsing if the files before it already provide enough rows.
+     */
+    static private boolean isLimitReached(List<FileBuffer> buffers, FileBuffer buffer, int limit) {
+        if (limit <= 0) {
+            return false;
+        }
+        int rowCount = 0;
+        for (FileBuffer previous : buffers) {
+            if (previous == buffer || !previous.parsed) {
+                return false;
+            }
+            rowCount += previous.project.rows.size();
+            if (rowCount >= limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static private void appendBuffer(Project project, ProjectMetadata metadata, FileBuffer buffer, int limit) {
+        ColumnModel columnModel = buffer.project.columnModel;
+        int[] cellIndexMap = new int[columnModel.getMaxCellIndex() + 1];
+        boolean sameCellIndices = true;
+        for (Column column : columnModel.columns) {
+            Column target = project.columnModel.getColumnByName(column.getName());
+            if (target == null) {
+                target = new Column(project.columnModel.allocateNewCellIndex(), column.getName());
+                try {
+                    project.columnModel.addColumn(project.columnModel.columns.size(), target, false);
+                } catch (ModelException e) {
+                    // Shouldn't happen: We already checked for duplicate name.
+                    logger.error("ModelException adding column", e);
+                }
+            }
+            cellIndexMap[column.getCellIndex()] = target.getCellIndex();
+            sameCellIndices &= column.getCellIndex() == target.getCellIndex();
+        }
+
+        for (Row row : buffer.project.rows) {
+            if (limit > 0 && project.rows.size() >= limit) {
+                break;
+            }
+            if (sameCellIndices) {
+                project.rows.add(row);
+            } else {
+                Row newRow = new Row(row.cells.size());
+                newRow.flagged = row.flagged;
+                newRow.starred = row.starred;
+                for (int i = 0; i < row.cells.size() && i < cellIndexMap.length; i++) {
+                    Cell cell = row.cells.get(i);
+                    if (cell != null) {
+                        newRow.setCell(cellIndexMap[i], cell);
+                    }
+                }
+                project.rows.add(newRow);
+            }
+        }
+
+        for (JsonNode fileOptions : buffer.metadata.getImportOptionMetadata()) {
+            metadata.appendImportOptionMetadata((ObjectNode) fileOptions);
+        }
+        if (!buffer.metadata.getName().isEmpty()) {
+            metadata.setName(buffer.metadata.getName());
+        }
+    }
+
+    static private class FileBuffer {
+        final ObjectNode fileRecord;
+        final Project project = new Project();
+        final ProjectMetadata metadata = new ProjectMetadata();
+        final List<Exception> exceptions = new ArrayList<>();
+        volatile boolean parsed;
+
+        FileBuffer(ObjectNode fileRecord) {
+            this.fileRecord = fileRecord;
+        }
+    }
     
     // TODO: Make private? At least protected?
     public void parseOneFile(
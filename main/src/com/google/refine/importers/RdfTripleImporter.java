@@ -35,15 +35,22 @@ package com.google.refine.importers;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.refine.ProjectMetadata;
@@ -54,6 +61,7 @@ import com.google.refine.model.Column;
 import com.google.refine.model.ModelException;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
+import com.google.refine.util.JSONUtilities;
 
 
 public class RdfTripleImporter extends ImportingParserBase {
@@ -79,6 +87,12 @@ public class RdfTripleImporter extends ImportingParserBase {
     @Override
     public void parseOneFile(Project project, ProjectMetadata metadata, ImportingJob job, String fileSource,
             InputStream input, int limit, ObjectNode options, List<Exception> exceptions) {
+        // the import UI does not set this option, so its previews and imports stream
+        if (JSONUtilities.getBoolean(options, "streaming", true)) {
+            parseStreaming(project, job, input, limit, exceptions);
+            return;
+        }
+
         // create an empty model
         Model model = ModelFactory.createDefaultModel();
 
@@ -113,57 +127,183 @@ public class RdfTripleImporter extends ImportingParserBase {
       StmtIterator triples = model.listStatements();
       
       try {
-          Map<String, List<Row>> subjectToRows = new LinkedHashMap<String, List<Row>>();
-          Column subjectColumn = new Column(project.columnModel.allocateNewCellIndex(), "subject");
-          project.columnModel.addColumn(0, subjectColumn, false);
-          project.columnModel.setKeyColumnIndex(0);
-          
+          SubjectGrouper grouper = new SubjectGrouper(project, false);
           while (triples.hasNext()) {
               Statement triple = triples.nextStatement();
-              String subject = triple.getSubject().toString();
-              String predicate = triple.getPredicate().toString();
-              String object = triple.getObject().toString();
-
-              Column column = project.columnModel.getColumnByName(predicate);
-              if (column == null) {
-                  column = new Column(project.columnModel.allocateNewCellIndex(), predicate);
-                  project.columnModel.addColumn(-1, column, true);
-              }
-
-              int cellIndex = column.getCellIndex();
-              if (subjectToRows.containsKey(subject)) {
-                  List<Row> rows = subjectToRows.get(subject);
-                  for (Row row : rows) {
-                      if (!ExpressionUtils.isNonBlankData(row.getCellValue(cellIndex))) {
-                          row.setCell(cellIndex, new Cell(object, null));
-                          object = null;
-                          break;
-                      }
-                  }
-
-                  if (object != null) {
-                      Row row = new Row(project.columnModel.getMaxCellIndex() + 1);
-                      rows.add(row);
-
-                      row.setCell(cellIndex, new Cell(object, null));
-                  }
-              } else {
-                  List<Row> rows = new ArrayList<Row>();
-                  subjectToRows.put(subject, rows);
-
-                  Row row = new Row(project.columnModel.getMaxCellIndex() + 1);
-                  rows.add(row);
-
-                  row.setCell(subjectColumn.getCellIndex(), new Cell(subject, null));
-                  row.setCell(cellIndex, new Cell(object, null));
-              }
-          }
-
-          for (Entry<String, List<Row>> entry : subjectToRows.entrySet()) {
-              project.rows.addAll(entry.getValue());
+              grouper.add(triple);
           }
+          grouper.appendRows();
       } catch (ModelException e) {
           exceptions.add(e);
       } 
     }
+
+    /**
+     * Parses the triples one at a time as the parser emits them, without
+     * building a Jena model. Rows follow the order in which subjects first
+     * appear in the file, and at most {@code limit} subjects are read.
+     */
+    protected void parseStreaming(Project project, ImportingJob job, InputStream input, int limit,
+            List<Exception> exceptions) {
+        SubjectGrouper grouper;
+        try {
+            grouper = new SubjectGrouper(project, true);
+        } catch (ModelException e) {
+            exceptions.add(e);
+            return;
+        }
+        // only used to wrap the parsed nodes, nothing is added to it
+        Model nodeModel = ModelFactory.createDefaultModel();
+        ModelException[] error = new ModelException[1];
+        boolean[] stopped = new boolean[1];
+
+        StreamRDF sink = new StreamRDFBase() {
+            @Override
+            public void triple(Triple triple) {
+                if (stopped[0]) {
+                    return;
+                }
+                Statement statement = nodeModel.asStatement(triple);
+                if (job.canceled ||
+                        (limit > 0 && grouper.subjectCount() >= limit && !grouper.hasSubject(statement))) {
+                    stopped[0] = true;
+                    throw new StopParsingException();
+                }
+                try {
+                    grouper.add(statement);
+                } catch (ModelException e) {
+                    error[0] = e;
+                    stopped[0] = true;
+                    throw new StopParsingException();
+                }
+            }
+        };
+
+        try {
+            RDFParser.source(input).lang(getLang()).parse(sink);
+        } catch (RuntimeException e) {
+            // parsers may wrap the exception thrown to stop them
+            if (!stopped[0]) {
+                exceptions.add(e);
+                return;
+            }
+        }
+        if (error[0] != null) {
+            exceptions.add(error[0]);
+            return;
+        }
+        grouper.appendRows();
+    }
+
+    private Lang getLang() {
+        switch (mode) {
+        case NT:
+            return Lang.NTRIPLES;
+        case N3:
+            return Lang.N3;
+        case TTL:
+            return Lang.TURTLE;
+        case JSONLD:
+            return Lang.JSONLD;
+        case RDFXML:
+            return Lang.RDFXML;
+        default:
+            throw new IllegalArgumentException("Unknown parsing mode");
+        }
+    }
+
+    static private class StopParsingException extends RuntimeException {
+        private static final long serialVersionUID = 6152339564381563466L;
+    }
+
+    /**
+     * Turns triples into rows, one record per subject, with one column per
+     * predicate. Objects which do not fit in the existing rows of their subject
+     * go into additional rows of the record.
+     * <p>
+     * A model holds each triple once, but a parsed stream may repeat them: when
+     * reading a stream, triples repeated within the consecutive triples of a
+     * subject are skipped. Only the triples of the current subject are kept for
+     * this, so that memory does not grow with the size of the file.
+     */
+    static private class SubjectGrouper {
+        final private Project project;
+        final private Column subjectColumn;
+        final private Map<String, List<Row>> subjectToRows = new LinkedHashMap<String, List<Row>>();
+        final private boolean skipRepeatedTriples;
+        private String currentSubject;
+        final private Set<Triple> currentSubjectTriples = new HashSet<Triple>();
+
+        SubjectGrouper(Project project, boolean skipRepeatedTriples) throws ModelException {
+            this.project = project;
+            this.skipRepeatedTriples = skipRepeatedTriples;
+            subjectColumn = new Column(project.columnModel.allocateNewCellIndex(), "subject");
+            project.columnModel.addColumn(0, subjectColumn, false);
+            project.columnModel.setKeyColumnIndex(0);
+        }
+
+        int subjectCount() {
+            return subjectToRows.size();
+        }
+
+        boolean hasSubject(Statement triple) {
+            return subjectToRows.containsKey(triple.getSubject().toString());
+        }
+
+        void add(Statement triple) throws ModelException {
+            String subject = triple.getSubject().toString();
+            String predicate = triple.getPredicate().toString();
+            String object = triple.getObject().toString();
+
+            if (skipRepeatedTriples) {
+                if (!subject.equals(currentSubject)) {
+                    currentSubject = subject;
+                    currentSubjectTriples.clear();
+                }
+                if (!currentSubjectTriples.add(triple.asTriple())) {
+                    return;
+                }
+            }
+
+            Column column = project.columnModel.getColumnByName(predicate);
+            if (column == null) {
+                column = new Column(project.columnModel.allocateNewCellIndex(), predicate);
+                project.columnModel.addColumn(-1, column, true);
+            }
+
+            int cellIndex = column.getCellIndex();
+            if (subjectToRows.containsKey(subject)) {
+                List<Row> rows = subjectToRows.get(subject);
+                for (Row row : rows) {
+                    if (!ExpressionUtils.isNonBlankData(row.getCellValue(cellIndex))) {
+                        row.setCell(cellIndex, new Cell(object, null));
+                        object = null;
+                        break;
+                    }
+                }
+
+                if (object != null) {
+                    Row row = new Row(project.columnModel.getMaxCellIndex() + 1);
+                    rows.add(row);
+
+                    row.setCell(cellIndex, new Cell(object, null));
+                }
+            } else {
+                List<Row> rows = new ArrayList<Row>();
+                subjectToRows.put(subject, rows);
+
+                Row row = new Row(project.columnModel.getMaxCellIndex() + 1);
+                rows.add(row);
+
+                row.setCell(subjectColumn.getCellIndex(), new Cell(subject, null));
+                row.setCell(cellIndex, new Cell(object, null));
+            }
+        }
+
+        void appendRows() {
+            for (Entry<String, List<Row>> entry : subjectToRows.entrySet()) {
+                project.rows.addAll(entry.getValue());
+            }
+        }
+    }
 }
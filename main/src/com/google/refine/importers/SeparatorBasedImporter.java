@@ -41,17 +41,24 @@ import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.text.StringEscapeUtils;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.importing.ImportingJob;
 import com.google.refine.importing.ImportingUtilities;
@@ -137,6 +144,18 @@ public class SeparatorBasedImporter extends TabularImportingParserBase {
             CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE,
             !processQuotes);
         
+        int threads = getParsingThreads();
+        if (threads > 1) {
+            ChunkedTableDataReader dataReader = new ChunkedTableDataReader(
+                    reader, columnNames, sep, quote, strictQuotes, !processQuotes, threads, CHUNK_SIZE);
+            try {
+                TabularImportingParserBase.readTable(project, job, dataReader, limit, options, exceptions);
+            } finally {
+                dataReader.close();
+            }
+            return;
+        }
+        
         final LineNumberReader lnReader = new LineNumberReader(reader);
         
         TableDataReader dataReader = new TableDataReader() {
@@ -160,6 +179,186 @@ public class SeparatorBasedImporter extends TabularImportingParserBase {
         TabularImportingParserBase.readTable(project, job, dataReader, limit, options, exceptions);
     }
     
+    /**
+     * Preference giving the number of threads tokenizing a file. Above 1, the
+     * file is read in chunks which are tokenized concurrently.
+     */
+    static final public String PARSING_THREADS_PREF = "importing.separatorParsingThreads";
+
+    static final protected int CHUNK_SIZE = 1 << 20;
+
+    static protected int getParsingThreads() {
+        if (ProjectManager.singleton == null) {
+            return 1;
+        }
+        return Math.max(1, ProjectManager.singleton.getPreferenceStore().getInteger(PARSING_THREADS_PREF, 1));
+    }
+
+    /**
+     * Reads the text in chunks ending at line breaks, preferably outside of
+     * quotes, and tokenizes them on a pool of threads while returning the rows
+     * of the earlier ones in order.
+     * <p>
+     * Each chunk is tokenized as if it started a record. When a chunk turns out
+     * to end inside a quoted field, the next one is tokenized again once that
+     * field is known, so the rows are always the same as when reading the text
+     * line by line.
+     */
+    static protected class ChunkedTableDataReader implements TableDataReader {
+        final private Reader _reader;
+        final private String _separator;
+        final private char _quote;
+        final private boolean _strictQuotes;
+        final private boolean _ignoreQuotations;
+        final private int _chunkSize;
+        final private int _maxChunksInFlight;
+        final private ExecutorService _executor;
+        final private Deque<Future<Chunk>> _chunks = new ArrayDeque<>();
+
+        private List<Object> _columnNames;
+        private char[] _remainder = new char[0];
+        private boolean _endOfInput;
+        private Chunk _chunk;
+        private int _rowIndex;
+
+        protected ChunkedTableDataReader(Reader reader, List<Object> columnNames, String separator, char quote,
+                boolean strictQuotes, boolean ignoreQuotations, int threads, int chunkSize) {
+            _reader = reader;
+            _columnNames = columnNames;
+            _separator = separator;
+            _quote = quote;
+            _strictQuotes = strictQuotes;
+            _ignoreQuotations = ignoreQuotations;
+            _chunkSize = chunkSize;
+            _maxChunksInFlight = threads * 2;
+            _executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "separator-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public List<Object> getNextRowOfCells() throws IOException {
+            if (_columnNames != null) {
+                List<Object> columnNames = _columnNames;
+                _columnNames = null;
+                return columnNames;
+            }
+            while (_chunk == null || _rowIndex >= _chunk.rows.size()) {
+                Chunk previous = _chunk;
+                while (!_endOfInput && _chunks.size() < _maxChunksInFlight) {
+                    Chunk chunk = readChunk();
+                    _chunks.add(_executor.submit(() -> {
+                        chunk.tokenize(newTokenizer());
+                        return chunk;
+                    }));
+                }
+                if (_chunks.isEmpty()) {
+                    return null;
+                }
+                _chunk = getChunk(_chunks.poll());
+                _rowIndex = 0;
+                if (previous != null && previous.tokenizer.isPending()) {
+                    // the chunk does not start a record after all
+                    CsvTokenizer tokenizer = newTokenizer();
+                    tokenizer.continueFrom(previous.tokenizer);
+                    _chunk.tokenize(tokenizer);
+                }
+            }
+            return _chunk.rows.get(_rowIndex++);
+        }
+
+        protected CsvTokenizer newTokenizer() {
+            return new CsvTokenizer(_separator, _quote, _strictQuotes, _ignoreQuotations);
+        }
+
+        private Chunk getChunk(Future<Chunk> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+
+        /**
+         * Reads at least a chunk's worth of characters, and cuts them after the
+         * last line break where quotes are balanced, or the last line break if
+         * there is none. What follows the cut is kept for the next chunk.
+         */
+        private Chunk readChunk() throws IOException {
+            char[] buffer = Arrays.copyOf(_remainder, Math.max(_chunkSize, _remainder.length * 2));
+            int length = _remainder.length;
+            int cut = -1;
+            while (true) {
+                while (length < buffer.length) {
+                    int read = _reader.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        _endOfInput = true;
+                        break;
+                    }
+                    length += read;
+                }
+                if (_endOfInput) {
+                    _remainder = new char[0];
+                    return new Chunk(buffer, length, true);
+                }
+                cut = findCut(buffer, length);
+                if (cut > 0) {
+                    break;
+                }
+                // a single line longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            _remainder = Arrays.copyOfRange(buffer, cut, length);
+            return new Chunk(buffer, cut, false);
+        }
+
+        private int findCut(char[] buffer, int length) {
+            boolean inQuotes = false;
+            int lastBreak = -1;
+            int lastBalancedBreak = -1;
+            for (int i = 0; i < length; i++) {
+                char c = buffer[i];
+                if (c == _quote && !_ignoreQuotations) {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n') {
+                    lastBreak = i + 1;
+                    if (!inQuotes) {
+                        lastBalancedBreak = i + 1;
+                    }
+                }
+            }
+            return lastBalancedBreak > 0 ? lastBalancedBreak : lastBreak;
+        }
+
+        public void close() {
+            _executor.shutdownNow();
+        }
+
+        static private class Chunk {
+            final char[] buffer;
+            final int length;
+            final boolean isLast;
+            List<List<Object>> rows;
+            CsvTokenizer tokenizer;
+
+            Chunk(char[] buffer, int length, boolean isLast) {
+                this.buffer = buffer;
+                this.length = length;
+                this.isLast = isLast;
+            }
+
+            void tokenize(CsvTokenizer tokenizer) {
+                this.tokenizer = tokenizer;
+                this.rows = tokenizer.tokenize(buffer, 0, length, isLast);
+            }
+        }
+    }
+
     static protected ArrayList<Object> getCells(String line, CSVParser parser, LineNumberReader lnReader)
         throws IOException{
         
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.importers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import com.google.refine.importers.TabularImportingParserBase.TableDataReader;
+import com.google.refine.model.Cell;
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * Reads the rows of one sheet of an OOXML (.xlsx) workbook by pulling the
+ * sheet XML one element at a time, so that only the current row is held in
+ * memory. Cells are converted the same way as {@link ExcelImporter#extractCell},
+ * and missing rows and cells are returned as empty rows and null cells, like
+ * when iterating over the rows of an {@link org.apache.poi.xssf.usermodel.XSSFSheet}.
+ */
+public class XlsxSheetDataReader implements TableDataReader {
+
+    final private InputStream _inputStream;
+    final private XMLStreamReader _reader;
+    final private SharedStrings _sharedStrings;
+    final private StylesTable _styles;
+    final private Map<Integer, Boolean> _dateStyles = new HashMap<>();
+
+    private int _nextRow = 0;
+    private int _lastReadRow = -1;
+    private List<Object> _pendingRow = null;
+    private boolean _done = false;
+
+    /**
+     * @param inputStream
+     *            the XML of the sheet part, closed by {@link #close()}
+     * @param sharedStrings
+     *            the shared strings of the workbook
+     * @param styles
+     *            the styles of the workbook, used to recognize dates, or null
+     */
+    public XlsxSheetDataReader(InputStream inputStream, SharedStrings sharedStrings, StylesTable styles)
+            throws IOException {
+        _inputStream = inputStream;
+        _sharedStrings = sharedStrings;
+        _styles = styles;
+        try {
+            _reader = createInputFactory().createXMLStreamReader(inputStream);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public List<Object> getNextRowOfCells() throws IOException {
+        if (_pendingRow == null && !_done) {
+            try {
+                readRow();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+        if (_pendingRow == null) {
+            return null;
+        }
+        if (_lastReadRow > _nextRow) {
+            // rows without any cell are not stored in the sheet
+            _nextRow++;
+            return new ArrayList<Object>();
+        }
+        List<Object> row = _pendingRow;
+        _pendingRow = null;
+        _nextRow++;
+        return row;
+    }
+
+    public void close() throws IOException {
+        try {
+            _reader.close();
+        } catch (XMLStreamException e) {
+            // the underlying stream gets closed anyway
+        }
+        _inputStream.close();
+    }
+
+    /**
+     * Counts the rows of a sheet, from its first to its last stored row, using the
+     * dimension declared at the top of the sheet when there is one.
+     */
+    static public int countRows(InputStream inputStream) throws IOException {
+        try {
+            XMLStreamReader reader = createInputFactory().createXMLStreamReader(inputStream);
+            try {
+                int firstRow = -1;
+                int lastRow = -1;
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String name = reader.getLocalName();
+                    if ("dimension".equals(name)) {
+                        String ref = reader.getAttributeValue(null, "ref");
+                        int colon = ref == null ? -1 : ref.indexOf(':');
+                        if (colon > 0) {
+                            // some writers always declare "A1", so only trust actual ranges
+                            return new CellReference(ref.substring(colon + 1)).getRow()
+                                    - new CellReference(ref.substring(0, colon)).getRow() + 1;
+                        }
+                    } else if ("row".equals(name)) {
+                        String r = reader.getAttributeValue(null, "r");
+                        lastRow = r != null ? Integer.parseInt(r) - 1 : lastRow + 1;
+                        if (firstRow < 0) {
+                            firstRow = lastRow;
+                        }
+                    }
+                }
+                return firstRow < 0 ? 1 : lastRow - firstRow + 1;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IOException(e);
+        }
+    }
+
+    static private XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private void readRow() throws XMLStreamException {
+        while (_reader.hasNext()) {
+            int event = _reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "row".equals(_reader.getLocalName())) {
+                String r = _reader.getAttributeValue(null, "r");
+                _lastReadRow = r != null ? Integer.parseInt(r) - 1 : _lastReadRow + 1;
+                _pendingRow = readCells();
+                return;
+            } else if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(_reader.getLocalName())) {
+                break;
+            }
+        }
+        _done = true;
+    }
+
+    private List<Object> readCells() throws XMLStreamException {
+        List<Object> cells = new ArrayList<Object>();
+        while (_reader.hasNext()) {
+            int event = _reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "row".equals(_reader.getLocalName())) {
+                break;
+            } else if (event == XMLStreamConstants.START_ELEMENT && "c".equals(_reader.getLocalName())) {
+                String ref = _reader.getAttributeValue(null, "r");
+                int column = ref != null ? new CellReference(ref).getCol() : cells.size();
+                while (cells.size() < column) {
+                    cells.add(null);
+                }
+                cells.add(readCell());
+            }
+        }
+        return cells;
+    }
+
+    private Cell readCell() throws XMLStreamException {
+        String type = _reader.getAttributeValue(null, "t");
+        String style = _reader.getAttributeValue(null, "s");
+        String value = null;
+        while (_reader.hasNext()) {
+            int event = _reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "c".equals(_reader.getLocalName())) {
+                break;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = _reader.getLocalName();
+                if ("v".equals(name)) {
+                    value = _reader.getElementText();
+                } else if ("is".equals(name)) {
+                    value = readInlineString();
+                } else {
+                    skipElement();
+                }
+            }
+        }
+        return extractCell(type, style, value);
+    }
+
+    private String readInlineString() throws XMLStreamException {
+        StringBuilder sb = new StringBuilder();
+        while (_reader.hasNext()) {
+            int event = _reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "is".equals(_reader.getLocalName())) {
+                break;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("t".equals(_reader.getLocalName())) {
+                    sb.append(_reader.getElementText());
+                } else if ("rPh".equals(_reader.getLocalName())) {
+                    // phonetic hints are not part of the value
+                    skipElement();
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && _reader.hasNext()) {
+            int event = _reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private Cell extractCell(String type, String style, String value) {
+        if ("e".equals(type)) {
+            return null;
+        }
+        if (type == null || "n".equals(type)) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            double d = Double.parseDouble(value);
+            Serializable cellValue = d;
+            if (isDateStyle(style) && DateUtil.isValidExcelDate(d)) {
+                cellValue = ParsingUtilities.toDate(DateUtil.getJavaDate(d));
+            }
+            return new Cell(cellValue, null);
+        } else if ("b".equals(type)) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            return new Cell("1".equals(value) || "true".equalsIgnoreCase(value), null);
+        }
+
+        String text = value;
+        if ("s".equals(type)) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            text = _sharedStrings.getItemAt(Integer.parseInt(value)).getString();
+        }
+        return new Cell(text != null && text.length() > 0 ? text : null, null);
+    }
+
+    private boolean isDateStyle(String style) {
+        if (_styles == null) {
+            return false;
+        }
+        int index = style == null ? 0 : Integer.parseInt(style);
+        Boolean isDate = _dateStyles.get(index);
+        if (isDate == null) {
+            XSSFCellStyle cellStyle = index < _styles.getNumCellStyles() ? _styles.getStyleAt(index) : null;
+            isDate = cellStyle != null && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+            _dateStyles.put(index, isDate);
+        }
+        return isDate;
+    }
+}
@@ -1045,6 +1045,9 @@ public class ImportingUtilities {
         
         if (!job.canceled) {
             if (exceptions.size() == 0) {
+                if (Project.isColumnarStorageEnabled()) {
+                    project.compactRows();
+                }
                 project.update(); // update all internal models, indexes, caches, etc.
                 
                 ProjectManager.singleton.registerProject(project, pm);
@@ -44,6 +44,8 @@ import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.history.BinaryChange;
+import com.google.refine.history.Change;
 import com.google.refine.history.History;
 import com.google.refine.history.HistoryEntry;
 import com.google.refine.history.HistoryEntryManager;
@@ -95,8 +97,14 @@ public class FileHistoryEntryManager implements HistoryEntryManager{
                     zipFile.getInputStream(poolEntry)));
             } // else, it's a legacy project file
 
-            historyEntry.setChange(History.readOneChange(
-                    zipFile.getInputStream(zipFile.getEntry("change.txt")), pool));
+            ZipEntry binaryEntry = zipFile.getEntry("change.bin");
+            if (binaryEntry != null) {
+                historyEntry.setChange(History.readOneBinaryChange(
+                        zipFile.getInputStream(binaryEntry), pool));
+            } else {
+                historyEntry.setChange(History.readOneChange(
+                        zipFile.getInputStream(zipFile.getEntry("change.txt")), pool));
+            }
         } finally {
             zipFile.close();
         }
@@ -114,10 +122,16 @@ public class FileHistoryEntryManager implements HistoryEntryManager{
         ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
         try {
             Pool pool = new Pool();
+            Change change = historyEntry.getChange();
+            boolean binary = useBinaryChangeFiles() && History.hasBinaryForm(change);
 
-            out.putNextEntry(new ZipEntry("change.txt"));
+            out.putNextEntry(new ZipEntry(binary ? "change.bin" : "change.txt"));
             try {
-                History.writeOneChange(out, historyEntry.getChange(), pool);
+                if (binary) {
+                    History.writeOneBinaryChange(out, (BinaryChange) change, pool);
+                } else {
+                    History.writeOneChange(out, change, pool);
+                }
             } catch(Exception e) {
                 e.printStackTrace();
             } finally {
@@ -135,6 +149,16 @@ public class FileHistoryEntryManager implements HistoryEntryManager{
         }
     }
 
+    /**
+     * Changes which support it are saved in their binary form, unless the
+     * "history.binaryChangeFiles" preference is false (for instance to keep the
+     * workspace readable by older versions).
+     */
+    protected boolean useBinaryChangeFiles() {
+        return ProjectManager.singleton == null ||
+                ProjectManager.singleton.getPreferenceStore().getBoolean("history.binaryChangeFiles", true);
+    }
+
     protected File getChangeFile(HistoryEntry historyEntry) {
         return new File(getHistoryDir(historyEntry), historyEntry.id + ".change.zip");
     }
@@ -33,6 +33,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.io;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -49,6 +50,9 @@ import java.util.zip.GZIPOutputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
 import org.apache.poi.util.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +71,12 @@ import com.google.refine.util.ParsingUtilities;
 public class FileProjectManager extends ProjectManager  {
     final static protected String PROJECT_DIR_SUFFIX = ".project";
 
+    /**
+     * Number of threads compressing project archives. Set it to 1 to compress
+     * them on the request thread only.
+     */
+    static final public String COMPRESSION_THREADS_PREF = "export.compressionThreads";
+
     protected File                       _workspaceDir;
 
     final static Logger logger = LoggerFactory.getLogger("FileProjectManager");
@@ -152,13 +162,29 @@ public class FileProjectManager extends ProjectManager  {
         destDir.mkdirs();
 
         if (gziped) {
-            GZIPInputStream gis = new GZIPInputStream(inputStream);
-            untar(destDir, gis);
+            inputStream = new BufferedInputStream(inputStream);
+            untar(destDir, ZstdUtils.matches(peekSignature(inputStream), 4) ?
+                    openZstdStream(inputStream) : new GZIPInputStream(inputStream));
         } else {
             untar(destDir, inputStream);
         }
     }
 
+    static private byte[] peekSignature(InputStream inputStream) throws IOException {
+        byte[] signature = new byte[4];
+        inputStream.mark(signature.length);
+        IOUtils.readFully(inputStream, signature);
+        inputStream.reset();
+        return signature;
+    }
+
+    static private InputStream openZstdStream(InputStream inputStream) throws IOException {
+        if (!ZstdUtils.isZstdCompressionAvailable()) {
+            throw new IOException("Zstandard-compressed projects cannot be imported: the zstd-jni library is missing");
+        }
+        return new ZstdCompressorInputStream(inputStream);
+    }
+
     protected void untar(File destDir, InputStream inputStream) throws IOException {
         TarArchiveInputStream tin = new TarArchiveInputStream(inputStream);
         TarArchiveEntry tarEntry = null;
@@ -197,7 +223,7 @@ public class FileProjectManager extends ProjectManager  {
         if (files == null) return;
         for (File file : files) {
         	if (file == null) continue;
-            if (!file.isHidden()) {
+            if (!file.isHidden() && !file.getName().equals(ProjectUtilities.ROW_BLOCK_FILE)) {
                 String path = relative + file.getName();
 
                 if (file.isDirectory()) {
@@ -246,6 +272,11 @@ public class FileProjectManager extends ProjectManager  {
         ProjectUtilities.save(project);
     }
 
+    @Override
+    protected void saveProjectSnapshot(Project project) throws IOException {
+        ProjectUtilities.saveSnapshot(project);
+    }
+
     @Override
     public Project loadProject(long id) {
         return ProjectUtilities.load(getProjectDir(id), id);
@@ -325,7 +356,9 @@ public class FileProjectManager extends ProjectManager  {
     public void deleteProject(long projectID) {
         synchronized (this) {
             removeProject(projectID);
-
+        }
+        // a save in progress is written first, later ones skip the removed project
+        synchronized (ProjectUtilities.class) {
             File dir = getProjectDir(projectID);
             if (dir.exists()) {
                 deleteDir(dir);
@@ -424,7 +457,8 @@ public class FileProjectManager extends ProjectManager  {
     }
     
     public static void gzipTarToOutputStream(Project project, OutputStream os) throws IOException {
-        GZIPOutputStream gos = new GZIPOutputStream(os);
+        int threads = getCompressionThreads();
+        OutputStream gos = threads > 1 ? new ParallelGZIPOutputStream(os, threads) : new GZIPOutputStream(os);
         TarArchiveOutputStream tos = new TarArchiveOutputStream(gos);
         try {
             ProjectManager.singleton.exportProject(project.id, tos);
@@ -434,6 +468,33 @@ public class FileProjectManager extends ProjectManager  {
         }
     }
     
+    /**
+     * Writes the project as a Zstandard-compressed tar archive, which
+     * {@link #importProject(long, InputStream, boolean)} can read back. This
+     * requires the optional zstd-jni library.
+     */
+    public static void zstdTarToOutputStream(Project project, OutputStream os) throws IOException {
+        if (!ZstdUtils.isZstdCompressionAvailable()) {
+            throw new IOException("Zstandard compression is not available: the zstd-jni library is missing");
+        }
+        ZstdCompressorOutputStream zos = new ZstdCompressorOutputStream(os);
+        TarArchiveOutputStream tos = new TarArchiveOutputStream(zos);
+        try {
+            ProjectManager.singleton.exportProject(project.id, tos);
+        } finally {
+            tos.close();
+            zos.close();
+        }
+    }
+
+    static private int getCompressionThreads() {
+        if (singleton == null) {
+            return 1;
+        }
+        return Math.max(1, singleton.getPreferenceStore().getInteger(COMPRESSION_THREADS_PREF,
+                Runtime.getRuntime().availableProcessors()));
+    }
+    
     @JsonProperty("projectIDs")
     public Set<Long> getProjectIds() {
         return _projectsMetadata.keySet();
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream writing data in the gzip format, like
+ * {@link java.util.zip.GZIPOutputStream}, but compressing blocks of the
+ * input on several threads.
+ * <p>
+ * Each block is deflated separately, using the end of the previous block as
+ * dictionary, and ends with a sync flush so that the compressed blocks can be
+ * concatenated into a single deflate stream, as done by pigz. The result can
+ * be read by any gzip decoder.
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+    static final public int DEFAULT_BLOCK_SIZE = 128 * 1024;
+    static final private int DICTIONARY_SIZE = 32 * 1024;
+    static final private byte[] HEADER = {
+            (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    final private ExecutorService _executor;
+    final private int _maxPendingBlocks;
+    final private Deque<Future<byte[]>> _pendingBlocks = new ArrayDeque<>();
+    final private CRC32 _crc = new CRC32();
+    private byte[] _block;
+    private int _blockLength = 0;
+    private byte[] _previousBlock = null;
+    private long _totalLength = 0;
+    private boolean _closed = false;
+
+    public ParallelGZIPOutputStream(OutputStream out, int threads) throws IOException {
+        this(out, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ParallelGZIPOutputStream(OutputStream out, int threads, int blockSize) throws IOException {
+        super(out);
+        _block = new byte[blockSize];
+        _maxPendingBlocks = threads * 2;
+        _executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "gzip-compression");
+            thread.setDaemon(true);
+            return thread;
+        });
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        _block[_blockLength++] = (byte) b;
+        if (_blockLength == _block.length) {
+            submitBlock(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, _block.length - _blockLength);
+            System.arraycopy(b, off, _block, _blockLength, n);
+            _blockLength += n;
+            off += n;
+            len -= n;
+            if (_blockLength == _block.length) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Writes out the blocks compressed so far. The data still buffered in the
+     * current block is only compressed once the block is full or the stream
+     * is closed.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!_pendingBlocks.isEmpty() && _pendingBlocks.peekFirst().isDone()) {
+            writeNextBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+        try {
+            submitBlock(true);
+            while (!_pendingBlocks.isEmpty()) {
+                writeNextBlock();
+            }
+            writeInt((int) _crc.getValue());
+            writeInt((int) _totalLength);
+            out.flush();
+        } finally {
+            _executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        final byte[] block = _block;
+        final int length = _blockLength;
+        final byte[] dictionary = _previousBlock;
+        _crc.update(block, 0, length);
+        _totalLength += length;
+
+        _pendingBlocks.addLast(_executor.submit(() -> compress(block, length, dictionary, last)));
+        _previousBlock = block;
+        _block = new byte[block.length];
+        _blockLength = 0;
+
+        while (_pendingBlocks.size() >= _maxPendingBlocks) {
+            writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        try {
+            out.write(_pendingBlocks.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    static private byte[] compress(byte[] block, int length, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionary != null) {
+                int dictionaryLength = Math.min(DICTIONARY_SIZE, dictionary.length);
+                deflater.setDictionary(dictionary, dictionary.length - dictionaryLength, dictionaryLength);
+            }
+            deflater.setInput(block, 0, length);
+            if (last) {
+                deflater.finish();
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[Math.max(length / 4, 1024)];
+            while (true) {
+                int n = last ? deflater.deflate(buffer) :
+                    deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                compressed.write(buffer, 0, n);
+                if (last ? deflater.finished() : n < buffer.length) {
+                    break;
+                }
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeInt(int i) throws IOException {
+        out.write(i & 0xff);
+        out.write((i >> 8) & 0xff);
+        out.write((i >> 16) & 0xff);
+        out.write((i >> 24) & 0xff);
+    }
+}
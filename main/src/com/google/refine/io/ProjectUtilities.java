@@ -33,9 +33,13 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.io;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -44,62 +48,165 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.ProjectMetadata;
+import com.google.refine.model.BinaryRowFormat;
 import com.google.refine.model.Project;
+import com.google.refine.model.lazy.LazyRowList;
+import com.google.refine.model.lazy.RowBlockFile;
 import com.google.refine.util.Pool;
 
 
 public class ProjectUtilities {
     final static Logger logger = LoggerFactory.getLogger("project_utilities");
 
+    /**
+     * Name of the archive entry holding the rows in binary form.
+     */
+    static final String ROW_FILE = "rows.bin";
+
+    /**
+     * Name of the uncompressed file rows are read from lazily, next to the project
+     * archive. It is left out of project exports.
+     */
+    static final String ROW_BLOCK_FILE = ".rows.blocks";
+
+    /**
+     * Whether rows are saved in the {@link com.google.refine.model.BinaryRowFormat},
+     * rather than as JSON lines in data.txt, as set by the "storage.binaryRows"
+     * preference. Both formats can be loaded regardless of this setting. It is off by
+     * default: older versions ignore the row file and would open such projects, or
+     * archives exported from them, without any rows.
+     */
+    static public boolean isBinaryRowFormatEnabled() {
+        return ProjectManager.singleton != null &&
+                ProjectManager.singleton.getPreferenceStore().getBoolean("storage.binaryRows", false);
+    }
+
     synchronized public static void save(Project project) throws IOException {
         synchronized (project) {
-            long id = project.id;
-            File dir = ((FileProjectManager)ProjectManager.singleton).getProjectDir(id);
+            Pool pool = new Pool();
+            Project.Snapshot snapshot = project.takeSnapshot(pool, isBinaryRowFormatEnabled() ? ROW_FILE : null, false);
+            saveSnapshotToProjectDir(project.id, snapshot, pool);
+            project.setLastSave();
+        }
+    }
 
-            File tempFile = new File(dir, "data.temp.zip");
-            try {
-                saveToFile(project, tempFile);
-            } catch (IOException e) {
-                e.printStackTrace();
-                logger.warn("Failed to save project {}", id);
-                try {
-                    tempFile.delete();
-                } catch (Exception e2) {
-                    // just ignore - file probably was never created.
+    /**
+     * Saves a project without holding its lock while the archive is written, so that
+     * it can keep being used meanwhile. The lock is only held to copy the rows, and
+     * changes made after that are saved the next time. Projects whose rows are read
+     * lazily from disk are saved with {@link #save(Project)} instead. Nothing is
+     * saved if the project was saved since it was last modified, or if it was
+     * deleted since it was queued.
+     */
+    public static void saveSnapshot(Project project) throws IOException {
+        Pool pool = new Pool();
+        Project.Snapshot snapshot;
+        synchronized (project) {
+            ProjectMetadata metadata = ProjectManager.singleton.getProjectMetadata(project.id);
+            if (metadata == null || metadata.getModified().isBefore(project.getLastSave())) {
+                // deleted, or saved since it was queued, for instance by a complete save
+                return;
+            }
+            if (project.rows instanceof LazyRowList && !((LazyRowList) project.rows).isMaterialized()) {
+                snapshot = null;
+            } else {
+                snapshot = project.takeSnapshot(pool, isBinaryRowFormatEnabled() ? ROW_FILE : null, true);
+            }
+        }
+        if (snapshot == null) {
+            // the rows are not copied, and the block file they come from is replaced by the save
+            synchronized (ProjectUtilities.class) {
+                if (ProjectManager.singleton.getProjectMetadata(project.id) != null) {
+                    save(project);
                 }
-                throw e;
             }
+            return;
+        }
+        saveSnapshot(project, snapshot, pool);
+    }
 
-            File file = new File(dir, "data.zip");
-            File oldFile = new File(dir, "data.old.zip");
-
-            if (file.exists()) {
-                file.renameTo(oldFile);
+    /**
+     * Writes a snapshot of a project, unless the project was saved after the
+     * snapshot was taken: that save holds later changes, which must not be
+     * overwritten. Nothing is written either once the project is deleted, which
+     * would create its directory again.
+     * 
+     * @return whether the snapshot was written
+     */
+    protected static boolean saveSnapshot(Project project, Project.Snapshot snapshot, Pool pool) throws IOException {
+        synchronized (ProjectUtilities.class) {
+            if (!snapshot.time.isAfter(project.getLastSave()) ||
+                    ProjectManager.singleton.getProjectMetadata(project.id) == null) {
+                return false;
             }
+            saveSnapshotToProjectDir(project.id, snapshot, pool);
+            project.setLastSave(snapshot.time);
+            return true;
+        }
+    }
 
-            tempFile.renameTo(file);
-            if (oldFile.exists()) {
-                oldFile.delete();
+    private static void saveSnapshotToProjectDir(long id, Project.Snapshot snapshot, Pool pool) throws IOException {
+        File dir = ((FileProjectManager)ProjectManager.singleton).getProjectDir(id);
+
+        File tempFile = new File(dir, "data.temp.zip");
+        try {
+            saveSnapshotToFile(snapshot, pool, tempFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.warn("Failed to save project {}", id);
+            try {
+                tempFile.delete();
+            } catch (Exception e2) {
+                // just ignore - file probably was never created.
             }
+            throw e;
+        }
 
-            project.setLastSave();
+        File file = new File(dir, "data.zip");
+        File oldFile = new File(dir, "data.old.zip");
+
+        if (file.exists()) {
+            file.renameTo(oldFile);
+        }
 
-            logger.info("Saved project '{}'",id);
+        tempFile.renameTo(file);
+        if (oldFile.exists()) {
+            oldFile.delete();
         }
+
+        logger.info("Saved project '{}'",id);
     }
 
     protected static void saveToFile(Project project, File file) throws IOException  {
+        Pool pool = new Pool();
+        saveSnapshotToFile(project.takeSnapshot(pool, isBinaryRowFormatEnabled() ? ROW_FILE : null, false), pool, file);
+    }
+
+    protected static void saveSnapshotToFile(Project.Snapshot snapshot, Pool pool, File file) throws IOException  {
         ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
         try {
-            Pool pool = new Pool();
-
             out.putNextEntry(new ZipEntry("data.txt"));
             try {
-                project.saveToOutputStream(out, pool);
+                snapshot.saveToOutputStream(out);
             } finally {
                 out.closeEntry();
             }
 
+            if (snapshot.hasBinaryRows()) {
+                // the binary rows are already compact: favour speed over size
+                out.setLevel(Deflater.BEST_SPEED);
+                out.putNextEntry(new ZipEntry(ROW_FILE));
+                try {
+                    BufferedOutputStream rowOut = new BufferedOutputStream(out, 1 << 16);
+                    snapshot.saveRowsToBinaryStream(rowOut);
+                    rowOut.flush();
+                } finally {
+                    out.closeEntry();
+                    out.setLevel(Deflater.DEFAULT_COMPRESSION);
+                }
+            }
+
             out.putNextEntry(new ZipEntry("pool.txt"));
             try {
                 pool.save(out);
@@ -142,6 +249,26 @@ public class ProjectUtilities {
         return null;
     }
 
+    /**
+     * Opens the block file of a project archive, extracting it from the archive first
+     * if it is missing or out of date.
+     */
+    static protected LazyRowList openLazyRows(File file, ZipFile zipFile, ZipEntry rowEntry, Pool pool) throws IOException {
+        File blockFile = new File(file.getParentFile(), ROW_BLOCK_FILE);
+        RowBlockFile blocks = RowBlockFile.open(blockFile, file);
+        if (blocks == null) {
+            try (InputStream in = new BufferedInputStream(zipFile.getInputStream(rowEntry), 1 << 16)) {
+                RowBlockFile.write(blockFile, file, new BinaryRowFormat.RowReader(in, pool), RowBlockFile.DEFAULT_BLOCK_SIZE);
+            }
+            blocks = RowBlockFile.open(blockFile, file);
+            if (blocks == null) {
+                throw new IOException("Could not create row block file " + blockFile);
+            }
+        }
+        int cachedBlocks = ProjectManager.singleton.getPreferenceStore().getInteger("storage.lazyLoading.cachedBlocks", 64);
+        return new LazyRowList(blocks, pool, Math.max(1, cachedBlocks));
+    }
+
     static protected Project loadFromFile(
             File file,
             long id
@@ -154,10 +281,26 @@ public class ProjectUtilities {
                 pool.load(zipFile.getInputStream(poolEntry));
             } // else, it's a legacy project file
 
+            ZipEntry rowEntry = zipFile.getEntry(ROW_FILE);
+            if (rowEntry != null && Project.isLazyLoadingEnabled()) {
+                LazyRowList lazyRows = openLazyRows(file, zipFile, rowEntry, pool);
+                try {
+                    return Project.loadFromInputStream(
+                            zipFile.getInputStream(zipFile.getEntry("data.txt")),
+                            id,
+                            pool,
+                            lazyRows
+                    );
+                } catch (Exception e) {
+                    lazyRows.close();
+                    throw e;
+                }
+            }
             return Project.loadFromInputStream(
                     zipFile.getInputStream(zipFile.getEntry("data.txt")),
                     id,
-                    pool
+                    pool,
+                    rowEntry == null ? null : new BufferedInputStream(zipFile.getInputStream(rowEntry), 1 << 16)
             );
         } finally {
             zipFile.close();
@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.google.refine.expr.EvalError;
+import com.google.refine.util.Pool;
+
+/**
+ * Binary encoding of the rows of a project, stored next to the textual project data
+ * in project archives. It is much faster to read and write than the one JSON object
+ * per row of the textual format.
+ * <p>
+ * The stream starts with a magic number, a format version and the row count. Each
+ * row is then a flag byte followed by its cell count and its cells. Each cell starts
+ * with a tag byte giving the type of its value, followed by the value and, if the
+ * cell is reconciled, the id of its recon (stored in the {@link Pool}).
+ * <p>
+ * Repeated strings are written once and then referred to by their index in a string
+ * dictionary, which is built identically by the writer and the reader. The dictionary
+ * stops growing once it reaches {@link #MAX_DICTIONARY_SIZE} entries.
+ */
+public class BinaryRowFormat {
+
+    static final int MAGIC = 0x4F525257; // "ORRW"
+    static final int VERSION = 1;
+
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    static final byte ROW_PRESENT = 1;
+    static final byte ROW_FLAGGED = 2;
+    static final byte ROW_STARRED = 4;
+
+    static final byte NULL_CELL = 0;
+    static final byte NULL_VALUE = 1;
+    static final byte STRING = 2;
+    static final byte STRING_DEFINITION = 3;
+    static final byte STRING_REFERENCE = 4;
+    static final byte INTEGER = 5;
+    static final byte LONG = 6;
+    static final byte DOUBLE = 7;
+    static final byte TRUE = 8;
+    static final byte FALSE = 9;
+    static final byte DATE = 10;
+    static final byte ERROR = 11;
+    static final byte JSON = 12; // any other value, in the textual cell format
+
+    static final byte RECONCILED = (byte) 0x80;
+
+    /**
+     * Writes rows to a stream. Recons of the cells are added to the given pool, which
+     * must be saved along with the rows.
+     */
+    static public class RowWriter {
+        final protected DataOutputStream _out;
+        final protected Pool _pool;
+        final protected Map<String, Integer> _dictionary = new HashMap<>();
+        final protected Properties _cellOptions = new Properties();
+
+        public RowWriter(OutputStream out, Pool pool, int rowCount) throws IOException {
+            _out = new DataOutputStream(out);
+            _pool = pool;
+            _cellOptions.put("pool", pool);
+
+            _out.writeInt(MAGIC);
+            _out.writeInt(VERSION);
+            _out.writeInt(rowCount);
+        }
+
+        public void writeRow(Row row) throws IOException {
+            if (row == null) {
+                _out.writeByte(0);
+                return;
+            }
+            _out.writeByte(ROW_PRESENT | (row.flagged ? ROW_FLAGGED : 0) | (row.starred ? ROW_STARRED : 0));
+
+            int cellCount = row.cells.size();
+            writeVarInt(_out, cellCount);
+            for (int c = 0; c < cellCount; c++) {
+                writeCell(row.cells.get(c));
+            }
+        }
+
+        /**
+         * Flushes the underlying stream, without closing it.
+         */
+        public void flush() throws IOException {
+            _out.flush();
+        }
+
+        protected void writeCell(Cell cell) throws IOException {
+            if (cell == null) {
+                _out.writeByte(NULL_CELL);
+                return;
+            }
+            byte reconciled = 0;
+            if (cell.recon != null) {
+                reconciled = RECONCILED;
+                _pool.pool(cell.recon);
+            }
+
+            Serializable value = cell.value;
+            if (value == null) {
+                _out.writeByte(NULL_VALUE | reconciled);
+            } else if (value instanceof String) {
+                writeString((String) value, reconciled);
+            } else if (value instanceof Integer) {
+                _out.writeByte(INTEGER | reconciled);
+                _out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                _out.writeByte(LONG | reconciled);
+                _out.writeLong((Long) value);
+            } else if (value instanceof Double || value instanceof Float) {
+                _out.writeByte(DOUBLE | reconciled);
+                _out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                _out.writeByte(((Boolean) value ? TRUE : FALSE) | reconciled);
+            } else if (value instanceof OffsetDateTime || value instanceof LocalDateTime) {
+                // local dates are stored in UTC, as in the textual format
+                Instant instant = value instanceof OffsetDateTime ? ((OffsetDateTime) value).toInstant()
+                        : ((LocalDateTime) value).toInstant(ZoneOffset.UTC);
+                _out.writeByte(DATE | reconciled);
+                _out.writeLong(instant.getEpochSecond());
+                _out.writeInt(instant.getNano());
+            } else if (value instanceof EvalError) {
+                _out.writeByte(ERROR | reconciled);
+                writeUTF8(_out, ((EvalError) value).message);
+            } else {
+                StringWriter writer = new StringWriter();
+                cell.save(writer, _cellOptions);
+                _out.writeByte(JSON);
+                writeUTF8(_out, writer.toString());
+                return; // the recon id is part of the JSON
+            }
+
+            if (cell.recon != null) {
+                _out.writeLong(cell.recon.id);
+            }
+        }
+
+        protected void writeString(String s, byte reconciled) throws IOException {
+            Integer index = _dictionary.get(s);
+            if (index != null) {
+                _out.writeByte(STRING_REFERENCE | reconciled);
+                writeVarInt(_out, index);
+            } else if (_dictionary.size() < MAX_DICTIONARY_SIZE) {
+                _dictionary.put(s, _dictionary.size());
+                _out.writeByte(STRING_DEFINITION | reconciled);
+                writeUTF8(_out, s);
+            } else {
+                _out.writeByte(STRING | reconciled);
+                writeUTF8(_out, s);
+            }
+        }
+    }
+
+    /**
+     * Reads rows written by a {@link RowWriter}. Recons are resolved from the given
+     * pool, which must have been loaded beforehand.
+     */
+    static public class RowReader {
+        final protected DataInputStream _in;
+        final protected Pool _pool;
+        final protected int _rowCount;
+        final protected List<String> _dictionary = new ArrayList<>();
+
+        public RowReader(InputStream in, Pool pool) throws IOException {
+            _in = new DataInputStream(in);
+            _pool = pool;
+
+            if (_in.readInt() != MAGIC) {
+                throw new IOException("Not a binary row file");
+            }
+            int version = _in.readInt();
+            if (version > VERSION) {
+                throw new IOException("Unsupported binary row file version " + version);
+            }
+            _rowCount = _in.readInt();
+        }
+
+        public int getRowCount() {
+            return _rowCount;
+        }
+
+        /**
+         * @return the next row, which can be null if a null row was written
+         */
+        public Row readRow() throws IOException {
+            byte flags = _in.readByte();
+            if ((flags & ROW_PRESENT) == 0) {
+                return null;
+            }
+            int cellCount = readVarInt(_in);
+            Row row = new Row(cellCount);
+            row.flagged = (flags & ROW_FLAGGED) != 0;
+            row.starred = (flags & ROW_STARRED) != 0;
+            for (int c = 0; c < cellCount; c++) {
+                row.cells.add(readCell());
+            }
+            return row;
+        }
+
+        protected Cell readCell() throws IOException {
+            byte tag = _in.readByte();
+            if (tag == NULL_CELL) {
+                return null;
+            }
+
+            Serializable value;
+            switch (tag & ~RECONCILED) {
+            case NULL_VALUE:
+                value = null;
+                break;
+            case STRING:
+                value = readUTF8(_in);
+                break;
+            case STRING_DEFINITION:
+                String s = readUTF8(_in);
+                _dictionary.add(s);
+                value = s;
+                break;
+            case STRING_REFERENCE:
+                value = _dictionary.get(readVarInt(_in));
+                break;
+            case INTEGER:
+                value = _in.readInt();
+                break;
+            case LONG:
+                value = _in.readLong();
+                break;
+            case DOUBLE:
+                value = _in.readDouble();
+                break;
+            case TRUE:
+                value = Boolean.TRUE;
+                break;
+            case FALSE:
+                value = Boolean.FALSE;
+                break;
+            case DATE:
+                long seconds = _in.readLong();
+                int nanos = _in.readInt();
+                value = OffsetDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), ZoneOffset.UTC);
+                break;
+            case ERROR:
+                value = new EvalError(readUTF8(_in));
+                break;
+            case JSON:
+                try {
+                    return Cell.loadStreaming(readUTF8(_in), _pool);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            default:
+                throw new IOException("Invalid cell tag " + tag);
+            }
+
+            Recon recon = null;
+            if ((tag & RECONCILED) != 0) {
+                recon = _pool.getRecon(Long.toString(_in.readLong()));
+            }
+            return new Cell(value, recon);
+        }
+    }
+
+    static protected void writeVarInt(DataOutputStream out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    static protected int readVarInt(DataInputStream in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    static protected void writeUTF8(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static protected String readUTF8(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        byte[] bytes = new byte[length];
+        try {
+            in.readFully(bytes);
+        } catch (EOFException e) {
+            throw new IOException("Truncated binary row file", e);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
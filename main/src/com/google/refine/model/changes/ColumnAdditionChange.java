@@ -41,14 +41,18 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
 
+import com.google.refine.history.BinaryChange;
+import com.google.refine.history.BinaryChangeReader;
+import com.google.refine.history.BinaryChangeWriter;
 import com.google.refine.history.Change;
 import com.google.refine.model.Column;
 import com.google.refine.model.ColumnGroup;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
+import com.google.refine.util.ParsingUtilities;
 import com.google.refine.util.Pool;
 
-public class ColumnAdditionChange extends ColumnChange {
+public class ColumnAdditionChange extends ColumnChange implements BinaryChange {
     final protected String          _columnName;
     final protected int             _columnIndex;
     final protected CellAtRow[]     _newCells;
@@ -107,7 +111,7 @@ public class ColumnAdditionChange extends ColumnChange {
                 e.printStackTrace();
             }
             
-            project.update();
+            updateProject(project);
         }
     }
 
@@ -124,10 +128,18 @@ public class ColumnAdditionChange extends ColumnChange {
             project.columnModel.columnGroups.clear();
             project.columnModel.columnGroups.addAll(_oldColumnGroups);
             
-            project.update();
+            updateProject(project);
         }
     }
 
+    protected void updateProject(Project project) {
+        int[] rowIndices = new int[_newCells.length];
+        for (int i = 0; i < _newCells.length; i++) {
+            rowIndices[i] = _newCells[i].row;
+        }
+        project.update(rowIndices, new int[] { _newCellIndex });
+    }
+
     @Override
     public void save(Writer writer, Properties options) throws IOException {
         writer.write("columnName="); writer.write(_columnName); writer.write('\n');
@@ -142,6 +154,53 @@ public class ColumnAdditionChange extends ColumnChange {
         writer.write("/ec/\n"); // end of change marker
     }
     
+    @Override
+    public void saveBinary(BinaryChangeWriter writer) throws IOException {
+        writer.writeString(_columnName);
+        writer.writeVarInt(_columnIndex);
+        writer.writeSignedVarInt(_newCellIndex);
+        writer.writeVarInt(_newCells.length);
+        
+        int[] rows = new int[_newCells.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = _newCells[i].row;
+        }
+        writer.writeRowIndices(rows);
+        for (CellAtRow c : _newCells) {
+            writer.writeCell(c.cell);
+        }
+        
+        writer.writeVarInt(_oldColumnGroups.size());
+        for (ColumnGroup cg : _oldColumnGroups) {
+            writer.writeString(ParsingUtilities.saveWriter.writeValueAsString(cg));
+        }
+    }
+    
+    static public Change loadBinary(BinaryChangeReader reader) throws Exception {
+        String columnName = reader.readString();
+        int columnIndex = reader.readVarInt();
+        int newCellIndex = reader.readSignedVarInt();
+        int newCellCount = reader.readVarInt();
+        
+        int[] rows = reader.readRowIndices(newCellCount);
+        List<CellAtRow> newCells = new ArrayList<CellAtRow>(newCellCount);
+        for (int i = 0; i < newCellCount; i++) {
+            newCells.add(new CellAtRow(rows[i], reader.readCell()));
+        }
+        
+        int oldColumnGroupCount = reader.readVarInt();
+        List<ColumnGroup> oldColumnGroups = new ArrayList<ColumnGroup>(oldColumnGroupCount);
+        for (int i = 0; i < oldColumnGroupCount; i++) {
+            oldColumnGroups.add(ColumnGroup.load(reader.readString()));
+        }
+        
+        ColumnAdditionChange change = new ColumnAdditionChange(columnName, columnIndex, newCells);
+        change._newCellIndex = newCellIndex;
+        change._oldColumnGroups = oldColumnGroups;
+        
+        return change;
+    }
+    
     static public Change load(LineNumberReader reader, Pool pool) throws Exception {
         String columnName = null;
         int columnIndex = -1;
@@ -236,6 +236,7 @@ public class DataExtensionChange implements Change {
                 }
             }
             
+            project.columnModel.clearPrecomputes();
             project.update();
         }
     }
@@ -287,6 +288,7 @@ public class DataExtensionChange implements Change {
                 project.columnModel.columns.remove(_columnInsertIndex);
             }
             
+            project.columnModel.clearPrecomputes();
             project.update();
         }
     }
@@ -36,21 +36,44 @@ package com.google.refine.model.changes;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Writer;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.history.BinaryChange;
+import com.google.refine.history.BinaryChangeReader;
+import com.google.refine.history.BinaryChangeWriter;
 import com.google.refine.history.Change;
+import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
+import com.google.refine.model.columnar.CellColumn;
+import com.google.refine.model.columnar.ColumnarCellStore;
+import com.google.refine.model.columnar.ColumnarRow;
 import com.google.refine.util.Pool;
 
-public class MassCellChange implements Change {
+public class MassCellChange implements BinaryChange {
+    /**
+     * Column versions are only used for changes touching at least one
+     * cell in this many slots of the store.
+     */
+    static final protected int MIN_SLOT_RATIO = 4;
+    
     final protected CellChange[]  _cellChanges;
     final protected String        _commonColumnName;
     final protected boolean       _updateRowContextDependencies;
     
+    // Versions of the column before and after this change, when its rows are kept
+    // in a columnar store. They are soft references so that they can be dropped
+    // under memory pressure, in which case the cells are written one by one again.
+    transient protected SoftReference<CellColumn> _oldColumn;
+    transient protected SoftReference<CellColumn> _newColumn;
+    
     public MassCellChange(
             CellChange[] cellChanges, 
             String commonColumnName, 
@@ -87,8 +110,10 @@ public class MassCellChange implements Change {
         synchronized (project) {
             List<Row> rows = project.rows;
             
-            for (CellChange cellChange : _cellChanges) {
-                rows.get(cellChange.row).setCell(cellChange.cellIndex, cellChange.newCell);
+            if (!swapColumnVersions(project, true)) {
+                for (CellChange cellChange : _cellChanges) {
+                    rows.get(cellChange.row).setCell(cellChange.cellIndex, cellChange.newCell);
+                }
             }
             
             if (_commonColumnName != null) {
@@ -98,7 +123,7 @@ public class MassCellChange implements Change {
             }
             
             if (_updateRowContextDependencies) {
-                project.update();
+                updateRecordModel(project);
             }
         }
     }
@@ -108,8 +133,10 @@ public class MassCellChange implements Change {
         synchronized (project) {
             List<Row> rows = project.rows;
             
-            for (CellChange cellChange : _cellChanges) {
-                rows.get(cellChange.row).setCell(cellChange.cellIndex, cellChange.oldCell);
+            if (!swapColumnVersions(project, false)) {
+                for (CellChange cellChange : _cellChanges) {
+                    rows.get(cellChange.row).setCell(cellChange.cellIndex, cellChange.oldCell);
+                }
             }
             
             if (_commonColumnName != null) {
@@ -119,9 +146,79 @@ public class MassCellChange implements Change {
             }
             
             if (_updateRowContextDependencies) {
-                project.update();
+                updateRecordModel(project);
+            }
+        }
+    }
+    
+    protected void updateRecordModel(Project project) {
+        int[] rowIndices = new int[_cellChanges.length];
+        Set<Integer> cellIndices = new HashSet<>();
+        for (int i = 0; i < _cellChanges.length; i++) {
+            rowIndices[i] = _cellChanges[i].row;
+            cellIndices.add(_cellChanges[i].cellIndex);
+        }
+        int[] changedCellIndices = new int[cellIndices.size()];
+        int i = 0;
+        for (int cellIndex : cellIndices) {
+            changedCellIndices[i++] = cellIndex;
+        }
+        project.update(rowIndices, changedCellIndices);
+    }
+
+    /**
+     * Applies or reverts this change by installing a whole version of the column in
+     * the columnar store of the project. The first time the change is applied, the
+     * new version is built as a copy of the current one; afterwards undo and redo
+     * only swap versions. Versions are only swapped if the column is still in the
+     * state this change left it in (or found it in), which holds as long as later
+     * changes were undone first.
+     * 
+     * @return false if the cells have to be written one by one instead
+     */
+    protected boolean swapColumnVersions(Project project, boolean apply) {
+        int count = _cellChanges.length;
+        if (count == 0 || !(project.rows.get(_cellChanges[0].row) instanceof ColumnarRow)) {
+            return false;
+        }
+        ColumnarCellStore store = project.getCellStore();
+        int cellIndex = _cellChanges[0].cellIndex;
+        
+        CellColumn oldColumn = _oldColumn != null ? _oldColumn.get() : null;
+        CellColumn newColumn = _newColumn != null ? _newColumn.get() : null;
+        if (oldColumn != null && newColumn != null) {
+            CellColumn current = store.getColumn(cellIndex);
+            if (current == (apply ? oldColumn : newColumn)) {
+                store.swapColumn(cellIndex, apply ? newColumn : oldColumn);
+                return true;
             }
         }
+        _oldColumn = null;
+        _newColumn = null;
+        if (!apply || (long) count * MIN_SLOT_RATIO < store.getSlotCount()) {
+            // copying the whole column would cost more than writing these cells
+            return false;
+        }
+        
+        int[] slots = new int[count];
+        Cell[] cells = new Cell[count];
+        for (int i = 0; i < count; i++) {
+            CellChange cellChange = _cellChanges[i];
+            Row row = project.rows.get(cellChange.row);
+            if (cellChange.cellIndex != cellIndex || !(row instanceof ColumnarRow) ||
+                    !((ColumnarRow) row).isStoredIn(store) || cellIndex >= row.cells.size()) {
+                return false;
+            }
+            slots[i] = ((ColumnarRow) row).getSlot();
+            cells[i] = cellChange.newCell;
+        }
+        newColumn = store.copyColumnWith(cellIndex, slots, cells);
+        oldColumn = store.swapColumn(cellIndex, newColumn);
+        if (oldColumn != null) {
+            _oldColumn = new SoftReference<CellColumn>(oldColumn);
+            _newColumn = new SoftReference<CellColumn>(newColumn);
+        }
+        return true;
     }
     
     @Override
@@ -137,6 +234,78 @@ public class MassCellChange implements Change {
         writer.write("/ec/\n"); // end of change marker
     }
     
+    @Override
+    public void saveBinary(BinaryChangeWriter writer) throws IOException {
+        writer.writeString(_commonColumnName);
+        writer.writeBoolean(_updateRowContextDependencies);
+        saveCellChanges(writer, _cellChanges);
+    }
+    
+    /**
+     * Writes the cell changes column by column: row indices, cell indices,
+     * old cells and then new cells.
+     */
+    static protected void saveCellChanges(BinaryChangeWriter writer, CellChange[] cellChanges) throws IOException {
+        int count = cellChanges.length;
+        writer.writeVarInt(count);
+        
+        int[] rows = new int[count];
+        boolean sameCellIndex = true;
+        for (int i = 0; i < count; i++) {
+            rows[i] = cellChanges[i].row;
+            sameCellIndex &= cellChanges[i].cellIndex == cellChanges[0].cellIndex;
+        }
+        writer.writeRowIndices(rows);
+        
+        writer.writeBoolean(sameCellIndex);
+        if (sameCellIndex) {
+            writer.writeVarInt(count > 0 ? cellChanges[0].cellIndex : 0);
+        } else {
+            for (CellChange c : cellChanges) {
+                writer.writeVarInt(c.cellIndex);
+            }
+        }
+        
+        for (CellChange c : cellChanges) {
+            writer.writeCell(c.oldCell);
+        }
+        for (CellChange c : cellChanges) {
+            writer.writeCell(c.newCell);
+        }
+    }
+    
+    static public Change loadBinary(BinaryChangeReader reader) throws Exception {
+        String commonColumnName = reader.readString();
+        boolean updateRowContextDependencies = reader.readBoolean();
+        CellChange[] cellChanges = loadCellChanges(reader);
+        
+        return new MassCellChange(cellChanges, commonColumnName, updateRowContextDependencies);
+    }
+    
+    static protected CellChange[] loadCellChanges(BinaryChangeReader reader) throws Exception {
+        int count = reader.readVarInt();
+        int[] rows = reader.readRowIndices(count);
+        
+        int[] cellIndices = new int[count];
+        if (reader.readBoolean()) {
+            Arrays.fill(cellIndices, reader.readVarInt());
+        } else {
+            for (int i = 0; i < count; i++) {
+                cellIndices[i] = reader.readVarInt();
+            }
+        }
+        
+        Cell[] oldCells = new Cell[count];
+        for (int i = 0; i < count; i++) {
+            oldCells[i] = reader.readCell();
+        }
+        CellChange[] cellChanges = new CellChange[count];
+        for (int i = 0; i < count; i++) {
+            cellChanges[i] = new CellChange(rows[i], cellIndices[i], oldCells[i], reader.readCell());
+        }
+        return cellChanges;
+    }
+    
     static public Change load(LineNumberReader reader, Pool pool) throws Exception {
         String commonColumnName = null;
         boolean updateRowContextDependencies = false;
@@ -44,6 +44,7 @@ import java.util.Properties;
 import com.google.refine.ProjectManager;
 import com.google.refine.history.Change;
 import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
 import com.google.refine.model.Project;
 import com.google.refine.model.Recon;
 import com.google.refine.model.Row;
@@ -80,8 +81,10 @@ public class MassReconChange implements Change {
                         
                         if (reconMap.containsKey(recon.id)) {
                             // skip the flushing if already done
-                            String columnName = project.columnModel.getColumnByCellIndex(c).getName();
+                            Column column = project.columnModel.getColumnByCellIndex(c);
+                            String columnName = column.getName();
                             if (!flushedColumn.contains(columnName)) {
+                                column.clearPrecomputes();
                                 ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id,
                                     columnName);
                                 flushedColumn.add(columnName);
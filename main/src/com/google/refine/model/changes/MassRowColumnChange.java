@@ -83,6 +83,7 @@ public class MassRowColumnChange implements Change {
             
             ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
             
+            project.columnModel.clearPrecomputes();
             project.update();
         }
     }
@@ -101,6 +102,7 @@ public class MassRowColumnChange implements Change {
             
             ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
             
+            project.columnModel.clearPrecomputes();
             project.update();
         }
     }
@@ -43,6 +43,8 @@ import java.util.List;
 import java.util.Properties;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.history.BinaryChangeReader;
+import com.google.refine.history.BinaryChangeWriter;
 import com.google.refine.history.Change;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -156,6 +158,36 @@ public class ReconChange extends MassCellChange {
         super.save(writer, options);
     }
     
+    @Override
+    public void saveBinary(BinaryChangeWriter writer) throws IOException {
+        writer.writeString(_newReconConfig != null ? ParsingUtilities.defaultWriter.writeValueAsString(_newReconConfig) : null);
+        writer.writeString(_newReconStats != null ? ParsingUtilities.defaultWriter.writeValueAsString(_newReconStats) : null);
+        writer.writeString(_oldReconConfig != null ? ParsingUtilities.defaultWriter.writeValueAsString(_oldReconConfig) : null);
+        writer.writeString(_oldReconStats != null ? ParsingUtilities.defaultWriter.writeValueAsString(_oldReconStats) : null);
+        writer.writeString(_commonColumnName);
+        saveCellChanges(writer, _cellChanges);
+    }
+    
+    static public Change loadBinary(BinaryChangeReader reader) throws Exception {
+        String newReconConfig = reader.readString();
+        String newReconStats = reader.readString();
+        String oldReconConfig = reader.readString();
+        String oldReconStats = reader.readString();
+        String commonColumnName = reader.readString();
+        CellChange[] cellChanges = loadCellChanges(reader);
+        
+        ReconChange change = new ReconChange(
+                cellChanges,
+                commonColumnName,
+                newReconConfig != null ? ReconConfig.reconstruct(newReconConfig) : null,
+                newReconStats != null ? ParsingUtilities.mapper.readValue(newReconStats, ReconStats.class) : null);
+        
+        change._oldReconConfig = oldReconConfig != null ? ReconConfig.reconstruct(oldReconConfig) : null;
+        change._oldReconStats = oldReconStats != null ? ParsingUtilities.mapper.readValue(oldReconStats, ReconStats.class) : null;
+        
+        return change;
+    }
+    
     static public Change load(LineNumberReader reader, Pool pool) throws Exception {
         ReconConfig newReconConfig = null;
         ReconStats newReconStats = null;
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.model.columnar;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.refine.model.Cell;
+
+/**
+ * Typed storage for the cells found at one cell index across all the slots of a
+ * {@link ColumnarCellStore}.
+ * <p>
+ * Every slot gets a one-byte tag. Strings are dictionary-encoded in an int array,
+ * longs and doubles share a primitive long array, booleans, blanks and missing
+ * cells are encoded in the tag alone. Anything else (dates, errors, reconciled
+ * cells, high-cardinality strings once the dictionary gave up) is kept as an object.
+ * The value arrays are only allocated once a value of their kind is stored.
+ * <p>
+ * Outside of this package, instances are only handled as opaque column versions,
+ * see {@link ColumnarCellStore#swapColumn(int, CellColumn)}.
+ */
+public final class CellColumn {
+    static final byte ABSENT = 0;
+    static final byte EMPTY = 1;
+    static final byte STRING = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte TRUE = 5;
+    static final byte FALSE = 6;
+    static final byte VALUE = 7;
+    static final byte CELL = 8;
+
+    /**
+     * Once the dictionary holds that many entries, we check whether it
+     * still pays off (i.e. whether values actually repeat).
+     */
+    static final int DICTIONARY_CHECK_SIZE = 1 << 12;
+
+    private byte[] _types;
+    private int[] _codes;
+    private long[] _numbers;
+    private Object[] _objects;
+
+    // shared with the copies of this column: the dictionary is only ever appended to,
+    // so the codes of every copy stay valid
+    private final List<String> _strings;
+    private final Map<String, Integer> _stringCodes;
+    private int _stringCount = 0;
+    private boolean _dictionaryClosed = false;
+
+    CellColumn(int capacity) {
+        _types = new byte[capacity];
+        _strings = new ArrayList<>();
+        _stringCodes = new HashMap<>();
+    }
+
+    private CellColumn(CellColumn other) {
+        _types = other._types.clone();
+        _codes = other._codes != null ? other._codes.clone() : null;
+        _numbers = other._numbers != null ? other._numbers.clone() : null;
+        _objects = other._objects != null ? other._objects.clone() : null;
+        _strings = other._strings;
+        _stringCodes = other._stringCodes;
+        _stringCount = other._stringCount;
+        _dictionaryClosed = other._dictionaryClosed;
+    }
+
+    CellColumn copy() {
+        return new CellColumn(this);
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > _types.length) {
+            _types = Arrays.copyOf(_types, capacity);
+            if (_codes != null) {
+                _codes = Arrays.copyOf(_codes, capacity);
+            }
+            if (_numbers != null) {
+                _numbers = Arrays.copyOf(_numbers, capacity);
+            }
+            if (_objects != null) {
+                _objects = Arrays.copyOf(_objects, capacity);
+            }
+        }
+    }
+
+    Object getValue(int slot) {
+        switch (_types[slot]) {
+        case STRING:
+            return _strings.get(_codes[slot]);
+        case LONG:
+            return _numbers[slot];
+        case DOUBLE:
+            return Double.longBitsToDouble(_numbers[slot]);
+        case TRUE:
+            return Boolean.TRUE;
+        case FALSE:
+            return Boolean.FALSE;
+        case VALUE:
+            return _objects[slot];
+        case CELL:
+            return ((Cell) _objects[slot]).value;
+        default:
+            return null;
+        }
+    }
+
+    Cell getCell(int slot) {
+        byte type = _types[slot];
+        if (type == ABSENT) {
+            return null;
+        } else if (type == CELL) {
+            return (Cell) _objects[slot];
+        } else {
+            return new Cell((Serializable) getValue(slot), null);
+        }
+    }
+
+    void setCell(int slot, Cell cell) {
+        if (_objects != null) {
+            _objects[slot] = null;
+        }
+        if (cell == null) {
+            _types[slot] = ABSENT;
+            return;
+        }
+        Object value = cell.value;
+        if (cell.recon != null) {
+            setObject(slot, CELL, cell);
+        } else if (value == null) {
+            _types[slot] = EMPTY;
+        } else if (value instanceof String) {
+            setString(slot, (String) value);
+        } else if (value instanceof Long) {
+            setNumber(slot, LONG, (Long) value);
+        } else if (value instanceof Double) {
+            setNumber(slot, DOUBLE, Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof Boolean) {
+            _types[slot] = ((Boolean) value) ? TRUE : FALSE;
+        } else {
+            setObject(slot, VALUE, value);
+        }
+    }
+
+    private void setString(int slot, String s) {
+        _stringCount++;
+        Integer code = _stringCodes.get(s);
+        if (code == null) {
+            if (_dictionaryClosed) {
+                setObject(slot, VALUE, s);
+                return;
+            }
+            code = _strings.size();
+            _strings.add(s);
+            _stringCodes.put(s, code);
+            if (_strings.size() % DICTIONARY_CHECK_SIZE == 0 && _strings.size() * 2 > _stringCount) {
+                // mostly distinct values: the dictionary costs more than it saves
+                _dictionaryClosed = true;
+            }
+        }
+        if (_codes == null) {
+            _codes = new int[_types.length];
+        }
+        _codes[slot] = code;
+        _types[slot] = STRING;
+    }
+
+    private void setNumber(int slot, byte type, long bits) {
+        if (_numbers == null) {
+            _numbers = new long[_types.length];
+        }
+        _numbers[slot] = bits;
+        _types[slot] = type;
+    }
+
+    private void setObject(int slot, byte type, Object o) {
+        if (_objects == null) {
+            _objects = new Object[_types.length];
+        }
+        _objects[slot] = o;
+        _types[slot] = type;
+    }
+
+    int getDictionarySize() {
+        return _strings.size();
+    }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.model.columnar;
+
+import java.util.Arrays;
+
+import com.google.refine.model.Cell;
+import com.google.refine.model.Row;
+
+/**
+ * Column-oriented storage for the cells of a project.
+ * <p>
+ * Each row appended to the store is given a slot, and the cells of that row are
+ * spread over one {@link CellColumn} per cell index. The store hands back a
+ * {@link ColumnarRow}, a lightweight view which keeps exposing the usual
+ * {@link Row} and {@link Cell} API to operations, facets and exporters.
+ * <p>
+ * Slots are never reclaimed: rows which are removed from the project can still
+ * be referred to by changes in the history. The store is rebuilt from scratch
+ * when the project is reloaded.
+ * <p>
+ * Like the plain row list, this class is not thread-safe: writes are expected
+ * to happen under the project lock.
+ * <p>
+ * Changes which rewrite a large part of a column can build a new version of it
+ * with {@link #copyColumnWith(int, int[], Cell[])} and install it with
+ * {@link #swapColumn(int, CellColumn)}. Undoing and redoing them then only swaps
+ * versions back and forth, instead of writing every cell again.
+ */
+public class ColumnarCellStore {
+
+    static final int INITIAL_CAPACITY = 1024;
+
+    private CellColumn[] _columns = new CellColumn[0];
+    private int _capacity = INITIAL_CAPACITY;
+    private int _slotCount = 0;
+
+    /**
+     * Copies the given row into the store.
+     * 
+     * @param row
+     *            the row to store, which is left untouched
+     * @return a view on the stored copy of the row
+     */
+    public ColumnarRow append(Row row) {
+        int slot = allocateSlot();
+        int size = row.cells.size();
+        for (int i = 0; i < size; i++) {
+            setCell(slot, i, row.cells.get(i));
+        }
+        return new ColumnarRow(this, slot, size, row.flagged, row.starred);
+    }
+
+    /**
+     * @return the number of slots allocated so far, including those of rows
+     *         which are no longer part of the project
+     */
+    public int getSlotCount() {
+        return _slotCount;
+    }
+
+    /**
+     * @return the number of cell indices for which storage was allocated
+     */
+    public int getColumnCount() {
+        return _columns.length;
+    }
+
+    /**
+     * @return the number of distinct strings dictionary-encoded at the given cell index
+     */
+    public int getDictionarySize(int cellIndex) {
+        return cellIndex < _columns.length && _columns[cellIndex] != null ?
+                _columns[cellIndex].getDictionarySize() : 0;
+    }
+
+    /**
+     * @return the version of the column currently stored at this cell index,
+     *         or null if no cell was ever stored there
+     */
+    public CellColumn getColumn(int cellIndex) {
+        return cellIndex < _columns.length ? _columns[cellIndex] : null;
+    }
+
+    /**
+     * Builds a new version of the column at this cell index, with the cells of the
+     * given slots replaced. The current version is left untouched.
+     */
+    public CellColumn copyColumnWith(int cellIndex, int[] slots, Cell[] cells) {
+        CellColumn current = getColumn(cellIndex);
+        CellColumn column = current != null ? current.copy() : new CellColumn(_capacity);
+        for (int i = 0; i < slots.length; i++) {
+            column.setCell(slots[i], cells[i]);
+        }
+        return column;
+    }
+
+    /**
+     * Installs a version of the column at this cell index.
+     * 
+     * @return the version it replaces
+     */
+    public CellColumn swapColumn(int cellIndex, CellColumn column) {
+        if (cellIndex >= _columns.length) {
+            _columns = Arrays.copyOf(_columns, cellIndex + 1);
+        }
+        if (column != null) {
+            // rows may have been appended since this version was taken
+            column.ensureCapacity(_capacity);
+        }
+        CellColumn previous = _columns[cellIndex];
+        _columns[cellIndex] = column;
+        return previous;
+    }
+
+    Cell getCell(int slot, int cellIndex) {
+        CellColumn column = cellIndex < _columns.length ? _columns[cellIndex] : null;
+        return column == null ? null : column.getCell(slot);
+    }
+
+    Object getCellValue(int slot, int cellIndex) {
+        CellColumn column = cellIndex < _columns.length ? _columns[cellIndex] : null;
+        return column == null ? null : column.getValue(slot);
+    }
+
+    void setCell(int slot, int cellIndex, Cell cell) {
+        if (cellIndex >= _columns.length) {
+            if (cell == null) {
+                return;
+            }
+            _columns = Arrays.copyOf(_columns, cellIndex + 1);
+        }
+        CellColumn column = _columns[cellIndex];
+        if (column == null) {
+            if (cell == null) {
+                return;
+            }
+            column = new CellColumn(_capacity);
+            _columns[cellIndex] = column;
+        }
+        column.setCell(slot, cell);
+    }
+
+    private int allocateSlot() {
+        if (_slotCount == _capacity) {
+            _capacity += _capacity >> 1;
+            for (CellColumn column : _columns) {
+                if (column != null) {
+                    column.ensureCapacity(_capacity);
+                }
+            }
+        }
+        return _slotCount++;
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.model.columnar;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Row;
+
+/**
+ * A {@link Row} whose cells live in a {@link ColumnarCellStore}.
+ * <p>
+ * The cell list of this row is a view on its slot in the store: cells are decoded
+ * when they are read and encoded back when they are written, so the rest of the
+ * code base can keep manipulating {@link Row#cells} as usual.
+ */
+public class ColumnarRow extends Row {
+
+    ColumnarRow(ColumnarCellStore store, int slot, int size, boolean flagged, boolean starred) {
+        super(new CellList(store, slot, size), flagged, starred);
+    }
+
+    @Override
+    public Cell getCell(int cellIndex) {
+        CellList list = (CellList) cells;
+        if (cellIndex >= 0 && cellIndex < list.size) {
+            return list.store.getCell(list.slot, cellIndex);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public Object getCellValue(int cellIndex) {
+        CellList list = (CellList) cells;
+        if (cellIndex >= 0 && cellIndex < list.size) {
+            return list.store.getCellValue(list.slot, cellIndex);
+        }
+        return null;
+    }
+
+    /**
+     * @return the slot of this row in its store
+     */
+    @JsonIgnore
+    public int getSlot() {
+        return ((CellList) cells).slot;
+    }
+
+    /**
+     * @return true if this row is backed by the given store
+     */
+    public boolean isStoredIn(ColumnarCellStore store) {
+        return ((CellList) cells).store == store;
+    }
+
+    static class CellList extends AbstractList<Cell> implements RandomAccess {
+        final ColumnarCellStore store;
+        final int slot;
+        int size;
+
+        CellList(ColumnarCellStore store, int slot, int size) {
+            this.store = store;
+            this.slot = slot;
+            this.size = size;
+        }
+
+        @Override
+        public Cell get(int index) {
+            checkIndex(index);
+            return store.getCell(slot, index);
+        }
+
+        @Override
+        public Cell set(int index, Cell cell) {
+            checkIndex(index);
+            Cell old = store.getCell(slot, index);
+            store.setCell(slot, index, cell);
+            return old;
+        }
+
+        @Override
+        public void add(int index, Cell cell) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            for (int i = size; i > index; i--) {
+                store.setCell(slot, i, store.getCell(slot, i - 1));
+            }
+            store.setCell(slot, index, cell);
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public Cell remove(int index) {
+            checkIndex(index);
+            Cell old = store.getCell(slot, index);
+            for (int i = index; i < size - 1; i++) {
+                store.setCell(slot, i, store.getCell(slot, i + 1));
+            }
+            store.setCell(slot, size - 1, null);
+            size--;
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+    }
+}
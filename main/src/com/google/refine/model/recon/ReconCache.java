@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.recon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.io.FileProjectManager;
+import com.google.refine.model.Recon;
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * A cache of reconciliation results shared by all projects of the workspace,
+ * so that values which were already reconciled against a service in one project
+ * do not need to be sent to it again from another one.
+ * <p>
+ * Results are keyed by {@link ReconConfig#getCacheKey(ReconJob)}, which covers the
+ * service and everything sent to it for a job. Entries older than the time to live
+ * are ignored, and the least recently used ones are dropped when the cache holds
+ * more entries than its limit. The cache is kept in memory and written back to the
+ * workspace by {@link #save()}.
+ * <p>
+ * The cache is enabled by the "recon.cache" preference. Its limits are set by
+ * "recon.cache.maxEntries" and "recon.cache.ttlHours".
+ */
+public class ReconCache {
+
+    final static Logger logger = LoggerFactory.getLogger("recon-cache");
+
+    static final public String FILE_NAME = "recon-cache.gz";
+    static final private int FORMAT_VERSION = 1;
+
+    static private ReconCache s_instance;
+
+    static protected class Entry {
+        final long fetchedAt;
+        final String json;
+
+        Entry(long fetchedAt, String json) {
+            this.fetchedAt = fetchedAt;
+            this.json = json;
+        }
+    }
+
+    final protected File _file;
+    final protected int _maxEntries;
+    final protected long _ttlMillis;
+    final protected LinkedHashMap<String, Entry> _entries;
+    protected boolean _dirty;
+
+    public ReconCache(File file, int maxEntries, long ttlMillis) {
+        _file = file;
+        _maxEntries = maxEntries;
+        _ttlMillis = ttlMillis;
+        _entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > _maxEntries;
+            }
+        };
+        load();
+    }
+
+    /**
+     * @return the cache of the workspace, or null if it is disabled
+     */
+    static synchronized public ReconCache getInstance() {
+        ProjectManager pm = ProjectManager.singleton;
+        if (!(pm instanceof FileProjectManager) ||
+                !pm.getPreferenceStore().getBoolean("recon.cache", false)) {
+            return null;
+        }
+        File file = new File(((FileProjectManager) pm).getWorkspaceDir(), FILE_NAME);
+        int maxEntries = pm.getPreferenceStore().getInteger("recon.cache.maxEntries", 50000);
+        long ttl = TimeUnit.HOURS.toMillis(pm.getPreferenceStore().getInteger("recon.cache.ttlHours", 24 * 30));
+        if (s_instance == null || !s_instance._file.equals(file) || s_instance._maxEntries != maxEntries || s_instance._ttlMillis != ttl) {
+            s_instance = new ReconCache(file, maxEntries, ttl);
+        }
+        return s_instance;
+    }
+
+    synchronized protected void load() {
+        if (!_file.exists()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(_file))))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            // entries are written least recently used first
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                long fetchedAt = in.readLong();
+                String json = readString(in);
+                if (now - fetchedAt <= _ttlMillis) {
+                    _entries.put(key, new Entry(fetchedAt, json));
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to load the reconciliation cache from " + _file, e);
+        }
+    }
+
+    /**
+     * @return a copy of the cached result, attached to the given history entry,
+     *     or null if the key is not cached or has expired
+     */
+    public Recon get(String key, long historyEntryID) {
+        Entry entry;
+        synchronized (this) {
+            entry = _entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.fetchedAt > _ttlMillis) {
+                _entries.remove(key);
+                _dirty = true;
+                return null;
+            }
+        }
+        try {
+            return Recon.loadStreaming(entry.json).dup(historyEntryID);
+        } catch (Exception e) {
+            synchronized (this) {
+                _entries.remove(key);
+                _dirty = true;
+            }
+            return null;
+        }
+    }
+
+    public void put(String key, Recon recon) {
+        String json;
+        try {
+            json = ParsingUtilities.saveWriter.writeValueAsString(recon);
+        } catch (IOException e) {
+            logger.warn("Failed to cache the reconciliation result for " + key, e);
+            return;
+        }
+        synchronized (this) {
+            _entries.put(key, new Entry(System.currentTimeMillis(), json));
+            _dirty = true;
+        }
+    }
+
+    synchronized public int getEntryCount() {
+        return _entries.size();
+    }
+
+    /**
+     * Writes the cache to the workspace, if it changed since it was loaded or last saved.
+     */
+    synchronized public void save() {
+        if (!_dirty) {
+            return;
+        }
+        try {
+            File temp = File.createTempFile(FILE_NAME, ".temp", _file.getAbsoluteFile().getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temp))))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(_entries.size());
+                for (Map.Entry<String, Entry> entry : _entries.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeLong(entry.getValue().fetchedAt);
+                    writeString(out, entry.getValue().json);
+                }
+            }
+            Files.move(temp.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            _dirty = false;
+        } catch (IOException e) {
+            logger.warn("Failed to save the reconciliation cache to " + _file, e);
+        }
+    }
+
+    static private void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
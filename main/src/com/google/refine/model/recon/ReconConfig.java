@@ -119,6 +119,27 @@ abstract public class ReconConfig  {
     
     abstract public Recon createNewRecon(long historyEntryID);
     
+    /**
+     * Whether {@link #batchRecon(List, long)} can be called from several
+     * threads at once. Reconciliation operations only keep multiple batches
+     * in flight for configurations which return true here.
+     */
+    @JsonIgnore
+    public boolean isThreadSafe() {
+        return false;
+    }
+    
+    /**
+     * Returns the key under which the result of a job can be stored in the
+     * {@link ReconCache}. It must identify the service as well as everything
+     * that is sent to it for this job, since the result can be reused in
+     * other projects. Returns null if results of this configuration should
+     * not be cached.
+     */
+    public String getCacheKey(ReconJob job) {
+        return null;
+    }
+    
     public void save(Writer writer) {
         try {
             ParsingUtilities.defaultWriter.writeValue(writer, this);
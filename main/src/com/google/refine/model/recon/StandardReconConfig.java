@@ -236,6 +236,22 @@ public class StandardReconConfig extends ReconConfig {
         return 10;
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public String getCacheKey(ReconJob job) {
+        if (!(job instanceof StandardReconJob)) {
+            return null;
+        }
+        // autoMatch and the spaces end up in the resulting recon objects
+        return service + "\n" + identifierSpace + "\n" + schemaSpace + "\n" + autoMatch
+                + "\n" + ((StandardReconJob) job).code;
+    }
+
     @Override
     public String getBriefDescription(Project project, String columnName) {
         return "Reconcile cells in column " + columnName + " to type " + typeID;
@@ -429,7 +445,7 @@ public class StandardReconConfig extends ReconConfig {
         return job;
     }
     
-    private HttpClient getHttpClient() {
+    private synchronized HttpClient getHttpClient() {
         if (httpClient == null) {
             httpClient = new HttpClient();
         }
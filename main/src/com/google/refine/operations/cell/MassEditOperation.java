@@ -46,7 +46,7 @@ import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.RowVisitor;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -144,7 +144,7 @@ public class MassEditOperation extends EngineDependentMassCellOperation {
     protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception {
         Column column = project.columnModel.getColumnByName(_columnName);
         
-        Evaluable eval = MetaParser.parse(_expression);
+        Evaluable eval = ParsedExpressionCache.parse(_expression);
         Properties bindings = ExpressionUtils.createBindings(project);
         
         Map<String, Serializable> fromTo = new HashMap<String, Serializable>();
@@ -34,16 +34,18 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.operations.cell;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.browsing.EngineConfig;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RowVisitor;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.WrappedCell;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
@@ -121,91 +123,108 @@ public class TextTransformOperation extends EngineDependentMassCellOperation {
     protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception {
         Column column = project.columnModel.getColumnByName(_columnName);
         
-        Evaluable eval = MetaParser.parse(_expression);
+        Evaluable eval = ParsedExpressionCache.parse(_expression);
         Properties bindings = ExpressionUtils.createBindings(project);
         
-        return new RowVisitor() {
-            int                 cellIndex;
-            Properties             bindings;
-            List<CellChange>     cellChanges;
-            Evaluable             eval;
-            
-            public RowVisitor init(int cellIndex, Properties bindings, List<CellChange> cellChanges, Evaluable eval) {
-                this.cellIndex = cellIndex;
-                this.bindings = bindings;
-                this.cellChanges = cellChanges;
-                this.eval = eval;
-                return this;
-            }
-            
-            @Override
-            public void start(Project project) {
-                // nothing to do
-            }
+        return new TextTransformRowVisitor(column.getCellIndex(), bindings, cellChanges, eval);
+    }
 
-            @Override
-            public void end(Project project) {
-                // nothing to do
-            }
+    /**
+     * Computes the new cells of the column. When the expression is thread-safe, ranges
+     * of rows can be transformed concurrently by partial visitors, each with its own
+     * bindings, whose changes are then appended in row order.
+     */
+    protected class TextTransformRowVisitor implements MergeableRowVisitor {
+        final int              cellIndex;
+        final Properties       bindings;
+        final List<CellChange> cellChanges;
+        final Evaluable        eval;
+
+        protected TextTransformRowVisitor(int cellIndex, Properties bindings, List<CellChange> cellChanges, Evaluable eval) {
+            this.cellIndex = cellIndex;
+            this.bindings = bindings;
+            this.cellChanges = cellChanges;
+            this.eval = eval;
+        }
 
-            @Override
-            public boolean visit(Project project, int rowIndex, Row row) {
-                Cell cell = row.getCell(cellIndex);
-                Cell newCell = null;
+        @Override
+        public void start(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public void end(Project project) {
+            // nothing to do
+        }
 
-                Object oldValue = cell != null ? cell.value : null;
+        @Override
+        public MergeableRowVisitor fork(Project project) {
+            return eval.isThreadSafe() ?
+                new TextTransformRowVisitor(cellIndex, ExpressionUtils.createBindings(project), new ArrayList<CellChange>(), eval) : null;
+        }
 
-                ExpressionUtils.bind(bindings, row, rowIndex, _columnName, cell);
+        @Override
+        public void merge(MergeableRowVisitor partial) {
+            cellChanges.addAll(((TextTransformRowVisitor) partial).cellChanges);
+        }
 
-                Object o = eval.evaluate(bindings);
-                if (o == null) {
-                    if (oldValue != null) {
-                        CellChange cellChange = new CellChange(rowIndex, cellIndex, cell, null);
-                        cellChanges.add(cellChange);
-                    }
+        @Override
+        public boolean visit(Project project, int rowIndex, Row row) {
+            Cell cell = row.getCell(cellIndex);
+            Cell newCell = null;
+
+            Object oldValue = cell != null ? cell.value : null;
+
+            ExpressionUtils.bind(bindings, row, rowIndex, _columnName, cell);
+
+            Object o = eval.evaluate(bindings);
+            if (o == null) {
+                if (oldValue != null) {
+                    CellChange cellChange = new CellChange(rowIndex, cellIndex, cell, null);
+                    cellChanges.add(cellChange);
+                }
+            } else {
+                if (o instanceof Cell) {
+                    newCell = (Cell) o;
+                } else if (o instanceof WrappedCell) {
+                    newCell = ((WrappedCell) o).cell;
                 } else {
-                    if (o instanceof Cell) {
-                        newCell = (Cell) o;
-                    } else if (o instanceof WrappedCell) {
-                        newCell = ((WrappedCell) o).cell;
-                    } else {
-                        Serializable newValue = ExpressionUtils.wrapStorable(o);
-                        if (ExpressionUtils.isError(newValue)) {
-                            if (_onError == OnError.KeepOriginal) {
-                                return false;
-                            } else if (_onError == OnError.SetToBlank) {
-                                newValue = null;
-                            }
+                    Serializable newValue = ExpressionUtils.wrapStorable(o);
+                    if (ExpressionUtils.isError(newValue)) {
+                        if (_onError == OnError.KeepOriginal) {
+                            return false;
+                        } else if (_onError == OnError.SetToBlank) {
+                            newValue = null;
                         }
+                    }
+                    
+                    if (!ExpressionUtils.sameValue(oldValue, newValue)) {
+                        newCell = new Cell(newValue, (cell != null) ? cell.recon : null);
                         
-                        if (!ExpressionUtils.sameValue(oldValue, newValue)) {
-                            newCell = new Cell(newValue, (cell != null) ? cell.recon : null);
-                            
-                            if (_repeat) {
-                                for (int i = 0; i < _repeatCount; i++) {
-                                    ExpressionUtils.bind(bindings, row, rowIndex, _columnName, newCell);
-                                    
-                                    newValue = ExpressionUtils.wrapStorable(eval.evaluate(bindings));
-                                    if (ExpressionUtils.isError(newValue)) {
-                                        break;
-                                    } else if (ExpressionUtils.sameValue(newCell.value, newValue)) {
-                                        break;
-                                    }
-                                    
-                                    newCell = new Cell(newValue, newCell.recon);
+                        if (_repeat) {
+                            for (int i = 0; i < _repeatCount; i++) {
+                                ExpressionUtils.bind(bindings, row, rowIndex, _columnName, newCell);
+                                
+                                newValue = ExpressionUtils.wrapStorable(eval.evaluate(bindings));
+                                if (ExpressionUtils.isError(newValue)) {
+                                    break;
+                                } else if (ExpressionUtils.sameValue(newCell.value, newValue)) {
+                                    break;
                                 }
+                                
+                                newCell = new Cell(newValue, newCell.recon);
                             }
                         }
                     }
-                    
-                    if (newCell != null) {
-                        CellChange cellChange = new CellChange(rowIndex, cellIndex, cell, newCell);
-                        cellChanges.add(cellChange);
-                    }
                 }
                 
-                return false;
+                if (newCell != null) {
+                    CellChange cellChange = new CellChange(rowIndex, cellIndex, cell, newCell);
+                    cellChanges.add(cellChange);
+                }
             }
-        }.init(column.getCellIndex(), bindings, cellChanges, eval);
+            
+            return false;
+        }
     }
 }
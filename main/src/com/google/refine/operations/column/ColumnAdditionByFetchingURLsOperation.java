@@ -37,15 +37,23 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.message.BasicHeader;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -58,7 +66,7 @@ import com.google.refine.browsing.RowVisitor;
 import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.WrappedCell;
 import com.google.refine.history.HistoryEntry;
 import com.google.refine.model.Cell;
@@ -71,6 +79,7 @@ import com.google.refine.operations.EngineDependentOperation;
 import com.google.refine.operations.OnError;
 import com.google.refine.process.LongRunningProcess;
 import com.google.refine.process.Process;
+import com.google.refine.util.DiskResponseCache;
 import com.google.refine.util.HttpClient;
 
 
@@ -101,10 +110,26 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
     final protected int        _delay;
     final protected boolean    _cacheResponses;
     final protected List<HttpHeader>  _httpHeadersJson;
+    final protected int        _concurrency;
     private Header[] httpHeaders = new Header[0];
     private HttpClient _httpClient;
 
 
+    public ColumnAdditionByFetchingURLsOperation(
+        EngineConfig   engineConfig,
+        String         baseColumnName,
+        String         urlExpression,
+        OnError        onError,
+        String         newColumnName,
+        int            columnInsertIndex,
+        int            delay,
+        boolean        cacheResponses,
+        List<HttpHeader>      httpHeadersJson
+    ) {
+        this(engineConfig, baseColumnName, urlExpression, onError, newColumnName, columnInsertIndex,
+                delay, cacheResponses, httpHeadersJson, 1);
+    }
+
     @JsonCreator
     public ColumnAdditionByFetchingURLsOperation(
         @JsonProperty("engineConfig")
@@ -124,7 +149,9 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         @JsonProperty("cacheResponses")
         boolean        cacheResponses,
         @JsonProperty("httpHeadersJson")
-        List<HttpHeader>      httpHeadersJson
+        List<HttpHeader>      httpHeadersJson,
+        @JsonProperty("concurrency")
+        int            concurrency
     ) {
         super(engineConfig);
 
@@ -138,6 +165,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         _delay = delay;
         _cacheResponses = cacheResponses;
         _httpHeadersJson = httpHeadersJson;
+        _concurrency = Math.max(1, concurrency);
 
         List<Header> headers = new ArrayList<Header>();
         if (_httpHeadersJson != null) {
@@ -149,6 +177,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         }
         httpHeaders = headers.toArray(httpHeaders);
         _httpClient = new HttpClient(_delay);
+        _httpClient.setMaxConnections(_concurrency);
 
     }
 
@@ -192,6 +221,16 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         return _cacheResponses;
     }
 
+    /**
+     * @return the number of URLs fetched at the same time. The delay still applies
+     *         between two requests to the same host.
+     */
+    @JsonProperty("concurrency")
+    @JsonInclude(Include.NON_DEFAULT)
+    public int getConcurrency() {
+        return _concurrency > 1 ? _concurrency : 0;
+    }
+
     @Override
     protected String getBriefDescription(Project project) {
         return "Create column " + _newColumnName +
@@ -213,7 +252,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         Engine engine = createEngine(project);
         engine.initializeFromConfig(_engineConfig);
 
-        Evaluable eval = MetaParser.parse(_urlExpression);
+        Evaluable eval = ParsedExpressionCache.parse(_urlExpression);
 
         return new ColumnAdditionByFetchingURLsProcess(
             project,
@@ -231,6 +270,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         final protected long          _historyEntryID;
         protected int                 _cellIndex;
         protected LoadingCache<String, Serializable> _urlCache;
+        protected DiskResponseCache   _diskCache; // shared with other processes, null if disabled
 
         public ColumnAdditionByFetchingURLsProcess(
             Project project,
@@ -245,6 +285,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             _eval = eval;
             _historyEntryID = HistoryEntry.allocateID();
             _urlCache = null;
+            _diskCache = cacheResponses ? DiskResponseCache.getInstance() : null;
             if (cacheResponses) {
                 _urlCache = CacheBuilder.newBuilder()
                 .maximumSize(2048)
@@ -285,33 +326,8 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             FilteredRows filteredRows = _engine.getAllFilteredRows();
             filteredRows.accept(_project, createRowVisitor(urls));
 
-            int count = urls.size();
-            List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(count);
-            int i = 0;
-            for (CellAtRow urlData : urls) {
-                String urlString = urlData.cell.value.toString();
-
-                Serializable response = null;
-                if (_urlCache != null) {
-                    response = cachedFetch(urlString);
-                } else {
-                    response = fetch(urlString, httpHeaders);
-                }
-
-                if (response != null) {
-                    CellAtRow cellAtRow = new CellAtRow(
-                            urlData.row,
-                            new Cell(response, null));
-
-                    responseBodies.add(cellAtRow);
-                }
-
-                _progress = i++ * 100 / count;
-
-                if (_canceled) {
-                    break;
-                }
-            }
+            List<CellAtRow> responseBodies = _concurrency > 1 ?
+                    fetchConcurrently(urls) : fetchSequentially(urls);
 
             if (!_canceled) {
                 HistoryEntry historyEntry = new HistoryEntry(
@@ -330,6 +346,74 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             }
         }
 
+        List<CellAtRow> fetchSequentially(List<CellAtRow> urls) {
+            int count = urls.size();
+            List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(count);
+            int i = 0;
+            for (CellAtRow urlData : urls) {
+                addResponse(responseBodies, urlData, fetchResponse(urlData));
+
+                _progress = i++ * 100 / count;
+
+                if (_canceled) {
+                    break;
+                }
+            }
+            return responseBodies;
+        }
+
+        /**
+         * Fetches the URLs on a pool of threads. At most a few URLs per thread are
+         * submitted ahead of the one being waited for, and responses are collected in
+         * row order.
+         */
+        List<CellAtRow> fetchConcurrently(List<CellAtRow> urls) {
+            int count = urls.size();
+            List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(count);
+            ExecutorService executor = Executors.newFixedThreadPool(_concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "fetch-urls-" + _historyEntryID);
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                Deque<Future<Serializable>> pending = new ArrayDeque<>();
+                int window = _concurrency * 2;
+                int submitted = 0;
+                for (int i = 0; i < count && !_canceled; i++) {
+                    while (submitted < count && submitted - i < window) {
+                        CellAtRow urlData = urls.get(submitted++);
+                        pending.add(executor.submit(() -> fetchResponse(urlData)));
+                    }
+                    Serializable response;
+                    try {
+                        response = pending.removeFirst().get();
+                    } catch (InterruptedException e) {
+                        // canceled
+                        break;
+                    } catch (ExecutionException e) {
+                        response = _onError == OnError.StoreError ? new EvalError(e.getCause().getMessage()) : null;
+                    }
+                    addResponse(responseBodies, urls.get(i), response);
+
+                    _progress = i * 100 / count;
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            return responseBodies;
+        }
+
+        Serializable fetchResponse(CellAtRow urlData) {
+            String urlString = urlData.cell.value.toString();
+            return _urlCache != null ? cachedFetch(urlString) : fetch(urlString, httpHeaders);
+        }
+
+        void addResponse(List<CellAtRow> responseBodies, CellAtRow urlData, Serializable response) {
+            if (response != null) {
+                responseBodies.add(new CellAtRow(urlData.row, new Cell(response, null)));
+            }
+        }
+
         Serializable cachedFetch(String urlString) {
             try {
                 return  _urlCache.get(urlString);
@@ -339,9 +423,19 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         }
 
         Serializable fetch(String urlString, Header[] headers) {
+            if (_diskCache != null) {
+                String cached = _diskCache.get(urlString, headers);
+                if (cached != null) {
+                    return cached;
+                }
+            }
             try { //HttpClients.createDefault()) {
                 try {
-                    return _httpClient.getAsString(urlString, headers);
+                    String body = _httpClient.getAsString(urlString, headers);
+                    if (_diskCache != null && body != null) {
+                        _diskCache.put(urlString, headers, body);
+                    }
+                    return body;
                 } catch (IOException e) {
                     return _onError == OnError.StoreError ? new EvalError(e) : null;
                 }
@@ -43,10 +43,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.browsing.Engine;
 import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.MergeableRowVisitor;
 import com.google.refine.browsing.RowVisitor;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.WrappedCell;
 import com.google.refine.history.Change;
 import com.google.refine.history.HistoryEntry;
@@ -160,68 +161,85 @@ public class ColumnAdditionOperation extends EngineDependentOperation {
     protected RowVisitor createRowVisitor(Project project, List<CellAtRow> cellsAtRows) throws Exception {
         Column column = project.columnModel.getColumnByName(_baseColumnName);
         
-        Evaluable eval = MetaParser.parse(_expression);
+        Evaluable eval = ParsedExpressionCache.parse(_expression);
         Properties bindings = ExpressionUtils.createBindings(project);
         
-        return new RowVisitor() {
-            int              cellIndex;
-            Properties       bindings;
-            List<CellAtRow>  cellsAtRows;
-            Evaluable        eval;
-            
-            public RowVisitor init(int cellIndex, Properties bindings, List<CellAtRow> cellsAtRows, Evaluable eval) {
-                this.cellIndex = cellIndex;
-                this.bindings = bindings;
-                this.cellsAtRows = cellsAtRows;
-                this.eval = eval;
-                return this;
-            }
-            
-            @Override
-            public void start(Project project) {
-                // nothing to do
-            }
+        return new ColumnAdditionRowVisitor(column.getCellIndex(), bindings, cellsAtRows, eval);
+    }
 
-            @Override
-            public void end(Project project) {
-                // nothing to do
-            }
+    /**
+     * Computes the cells of the new column. When the expression is thread-safe, ranges
+     * of rows can be evaluated concurrently by partial visitors, each with its own
+     * bindings, whose cells are then appended in row order.
+     */
+    protected class ColumnAdditionRowVisitor implements MergeableRowVisitor {
+        final int             cellIndex;
+        final Properties      bindings;
+        final List<CellAtRow> cellsAtRows;
+        final Evaluable       eval;
+
+        protected ColumnAdditionRowVisitor(int cellIndex, Properties bindings, List<CellAtRow> cellsAtRows, Evaluable eval) {
+            this.cellIndex = cellIndex;
+            this.bindings = bindings;
+            this.cellsAtRows = cellsAtRows;
+            this.eval = eval;
+        }
+
+        @Override
+        public void start(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public void end(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public MergeableRowVisitor fork(Project project) {
+            return eval.isThreadSafe() ?
+                new ColumnAdditionRowVisitor(cellIndex, ExpressionUtils.createBindings(project), new ArrayList<CellAtRow>(), eval) : null;
+        }
+
+        @Override
+        public void merge(MergeableRowVisitor partial) {
+            cellsAtRows.addAll(((ColumnAdditionRowVisitor) partial).cellsAtRows);
+        }
+
+        @Override
+        public boolean visit(Project project, int rowIndex, Row row) {
+            Cell cell = row.getCell(cellIndex);
+            Cell newCell = null;
+
+            ExpressionUtils.bind(bindings, row, rowIndex, _baseColumnName, cell);
             
-            @Override
-            public boolean visit(Project project, int rowIndex, Row row) {
-                Cell cell = row.getCell(cellIndex);
-                Cell newCell = null;
-
-                ExpressionUtils.bind(bindings, row, rowIndex, _baseColumnName, cell);
-                
-                Object o = eval.evaluate(bindings);
-                if (o != null) {
-                    if (o instanceof Cell) {
-                        newCell = (Cell) o;
-                    } else if (o instanceof WrappedCell) {
-                        newCell = ((WrappedCell) o).cell;
-                    } else {
-                        Serializable v = ExpressionUtils.wrapStorable(o);
-                        if (ExpressionUtils.isError(v)) {
-                            if (_onError == OnError.SetToBlank) {
-                                return false;
-                            } else if (_onError == OnError.KeepOriginal) {
-                                v = cell != null ? cell.value : null;
-                            }
-                        }
-                        
-                        if (v != null) {
-                            newCell = new Cell(v, null);
+            Object o = eval.evaluate(bindings);
+            if (o != null) {
+                if (o instanceof Cell) {
+                    newCell = (Cell) o;
+                } else if (o instanceof WrappedCell) {
+                    newCell = ((WrappedCell) o).cell;
+                } else {
+                    Serializable v = ExpressionUtils.wrapStorable(o);
+                    if (ExpressionUtils.isError(v)) {
+                        if (_onError == OnError.SetToBlank) {
+                            return false;
+                        } else if (_onError == OnError.KeepOriginal) {
+                            v = cell != null ? cell.value : null;
                         }
                     }
+                    
+                    if (v != null) {
+                        newCell = new Cell(v, null);
+                    }
                 }
-                
-                if (newCell != null) {
-                    cellsAtRows.add(new CellAtRow(rowIndex, newCell));
-                }
-                
-                return false;
             }
-        }.init(column.getCellIndex(), bindings, cellsAtRows, eval);
+            
+            if (newCell != null) {
+                cellsAtRows.add(new CellAtRow(rowIndex, newCell));
+            }
+            
+            return false;
+        }
     }
 }
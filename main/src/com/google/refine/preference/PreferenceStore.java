@@ -66,6 +66,43 @@ public class PreferenceStore  {
     public Object get(String key) {
         return _prefs.get(key);
     }
+
+    /**
+     * @return the preference as a boolean, or the default value if it is
+     *         missing or not a boolean
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Object v = _prefs.get(key);
+        if (v instanceof Boolean) {
+            return (Boolean) v;
+        } else if (v != null) {
+            String s = v.toString().trim();
+            if ("true".equalsIgnoreCase(s)) {
+                return true;
+            } else if ("false".equalsIgnoreCase(s)) {
+                return false;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return the preference as an integer, or the default value if it is
+     *         missing or not a number
+     */
+    public int getInteger(String key, int defaultValue) {
+        Object v = _prefs.get(key);
+        if (v instanceof Number) {
+            return ((Number) v).intValue();
+        } else if (v != null) {
+            try {
+                return Integer.parseInt(v.toString().trim());
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+        }
+        return defaultValue;
+    }
     
     @JsonIgnore
     public Set<String> getKeys() {
@@ -36,7 +36,7 @@ package com.google.refine.templating;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsedExpressionCache;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.grel.ast.FieldAccessorExpr;
 import com.google.refine.grel.ast.VariableExpr;
@@ -92,7 +92,7 @@ public class Parser {
 
                     fragments.add(
                             new DynamicFragment(
-                                    MetaParser.parse(expression)));
+                                    ParsedExpressionCache.parse(expression)));
 
                     continue;
                 }
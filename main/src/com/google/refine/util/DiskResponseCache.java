@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.io.FileProjectManager;
+
+/**
+ * A cache of HTTP response bodies stored in the workspace directory, so that
+ * fetching the same URLs again, from the same project or another one, does not
+ * download them again after a restart.
+ * <p>
+ * Responses are keyed by URL and request headers. Each one is stored in its own
+ * file, named after the SHA-256 hash of its key, along with the time it was fetched.
+ * The key itself is not stored, so that credentials sent in headers are not
+ * written to the workspace. Entries older than the time to live are ignored, and
+ * the least recently used ones are removed when the total size of the cache
+ * exceeds its limit.
+ * <p>
+ * The cache is enabled by the "urlFetching.diskCache" preference. Its limits are
+ * set by "urlFetching.diskCache.maxSizeMB" and "urlFetching.diskCache.ttlHours".
+ */
+public class DiskResponseCache {
+
+    final static Logger logger = LoggerFactory.getLogger("disk-response-cache");
+
+    static final public String DIRECTORY_NAME = "http-cache";
+    static final private String SUFFIX = ".response";
+    static final private int FORMAT_VERSION = 2;
+
+    static private DiskResponseCache s_instance;
+
+    final protected File _dir;
+    final protected long _maxSize;
+    final protected long _ttlMillis;
+
+    /**
+     * Sizes of the entry files by name, least recently used first.
+     */
+    final protected LinkedHashMap<String, Long> _entries = new LinkedHashMap<>(16, 0.75f, true);
+    protected long _size;
+
+    public DiskResponseCache(File dir, long maxSize, long ttlMillis) {
+        _dir = dir;
+        _maxSize = maxSize;
+        _ttlMillis = ttlMillis;
+        load();
+    }
+
+    /**
+     * @return the cache of the workspace, or null if it is disabled
+     */
+    static synchronized public DiskResponseCache getInstance() {
+        ProjectManager pm = ProjectManager.singleton;
+        if (!(pm instanceof FileProjectManager) ||
+                !pm.getPreferenceStore().getBoolean("urlFetching.diskCache", false)) {
+            return null;
+        }
+        File dir = new File(((FileProjectManager) pm).getWorkspaceDir(), DIRECTORY_NAME);
+        long maxSize = pm.getPreferenceStore().getInteger("urlFetching.diskCache.maxSizeMB", 256) * 1024L * 1024L;
+        long ttl = TimeUnit.HOURS.toMillis(pm.getPreferenceStore().getInteger("urlFetching.diskCache.ttlHours", 24 * 7));
+        if (s_instance == null || !s_instance._dir.equals(dir) || s_instance._maxSize != maxSize || s_instance._ttlMillis != ttl) {
+            s_instance = new DiskResponseCache(dir, maxSize, ttl);
+        }
+        return s_instance;
+    }
+
+    protected void load() {
+        if (!_dir.isDirectory() && !_dir.mkdirs()) {
+            logger.warn("Failed to create directory " + _dir);
+            return;
+        }
+        File[] temps = _dir.listFiles((d, name) -> name.endsWith(".temp"));
+        if (temps != null) {
+            // left over by an interrupted write
+            for (File temp : temps) {
+                temp.delete();
+            }
+        }
+        File[] files = _dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        // files are touched when read, so this restores the recency order
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        synchronized (this) {
+            for (File file : files) {
+                if (!hasCurrentFormat(file)) {
+                    // earlier versions stored keys, including header values, in clear
+                    file.delete();
+                    continue;
+                }
+                _entries.put(file.getName(), file.length());
+                _size += file.length();
+            }
+            evict();
+        }
+    }
+
+    /**
+     * @return the cached body of the response, or null if it is not cached or has expired
+     */
+    public String get(String url, Header[] headers) {
+        String name = getFileName(getKey(url, headers));
+        synchronized (this) {
+            if (_entries.get(name) == null) {
+                return null;
+            }
+        }
+        File file = new File(_dir, name);
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                remove(name);
+                return null;
+            }
+            long fetchedAt = in.readLong();
+            if (System.currentTimeMillis() - fetchedAt > _ttlMillis) {
+                remove(name);
+                return null;
+            }
+            String body = readString(in);
+            file.setLastModified(System.currentTimeMillis());
+            return body;
+        } catch (IOException e) {
+            remove(name);
+            return null;
+        }
+    }
+
+    public void put(String url, Header[] headers, String body) {
+        String name = getFileName(getKey(url, headers));
+        File file = new File(_dir, name);
+        try {
+            File temp = File.createTempFile(name, ".temp", _dir);
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                writeString(out, body);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to cache the response of " + url, e);
+            return;
+        }
+        synchronized (this) {
+            Long previous = _entries.put(name, file.length());
+            _size += file.length() - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    synchronized public long getSize() {
+        return _size;
+    }
+
+    synchronized public int getEntryCount() {
+        return _entries.size();
+    }
+
+    synchronized protected void remove(String name) {
+        Long size = _entries.remove(name);
+        if (size != null) {
+            _size -= size;
+        }
+        new File(_dir, name).delete();
+    }
+
+    synchronized protected void evict() {
+        Iterator<Map.Entry<String, Long>> it = _entries.entrySet().iterator();
+        while (_size > _maxSize && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            _size -= eldest.getValue();
+            it.remove();
+            new File(_dir, eldest.getKey()).delete();
+        }
+    }
+
+    static protected boolean hasCurrentFormat(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == FORMAT_VERSION;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static protected String getKey(String url, Header[] headers) {
+        StringBuilder sb = new StringBuilder(url);
+        if (headers != null) {
+            String[] lines = new String[headers.length];
+            for (int i = 0; i < headers.length; i++) {
+                lines[i] = headers[i].getName().toLowerCase() + ": " + headers[i].getValue();
+            }
+            // the order of distinct headers does not change the request
+            Arrays.sort(lines);
+            for (String line : lines) {
+                sb.append('\n').append(line);
+            }
+        }
+        return sb.toString();
+    }
+
+    static protected String getFileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2 + SUFFIX.length());
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.append(SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static private void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,7 @@
 package com.google.refine.util;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -36,6 +37,7 @@ import org.apache.hc.core5.http.io.SocketConfig;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.net.URIAuthority;
 import org.apache.hc.core5.util.TimeValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +51,8 @@ public class HttpClient {
     final private RequestConfig defaultRequestConfig;
     private HttpClientBuilder httpClientBuilder;
     private CloseableHttpClient httpClient;
+    final private PoolingHttpClientConnectionManager connManager;
+    final private HostRateLimiter _rateLimiter; // enforces the delay between requests to the same host
     private int _delay;
     private int _retryInterval; // delay between original request and first retry, in ms
     
@@ -63,8 +67,9 @@ public class HttpClient {
     public HttpClient(int delay, int retryInterval) {   
         _delay = delay;
         _retryInterval = retryInterval;
+        _rateLimiter = new HostRateLimiter(delay, 1);
         // Create a connection manager with a custom socket timeout
-        PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
+        connManager = new PoolingHttpClientConnectionManager();
         final SocketConfig socketConfig = SocketConfig.custom()
             .setSoTimeout(60, TimeUnit.SECONDS)
             .build();
@@ -85,23 +90,19 @@ public class HttpClient {
 //               .setConnectionBackoffStrategy(ConnectionBackoffStrategy)
                 .addRequestInterceptorFirst(new HttpRequestInterceptor() {
 
-                    private long nextRequestTime = System.currentTimeMillis();
-
                     @Override
                     public void process(
                             final HttpRequest request,
                             final EntityDetails entity,
                             final HttpContext context) throws HttpException, IOException {
 
-                        long delay = nextRequestTime - System.currentTimeMillis();
-                        if (delay > 0) {
-                            try {
-                                Thread.sleep(delay);
-                            } catch (InterruptedException e) {
-                            }
+                        URIAuthority authority = request.getAuthority();
+                        try {
+                            _rateLimiter.acquire(authority == null ? "" : authority.getHostName());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while waiting to send the request");
                         }
-                        nextRequestTime = System.currentTimeMillis() + _delay;
-
                     }
                 });
 
@@ -123,6 +124,15 @@ public class HttpClient {
         httpClient = httpClientBuilder.build();
     }
 
+    /**
+     * Allows this many requests to run concurrently, to the same host or not. The
+     * delay between requests to the same host is still enforced.
+     */
+    public void setMaxConnections(int maxConnections) {
+        connManager.setMaxTotal(Math.max(connManager.getMaxTotal(), maxConnections));
+        connManager.setDefaultMaxPerRoute(Math.max(connManager.getDefaultMaxPerRoute(), maxConnections));
+    }
+
     public String getAsString(String urlString, Header[] headers) throws IOException {
 
         final HttpClientResponseHandler<String> responseHandler = new HttpClientResponseHandler<String>() {
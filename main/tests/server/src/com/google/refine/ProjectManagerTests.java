@@ -37,6 +37,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -196,6 +197,8 @@ public class ProjectManagerTests extends RefineTest {
 
         SUT.save(false); //not busy
 
+        // quick saves happen in the background
+        verify(SUT, timeout(5000).times(1)).saveProject(project);
         verifySaved(project, metadata);
         verify(SUT, times(1)).saveWorkspace();
 
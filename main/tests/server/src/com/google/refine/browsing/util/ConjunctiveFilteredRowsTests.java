@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.browsing.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.expr.MetaParser;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+import com.google.refine.util.ParsingUtilities;
+
+public class ConjunctiveFilteredRowsTests extends RefineTest {
+
+    static final int ROW_COUNT = 2000;
+
+    static final String ENGINE_CONFIG = "{\"mode\":\"row-based\",\"facets\":["
+            + "{\"type\":\"list\",\"name\":\"letter\",\"columnName\":\"letter\",\"expression\":\"value\","
+            + "\"omitBlank\":false,\"omitError\":false,\"selectBlank\":false,\"selectError\":false,\"invert\":false,"
+            + "\"selection\":[{\"v\":{\"v\":\"b\",\"l\":\"b\"}}]},"
+            + "{\"type\":\"list\",\"name\":\"parity\",\"columnName\":\"number\",\"expression\":\"value % 2\","
+            + "\"omitBlank\":false,\"omitError\":false,\"selectBlank\":false,\"selectError\":false,\"invert\":false,"
+            + "\"selection\":[]},"
+            + "{\"type\":\"range\",\"name\":\"number\",\"columnName\":\"number\",\"expression\":\"value\","
+            + "\"from\":100,\"to\":1500,\"selectNumeric\":true,\"selectNonNumeric\":true,\"selectBlank\":true,\"selectError\":true}"
+            + "]}";
+
+    Project project;
+    int minChunkSize;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        project = createProjectWithColumns("parallel scan", "letter", "number");
+        for (int i = 0; i < ROW_COUNT; i++) {
+            Row row = new Row(2);
+            row.setCell(0, i % 7 == 0 ? null : new Cell(Character.toString((char) ('a' + i % 5)), null));
+            row.setCell(1, new Cell((long) i, null));
+            project.rows.add(row);
+        }
+        project.update();
+        minChunkSize = ParallelRowScanner.s_minChunkSize;
+        ParallelRowScanner.s_minChunkSize = 100;
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ParallelRowScanner.s_minChunkSize = minChunkSize;
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, null);
+    }
+
+    private String computeFacets() throws Exception {
+        Engine engine = new Engine(project);
+        engine.initializeFromConfig(ParsingUtilities.mapper.readValue(ENGINE_CONFIG, EngineConfig.class));
+        engine.computeFacets();
+        return ParsingUtilities.mapper.writeValueAsString(engine);
+    }
+
+    @Test
+    public void testChunkCount() {
+        assertEquals(ParallelRowScanner.getChunkCount(ROW_COUNT), 1);
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, 4);
+        assertEquals(ParallelRowScanner.getChunkCount(ROW_COUNT), 16);
+        assertEquals(ParallelRowScanner.getChunkCount(150), 1);
+    }
+
+    @Test
+    public void testParallelFacetsMatchSequentialOnes() throws Exception {
+        String sequential = computeFacets();
+
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, 4);
+        String parallel = computeFacets();
+
+        assertEquals(parallel, sequential);
+    }
+
+    @Test
+    public void testThreadSafety() throws Exception {
+        assertTrue(MetaParser.parse("value.toUppercase() + 'x'").isThreadSafe());
+        assertTrue(MetaParser.parse("forEach(value.split(','), v, v.trim())").isThreadSafe());
+        assertFalse(MetaParser.parse("facetCount(value, 'value', 'letter')").isThreadSafe());
+        assertFalse(MetaParser.parse("cells['letter'].cross('other project', 'letter')").isThreadSafe());
+
+        ExpressionNominalValueGrouper safe = new ExpressionNominalValueGrouper(
+                MetaParser.parse("value"), "letter", 0);
+        ExpressionNominalValueGrouper unsafe = new ExpressionNominalValueGrouper(
+                MetaParser.parse("facetCount(value, 'value', 'letter')"), "letter", 0);
+        assertNotNull(safe.fork(project));
+        assertNull(unsafe.fork(project));
+    }
+
+    @Test
+    public void testFallbackForUnsafeExpression() throws Exception {
+        ExpressionNominalValueGrouper sequential = new ExpressionNominalValueGrouper(
+                MetaParser.parse("facetCount(value, 'value', 'letter')"), "letter", 0);
+        new Engine(project).getAllRows().accept(project, sequential);
+
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, 4);
+        ExpressionNominalValueGrouper grouper = new ExpressionNominalValueGrouper(
+                MetaParser.parse("facetCount(value, 'value', 'letter')"), "letter", 0);
+        new Engine(project).getAllRows().accept(project, grouper);
+
+        assertEquals(grouper.choices.keySet(), sequential.choices.keySet());
+        assertEquals(grouper.blankCount, sequential.blankCount);
+        assertEquals(grouper.errorCount, sequential.errorCount);
+    }
+}
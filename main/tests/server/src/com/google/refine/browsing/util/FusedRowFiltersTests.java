@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RowFilter;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class FusedRowFiltersTests extends RefineTest {
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        project = createCSVProject("n\n1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n11\n12");
+    }
+
+    static RowFilter multipleOf(int n) {
+        return (project, rowIndex, row) -> (rowIndex + 1) % n == 0;
+    }
+
+    static List<Integer> visit(Project project, FilteredRows filteredRows) {
+        List<Integer> rowIndices = new ArrayList<>();
+        filteredRows.accept(project, new RowVisitor() {
+
+            @Override
+            public void start(Project project) {
+            }
+
+            @Override
+            public boolean visit(Project project, int rowIndex, Row row) {
+                rowIndices.add(rowIndex + 1);
+                return false;
+            }
+
+            @Override
+            public void end(Project project) {
+            }
+        });
+        return rowIndices;
+    }
+
+    @Test
+    public void testFilteredRowsExceptFacet() {
+        FusedRowFilters fused = new FusedRowFilters(project,
+                Arrays.asList(multipleOf(2), null, multipleOf(3)));
+
+        assertEquals(visit(project, fused.getFilteredRows(-1)), Arrays.asList(6, 12));
+        assertEquals(visit(project, fused.getFilteredRows(0)), Arrays.asList(3, 6, 9, 12));
+        assertEquals(visit(project, fused.getFilteredRows(1)), Arrays.asList(6, 12));
+        assertEquals(visit(project, fused.getFilteredRows(2)), Arrays.asList(2, 4, 6, 8, 10, 12));
+    }
+
+    @Test
+    public void testFiltersEvaluatedOncePerRow() {
+        int[] evaluations = new int[1];
+        RowFilter counting = (project, rowIndex, row) -> {
+            evaluations[0]++;
+            return true;
+        };
+        FusedRowFilters fused = new FusedRowFilters(project, Arrays.asList(counting, multipleOf(2), multipleOf(5)));
+        for (int i = 0; i < 3; i++) {
+            visit(project, fused.getFilteredRows(i));
+        }
+
+        assertEquals(evaluations[0], project.rows.size());
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.changes.CellChange;
+import com.google.refine.model.changes.RowReorderChange;
+import com.google.refine.util.ParsingUtilities;
+
+public class RowBitmapCacheTests extends RefineTest {
+
+    static final String ENGINE_CONFIG = "{\"mode\":\"row-based\",\"facets\":["
+            + "{\"type\":\"list\",\"name\":\"a\",\"columnName\":\"a\",\"expression\":\"value\","
+            + "\"omitBlank\":false,\"omitError\":false,\"selectBlank\":false,\"selectError\":false,\"invert\":false,"
+            + "\"selection\":[{\"v\":{\"v\":\"x\",\"l\":\"x\"}}]}"
+            + "]}";
+
+    Project project;
+    EngineConfig config;
+    Engine engine;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        project = createCSVProject("a,b\nx,1\ny,2\nx,3\nz,4");
+        engine = new Engine(project);
+        config = ParsingUtilities.mapper.readValue(ENGINE_CONFIG, EngineConfig.class);
+        engine.initializeFromConfig(config);
+    }
+
+    BitSet getCachedRows() throws Exception {
+        String key = "list:" + ParsingUtilities.mapper.writeValueAsString(config.getFacetConfigs().get(0));
+        return RowBitmapCache.get(project, key, Collections.singleton("a"));
+    }
+
+    @Test
+    public void testBitmapCachedByComputeFacets() throws Exception {
+        assertNull(getCachedRows());
+        engine.computeFacets();
+
+        BitSet rows = getCachedRows();
+        assertNotNull(rows);
+        assertEquals(rows.toString(), "{0, 2}");
+    }
+
+    @Test
+    public void testInvalidatedByChangeToDependency() throws Exception {
+        engine.computeFacets();
+        new CellChange(1, 1, project.rows.get(1).getCell(1), new Cell("5", null)).apply(project);
+        assertNotNull(getCachedRows());
+
+        new CellChange(1, 0, project.rows.get(1).getCell(0), new Cell("x", null)).apply(project);
+        assertNull(getCachedRows());
+
+        engine.computeFacets();
+        assertEquals(getCachedRows().toString(), "{0, 1, 2}");
+    }
+
+    @Test
+    public void testInvalidatedByRowReordering() throws Exception {
+        engine.computeFacets();
+        new RowReorderChange(Arrays.asList(3, 2, 1, 0)).apply(project);
+        assertNull(getCachedRows());
+    }
+
+    @Test
+    public void testUnknownDependencies() {
+        RowBitmapCache.put(project, "key", null, new BitSet());
+        assertNull(RowBitmapCache.get(project, "key", null));
+    }
+}
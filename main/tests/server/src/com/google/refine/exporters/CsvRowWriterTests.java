@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.exporters;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.google.refine.exporters.TabularSerializer.CellData;
+
+import au.com.bytecode.opencsv.CSVWriter;
+
+public class CsvRowWriterTests {
+
+    @DataProvider(name = "configurations")
+    public Object[][] configurations() {
+        return new Object[][] {
+                { ',', "\n", false },
+                { ',', "\r\n", true },
+                { '\t', "\n", false },
+        };
+    }
+
+    @Test(dataProvider = "configurations")
+    public void matchesCsvWriter(char separator, String lineSeparator, boolean quoteAll) throws IOException {
+        Random random = new Random(42);
+        String alphabet = "ab \"\n\r,\t;";
+        StringWriter expected = new StringWriter();
+        StringWriter actual = new StringWriter();
+        CSVWriter csvWriter = new CSVWriter(expected, separator, CSVWriter.DEFAULT_QUOTE_CHARACTER, lineSeparator);
+        CsvRowWriter rowWriter = new CsvRowWriter(actual, separator, lineSeparator, quoteAll);
+
+        for (int r = 0; r < 2000; r++) {
+            List<CellData> cells = new ArrayList<>();
+            String[] strings = new String[random.nextInt(5)];
+            for (int c = 0; c < strings.length; c++) {
+                StringBuilder sb = new StringBuilder();
+                int length = random.nextInt(4) == 0 ? random.nextInt(5000) : random.nextInt(8);
+                for (int i = 0; i < length; i++) {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                strings[c] = sb.toString();
+                cells.add(random.nextInt(10) == 0 ? null : new CellData("column", strings[c], strings[c], null));
+                if (cells.get(c) == null) {
+                    strings[c] = "";
+                }
+            }
+            csvWriter.writeNext(strings, quoteAll);
+            rowWriter.writeRow(cells);
+        }
+        csvWriter.close();
+        rowWriter.close();
+
+        assertEquals(actual.toString(), expected.toString());
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.expr;
+
+import java.util.Properties;
+
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.grel.GrelCompiler;
+import com.google.refine.grel.Parser;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class BindingsTests extends RefineTest {
+
+    Project project;
+
+    @Override
+    @BeforeTest
+    public void init() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        project = createCSVProject("a,b\n1,x\n,y\n");
+    }
+
+    @Test
+    public void testSameVariablesAsProperties() {
+        Properties slots = ExpressionUtils.createBindings(project);
+        Properties plain = new Properties();
+        plain.put("project", project);
+        Assert.assertTrue(slots instanceof Bindings);
+
+        for (int r = 0; r < project.rows.size(); r++) {
+            Row row = project.rows.get(r);
+            Cell cell = row.getCell(0);
+            ExpressionUtils.bind(slots, row, r, "a", cell);
+            ExpressionUtils.bind(plain, row, r, "a", cell);
+            for (String name : new String[] { "value", "rowIndex", "columnName", "recon" }) {
+                Assert.assertEquals(slots.get(name), plain.get(name), name);
+                Assert.assertEquals(slots.containsKey(name), plain.containsKey(name), name);
+            }
+            Assert.assertEquals(((WrappedRow) slots.get("row")).row, row);
+            Assert.assertEquals(((CellTuple) slots.get("cells")).row, row);
+            Assert.assertEquals(slots.get("cell") == null, cell == null);
+            if (cell != null) {
+                Assert.assertEquals(((WrappedCell) slots.get("cell")).cell, cell);
+                Assert.assertEquals(((WrappedCell) slots.get("cell")).columnName, "a");
+            }
+        }
+    }
+
+    @Test
+    public void testPutAndRemove() {
+        Properties bindings = ExpressionUtils.createBindings(project);
+        ExpressionUtils.bind(bindings, project.rows.get(0), 0, "a", project.rows.get(0).getCell(0));
+
+        Assert.assertEquals(bindings.put("value", "other"), "1");
+        Assert.assertEquals(bindings.get("value"), "other");
+        Assert.assertEquals(bindings.remove("value"), "other");
+        Assert.assertNull(bindings.get("value"));
+        Assert.assertFalse(bindings.containsKey("value"));
+
+        // variables without a slot are stored as usual
+        bindings.put("x", 3);
+        Assert.assertEquals(bindings.get("x"), 3);
+        Assert.assertEquals(bindings.get("project"), project);
+    }
+
+    @Test
+    public void testRegisteredSlot() {
+        int slot = Bindings.registerSlot("bindingsTestVariable");
+        Assert.assertEquals(Bindings.registerSlot("bindingsTestVariable"), slot);
+        Assert.assertEquals(Bindings.getSlotIndex("bindingsTestVariable"), slot);
+
+        Bindings bindings = (Bindings) ExpressionUtils.createBindings(project);
+        bindings.put("bindingsTestVariable", "v");
+        Assert.assertEquals(bindings.getSlot(slot), "v");
+    }
+
+    @Test
+    public void testCompiledVariables() throws Exception {
+        Properties bindings = ExpressionUtils.createBindings(project);
+        Evaluable eval = GrelCompiler.compile(new Parser("value + cells.b.value + rowIndex").getExpression());
+        for (int r = 0; r < project.rows.size(); r++) {
+            Row row = project.rows.get(r);
+            ExpressionUtils.bind(bindings, row, r, "b", row.getCell(1));
+            Assert.assertEquals(eval.evaluate(bindings), row.getCellValue(1).toString() + row.getCellValue(1) + r);
+        }
+    }
+}
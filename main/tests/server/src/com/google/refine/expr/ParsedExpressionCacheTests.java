@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.expr;
+
+import java.util.Properties;
+
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.grel.GrelCompiler;
+
+public class ParsedExpressionCacheTests extends RefineTest {
+
+    @Override
+    @BeforeTest
+    public void init() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        ParsedExpressionCache.clear();
+    }
+
+    @Test
+    public void testReuseParsedExpression() throws ParsingException {
+        long hits = ParsedExpressionCache.getHitCount();
+        long misses = ParsedExpressionCache.getMissCount();
+
+        Evaluable eval = ParsedExpressionCache.parse("grel:value + 1");
+        Assert.assertSame(ParsedExpressionCache.parse("grel:value + 1"), eval);
+        // same language, written differently
+        Assert.assertSame(ParsedExpressionCache.parse("value + 1"), eval);
+        Assert.assertSame(ParsedExpressionCache.parse("GEL:value + 1"), eval);
+        Assert.assertNotSame(ParsedExpressionCache.parse("value + 2"), eval);
+
+        Assert.assertEquals(ParsedExpressionCache.getHitCount() - hits, 3);
+        Assert.assertEquals(ParsedExpressionCache.getMissCount() - misses, 2);
+        Assert.assertEquals(ParsedExpressionCache.size(), 2);
+
+        Properties bindings = new Properties();
+        bindings.put("value", 2L);
+        Assert.assertEquals(eval.evaluate(bindings), 3L);
+    }
+
+    @Test(expectedExceptions = ParsingException.class)
+    public void testParsingErrorsAreNotCached() throws ParsingException {
+        try {
+            ParsedExpressionCache.parse("value +");
+        } finally {
+            Assert.assertEquals(ParsedExpressionCache.size(), 0);
+        }
+    }
+
+    @Test
+    public void testNotThreadSafeExpressionsAreNotCached() throws ParsingException {
+        MetaParser.registerLanguageParser("unsafe", "Not thread-safe", new LanguageSpecificParser() {
+
+            @Override
+            public Evaluable parse(String s) throws ParsingException {
+                return new Evaluable() {
+
+                    @Override
+                    public Object evaluate(Properties bindings) {
+                        return s;
+                    }
+                };
+            }
+        }, "value");
+        Evaluable eval = ParsedExpressionCache.parse("unsafe:x");
+        Assert.assertNotSame(ParsedExpressionCache.parse("unsafe:x"), eval);
+        Assert.assertEquals(ParsedExpressionCache.size(), 0);
+    }
+
+    @Test
+    public void testCompilationPreferenceApplies() throws ParsingException {
+        Evaluable compiled = ParsedExpressionCache.parse("value + 1");
+        Assert.assertTrue(compiled instanceof GrelCompiler.CompiledExpression);
+        ProjectManager.singleton.getPreferenceStore().put("grel.compileExpressions", false);
+        try {
+            Evaluable interpreted = ParsedExpressionCache.parse("value + 1");
+            Assert.assertFalse(interpreted instanceof GrelCompiler.CompiledExpression);
+            Assert.assertSame(ParsedExpressionCache.parse("grel:value + 1"), interpreted);
+        } finally {
+            ProjectManager.singleton.getPreferenceStore().put("grel.compileExpressions", null);
+        }
+        Assert.assertSame(ParsedExpressionCache.parse("value + 1"), compiled);
+    }
+
+    @Test
+    public void testBoundedSize() throws ParsingException {
+        for (int i = 0; i < ParsedExpressionCache.DEFAULT_MAX_SIZE + 10; i++) {
+            ParsedExpressionCache.parse("value + " + i);
+        }
+        Assert.assertEquals(ParsedExpressionCache.size(), ParsedExpressionCache.DEFAULT_MAX_SIZE);
+        Assert.assertTrue(ParsedExpressionCache.getEvictionCount() >= 10);
+    }
+}
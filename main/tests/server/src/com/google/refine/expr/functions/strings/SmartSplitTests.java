@@ -29,7 +29,13 @@ package com.google.refine.expr.functions.strings;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.testng.annotations.AfterTest;
 import org.testng.annotations.BeforeTest;
@@ -100,6 +106,34 @@ public class SmartSplitTests {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testSmartSplitConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final String prefix = "thread" + t;
+                results.add(executor.submit(() -> {
+                    Properties threadBindings = new Properties();
+                    for (int i = 0; i < 2000; i++) {
+                        String testString = prefix + ",\"" + i + ",quoted\"," + (i % 2 == 0 ? "" : "last");
+                        String[] expected = { prefix, i + ",quoted", i % 2 == 0 ? "" : "last" };
+                        Object actual = ControlFunctionRegistry.getFunction("smartSplit").call(threadBindings, new Object[] { testString });
+                        if (!Arrays.equals((String[]) actual, expected)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Lookup a control function by name and invoke it with a variable number of
      * args
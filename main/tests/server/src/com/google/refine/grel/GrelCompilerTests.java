@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.grel;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.expr.EvalError;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsingException;
+import com.google.refine.grel.ast.LiteralExpr;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class GrelCompilerTests extends RefineTest {
+
+    Project project;
+    Properties bindings;
+
+    @Override
+    @BeforeTest
+    public void init() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        project = createCSVProject("a,b\n1,x\n,y\n");
+        bindings = ExpressionUtils.createBindings(project);
+    }
+
+    @Test
+    public void testSameResultsAsInterpreter() throws ParsingException {
+        String[] tests = {
+                "1 + 2 * 3",
+                "7 / 2",
+                "7.0 / 2",
+                "7 % 3",
+                "1 + 2.5",
+                "\"a\" + 1",
+                "\"a\" + \"b\"",
+                "\"a\" - \"b\"",
+                "1 == 1.0",
+                "\"a\" == \"a\"",
+                "2 > 1 && 1 >= 1",
+                "value + 1",
+                "value * 2 > 5",
+                "value.toString().length()",
+                "cell.value",
+                "cells.b.value + value",
+                "if(value > 1, \"big\", \"small\")",
+                "forEach([1, 2, 3], v, v * value).join(\",\")",
+                "with(value + 1, x, x * x)",
+                "value.datePart()",
+                "toNumber(\"x\") + 1",
+                "substring(\"abcdef\", 1, 3)",
+                "coalesce(value, 3)",
+        };
+        Row row = project.rows.get(0);
+        for (Object value : new Object[] { 3L, 2.5, "text", null }) {
+            row.setCell(0, new Cell((Serializable) value, null));
+            ExpressionUtils.bind(bindings, row, 0, "a", row.getCell(0));
+            for (String test : tests) {
+                Evaluable interpreted = new Parser(test).getExpression();
+                Evaluable compiled = GrelCompiler.compile(interpreted);
+                Object expected = interpreted.evaluate(bindings);
+                Object actual = compiled.evaluate(bindings);
+                if (expected instanceof EvalError) {
+                    Assert.assertTrue(actual instanceof EvalError, test);
+                    Assert.assertEquals(((EvalError) actual).message, ((EvalError) expected).message, test);
+                } else {
+                    Assert.assertEquals(actual, expected, test + " with value " + value);
+                }
+                Assert.assertEquals(compiled.toString(), interpreted.toString());
+                Assert.assertEquals(compiled.isThreadSafe(), interpreted.isThreadSafe());
+                Assert.assertEquals(compiled.getColumnDependencies("a"), interpreted.getColumnDependencies("a"));
+            }
+        }
+    }
+
+    @Test
+    public void testConstantFolding() throws ParsingException {
+        Evaluable compiled = GrelCompiler.compileNode(new Parser("2 * 3 + 1").getExpression());
+        Assert.assertTrue(compiled instanceof LiteralExpr);
+        Assert.assertEquals(compiled.evaluate(bindings), 7L);
+    }
+
+    @Test(expectedExceptions = ArithmeticException.class)
+    public void testDivisionByZero() throws ParsingException {
+        // same behaviour as the interpreter, which does not catch this
+        GrelCompiler.compile(new Parser("1 / 0").getExpression()).evaluate(bindings);
+    }
+
+    @Test
+    public void testParsedExpressionsAreCompiled() throws ParsingException {
+        Evaluable eval = MetaParser.parse("grel:value + 1");
+        Assert.assertTrue(eval instanceof GrelCompiler.CompiledExpression);
+    }
+}
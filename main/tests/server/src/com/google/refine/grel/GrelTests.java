@@ -33,6 +33,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.grel;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Properties;
 
 import org.slf4j.LoggerFactory;
@@ -194,4 +197,22 @@ public class GrelTests extends RefineTest {
             }
     }
 
+    @Test
+    public void testColumnDependencies() throws ParsingException {
+        Assert.assertEquals(MetaParser.parse("grel:value.toUppercase()").getColumnDependencies("a"),
+                Collections.singleton("a"));
+        Assert.assertEquals(MetaParser.parse("grel:cells['b'].value + cells.c.value").getColumnDependencies("a"),
+                new HashSet<>(Arrays.asList("b", "c")));
+        Assert.assertEquals(MetaParser.parse("grel:forEach(value.split(','), v, v.trim())").getColumnDependencies("a"),
+                Collections.singleton("a"));
+        Assert.assertEquals(MetaParser.parse("grel:recon.judgment").getColumnDependencies("a"),
+                Collections.singleton("a"));
+        Assert.assertEquals(MetaParser.parse("grel:rowIndex % 2").getColumnDependencies("a"),
+                Collections.emptySet());
+        Assert.assertNull(MetaParser.parse("grel:row.starred").getColumnDependencies("a"));
+        Assert.assertNull(MetaParser.parse("grel:cells[value].value").getColumnDependencies("a"));
+        Assert.assertNull(MetaParser.parse("grel:value.cross('other', 'key')").getColumnDependencies("a"));
+        Assert.assertNull(MetaParser.parse("grel:now()").getColumnDependencies("a"));
+    }
+
 }
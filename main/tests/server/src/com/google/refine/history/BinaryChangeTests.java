@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.expr.EvalError;
+import com.google.refine.model.Cell;
+import com.google.refine.model.ColumnGroup;
+import com.google.refine.model.Project;
+import com.google.refine.model.Recon;
+import com.google.refine.model.ReconCandidate;
+import com.google.refine.model.ReconStats;
+import com.google.refine.model.changes.CellAtRow;
+import com.google.refine.model.changes.CellChange;
+import com.google.refine.model.changes.ColumnAdditionChange;
+import com.google.refine.model.changes.MassCellChange;
+import com.google.refine.model.changes.ReconChange;
+import com.google.refine.model.recon.ReconConfig;
+import com.google.refine.model.recon.StandardReconConfig;
+import com.google.refine.util.Pool;
+
+public class BinaryChangeTests extends RefineTest {
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        ReconConfig.registerReconConfig(getCoreModule(), "standard-service", StandardReconConfig.class);
+        project = createCSVProject("binary change project",
+                "a,b\n"
+              + "1,x\n"
+              + "2,y\n"
+              + "3,x\n"
+              + "4,y\n"
+              + "5,x\n");
+    }
+
+    /**
+     * Saves the change in its binary form and loads it back, with the pool
+     * going through its text form as it does in change files.
+     */
+    private Change roundTrip(BinaryChange change) throws Exception {
+        Pool pool = new Pool();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        History.writeOneBinaryChange(out, change, pool);
+
+        StringWriter poolWriter = new StringWriter();
+        pool.save(poolWriter);
+        Pool loadedPool = new Pool();
+        loadedPool.load(new StringReader(poolWriter.toString()));
+
+        return History.readOneBinaryChange(new ByteArrayInputStream(out.toByteArray()), loadedPool);
+    }
+
+    private Recon makeRecon() {
+        Recon recon = new Recon(1234L, "http://example.com/entity/", "http://example.com/prop/");
+        ReconCandidate candidate = new ReconCandidate("Q1", "first", new String[] { "Q5" }, 90);
+        recon.addCandidate(candidate);
+        recon.match = candidate;
+        recon.judgment = Recon.Judgment.Matched;
+        return recon;
+    }
+
+    private void assertCellEquals(Cell actual, Cell expected) {
+        if (expected == null) {
+            Assert.assertNull(actual);
+            return;
+        }
+        Assert.assertNotNull(actual);
+        if (expected.value instanceof EvalError) {
+            Assert.assertTrue(actual.value instanceof EvalError);
+            Assert.assertEquals(((EvalError) actual.value).message, ((EvalError) expected.value).message);
+        } else {
+            Assert.assertEquals(actual.value, expected.value);
+        }
+        if (expected.recon == null) {
+            Assert.assertNull(actual.recon);
+        } else {
+            Assert.assertEquals(actual.recon.id, expected.recon.id);
+            Assert.assertEquals(actual.recon.match.id, expected.recon.match.id);
+            Assert.assertEquals(actual.recon.judgment, expected.recon.judgment);
+        }
+    }
+
+    @Test
+    public void testMassCellChange() throws Exception {
+        Recon recon = makeRecon();
+        List<Serializable> values = Arrays.asList(
+                "repeated", "repeated", "", 42, 1234567890123L, 3.5, Double.NaN, true, false,
+                OffsetDateTime.of(2020, 5, 17, 10, 30, 0, 0, ZoneOffset.UTC),
+                new EvalError("oops"), null, "unicode ☃ é");
+        List<CellChange> cellChanges = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            Cell newCell = new Cell(values.get(i), i % 3 == 0 ? recon : null);
+            // row indices out of order, to exercise negative deltas
+            cellChanges.add(new CellChange((i * 7) % values.size(), i % 2, i == 1 ? null : new Cell("old", null), newCell));
+        }
+        cellChanges.add(new CellChange(100, 0, new Cell("old", null), null));
+        MassCellChange change = new MassCellChange(cellChanges, "a", true);
+
+        Change loaded = roundTrip(change);
+
+        Assert.assertTrue(loaded instanceof MassCellChange);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        History.writeOneChange(text, change, new Pool());
+        ByteArrayOutputStream reloadedText = new ByteArrayOutputStream();
+        History.writeOneChange(reloadedText, loaded, new Pool());
+        Assert.assertEquals(reloadedText.toString("UTF-8"), text.toString("UTF-8"));
+    }
+
+    @Test
+    public void testCellValues() throws Exception {
+        Recon recon = makeRecon();
+        Cell[] cells = new Cell[] {
+                new Cell("x", null), new Cell("x", recon), new Cell(7, null), new Cell(7L, recon),
+                new Cell(2.25, null), new Cell(Boolean.TRUE, null), new Cell(new EvalError("bad"), null),
+                new Cell(null, recon), null, new Cell(OffsetDateTime.of(2021, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC), null)
+        };
+        List<CellChange> cellChanges = new ArrayList<>();
+        for (int i = 0; i < cells.length; i++) {
+            cellChanges.add(new CellChange(i, 1, null, cells[i]));
+        }
+
+        Project tall = createCSVProject("tall project", "a,b\n1,1\n2,2\n3,3\n4,4\n5,5\n6,6\n7,7\n8,8\n9,9\n10,10\n");
+        roundTrip(new MassCellChange(cellChanges, null, false)).apply(tall);
+
+        for (int i = 0; i < cells.length; i++) {
+            assertCellEquals(tall.rows.get(i).getCell(1), cells[i]);
+        }
+    }
+
+    @Test
+    public void testStringsAreShared() throws Exception {
+        List<CellChange> cellChanges = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            cellChanges.add(new CellChange(i, 0, new Cell("some repeated value " + (i % 10), null), new Cell("new value", null)));
+        }
+        MassCellChange change = new MassCellChange(cellChanges, "a", false);
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        History.writeOneBinaryChange(binary, change, new Pool());
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        History.writeOneChange(text, change, new Pool());
+
+        Assert.assertTrue(binary.size() * 10 < text.size());
+    }
+
+    @Test
+    public void testReconChange() throws Exception {
+        StandardReconConfig config = new StandardReconConfig("http://example.com/api", null, null,
+                "Q5", "human", true, Collections.emptyList());
+        Recon recon = makeRecon();
+        List<CellChange> cellChanges = new ArrayList<>();
+        cellChanges.add(new CellChange(0, 0, new Cell("1", null), new Cell("1", recon)));
+        cellChanges.add(new CellChange(2, 0, new Cell("3", null), new Cell("3", recon)));
+        ReconChange change = new ReconChange(cellChanges, "a", config, new ReconStats(5, 0, 2));
+
+        ReconChange loaded = (ReconChange) roundTrip(change);
+        loaded.apply(project);
+
+        assertCellEquals(project.rows.get(0).getCell(0), new Cell("1", recon));
+        Assert.assertNull(project.rows.get(1).getCell(0).recon);
+        assertCellEquals(project.rows.get(2).getCell(0), new Cell("3", recon));
+        Assert.assertEquals(((StandardReconConfig) project.columnModel.getColumnByName("a").getReconConfig()).service,
+                "http://example.com/api");
+        Assert.assertEquals(project.columnModel.getColumnByName("a").getReconStats().matchedTopics, 2);
+    }
+
+    @Test
+    public void testColumnAdditionChange() throws Exception {
+        List<CellAtRow> newCells = new ArrayList<>();
+        for (int i = 0; i < project.rows.size(); i++) {
+            newCells.add(new CellAtRow(i, new Cell("c" + (i % 2), null)));
+        }
+        project.columnModel.columnGroups.add(new ColumnGroup(0, 2, 0));
+        ColumnAdditionChange change = new ColumnAdditionChange("c", 1, newCells);
+        change.apply(project);
+
+        ColumnAdditionChange loaded = (ColumnAdditionChange) roundTrip(change);
+
+        loaded.revert(project);
+        Assert.assertEquals(project.columnModel.columns.size(), 2);
+        Assert.assertEquals(project.columnModel.columnGroups.get(0).columnSpan, 2);
+        loaded.apply(project);
+        Assert.assertEquals(project.columnModel.columns.get(1).getName(), "c");
+        Assert.assertEquals(project.rows.get(3).getCellValue(project.columnModel.columns.get(1).getCellIndex()), "c1");
+    }
+
+    @Test
+    public void testSubclassWithoutBinaryLoader() {
+        MassCellChange change = new MassCellChange(Collections.emptyList(), null, false) {
+        };
+        Assert.assertFalse(History.hasBinaryForm(change));
+        Assert.assertTrue(History.hasBinaryForm(new MassCellChange(Collections.emptyList(), null, false)));
+    }
+}
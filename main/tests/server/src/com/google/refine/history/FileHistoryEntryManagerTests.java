@@ -2,16 +2,22 @@ package com.google.refine.history;
 
 import static org.mockito.Mockito.mock;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.Properties;
+import java.util.zip.ZipFile;
 
+import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.refine.RefineTest;
 import com.google.refine.io.FileHistoryEntryManager;
+import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
+import com.google.refine.model.changes.CellChange;
+import com.google.refine.model.changes.MassCellChange;
 import com.google.refine.operations.OperationRegistry;
 import com.google.refine.operations.column.ColumnAdditionOperation;
 import com.google.refine.util.TestUtils;
@@ -36,4 +42,31 @@ public class FileHistoryEntryManagerTests extends RefineTest {
 		sut.save(historyEntry, writer, options);
 		TestUtils.equalAsJson(HistoryEntryTests.fullJson, writer.toString());
 	}
+
+	@Test
+	public void testSaveAndLoadBinaryChange() throws Exception {
+		File file = File.createTempFile("openrefine-change", ".zip");
+		file.delete();
+		FileHistoryEntryManager manager = new FileHistoryEntryManager() {
+			@Override
+			protected File getChangeFile(HistoryEntry historyEntry) {
+				return file;
+			}
+		};
+		try {
+			HistoryEntry historyEntry = HistoryEntry.load(project, HistoryEntryTests.fullJson);
+			historyEntry.setChange(new MassCellChange(new CellChange(3, 0, null, new Cell("value", null)), "a", false));
+			manager.saveChange(historyEntry);
+			try (ZipFile zipFile = new ZipFile(file)) {
+				Assert.assertNotNull(zipFile.getEntry("change.bin"));
+				Assert.assertNull(zipFile.getEntry("change.txt"));
+			}
+
+			historyEntry.setChange(null);
+			manager.loadChange(historyEntry);
+			Assert.assertTrue(historyEntry.getChange() instanceof MassCellChange);
+		} finally {
+			file.delete();
+		}
+	}
 }
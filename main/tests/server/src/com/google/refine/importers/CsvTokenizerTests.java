@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.importers;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.google.refine.importers.SeparatorBasedImporter.ChunkedTableDataReader;
+
+import au.com.bytecode.opencsv.CSVParser;
+
+public class CsvTokenizerTests {
+
+    @DataProvider(name = "configurations")
+    public Object[][] configurations() {
+        return new Object[][] {
+                { ",", false, false },
+                { "\t", false, false },
+                { ",", true, false },
+                { ",", false, true },
+                { "::", false, false },
+        };
+    }
+
+    @Test(dataProvider = "configurations")
+    public void testSameCellsAsCSVParser(String separator, boolean strictQuotes, boolean ignoreQuotations) throws IOException {
+        Random random = new Random(42);
+        String alphabet = "ab \"\n\r" + separator;
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = sb.toString();
+
+            List<List<Object>> expected = readLineByLine(text, separator, strictQuotes, ignoreQuotations);
+            char[] buffer = text.toCharArray();
+            CsvTokenizer tokenizer = new CsvTokenizer(separator, '"', strictQuotes, ignoreQuotations);
+            assertEquals(tokenizer.tokenize(buffer, 0, buffer.length, true), expected, text);
+
+            ChunkedTableDataReader reader = new ChunkedTableDataReader(
+                    new StringReader(text), null, separator, '"', strictQuotes, ignoreQuotations, 3, 4);
+            try {
+                assertEquals(readAll(reader), expected, text);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    @Test
+    public void testChunksWithMultiLineFields() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append(i).append(",\"line\n").append(i % 7 == 0 ? "\"\"" : "").append("\n\",x\r\n");
+        }
+        String text = sb.toString();
+        List<List<Object>> expected = readLineByLine(text, ",", false, false);
+        for (int chunkSize : new int[] { 1, 16, 100, 1 << 20 }) {
+            ChunkedTableDataReader reader = new ChunkedTableDataReader(
+                    new StringReader(text), null, ",", '"', false, false, 4, chunkSize);
+            try {
+                assertEquals(readAll(reader), expected);
+            } finally {
+                reader.close();
+            }
+        }
+        assertEquals(expected.size(), 500);
+    }
+
+    protected List<List<Object>> readLineByLine(String text, String separator,
+            boolean strictQuotes, boolean ignoreQuotations) throws IOException {
+        CSVParser parser = new CSVParser(separator, '"', (char) 0, strictQuotes,
+                CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE, ignoreQuotations);
+        LineNumberReader lnReader = new LineNumberReader(new StringReader(text));
+        List<List<Object>> rows = new ArrayList<>();
+        String line;
+        while ((line = lnReader.readLine()) != null) {
+            rows.add(SeparatorBasedImporter.getCells(line, parser, lnReader));
+        }
+        return rows;
+    }
+
+    protected List<List<Object>> readAll(ChunkedTableDataReader reader) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        List<Object> row;
+        while ((row = reader.getNextRowOfCells()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
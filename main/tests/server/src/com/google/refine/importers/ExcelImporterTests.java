@@ -51,11 +51,14 @@ import java.util.Calendar;
 import java.util.Date;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -335,6 +338,85 @@ public class ExcelImporterTests extends ImporterTest {
         verify(options, times(SHEETS)).get("storeBlankCellsAsNulls");
     }
 
+    @Test
+    public void readSparseXlsx() throws IOException {
+        ArrayNode sheets = ParsingUtilities.mapper.createArrayNode();
+        sheets.add(ParsingUtilities.mapper.readTree("{name: \"file-source#Sparse\", fileNameAndSheetIndex: \"file-source#0\", rows: 4, selected: true}"));
+        whenGetArrayOption("sheets", options, sheets);
+
+        whenGetIntegerOption("ignoreLines", options, 0);
+        whenGetIntegerOption("headerLines", options, 0);
+        whenGetIntegerOption("skipDataLines", options, 0);
+        whenGetIntegerOption("limit", options, -1);
+        whenGetBooleanOption("storeBlankCellsAsNulls", options, true);
+
+        InputStream stream = new FileInputStream(createSparseSpreadsheet());
+        parseOneFile(SUT, stream);
+
+        // rows and cells missing from the sheet are read as blank
+        Assert.assertEquals(project.rows.size(), 4);
+        Assert.assertEquals(project.rows.get(0).getCellValue(0), "a");
+        Assert.assertNull(project.rows.get(0).getCellValue(1));
+        Assert.assertEquals(((Number) project.rows.get(0).getCellValue(2)).doubleValue(), 1.5, EPSILON);
+        Assert.assertEquals(project.rows.get(1).cells.size(), 0);
+        Assert.assertEquals(project.rows.get(2).cells.size(), 0);
+        Assert.assertEquals(project.rows.get(3).cells.size(), 4);
+        Assert.assertNull(project.rows.get(3).getCellValue(0));
+        Assert.assertTrue((Boolean) project.rows.get(3).getCellValue(1));
+        Assert.assertEquals(project.rows.get(3).getCellValue(2), "b");
+        Assert.assertEquals(((Number) project.rows.get(3).getCellValue(3)).doubleValue(), 2.0, EPSILON);
+    }
+
+    @Test
+    public void readXlsxWithLimit() throws IOException {
+        ArrayNode sheets = ParsingUtilities.mapper.createArrayNode();
+        sheets.add(ParsingUtilities.mapper.readTree("{name: \"file-source#Test Sheet 0\", fileNameAndSheetIndex: \"file-source#0\", rows: 31, selected: true}"));
+        whenGetArrayOption("sheets", options, sheets);
+
+        whenGetIntegerOption("ignoreLines", options, 0);
+        whenGetIntegerOption("headerLines", options, 0);
+        whenGetIntegerOption("skipDataLines", options, 0);
+        whenGetIntegerOption("limit", options, 2);
+        whenGetBooleanOption("storeBlankCellsAsNulls", options, true);
+
+        InputStream stream = new FileInputStream(xlsxFile);
+        parseOneFile(SUT, stream);
+
+        Assert.assertEquals(project.rows.size(), 2);
+        Assert.assertEquals(((Number) project.rows.get(1).getCellValue(0)).doubleValue(), 1.1, EPSILON);
+    }
+
+    @Test
+    public void countXlsxRows() throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(createSparseSpreadsheet(), PackageAccess.READ)) {
+            InputStream sheet = new XSSFReader(pkg).getSheetsData().next();
+            Assert.assertEquals(XlsxSheetDataReader.countRows(sheet), 4);
+            sheet.close();
+            pkg.revert();
+        }
+    }
+
+    private static File createSparseSpreadsheet() throws IOException {
+        XSSFWorkbook wb = new XSSFWorkbook();
+        Sheet sheet = wb.createSheet("Sparse");
+        Row r = sheet.createRow(0);
+        r.createCell(0).setCellValue("a");
+        r.createCell(2).setCellValue(1.5);
+        r = sheet.createRow(3);
+        r.createCell(1).setCellValue(true);
+        r.createCell(2).setCellFormula("\"b\"");
+        r.createCell(3).setCellFormula("1+1");
+        wb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+
+        File file = File.createTempFile("openrefine-importer-test", ".xlsx");
+        file.deleteOnExit();
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            wb.write(outputStream);
+        }
+        wb.close();
+        return file;
+    }
+
     private static File createSpreadsheet(boolean xml) {
 
         final Workbook wb = xml ? new XSSFWorkbook() : new HSSFWorkbook();
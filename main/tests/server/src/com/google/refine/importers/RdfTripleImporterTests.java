@@ -37,6 +37,8 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -92,6 +94,8 @@ public class RdfTripleImporterTests extends ImporterTest {
             "<http://rdf.freebase.com/ns/en.bob_dylan> <http://rdf.freebase.com/ns/music.artist.album> <http://rdf.freebase.com/ns/en.under_the_red_sky>.\n" +
             "<http://rdf.freebase.com/ns/en.bob_dylan> <http://rdf.freebase.com/ns/music.artist.album> <http://rdf.freebase.com/ns/en.bringing_it_all_back_home>.";
         InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
+        // read into a model, whose order of statements differs from the file
+        whenGetBooleanOption("streaming", options, false);
         parseOneFile(SUT, input);
 
         //columns
@@ -128,6 +132,7 @@ public class RdfTripleImporterTests extends ImporterTest {
             "<http://rdf.freebase.com/ns/en.bob_dylan> <http://rdf.freebase.com/ns/music.artist.genre> <http://rdf.freebase.com/ns/en.folk_rock>.\n" +
             "<http://rdf.freebase.com/ns/en.bob_dylan> <http://rdf.freebase.com/ns/music.artist.album> <http://rdf.freebase.com/ns/en.bringing_it_all_back_home>.";
         InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
+        whenGetBooleanOption("streaming", options, false);
         parseOneFile(SUT, input);
  
         //columns
@@ -191,6 +196,7 @@ public class RdfTripleImporterTests extends ImporterTest {
 
         InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
         SUT = new RdfTripleImporter(RdfTripleImporter.Mode.RDFXML);
+        whenGetBooleanOption("streaming", options, false);
         parseOneFile(SUT, input);
 
         Assert.assertEquals(project.columnModel.columns.size(), 3);
@@ -219,6 +225,7 @@ public class RdfTripleImporterTests extends ImporterTest {
         InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
         
         SUT = new RdfTripleImporter(RdfTripleImporter.Mode.N3);
+        whenGetBooleanOption("streaming", options, false);
         parseOneFile(SUT, input);
 
         Assert.assertEquals(project.columnModel.columns.size(), 4);
@@ -246,6 +253,7 @@ public class RdfTripleImporterTests extends ImporterTest {
         InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
         
         SUT = new RdfTripleImporter(RdfTripleImporter.Mode.TTL);
+        whenGetBooleanOption("streaming", options, false);
         parseOneFile(SUT, input);
 
         Assert.assertEquals(project.columnModel.columns.size(), 4);
@@ -270,6 +278,7 @@ public class RdfTripleImporterTests extends ImporterTest {
         InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
         
         SUT = new RdfTripleImporter(RdfTripleImporter.Mode.NT);
+        whenGetBooleanOption("streaming", options, false);
         parseOneFile(SUT, input);
 
         Assert.assertEquals(project.columnModel.columns.size(), 4);
@@ -296,6 +305,7 @@ public class RdfTripleImporterTests extends ImporterTest {
         InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
 
         SUT = new RdfTripleImporter(RdfTripleImporter.Mode.TTL);
+        whenGetBooleanOption("streaming", options, false);
         parseOneFile(SUT, input);
 
         String[] columns = {"subject",
@@ -341,6 +351,7 @@ public class RdfTripleImporterTests extends ImporterTest {
         InputStream input = new ByteArrayInputStream(sampleJsonld.getBytes("UTF-8"));
         
         SUT = new RdfTripleImporter(RdfTripleImporter.Mode.JSONLD);
+        whenGetBooleanOption("streaming", options, false);
         parseOneFile(SUT, input);
 
         Assert.assertEquals(project.columnModel.columns.size(), 4);
@@ -355,4 +366,100 @@ public class RdfTripleImporterTests extends ImporterTest {
         Assert.assertEquals(project.rows.get(0).cells.get(2).value, "Fred");
         Assert.assertEquals(project.rows.get(0).cells.get(3).value, "http://meetings.example.com/cal#m1");
     } 
+
+    @Test
+    public void canStreamUnsortedNTriples() throws UnsupportedEncodingException {
+        String sampleRdf = "<http://www.example.org/people#fred> <http://www.example.org/personal_details#GivenName> \"Fred\" . \n" +
+                           "<http://www.example.org/people#alice> <http://www.example.org/personal_details#GivenName> \"Alice\" . \n" +
+                           "<http://www.example.org/people#fred> <http://www.example.org/personal_details#hasEmail> <mailto:fred@example.com> . \n" +
+                           "<http://www.example.org/people#fred> <http://www.example.org/personal_details#hasEmail> <mailto:fred@example.org> . \n" +
+                           "<http://www.example.org/people#fred> <http://www.example.org/personal_details#hasEmail> <mailto:fred@example.org> . ";
+
+        InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
+        parseOneFile(SUT, input);
+
+        // columns and records follow the order of the file, repeated triples are dropped
+        Assert.assertEquals(project.columnModel.columns.size(), 3);
+        Assert.assertEquals(project.columnModel.columns.get(1).getName(), "http://www.example.org/personal_details#GivenName");
+        Assert.assertEquals(project.columnModel.columns.get(2).getName(), "http://www.example.org/personal_details#hasEmail");
+        Assert.assertEquals(project.rows.size(), 3);
+        Assert.assertEquals(project.rows.get(0).getCellValue(0), "http://www.example.org/people#fred");
+        Assert.assertEquals(project.rows.get(0).getCellValue(1), "Fred");
+        Assert.assertEquals(project.rows.get(0).getCellValue(2), "mailto:fred@example.com");
+        Assert.assertNull(project.rows.get(1).getCellValue(0));
+        Assert.assertEquals(project.rows.get(1).getCellValue(2), "mailto:fred@example.org");
+        Assert.assertEquals(project.rows.get(2).getCellValue(0), "http://www.example.org/people#alice");
+        Assert.assertEquals(project.rows.get(2).getCellValue(1), "Alice");
+        Assert.assertEquals(project.recordModel.getRecordCount(), 2);
+    }
+
+    @Test
+    public void streamingStopsAfterLimitSubjects() throws UnsupportedEncodingException {
+        String sampleRdf = "<http://example.org/a> <http://example.org/p> \"1\" . \n" +
+                           "<http://example.org/b> <http://example.org/p> \"2\" . \n" +
+                           "<http://example.org/a> <http://example.org/q> \"3\" . \n" +
+                           "<http://example.org/c> <http://example.org/p> \"4\" . \n" +
+                           "this is not N-Triples";
+
+        InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
+        List<Exception> exceptions = new ArrayList<Exception>();
+        SUT.parseOneFile(project, metadata, job, "file-source", input, 2, options, exceptions);
+
+        Assert.assertEquals(exceptions.size(), 0);
+        Assert.assertEquals(project.rows.size(), 2);
+        Assert.assertEquals(project.rows.get(0).getCellValue(0), "http://example.org/a");
+        Assert.assertEquals(project.rows.get(1).getCellValue(0), "http://example.org/b");
+    }
+
+    @Test
+    public void canStreamRdfXml() throws UnsupportedEncodingException {
+        String sampleRdf = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n"
+                + "         xmlns:dc=\"http://purl.org/dc/elements/1.1/\">\n"
+                + "  <rdf:Description rdf:about=\"http://example.org/buecher/baum\" xml:lang=\"de\">\n"
+                + "    <dc:title>Der Baum</dc:title>\n"
+                + "    <dc:description>Das Buch ist außergewöhnlich</dc:description>\n"
+                + "    <dc:title xml:lang=\"en\">The Tree</dc:title>\n"
+                + "  </rdf:Description>\n"
+                + "</rdf:RDF>\n";
+
+        InputStream input = new ByteArrayInputStream(sampleRdf.getBytes("UTF-8"));
+        SUT = new RdfTripleImporter(RdfTripleImporter.Mode.RDFXML);
+        parseOneFile(SUT, input);
+
+        Assert.assertEquals(project.columnModel.columns.size(), 3);
+        Assert.assertEquals(project.columnModel.columns.get(1).getName(), "http://purl.org/dc/elements/1.1/title");
+        Assert.assertEquals(project.columnModel.columns.get(2).getName(), "http://purl.org/dc/elements/1.1/description");
+        Assert.assertEquals(project.rows.size(), 2);
+        Assert.assertEquals(project.rows.get(0).getCellValue(0), "http://example.org/buecher/baum");
+        Assert.assertEquals(project.rows.get(0).getCellValue(1), "Der Baum@de");
+        Assert.assertEquals(project.rows.get(0).getCellValue(2), "Das Buch ist außergewöhnlich@de");
+        Assert.assertEquals(project.rows.get(1).getCellValue(1), "The Tree@en");
+    }
+
+    static final String LITERAL_AND_RESOURCE =
+            "<http://example.org/a> <http://example.org/p> <http://example.org/b> . \n" +
+            "<http://example.org/a> <http://example.org/p> \"http://example.org/b\" . \n" +
+            "<http://example.org/a> <http://example.org/p> <http://example.org/b> . ";
+
+    @Test
+    public void keepsLiteralAndResourceWithSameText() throws UnsupportedEncodingException {
+        InputStream input = new ByteArrayInputStream(LITERAL_AND_RESOURCE.getBytes("UTF-8"));
+        whenGetBooleanOption("streaming", options, false);
+        parseOneFile(SUT, input);
+
+        Assert.assertEquals(project.rows.size(), 2);
+        Assert.assertEquals(project.rows.get(0).getCellValue(1), "http://example.org/b");
+        Assert.assertEquals(project.rows.get(1).getCellValue(1), "http://example.org/b");
+    }
+
+    @Test
+    public void streamingSkipsRepeatedTriplesOnly() throws UnsupportedEncodingException {
+        InputStream input = new ByteArrayInputStream(LITERAL_AND_RESOURCE.getBytes("UTF-8"));
+        parseOneFile(SUT, input);
+
+        Assert.assertEquals(project.rows.size(), 2);
+        Assert.assertEquals(project.rows.get(0).getCellValue(1), "http://example.org/b");
+        Assert.assertEquals(project.rows.get(1).getCellValue(1), "http://example.org/b");
+    }
 }
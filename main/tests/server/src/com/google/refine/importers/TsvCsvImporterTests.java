@@ -33,7 +33,13 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.importers;
 
+import java.io.File;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
 
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -43,6 +49,12 @@ import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.refine.ProjectManager;
+import com.google.refine.ProjectMetadata;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.util.JSONUtilities;
 import com.google.refine.util.ParsingUtilities;
 
 public class TsvCsvImporterTests extends ImporterTest {
@@ -644,6 +656,51 @@ public class TsvCsvImporterTests extends ImporterTest {
         };
     }
     
+    @Test
+    public void readMultipleFilesInParallel() throws Exception {
+        List<ObjectNode> fileRecords = new ArrayList<>();
+        for (int f = 0; f < 6; f++) {
+            StringBuilder sb = new StringBuilder(f % 2 == 0 ? "a,b\n" : "b,c,a\n");
+            for (int r = 0; r < 50; r++) {
+                sb.append(f).append(',').append(r).append(f % 2 == 0 ? "\n" : ",x\n");
+            }
+            File file = new File(job.getRawDataDir(), "file" + f + ".csv");
+            FileUtils.writeStringToFile(file, sb.toString(), StandardCharsets.UTF_8);
+            ObjectNode fileRecord = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(fileRecord, "location", file.getName());
+            JSONUtilities.safePut(fileRecord, "fileName", file.getName());
+            fileRecords.add(fileRecord);
+        }
+        ObjectNode realOptions = ParsingUtilities.evaluateJsonStringToObjectNode(
+                "{\"separator\":\",\",\"headerLines\":1,\"includeFileSources\":true}");
+
+        List<Exception> exceptions = new ArrayList<>();
+        SUT.parse(project, metadata, job, fileRecords, "text/line-based/*sv", 220, realOptions, exceptions);
+        Assert.assertEquals(exceptions.size(), 0);
+
+        Project parallelProject = new Project();
+        ProjectMetadata parallelMetadata = new ProjectMetadata();
+        try {
+            ProjectManager.singleton.getPreferenceStore().put(ImportingParserBase.PARALLEL_FILES_PREF, 3);
+            SUT.parse(parallelProject, parallelMetadata, job, fileRecords, "text/line-based/*sv", 220, realOptions, exceptions);
+        } finally {
+            ProjectManager.singleton.getPreferenceStore().put(ImportingParserBase.PARALLEL_FILES_PREF, null);
+        }
+        Assert.assertEquals(exceptions.size(), 0);
+
+        Assert.assertEquals(parallelProject.columnModel.getColumnNames(), project.columnModel.getColumnNames());
+        Assert.assertEquals(parallelProject.rows.size(), project.rows.size());
+        Assert.assertEquals(parallelProject.rows.size(), 220);
+        for (int r = 0; r < project.rows.size(); r++) {
+            for (Column column : project.columnModel.columns) {
+                Column parallelColumn = parallelProject.columnModel.getColumnByName(column.getName());
+                Assert.assertEquals(parallelProject.rows.get(r).getCellValue(parallelColumn.getCellIndex()),
+                        project.rows.get(r).getCellValue(column.getCellIndex()));
+            }
+        }
+        Assert.assertEquals(parallelMetadata.getImportOptionMetadata().size(), metadata.getImportOptionMetadata().size());
+    }
+
     protected void prepareOptions(
             String sep, int limit, int skip, int ignoreLines,
             int headerLines, boolean guessValueType, boolean ignoreQuotes) {
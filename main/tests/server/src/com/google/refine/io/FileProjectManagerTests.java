@@ -28,9 +28,21 @@ package com.google.refine.io;
 
 import static org.mockito.Mockito.mock;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+import org.testng.SkipException;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -92,4 +104,57 @@ public class FileProjectManagerTests  {
         manager = new FileProjectManagerStub(workspaceDir);
         assertEquals(manager.getPreferenceStore().get("testPref"), "Refiné");
         }
+
+    @Test
+    public void importParallelGzipArchive() throws IOException {
+        FileProjectManager manager = new FileProjectManagerStub(workspaceDir);
+        byte[] content = "project data".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tos = new TarArchiveOutputStream(new ParallelGZIPOutputStream(archive, 2))) {
+            TarArchiveEntry entry = new TarArchiveEntry("data.txt");
+            entry.setSize(content.length);
+            tos.putArchiveEntry(entry);
+            tos.write(content);
+            tos.closeArchiveEntry();
+        }
+
+        manager.importProject(1234L, new ByteArrayInputStream(archive.toByteArray()), true);
+
+        File imported = new File(manager.getProjectDir(1234L), "data.txt");
+        assertEquals(Files.readAllBytes(imported.toPath()), content);
+    }
+
+    @Test
+    public void exportSkipsRowBlockFile() throws IOException {
+        FileProjectManager manager = new FileProjectManagerStub(workspaceDir);
+        File dir = manager.getProjectDir(5555L);
+        Files.write(new File(dir, "data.zip").toPath(), new byte[] { 1 });
+        Files.write(new File(dir, ProjectUtilities.ROW_BLOCK_FILE).toPath(), new byte[] { 2 });
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tos = new TarArchiveOutputStream(archive)) {
+            manager.exportProject(5555L, tos);
+        }
+
+        try (TarArchiveInputStream tis = new TarArchiveInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            assertEquals(tis.getNextTarEntry().getName(), "data.zip");
+            assertNull(tis.getNextTarEntry());
+        }
+    }
+
+    @Test
+    public void importZstdArchiveWithoutLibrary() {
+        if (ZstdUtils.isZstdCompressionAvailable()) {
+            throw new SkipException("zstd-jni is available");
+        }
+        FileProjectManager manager = new FileProjectManagerStub(workspaceDir);
+        byte[] archive = { (byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd, 0, 0 };
+        try {
+            manager.importProject(1234L, new ByteArrayInputStream(archive), true);
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("zstd-jni"));
+            return;
+        }
+        throw new AssertionError("importing a Zstandard archive should fail without zstd-jni");
+    }
 }
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.io;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ParallelGZIPOutputStreamTests {
+
+    @DataProvider(name = "lengths")
+    public Object[][] lengths() {
+        return new Object[][] { { 0 }, { 1 }, { 999 }, { 1000 }, { 1001 }, { 123456 } };
+    }
+
+    @Test(dataProvider = "lengths")
+    public void readableByGZIPInputStream(int length) throws IOException {
+        byte[] data = createData(length);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(compressed, 3, 1000)) {
+            Random random = new Random(length);
+            int offset = 0;
+            while (offset < data.length) {
+                if (random.nextBoolean()) {
+                    out.write(data[offset++]);
+                } else {
+                    int n = Math.min(data.length - offset, random.nextInt(3000));
+                    out.write(data, offset, n);
+                    offset += n;
+                }
+                if (random.nextInt(10) == 0) {
+                    out.flush();
+                }
+            }
+        }
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(IOUtils.toByteArray(in), data);
+        }
+    }
+
+    @Test
+    public void compressesRepeatedContent() throws IOException {
+        byte[] data = new byte[1 << 20];
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(compressed, 2)) {
+            out.write(data);
+        }
+        assertTrue(compressed.size() < data.length / 100);
+    }
+
+    private byte[] createData(int length) {
+        // a mix of random and repetitive content, so that back-references cross blocks
+        Random random = new Random(42);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = i % 5000 < 2500 ? (byte) random.nextInt(256) : (byte) ('a' + (i % 7));
+        }
+        return data;
+    }
+}
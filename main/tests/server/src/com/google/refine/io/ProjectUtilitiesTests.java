@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.io;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.zip.ZipFile;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.ProjectMetadata;
+import com.google.refine.RefineTest;
+import com.google.refine.expr.EvalError;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Recon;
+import com.google.refine.model.Row;
+import com.google.refine.model.lazy.LazyRowList;
+import com.google.refine.util.Pool;
+import com.google.refine.util.TestUtils;
+
+public class ProjectUtilitiesTests extends RefineTest {
+
+    Project project;
+    File dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        project = createProjectWithColumns("snapshot", "a", "b", "c");
+        OffsetDateTime date = OffsetDateTime.of(2021, 3, 4, 5, 6, 7, 8000, ZoneOffset.UTC);
+        Recon recon = Recon.makeWikidataRecon(1234L);
+        Object[][] values = {
+                { "foo", 1, 2L },
+                { "foo", 3.5, true },
+                { null, date, new EvalError("oops") },
+                { "bar", Double.NaN, "foo" },
+        };
+        for (Object[] v : values) {
+            Row row = new Row(3);
+            for (int c = 0; c < v.length; c++) {
+                row.setCell(c, v[c] == null ? null : new Cell((Serializable) v[c], c == 0 ? recon : null));
+            }
+            project.rows.add(row);
+        }
+        project.rows.get(1).starred = true;
+        project.rows.get(2).flagged = true;
+        project.rows.get(3).setCell(4, new Cell(null, null));
+        dir = TestUtils.createTempDirectory("openrefine-test-project-dir");
+        ProjectManager.singleton.getPreferenceStore().put("storage.binaryRows", true);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ProjectManager.singleton.getPreferenceStore().put("storage.binaryRows", null);
+        ProjectManager.singleton.getPreferenceStore().put("storage.lazyLoading", null);
+    }
+
+    Project saveAndLoad() throws Exception {
+        File file = new File(dir, "data.zip");
+        ProjectUtilities.saveToFile(project, file);
+        return ProjectUtilities.loadFromFile(file, project.id);
+    }
+
+    @Test
+    public void testBinaryRows() throws Exception {
+        Project loaded = saveAndLoad();
+        try (ZipFile zipFile = new ZipFile(new File(dir, "data.zip"))) {
+            assertNotNull(zipFile.getEntry(ProjectUtilities.ROW_FILE));
+        }
+
+        assertEquals(loaded.rows.size(), 4);
+        assertEquals(loaded.columnModel.getColumnNames(), Arrays.asList("a", "b", "c"));
+        for (int r = 0; r < 4; r++) {
+            Row row = project.rows.get(r);
+            Row other = loaded.rows.get(r);
+            assertEquals(other.flagged, row.flagged);
+            assertEquals(other.starred, row.starred);
+            assertEquals(other.cells.size(), row.cells.size());
+            for (int c = 0; c < row.cells.size(); c++) {
+                Cell cell = row.getCell(c);
+                Cell otherCell = other.getCell(c);
+                if (cell == null) {
+                    assertNull(otherCell);
+                } else if (cell.value instanceof EvalError) {
+                    assertEquals(((EvalError) otherCell.value).message, ((EvalError) cell.value).message);
+                } else {
+                    assertEquals(otherCell.value, cell.value);
+                }
+                if (cell != null && cell.recon != null) {
+                    assertEquals(otherCell.recon.id, cell.recon.id);
+                    assertEquals(otherCell.recon.judgmentHistoryEntry, 1234L);
+                }
+            }
+        }
+        // repeated strings are shared
+        assertTrue(loaded.rows.get(0).getCellValue(0) == loaded.rows.get(3).getCellValue(2));
+    }
+
+    @Test
+    public void testTextRowsStillReadable() throws Exception {
+        // the default, so that older versions can read the project
+        ProjectManager.singleton.getPreferenceStore().put("storage.binaryRows", null);
+        Project loaded = saveAndLoad();
+        try (ZipFile zipFile = new ZipFile(new File(dir, "data.zip"))) {
+            assertNull(zipFile.getEntry(ProjectUtilities.ROW_FILE));
+        }
+
+        assertEquals(loaded.rows.size(), 4);
+        assertEquals(loaded.rows.get(0).getCellValue(0), "foo");
+        assertEquals(loaded.rows.get(1).getCellValue(1), 3.5);
+        assertTrue(loaded.rows.get(1).starred);
+        assertEquals(loaded.rows.get(0).getCell(0).recon.id, project.rows.get(0).getCell(0).recon.id);
+    }
+
+    @Test
+    public void testLazyLoading() throws Exception {
+        for (int i = 0; i < 2500; i++) {
+            Row row = new Row(1);
+            row.setCell(0, new Cell("row " + i, null));
+            project.rows.add(row);
+        }
+        File file = new File(dir, "data.zip");
+        ProjectUtilities.saveToFile(project, file);
+        ProjectManager.singleton.getPreferenceStore().put("storage.lazyLoading", true);
+
+        Project loaded = ProjectUtilities.loadFromFile(file, project.id);
+        assertTrue(loaded.rows instanceof LazyRowList);
+        assertTrue(new File(dir, ProjectUtilities.ROW_BLOCK_FILE).exists());
+        LazyRowList lazyRows = (LazyRowList) loaded.rows;
+        assertEquals(loaded.rows.size(), 2504);
+        assertEquals(loaded.rows.get(2503).getCellValue(0), "row 2499");
+        assertEquals(loaded.rows.get(0).getCellValue(1), 1);
+        assertTrue(loaded.rows.get(1).starred);
+        assertEquals(loaded.rows.get(0).getCell(0).recon.id, project.rows.get(0).getCell(0).recon.id);
+        assertFalse(lazyRows.isMaterialized());
+
+        // changes are applied to materialized rows
+        loaded.materializeRows();
+        assertTrue(lazyRows.isMaterialized());
+        Row row = loaded.rows.get(2000);
+        row.setCell(0, new Cell("changed", null));
+        assertTrue(loaded.rows.get(2000) == row);
+        assertEquals(loaded.rows.get(2000).getCellValue(0), "changed");
+        loaded.dispose();
+
+        // the block file is rebuilt when the archive changes
+        long modified = file.lastModified();
+        project.rows.get(0).setCell(0, new Cell("new", null));
+        ProjectUtilities.saveToFile(project, file);
+        // file systems may only record modification times to the second
+        assertTrue(file.setLastModified(modified + 1000));
+        loaded = ProjectUtilities.loadFromFile(file, project.id);
+        assertEquals(loaded.rows.get(0).getCellValue(0), "new");
+        loaded.dispose();
+    }
+
+    @Test
+    public void testLazyLoadingDoesNotReadRows() throws Exception {
+        for (int i = 0; i < 2500; i++) {
+            Row row = new Row(2);
+            row.setCell(0, new Cell(i % 3 == 0 ? "record " + i : null, null));
+            row.setCell(1, new Cell(i, null));
+            project.rows.add(row);
+        }
+        File file = new File(dir, "data.zip");
+        ProjectUtilities.saveToFile(project, file);
+        ProjectManager.singleton.getPreferenceStore().put("storage.lazyLoading", true);
+
+        Project loaded = ProjectUtilities.loadFromFile(file, project.id);
+        LazyRowList lazyRows = (LazyRowList) loaded.rows;
+        assertEquals(lazyRows.getCachedBlockCount(), 0);
+
+        // the record model is computed when first needed, still without materializing
+        assertTrue(loaded.recordModel.hasRecords());
+        assertEquals(loaded.recordModel.getRecordCount(), 837);
+        assertTrue(lazyRows.getCachedBlockCount() > 0);
+        assertFalse(lazyRows.isMaterialized());
+        loaded.dispose();
+    }
+
+    @Test
+    public void testSnapshotIgnoresLaterChanges() throws Exception {
+        Pool pool = new Pool();
+        Project.Snapshot snapshot = project.takeSnapshot(pool, ProjectUtilities.ROW_FILE, true);
+        project.rows.get(0).setCell(0, new Cell("changed", null));
+        project.rows.get(1).starred = false;
+        project.rows.add(new Row(3));
+        assertFalse(snapshot.time.isAfter(LocalDateTime.now()));
+
+        File file = new File(dir, "data.zip");
+        ProjectUtilities.saveSnapshotToFile(snapshot, pool, file);
+        Project loaded = ProjectUtilities.loadFromFile(file, project.id);
+        assertEquals(loaded.rows.size(), 4);
+        assertEquals(loaded.rows.get(0).getCellValue(0), "foo");
+        assertTrue(loaded.rows.get(1).starred);
+        assertEquals(loaded.rows.get(0).getCell(0).recon.id, project.rows.get(3).getCell(0).recon.id);
+    }
+
+    @Test
+    public void testStaleSnapshotIsNotWritten() throws Exception {
+        FileProjectManager manager = new FileProjectManager(dir) {
+        };
+        ProjectManager.singleton = manager;
+        manager.registerProject(project, new ProjectMetadata());
+
+        Pool pool = new Pool();
+        Project.Snapshot snapshot = project.takeSnapshot(pool, ProjectUtilities.ROW_FILE, true);
+        // a complete save runs while the snapshot waits to be written
+        project.rows.get(0).setCell(0, new Cell("newer", null));
+        ProjectUtilities.save(project);
+
+        assertFalse(ProjectUtilities.saveSnapshot(project, snapshot, pool));
+        Project loaded = ProjectUtilities.load(manager.getProjectDir(project.id), project.id);
+        assertEquals(loaded.rows.get(0).getCellValue(0), "newer");
+    }
+
+    @Test
+    public void testSnapshotOfDeletedProjectIsNotWritten() throws Exception {
+        FileProjectManager manager = new FileProjectManager(dir) {
+        };
+        ProjectManager.singleton = manager;
+        manager.registerProject(project, new ProjectMetadata());
+
+        Pool pool = new Pool();
+        Project.Snapshot snapshot = project.takeSnapshot(pool, ProjectUtilities.ROW_FILE, true);
+        // the project is deleted while the snapshot waits to be written
+        manager.deleteProject(project.id);
+
+        assertFalse(ProjectUtilities.saveSnapshot(project, snapshot, pool));
+        assertFalse(new File(dir, project.id + FileProjectManager.PROJECT_DIR_SUFFIX).exists());
+    }
+}
@@ -26,6 +26,9 @@
  ******************************************************************************/
 package com.google.refine.model;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
 import org.testng.annotations.Test;
 
 import com.google.refine.RefineTest;
@@ -40,4 +43,129 @@ public class RecordModelTests extends RefineTest {
                 );
         TestUtils.isSerializedTo(proj.recordModel, "{\"hasRecords\":true}");
     }
+
+    @Test
+    public void testRecords() {
+        Project proj = createCSVProject("key,val\n"
+                + "a,1\n"
+                + ",2\n"
+                + ",\n"
+                + "b,3\n"
+                + ",4");
+        RecordModel model = proj.recordModel;
+        assertEquals(model.getRecordCount(), 3);
+        assertEquals(model.getRecord(0).toRowIndex, 2);
+        assertEquals(model.getRecord(2).fromRowIndex, 3);
+        assertEquals(model.getRecordOfRow(4).recordIndex, 2);
+        assertEquals(model.getRowDependency(1).recordIndex, -1);
+        assertEquals(model.getRowDependency(1).cellDependencies[1].rowIndex, 0);
+        assertEquals(model.getRowDependency(1).cellDependencies[1].cellIndex, 0);
+        assertEquals(model.getRowDependency(3).recordIndex, 2);
+        assertNull(model.getRecord(3));
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        Project proj = createCSVProject("key,val\n"
+                + "a,1\n"
+                + ",2\n"
+                + ",\n"
+                + "b,3\n"
+                + ",4\n"
+                + ",5");
+        Row row = proj.rows.get(2);
+        row.setCell(1, new Cell("x", null));
+        proj.rows.get(4).setCell(1, null);
+        proj.update(new int[] { 4, 2 }, new int[] { 1 });
+        assertSameModel(proj);
+        assertEquals(proj.recordModel.getRecordCount(), 3);
+        assertEquals(proj.recordModel.getRowDependency(2).cellDependencies[1].rowIndex, 0);
+
+        // changing a key cell rebuilds the whole model
+        proj.rows.get(3).setCell(0, null);
+        proj.update(new int[] { 3 }, new int[] { 0 });
+        assertSameModel(proj);
+        assertEquals(proj.recordModel.getRecordCount(), 2);
+    }
+
+    @Test
+    public void testIncrementalUpdateWithColumnGroups() {
+        Project proj = createCSVProject("key,sub,val\n"
+                + "a,s,1\n"
+                + ",,2\n"
+                + ",t,3\n"
+                + ",,\n"
+                + "b,u,5\n"
+                + ",,6");
+        proj.columnModel.addColumnGroup(1, 2, 1);
+        proj.update();
+        for (int r = 0; r < proj.rows.size(); r++) {
+            proj.rows.get(r).setCell(2, r % 2 == 0 ? null : new Cell(r, null));
+        }
+        proj.update(new int[] { 0, 1, 2, 3, 4, 5 }, new int[] { 2 });
+        assertSameModel(proj);
+    }
+
+    @Test
+    public void testIncrementalUpdateWithRepeatedRows() {
+        Project proj = createCSVProject("key,val\n"
+                + "a,1\n"
+                + "b,2\n"
+                + ",3");
+        proj.rows.get(1).setCell(1, null);
+        proj.rows.get(2).setCell(1, new Cell("x", null));
+        proj.update(new int[] { 2, 1, 1, 2 }, new int[] { 1 });
+        assertSameModel(proj);
+        assertEquals(proj.recordModel.getRowDependency(2).cellDependencies[1].rowIndex, 1);
+    }
+
+    @Test
+    public void testIncrementalUpdateWithSparseKeys() {
+        StringBuilder sb = new StringBuilder("key,val\na,0\n");
+        for (int i = 1; i < 3 * RecordModel.MAX_BACKWARD_SCAN; i++) {
+            sb.append(',').append(i).append('\n');
+        }
+        Project proj = createCSVProject(sb.toString());
+        int[] rebuilds = { 0 };
+        RecordModel model = new RecordModel() {
+            @Override
+            protected void rebuild(Project project) {
+                rebuilds[0]++;
+                super.rebuild(project);
+            }
+        };
+        model.update(proj);
+
+        // close to the key, the context is found by reading backwards
+        proj.rows.get(10).setCell(1, null);
+        model.update(proj, new int[] { 10 }, new int[] { 1 });
+        assertEquals(rebuilds[0], 1);
+        assertNull(model.getRowDependency(10).cellDependencies);
+
+        // far from it, the model is rebuilt rather than read back to the key for each row
+        int[] changed = { RecordModel.MAX_BACKWARD_SCAN * 2, RecordModel.MAX_BACKWARD_SCAN * 2 + 500 };
+        for (int r : changed) {
+            proj.rows.get(r).setCell(1, null);
+        }
+        model.update(proj, changed, new int[] { 1 });
+        assertEquals(rebuilds[0], 2);
+        for (int r : changed) {
+            assertNull(model.getRowDependency(r).cellDependencies);
+        }
+        assertEquals(model.getRowDependency(RecordModel.MAX_BACKWARD_SCAN * 2 + 1).cellDependencies[1].rowIndex, 0);
+    }
+
+    protected void assertSameModel(Project proj) {
+        RecordModel expected = new RecordModel();
+        expected.update(proj);
+        RecordModel actual = proj.recordModel;
+        assertEquals(actual.getRecordCount(), expected.getRecordCount());
+        for (int i = 0; i < expected.getRecordCount(); i++) {
+            assertEquals(actual.getRecord(i).fromRowIndex, expected.getRecord(i).fromRowIndex);
+            assertEquals(actual.getRecord(i).toRowIndex, expected.getRecord(i).toRowIndex);
+        }
+        for (int r = 0; r < proj.rows.size(); r++) {
+            assertEquals(actual.getRowDependency(r).toString(), expected.getRowDependency(r).toString());
+        }
+    }
 }
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.changes;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.columnar.CellColumn;
+
+public class MassCellChangeTests extends RefineTest {
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        project = createCSVProject("mass cell change project",
+                "a,b\n"
+              + "1,x\n"
+              + "2,y\n"
+              + "3,x\n"
+              + "4,y\n");
+    }
+
+    private MassCellChange upperCaseColumnB() {
+        List<CellChange> cellChanges = new ArrayList<>();
+        for (int i = 0; i < project.rows.size(); i++) {
+            Cell cell = project.rows.get(i).getCell(1);
+            cellChanges.add(new CellChange(i, 1, cell, new Cell(((String) cell.value).toUpperCase(), null)));
+        }
+        return new MassCellChange(cellChanges, "b", false);
+    }
+
+    private void assertColumnB(String... values) {
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(project.rows.get(i).getCellValue(1), values[i]);
+        }
+    }
+
+    @Test
+    public void testUndoRedoWithColumnVersions() {
+        project.compactRows();
+        CellColumn original = project.getCellStore().getColumn(1);
+        MassCellChange change = upperCaseColumnB();
+
+        change.apply(project);
+        assertColumnB("X", "Y", "X", "Y");
+        CellColumn updated = project.getCellStore().getColumn(1);
+        assertNotNull(change._newColumn);
+
+        change.revert(project);
+        assertSame(project.getCellStore().getColumn(1), original);
+        assertColumnB("x", "y", "x", "y");
+
+        change.apply(project);
+        assertSame(project.getCellStore().getColumn(1), updated);
+        assertColumnB("X", "Y", "X", "Y");
+        assertEquals(project.rows.get(2).getCellValue(0), "3");
+    }
+
+    @Test
+    public void testFallbackWhenColumnChangedMeanwhile() {
+        project.compactRows();
+        MassCellChange change = upperCaseColumnB();
+        change.apply(project);
+
+        // some other version of the column was installed meanwhile
+        CellColumn copy = project.getCellStore().copyColumnWith(1, new int[0], new Cell[0]);
+        project.getCellStore().swapColumn(1, copy);
+
+        change.revert(project);
+        assertNull(change._newColumn);
+        assertColumnB("x", "y", "x", "y");
+    }
+
+    @Test
+    public void testRowStorage() {
+        MassCellChange change = upperCaseColumnB();
+
+        change.apply(project);
+        assertColumnB("X", "Y", "X", "Y");
+        assertNull(change._newColumn);
+
+        change.revert(project);
+        assertColumnB("x", "y", "x", "y");
+    }
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.model.columnar;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.expr.EvalError;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Recon;
+import com.google.refine.model.Row;
+import com.google.refine.util.TestUtils;
+
+public class ColumnarCellStoreTests extends RefineTest {
+
+    ColumnarCellStore store;
+
+    @BeforeMethod
+    public void setUp() {
+        store = new ColumnarCellStore();
+    }
+
+    private Row row(Cell... cells) {
+        Row row = new Row(cells.length);
+        row.cells.addAll(Arrays.asList(cells));
+        return row;
+    }
+
+    @Test
+    public void testRoundTripValues() {
+        OffsetDateTime date = OffsetDateTime.parse("2020-01-02T03:04:05Z");
+        Recon recon = new Recon(1L, null, null);
+        Cell reconCell = new Cell("matched", recon);
+        Row original = row(
+                new Cell("a", null),
+                new Cell(12L, null),
+                new Cell(3.5, null),
+                new Cell(true, null),
+                new Cell(null, null),
+                null,
+                new Cell(date, null),
+                new Cell(new EvalError("oops"), null),
+                reconCell);
+        original.starred = true;
+
+        Row row = store.append(original);
+
+        assertEquals(row.cells.size(), 9);
+        assertTrue(row.starred);
+        assertFalse(row.flagged);
+        assertEquals(row.getCellValue(0), "a");
+        assertEquals(row.getCellValue(1), 12L);
+        assertEquals(row.getCellValue(2), 3.5);
+        assertEquals(row.getCellValue(3), true);
+        assertNull(row.getCellValue(4));
+        assertTrue(row.getCell(4) != null);
+        assertNull(row.getCell(5));
+        assertEquals(row.getCellValue(6), date);
+        assertTrue(row.getCellValue(7) instanceof EvalError);
+        assertSame(row.getCell(8), reconCell);
+        assertNull(row.getCell(9));
+        assertEquals(row.toString(), original.toString());
+    }
+
+    @Test
+    public void testDictionaryEncoding() {
+        for (int i = 0; i < 100; i++) {
+            store.append(row(new Cell(i % 2 == 0 ? "even" : "odd", null)));
+        }
+        assertEquals(store.getSlotCount(), 100);
+        assertEquals(store.getDictionarySize(0), 2);
+    }
+
+    @Test
+    public void testHighCardinalityStrings() {
+        for (int i = 0; i < 3 * CellColumn.DICTIONARY_CHECK_SIZE; i++) {
+            Row row = store.append(row(new Cell("value " + i, null)));
+            assertEquals(row.getCellValue(0), "value " + i);
+        }
+        assertEquals(store.getDictionarySize(0), CellColumn.DICTIONARY_CHECK_SIZE);
+    }
+
+    @Test
+    public void testWriteThrough() {
+        Row row = store.append(row(new Cell("a", null), new Cell("b", null)));
+        Row other = store.append(row(new Cell("c", null)));
+
+        row.setCell(1, new Cell(42L, null));
+        row.setCell(4, new Cell("e", null));
+        assertEquals(row.cells.size(), 5);
+        assertEquals(row.getCellValue(1), 42L);
+        assertNull(row.getCell(2));
+        assertEquals(row.getCellValue(4), "e");
+
+        row.cells.add(0, new Cell("first", null));
+        assertEquals(row.cells.size(), 6);
+        assertEquals(row.getCellValue(0), "first");
+        assertEquals(row.getCellValue(1), "a");
+        assertEquals(row.getCellValue(5), "e");
+
+        row.cells.remove(1);
+        assertEquals(row.cells.size(), 5);
+        assertEquals(row.getCellValue(1), 42L);
+        assertNull(row.getCell(5));
+
+        assertEquals(other.cells.size(), 1);
+        assertEquals(other.getCellValue(0), "c");
+    }
+
+    @Test
+    public void testManyRows() {
+        int n = 5 * ColumnarCellStore.INITIAL_CAPACITY;
+        Row[] rows = new Row[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = store.append(row(new Cell((long) i, null), new Cell(i % 3 == 0 ? "x" : "y", null)));
+        }
+        for (int i = 0; i < n; i++) {
+            assertEquals(rows[i].getCellValue(0), (long) i);
+            assertEquals(rows[i].getCellValue(1), i % 3 == 0 ? "x" : "y");
+        }
+    }
+
+    @Test
+    public void testCompactProject() {
+        Project project = createCSVProject("a,b\n1,x\n2,y\n,z\n");
+        String before = project.rows.toString();
+
+        project.compactRows();
+
+        assertTrue(project.rows.get(0) instanceof ColumnarRow);
+        assertEquals(project.rows.toString(), before);
+        TestUtils.isSerializedTo(project.rows.get(1), "{\"flagged\":false,\"starred\":false,\"cells\":[{\"v\":\"2\"},{\"v\":\"y\"}]}");
+    }
+
+    @Test
+    public void testColumnVersions() {
+        Row first = store.append(row(new Cell("a", null), new Cell(1L, null)));
+        Row second = store.append(row(new Cell("b", null), new Cell(2L, null)));
+
+        CellColumn original = store.getColumn(0);
+        CellColumn updated = store.copyColumnWith(0, new int[] { 1 }, new Cell[] { new Cell("B", null) });
+        assertEquals(second.getCellValue(0), "b");
+
+        assertSame(store.swapColumn(0, updated), original);
+        assertEquals(first.getCellValue(0), "a");
+        assertEquals(second.getCellValue(0), "B");
+        assertEquals(second.getCellValue(1), 2L);
+
+        store.swapColumn(0, original);
+        assertEquals(second.getCellValue(0), "b");
+    }
+
+    @Test
+    public void testSwappedColumnGrowsWithStore() {
+        store.append(row(new Cell("a", null)));
+        CellColumn updated = store.copyColumnWith(0, new int[] { 0 }, new Cell[] { new Cell("x", null) });
+        CellColumn original = store.swapColumn(0, updated);
+
+        Row[] rows = new Row[2 * ColumnarCellStore.INITIAL_CAPACITY];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = store.append(row(new Cell("row " + i, null)));
+        }
+        store.swapColumn(0, original);
+        store.swapColumn(0, updated);
+
+        assertEquals(rows[rows.length - 1].getCellValue(0), "row " + (rows.length - 1));
+    }
+}
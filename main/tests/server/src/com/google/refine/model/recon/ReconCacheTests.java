@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.recon;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.model.Recon;
+import com.google.refine.model.Recon.Judgment;
+import com.google.refine.model.ReconCandidate;
+import com.google.refine.util.TestUtils;
+
+public class ReconCacheTests {
+
+    static final long TTL = TimeUnit.HOURS.toMillis(1);
+
+    File dir;
+    File file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = TestUtils.createTempDirectory("openrefine-recon-cache");
+        file = new File(dir, ReconCache.FILE_NAME);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private Recon makeRecon(String id) {
+        Recon recon = new Recon(1234L, "http://example.com/entity/", "http://example.com/prop/");
+        ReconCandidate candidate = new ReconCandidate(id, "Name of " + id, new String[] { "Q5" }, 98.5);
+        recon.addCandidate(candidate);
+        recon.match = candidate;
+        recon.matchRank = 0;
+        recon.judgment = Judgment.Matched;
+        recon.judgmentAction = "auto";
+        return recon;
+    }
+
+    @Test
+    public void testGetAndPut() {
+        ReconCache cache = new ReconCache(file, 100, TTL);
+        Assert.assertNull(cache.get("a", 42L));
+
+        Recon original = makeRecon("Q1");
+        cache.put("a", original);
+        Recon cached = cache.get("a", 42L);
+        Assert.assertNotNull(cached);
+        Assert.assertNotEquals(cached.id, original.id);
+        Assert.assertEquals(cached.judgmentHistoryEntry, 42L);
+        Assert.assertEquals(cached.judgment, Judgment.Matched);
+        Assert.assertEquals(cached.match.id, "Q1");
+        Assert.assertEquals(cached.candidates.size(), 1);
+        Assert.assertEquals(cached.identifierSpace, "http://example.com/entity/");
+    }
+
+    @Test
+    public void testSaveAndReload() {
+        ReconCache cache = new ReconCache(file, 100, TTL);
+        cache.put("a", makeRecon("Q1"));
+        cache.put("b", makeRecon("Q2"));
+        cache.save();
+
+        ReconCache reloaded = new ReconCache(file, 100, TTL);
+        Assert.assertEquals(reloaded.getEntryCount(), 2);
+        Assert.assertEquals(reloaded.get("b", 1L).match.id, "Q2");
+    }
+
+    @Test
+    public void testExpiredEntries() {
+        ReconCache cache = new ReconCache(file, 100, -1);
+        cache.put("a", makeRecon("Q1"));
+        Assert.assertNull(cache.get("a", 1L));
+    }
+
+    @Test
+    public void testEviction() {
+        ReconCache cache = new ReconCache(file, 2, TTL);
+        cache.put("a", makeRecon("Q1"));
+        cache.put("b", makeRecon("Q2"));
+        cache.get("a", 1L);
+        cache.put("c", makeRecon("Q3"));
+
+        Assert.assertEquals(cache.getEntryCount(), 2);
+        Assert.assertNotNull(cache.get("a", 1L));
+        Assert.assertNull(cache.get("b", 1L));
+        Assert.assertNotNull(cache.get("c", 1L));
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.operations.cell;
+
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.browsing.util.ParallelRowScanner;
+import com.google.refine.model.Project;
+import com.google.refine.operations.OnError;
+import com.google.refine.operations.OperationRegistry;
+
+public class TextTransformOperationTests extends RefineTest {
+
+    static final int ROW_COUNT = 20000;
+
+    Project project;
+
+    @BeforeSuite
+    public void registerOperation() {
+        OperationRegistry.registerOperation(getCoreModule(), "text-transform", TextTransformOperation.class);
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("a,b\n");
+        for (int i = 0; i < ROW_COUNT; i++) {
+            sb.append(i % 5 == 0 ? "" : Integer.toString(i)).append(",x\n");
+        }
+        project = createCSVProject(sb.toString());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, null);
+    }
+
+    @Test
+    public void testParallelTransform() throws Exception {
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, 4);
+
+        TextTransformOperation op = new TextTransformOperation(EngineConfig.reconstruct(null), "a",
+                "grel:if(isBlank(value), 'blank', value + '/' + rowIndex)", OnError.KeepOriginal, false, 0);
+        op.createProcess(project, new Properties()).performImmediate();
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            Assert.assertEquals(project.rows.get(i).getCellValue(0), i % 5 == 0 ? "blank" : i + "/" + i);
+        }
+    }
+
+    @Test
+    public void testParallelTransformWithRepeat() throws Exception {
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, 4);
+
+        TextTransformOperation op = new TextTransformOperation(EngineConfig.reconstruct(null), "a",
+                "grel:if(value.length() < 8, value + '_', value)", OnError.KeepOriginal, true, 10);
+        op.createProcess(project, new Properties()).performImmediate();
+
+        for (int i = 1; i < ROW_COUNT; i++) {
+            if (i % 5 != 0) {
+                String value = (String) project.rows.get(i).getCellValue(0);
+                Assert.assertEquals(value.length(), 8);
+                Assert.assertTrue(value.startsWith(Integer.toString(i)));
+            }
+        }
+    }
+}
@@ -41,6 +41,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -66,6 +69,7 @@ import com.google.refine.util.ParsingUtilities;
 import com.google.refine.util.TestUtils;
 
 import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -362,5 +366,63 @@ public class ColumnAdditionByFetchingURLsOperationTests extends RefineTest {
         }
     }
 
+    @Test
+    public void serializeConcurrency() throws Exception {
+        String concurrentJson = json.substring(0, json.length() - 1) + ",\"concurrency\":8}";
+        ColumnAdditionByFetchingURLsOperation op = ParsingUtilities.mapper.readValue(concurrentJson,
+                ColumnAdditionByFetchingURLsOperation.class);
+        Assert.assertEquals(op.getConcurrency(), 8);
+        TestUtils.isSerializedTo(op, concurrentJson);
+    }
+
+    @Test
+    public void testConcurrentFetching() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            // the first requests are only answered once two of them are in flight
+            CountDownLatch overlapping = new CountDownLatch(2);
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    overlapping.countDown();
+                    overlapping.await(10, TimeUnit.SECONDS);
+                    inFlight.decrementAndGet();
+                    return new MockResponse()
+                            .setBody(request.getRequestUrl().queryParameter("n"));
+                }
+            });
+            server.start();
+            HttpUrl url = server.url("/echo");
 
+            int rowCount = 40;
+            for (int i = 0; i < rowCount; i++) {
+                Row row = new Row(2);
+                row.setCell(0, new Cell(Integer.toString(i), null));
+                project.rows.add(row);
+            }
+
+            EngineDependentOperation op = new ColumnAdditionByFetchingURLsOperation(engine_config,
+                    "fruits",
+                    "\"" + url + "?n=\"+value",
+                    OnError.StoreError,
+                    "echo",
+                    1,
+                    0,
+                    false,
+                    null,
+                    8);
+
+            runAndWait(op, 30000);
+            Assert.assertTrue(maxInFlight.get() >= 2, "Requests were not sent concurrently");
+
+            int newCol = project.columnModel.getColumnByName("echo").getCellIndex();
+            for (int i = 0; i < rowCount; i++) {
+                Assert.assertEquals(project.rows.get(i).getCellValue(newCol), Integer.toString(i));
+            }
+            server.shutdown();
+        }
+    }
 }
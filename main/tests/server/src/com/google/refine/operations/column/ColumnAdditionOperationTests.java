@@ -26,10 +26,19 @@
  ******************************************************************************/
 package com.google.refine.operations.column;
 
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 
+import com.google.refine.ProjectManager;
 import com.google.refine.RefineTest;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.browsing.util.ParallelRowScanner;
+import com.google.refine.model.Project;
+import com.google.refine.operations.OnError;
 import com.google.refine.operations.OperationRegistry;
 import com.google.refine.util.ParsingUtilities;
 import com.google.refine.util.TestUtils;
@@ -51,4 +60,29 @@ public class ColumnAdditionOperationTests extends RefineTest {
                 + "}";
         TestUtils.isSerializedTo(ParsingUtilities.mapper.readValue(json, ColumnAdditionOperation.class), json);
     }
+
+    @AfterMethod
+    public void tearDown() {
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, null);
+    }
+
+    @Test
+    public void testParallelEvaluation() throws Exception {
+        StringBuilder sb = new StringBuilder("a,c\n");
+        int rowCount = 20000;
+        for (int i = 0; i < rowCount; i++) {
+            sb.append(i % 7 == 0 ? "" : "v" + i).append(",x\n");
+        }
+        Project project = createCSVProject(sb.toString());
+        ProjectManager.singleton.getPreferenceStore().put(ParallelRowScanner.PARALLELISM_PREFERENCE, 4);
+
+        ColumnAdditionOperation op = new ColumnAdditionOperation(EngineConfig.reconstruct(null), "a",
+                "grel:value + '-' + rowIndex", OnError.SetToBlank, "b", 1);
+        op.createProcess(project, new Properties()).performImmediate();
+
+        int cellIndex = project.columnModel.getColumnByName("b").getCellIndex();
+        for (int i = 0; i < rowCount; i++) {
+            Assert.assertEquals(project.rows.get(i).getCellValue(cellIndex), i % 7 == 0 ? null : "v" + i + "-" + i);
+        }
+    }
 }
@@ -29,10 +29,15 @@ package com.google.refine.operations.recon;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.io.FileUtils;
 import org.mockito.Mockito;
 import org.mockito.stubbing.OngoingStubbing;
 import org.testng.Assert;
@@ -40,11 +45,15 @@ import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import com.google.refine.ProjectManager;
 import com.google.refine.RefineTest;
 import com.google.refine.browsing.EngineConfig;
+import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
 import com.google.refine.model.Recon;
+import com.google.refine.model.ReconCandidate;
+import com.google.refine.model.recon.ReconCache;
 import com.google.refine.model.recon.ReconConfig;
 import com.google.refine.model.recon.ReconJob;
 import com.google.refine.model.recon.StandardReconConfig;
@@ -149,4 +158,130 @@ public class ReconOperationTests extends RefineTest {
         Assert.assertNull(project.rows.get(1).getCell(0).recon);
         Assert.assertNull(project.rows.get(2).getCell(0).recon);
        }
+    
+    private static class TextReconJob extends ReconJob {
+        final String text;
+        
+        TextReconJob(String text) {
+            this.text = text;
+        }
+        
+        @Override
+        public String getStringKey() {
+            return text;
+        }
+    }
+    
+    @Test
+    public void testPipelinedRecon() throws Exception {
+        StringBuilder sb = new StringBuilder("column,other\n");
+        for (int i = 0; i < 500; i++) {
+            // every value appears twice, so each job is shared by two cells
+            sb.append("value").append(i % 250).append(",").append(i).append("\n");
+        }
+        Project project = createCSVProject("pipelined recon test project", sb.toString());
+        
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        StandardReconConfig reconConfig = mock(StandardReconConfig.class);
+        when(reconConfig.isThreadSafe()).thenReturn(true);
+        when(reconConfig.getBatchSize()).thenReturn(10);
+        when(reconConfig.createJob(Mockito.eq(project), Mockito.anyInt(), Mockito.any(), Mockito.any(), Mockito.any()))
+            .thenAnswer(invocation -> new TextReconJob((String) invocation.getArgument(4, Cell.class).value));
+        when(reconConfig.batchRecon(Mockito.any(), Mockito.anyLong())).thenAnswer(invocation -> {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(20);
+            } finally {
+                running.decrementAndGet();
+            }
+            List<ReconJob> jobs = invocation.getArgument(0);
+            List<Recon> recons = new ArrayList<>(jobs.size());
+            for (ReconJob job : jobs) {
+                Recon recon = new Recon(invocation.getArgument(1), null, null);
+                recon.addCandidate(new ReconCandidate(((TextReconJob) job).text, "", new String[0], 100));
+                recons.add(recon);
+            }
+            return recons;
+        });
+        
+        ProjectManager.singleton.getPreferenceStore().put(ReconOperation.PARALLEL_REQUESTS_PREF, 4);
+        try {
+            ReconOperation op = new ReconOperation(EngineConfig.reconstruct("{}"), "column", reconConfig);
+            Process process = op.createProcess(project, new Properties());
+            runAndWait(project.getProcessManager(), process, 10000);
+        } finally {
+            ProjectManager.singleton.getPreferenceStore().put(ReconOperation.PARALLEL_REQUESTS_PREF, null);
+        }
+        
+        Assert.assertTrue(maxRunning.get() > 1);
+        Assert.assertTrue(maxRunning.get() <= 4);
+        Assert.assertEquals(project.history.getLastPastEntries(1).size(), 1);
+        for (int i = 0; i < 500; i++) {
+            Recon recon = project.rows.get(i).getCell(0).recon;
+            Assert.assertNotNull(recon);
+            Assert.assertEquals(recon.candidates.get(0).id, "value" + (i % 250));
+            Assert.assertEquals(recon.judgmentBatchSize, 2);
+        }
+    }
+    
+    @Test
+    public void testReconCache() throws Exception {
+        File dir = TestUtils.createTempDirectory("openrefine-recon-cache");
+        try {
+            ReconCache cache = new ReconCache(new File(dir, ReconCache.FILE_NAME), 100, TimeUnit.HOURS.toMillis(1));
+            AtomicInteger queried = new AtomicInteger();
+            StandardReconConfig reconConfig = mock(StandardReconConfig.class);
+            when(reconConfig.getBatchSize()).thenReturn(10);
+            when(reconConfig.createJob(Mockito.any(), Mockito.anyInt(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> new TextReconJob((String) invocation.getArgument(4, Cell.class).value));
+            when(reconConfig.getCacheKey(Mockito.any()))
+                .thenAnswer(invocation -> "service\n" + invocation.getArgument(0, TextReconJob.class).text);
+            when(reconConfig.batchRecon(Mockito.any(), Mockito.anyLong())).thenAnswer(invocation -> {
+                List<ReconJob> jobs = invocation.getArgument(0);
+                List<Recon> recons = new ArrayList<>(jobs.size());
+                for (ReconJob job : jobs) {
+                    queried.incrementAndGet();
+                    Recon recon = new Recon(invocation.getArgument(1), null, null);
+                    recon.addCandidate(new ReconCandidate(((TextReconJob) job).text, "", new String[0], 100));
+                    recons.add(recon);
+                }
+                return recons;
+            });
+            
+            Project first = createCSVProject("first project",
+                    "column,other\n"
+                  + "valueA,1\n"
+                  + "valueB,2\n"
+                  + "valueA,3");
+            ReconOperation op = new ReconOperation(EngineConfig.reconstruct("{}"), "column", reconConfig);
+            ReconOperation.ReconProcess process = (ReconOperation.ReconProcess) op.createProcess(first, new Properties());
+            process._cache = cache;
+            runAndWait(first.getProcessManager(), process, 5000);
+            Assert.assertEquals(queried.get(), 2);
+            Assert.assertEquals(process._cacheHits, 0);
+            Assert.assertEquals(process._cacheMisses, 2);
+            
+            Project second = createCSVProject("second project",
+                    "column,other\n"
+                  + "valueB,1\n"
+                  + "valueC,2\n"
+                  + "valueA,3");
+            process = (ReconOperation.ReconProcess) op.createProcess(second, new Properties());
+            process._cache = new ReconCache(new File(dir, ReconCache.FILE_NAME), 100, TimeUnit.HOURS.toMillis(1));
+            runAndWait(second.getProcessManager(), process, 5000);
+            Assert.assertEquals(queried.get(), 3);
+            Assert.assertEquals(process._cacheHits, 2);
+            Assert.assertEquals(process._cacheMisses, 1);
+            
+            for (int i = 0; i < 3; i++) {
+                Recon recon = second.rows.get(i).getCell(0).recon;
+                Assert.assertEquals(recon.candidates.get(0).id, second.rows.get(i).getCellValue(0));
+                Assert.assertEquals(recon.judgmentHistoryEntry, process._historyEntryID);
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DiskResponseCacheTests {
+
+    static final long TTL = TimeUnit.HOURS.toMillis(1);
+
+    File dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = TestUtils.createTempDirectory("openrefine-http-cache");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testGetAndPut() {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1024 * 1024, TTL);
+        Assert.assertNull(cache.get("http://example.com/a", null));
+
+        cache.put("http://example.com/a", null, "body a");
+        cache.put("http://example.com/b", null, "body é");
+        Assert.assertEquals(cache.get("http://example.com/a", null), "body a");
+        Assert.assertEquals(cache.get("http://example.com/b", null), "body é");
+        Assert.assertEquals(cache.getEntryCount(), 2);
+    }
+
+    @Test
+    public void testHeadersArePartOfTheKey() {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1024 * 1024, TTL);
+        Header[] headers = { new BasicHeader("Accept", "application/json"), new BasicHeader("X-Key", "1") };
+        Header[] reordered = { new BasicHeader("x-key", "1"), new BasicHeader("accept", "application/json") };
+        cache.put("http://example.com/a", headers, "json");
+
+        Assert.assertNull(cache.get("http://example.com/a", null));
+        Assert.assertNull(cache.get("http://example.com/a", new Header[] { new BasicHeader("Accept", "text/html") }));
+        Assert.assertEquals(cache.get("http://example.com/a", reordered), "json");
+    }
+
+    @Test
+    public void testKeysAreNotStored() throws IOException {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1024 * 1024, TTL);
+        Header[] headers = { new BasicHeader("Authorization", "Bearer secret-token") };
+        cache.put("http://example.com/private", headers, "body");
+
+        File[] files = dir.listFiles();
+        Assert.assertEquals(files.length, 1);
+        String stored = new String(Files.readAllBytes(files[0].toPath()), StandardCharsets.ISO_8859_1);
+        Assert.assertFalse(stored.contains("secret-token"));
+        Assert.assertFalse(stored.contains("example.com"));
+        Assert.assertEquals(cache.get("http://example.com/private", headers), "body");
+    }
+
+    @Test
+    public void testEntriesOfEarlierVersionsAreDeleted() throws IOException {
+        File old = new File(dir, "0123.response");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(old))) {
+            out.writeInt(1);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF("http://example.com/a\nauthorization: Bearer secret-token");
+        }
+
+        DiskResponseCache cache = new DiskResponseCache(dir, 1024 * 1024, TTL);
+        Assert.assertEquals(cache.getEntryCount(), 0);
+        Assert.assertFalse(old.exists());
+    }
+
+    @Test
+    public void testPersistence() {
+        new DiskResponseCache(dir, 1024 * 1024, TTL).put("http://example.com/a", null, "body");
+
+        DiskResponseCache reopened = new DiskResponseCache(dir, 1024 * 1024, TTL);
+        Assert.assertEquals(reopened.getEntryCount(), 1);
+        Assert.assertEquals(reopened.get("http://example.com/a", null), "body");
+    }
+
+    @Test
+    public void testExpiredEntriesAreDropped() {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1024 * 1024, -1);
+        cache.put("http://example.com/a", null, "body");
+        Assert.assertNull(cache.get("http://example.com/a", null));
+        Assert.assertEquals(cache.getEntryCount(), 0);
+        Assert.assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        String body = new String(new char[1000]).replace('\0', 'x');
+        // room for two entries
+        DiskResponseCache cache = new DiskResponseCache(dir, 2500, TTL);
+        cache.put("http://example.com/a", null, body);
+        cache.put("http://example.com/b", null, body);
+        Assert.assertNotNull(cache.get("http://example.com/a", null));
+        cache.put("http://example.com/c", null, body);
+
+        Assert.assertEquals(cache.getEntryCount(), 2);
+        Assert.assertTrue(cache.getSize() <= 2500);
+        Assert.assertNotNull(cache.get("http://example.com/a", null));
+        Assert.assertNull(cache.get("http://example.com/b", null));
+        Assert.assertNotNull(cache.get("http://example.com/c", null));
+        Assert.assertEquals(dir.list().length, 2);
+    }
+}
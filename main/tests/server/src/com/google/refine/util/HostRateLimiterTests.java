@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class HostRateLimiterTests {
+
+    static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    long now;
+
+    @BeforeMethod
+    public void setUp() {
+        now = 1000 * MILLIS;
+    }
+
+    HostRateLimiter limiter(long intervalMillis, int burst) {
+        return new HostRateLimiter(intervalMillis, burst, () -> now);
+    }
+
+    @Test
+    public void testNoLimit() throws InterruptedException {
+        HostRateLimiter limiter = limiter(0, 1);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(limiter.reserve("example.com"), 0);
+        }
+        // acquiring does not wait either
+        limiter.acquire("example.com");
+    }
+
+    @Test
+    public void testDelayBetweenRequestsToSameHost() {
+        HostRateLimiter limiter = limiter(100, 1);
+        // the first request is immediate, the next ones are queued
+        Assert.assertEquals(limiter.reserve("example.com"), 0);
+        Assert.assertEquals(limiter.reserve("example.com"), 100 * MILLIS);
+        Assert.assertEquals(limiter.reserve("example.com"), 200 * MILLIS);
+        Assert.assertEquals(limiter.reserve("example.com"), 300 * MILLIS);
+
+        // the queued tokens are caught up with as time passes
+        now += 350 * MILLIS;
+        Assert.assertEquals(limiter.reserve("example.com"), 50 * MILLIS);
+        now += 1000 * MILLIS;
+        Assert.assertEquals(limiter.reserve("example.com"), 0);
+    }
+
+    @Test
+    public void testHostsAreIndependent() {
+        HostRateLimiter limiter = limiter(1000, 1);
+        Assert.assertEquals(limiter.reserve("a.example.com"), 0);
+        Assert.assertEquals(limiter.reserve("b.example.com"), 0);
+        Assert.assertEquals(limiter.reserve("c.example.com"), 0);
+        Assert.assertEquals(limiter.reserve("a.example.com"), 1000 * MILLIS);
+    }
+
+    @Test
+    public void testBurst() {
+        HostRateLimiter limiter = limiter(1000, 3);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(limiter.reserve("example.com"), 0);
+        }
+        Assert.assertEquals(limiter.reserve("example.com"), 1000 * MILLIS);
+
+        // tokens do not accumulate beyond the burst
+        now += 10000 * MILLIS;
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(limiter.reserve("example.com"), 0);
+        }
+        Assert.assertEquals(limiter.reserve("example.com"), 1000 * MILLIS);
+    }
+
+    @Test
+    public void testReleasedTokensAreReused() {
+        HostRateLimiter limiter = limiter(100, 1);
+        Assert.assertEquals(limiter.reserve("example.com"), 0);
+        Assert.assertEquals(limiter.reserve("example.com"), 100 * MILLIS);
+        // as done by a caller interrupted while waiting
+        limiter.release("example.com");
+        Assert.assertEquals(limiter.reserve("example.com"), 100 * MILLIS);
+    }
+
+    @Test
+    public void testConcurrentCallersAreSpaced() throws InterruptedException {
+        HostRateLimiter limiter = limiter(100, 1);
+        long[] waits = new long[4];
+        Thread[] threads = new Thread[waits.length];
+        for (int i = 0; i < threads.length; i++) {
+            int caller = i;
+            threads[i] = new Thread(() -> waits[caller] = limiter.reserve("example.com"));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // whatever the order of the callers, each waits for a different slot
+        long[] sorted = waits.clone();
+        Arrays.sort(sorted);
+        Assert.assertEquals(sorted, new long[] { 0, 100 * MILLIS, 200 * MILLIS, 300 * MILLIS });
+    }
+}
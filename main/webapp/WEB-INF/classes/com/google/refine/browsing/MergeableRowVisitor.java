@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing;
+
+import com.google.refine.model.Project;
+
+/**
+ * A {@link RowVisitor} whose work can be split over disjoint ranges of rows. Each
+ * range is visited by a partial visitor obtained with {@link #fork(Project)}, possibly
+ * in a separate thread, and the partial results are then merged back in row order.
+ * <p>
+ * Visitors implementing this interface must not rely on aborting the visit early.
+ */
+public interface MergeableRowVisitor extends RowVisitor {
+
+    /**
+     * Creates a partial visitor with the same configuration as this one but
+     * with no results yet.
+     * 
+     * @param project
+     * @return a new partial visitor, or null if this visitor cannot be run
+     *         concurrently (for instance because its expression is not thread-safe)
+     */
+    public MergeableRowVisitor fork(Project project);
+
+    /**
+     * Adds the results of a partial visitor to those of this visitor. Partial
+     * visitors are merged in the order of the row ranges they visited.
+     * 
+     * @param partial
+     *            a visitor obtained by calling {@link #fork(Project)} on this visitor
+     */
+    public void merge(MergeableRowVisitor partial);
+}
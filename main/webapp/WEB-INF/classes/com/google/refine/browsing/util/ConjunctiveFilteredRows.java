@@ -0,0 +1,197 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.browsing.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.MergeableRowVisitor;
+import com.google.refine.browsing.RowFilter;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+/**
+ * Encapsulate logic for visiting rows that match all give row filters. Also visit
+ * context rows and dependent rows if configured so.
+ * <p>
+ * When parallel scanning is enabled (see {@link ParallelRowScanner}) and both the
+ * filters and the visitor support it, the rows are split into ranges which are
+ * visited concurrently by partial visitors.
+ * <p>
+ * Filters whose matching rows are already known can be added as bitmaps, in which
+ * case only the rows set in all of them are considered.
+ */
+public class ConjunctiveFilteredRows implements FilteredRows {
+    final protected List<RowFilter> _rowFilters = new LinkedList<RowFilter>();
+    protected BitSet _rows; // null if not restricted by any bitmap
+    
+    public void add(RowFilter rowFilter) {
+        _rowFilters.add(rowFilter);
+    }
+
+    /**
+     * Restricts the visit to the rows set in the given bitmap, which is not modified.
+     */
+    public void add(BitSet rows) {
+        if (_rows == null) {
+            _rows = (BitSet) rows.clone();
+        } else {
+            _rows.and(rows);
+        }
+    }
+    
+    @Override
+    public void accept(Project project, RowVisitor visitor) {
+        int rowCount = project.rows.size();
+        int chunkCount = ParallelRowScanner.getChunkCount(rowCount);
+        if (chunkCount > 1 && visitor instanceof MergeableRowVisitor && isThreadSafe()) {
+            List<MergeableRowVisitor> partials = fork(project, (MergeableRowVisitor) visitor, chunkCount);
+            if (partials != null) {
+                acceptInParallel(project, (MergeableRowVisitor) visitor, partials);
+                return;
+            }
+        }
+
+        try {
+            visitor.start(project);
+
+            for (int rowIndex = nextRow(0, rowCount); rowIndex < rowCount; rowIndex = nextRow(rowIndex + 1, rowCount)) {
+                Row row = project.rows.get(rowIndex);
+                if (matchRow(project, rowIndex, row)) {
+                    if (visitRow(project, visitor, rowIndex, row)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            visitor.end(project);
+        }
+    }
+
+    /**
+     * @return true if all the row filters can be evaluated concurrently
+     */
+    public boolean isThreadSafe() {
+        for (RowFilter rowFilter : _rowFilters) {
+            if (!rowFilter.isThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected List<MergeableRowVisitor> fork(Project project, MergeableRowVisitor visitor, int chunkCount) {
+        List<MergeableRowVisitor> partials = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            MergeableRowVisitor partial = visitor.fork(project);
+            if (partial == null) {
+                return null;
+            }
+            partials.add(partial);
+        }
+        return partials;
+    }
+
+    /**
+     * Visits contiguous ranges of rows with the given partial visitors on the shared
+     * pool, and merges their results in row order into the main visitor.
+     */
+    protected void acceptInParallel(Project project, MergeableRowVisitor visitor, List<MergeableRowVisitor> partials) {
+        try {
+            visitor.start(project);
+
+            int rowCount = project.rows.size();
+            int chunkCount = partials.size();
+            ForkJoinPool pool = ParallelRowScanner.getPool();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                final MergeableRowVisitor partial = partials.get(i);
+                final int from = (int) ((long) rowCount * i / chunkCount);
+                final int to = (int) ((long) rowCount * (i + 1) / chunkCount);
+                tasks.add(pool.submit(() -> {
+                    try {
+                        partial.start(project);
+                        for (int rowIndex = nextRow(from, to); rowIndex < to; rowIndex = nextRow(rowIndex + 1, to)) {
+                            Row row = project.rows.get(rowIndex);
+                            if (matchRow(project, rowIndex, row)) {
+                                if (visitRow(project, partial, rowIndex, row)) {
+                                    break;
+                                }
+                            }
+                        }
+                    } finally {
+                        partial.end(project);
+                    }
+                }));
+            }
+            for (int i = 0; i < chunkCount; i++) {
+                tasks.get(i).join();
+                visitor.merge(partials.get(i));
+            }
+        } finally {
+            visitor.end(project);
+        }
+    }
+    
+    /**
+     * @return the first row index from the given one which is set in the bitmaps,
+     *         or the end index if there is none
+     */
+    protected int nextRow(int rowIndex, int end) {
+        if (_rows == null) {
+            return rowIndex;
+        }
+        int next = _rows.nextSetBit(rowIndex);
+        return next < 0 ? end : Math.min(next, end);
+    }
+
+    protected boolean visitRow(Project project, RowVisitor visitor, int rowIndex, Row row) {
+        return visitor.visit(project, rowIndex, row);
+    }
+    
+    protected boolean matchRow(Project project, int rowIndex, Row row) {
+        for (RowFilter rowFilter : _rowFilters) {
+            if (!rowFilter.filterRow(project, rowIndex, row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
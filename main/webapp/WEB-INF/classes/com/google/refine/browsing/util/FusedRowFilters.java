@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RowFilter;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+/**
+ * Evaluates the row filters of several facets in a single pass over the rows, and
+ * records for each filter the set of rows it matches. The rows each facet should
+ * compute its choices on (those matched by the filters of all other facets) are then
+ * derived from these bitmaps, without evaluating any filter again.
+ * <p>
+ * When given a cache key for a filter, its bitmap is looked up in and stored into
+ * the {@link RowBitmapCache}, so that only the filters which changed since the
+ * previous evaluation are evaluated.
+ */
+public class FusedRowFilters {
+
+    final protected int _rowCount;
+    final protected BitSet[] _matches; // null for facets without a filter
+
+    /**
+     * @param project
+     *            the project to filter rows of
+     * @param rowFilters
+     *            the row filters of each facet, with null entries for facets which do
+     *            not constrain rows
+     */
+    public FusedRowFilters(Project project, List<RowFilter> rowFilters) {
+        this(project, rowFilters, Collections.nCopies(rowFilters.size(), null));
+    }
+
+    /**
+     * @param project
+     *            the project to filter rows of
+     * @param rowFilters
+     *            the row filters of each facet, with null entries for facets which do
+     *            not constrain rows
+     * @param cacheKeys
+     *            for each filter, the key to cache its bitmap with, or null if it
+     *            should not be cached
+     */
+    public FusedRowFilters(Project project, List<RowFilter> rowFilters, List<String> cacheKeys) {
+        _rowCount = project.rows.size();
+        _matches = new BitSet[rowFilters.size()];
+
+        List<RowFilter> toEvaluate = new ArrayList<>(rowFilters.size());
+        for (int i = 0; i < _matches.length; i++) {
+            RowFilter rowFilter = rowFilters.get(i);
+            if (rowFilter != null) {
+                _matches[i] = RowBitmapCache.get(project, cacheKeys.get(i), rowFilter.getColumnDependencies());
+            }
+            toEvaluate.add(_matches[i] == null ? rowFilter : null);
+        }
+
+        BitSet[] evaluated = new BitSet[_matches.length];
+        int chunkCount = ParallelRowScanner.getChunkCount(_rowCount);
+        if (chunkCount > 1 && isThreadSafe(toEvaluate)) {
+            evaluateInParallel(project, toEvaluate, chunkCount, evaluated);
+        } else {
+            evaluate(project, toEvaluate, 0, _rowCount, evaluated);
+        }
+
+        for (int i = 0; i < _matches.length; i++) {
+            if (evaluated[i] != null) {
+                _matches[i] = evaluated[i];
+                RowBitmapCache.put(project, cacheKeys.get(i), toEvaluate.get(i).getColumnDependencies(), evaluated[i]);
+            }
+        }
+    }
+
+    /**
+     * @param except
+     *            the index of the facet whose filter should be ignored, or -1 to
+     *            apply all filters
+     * @return the rows matched by all filters except the given one
+     */
+    public FilteredRows getFilteredRows(int except) {
+        ConjunctiveFilteredRows cfr = new ConjunctiveFilteredRows();
+        for (int i = 0; i < _matches.length; i++) {
+            if (i != except && _matches[i] != null) {
+                cfr.add(_matches[i]);
+            }
+        }
+        return cfr;
+    }
+
+    static protected boolean isThreadSafe(List<RowFilter> rowFilters) {
+        for (RowFilter rowFilter : rowFilters) {
+            if (rowFilter != null && !rowFilter.isThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static protected void evaluate(Project project, List<RowFilter> rowFilters, int from, int to, BitSet[] matches) {
+        int filterCount = rowFilters.size();
+        RowFilter[] filters = rowFilters.toArray(new RowFilter[filterCount]);
+        boolean any = false;
+        for (int i = 0; i < filterCount; i++) {
+            if (filters[i] != null) {
+                matches[i] = new BitSet(to);
+                any = true;
+            }
+        }
+        if (!any) {
+            return;
+        }
+
+        for (int rowIndex = from; rowIndex < to; rowIndex++) {
+            Row row = project.rows.get(rowIndex);
+            for (int i = 0; i < filterCount; i++) {
+                if (filters[i] != null && filters[i].filterRow(project, rowIndex, row)) {
+                    matches[i].set(rowIndex);
+                }
+            }
+        }
+    }
+
+    protected void evaluateInParallel(Project project, List<RowFilter> rowFilters, int chunkCount, BitSet[] matches) {
+        ForkJoinPool pool = ParallelRowScanner.getPool();
+        List<BitSet[]> partials = new ArrayList<>(chunkCount);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunkCount);
+        for (int c = 0; c < chunkCount; c++) {
+            final BitSet[] partial = new BitSet[matches.length];
+            final int from = (int) ((long) _rowCount * c / chunkCount);
+            final int to = (int) ((long) _rowCount * (c + 1) / chunkCount);
+            partials.add(partial);
+            tasks.add(pool.submit(() -> evaluate(project, rowFilters, from, to, partial)));
+        }
+        for (int c = 0; c < chunkCount; c++) {
+            tasks.get(c).join();
+            BitSet[] partial = partials.get(c);
+            for (int i = 0; i < matches.length; i++) {
+                if (partial[i] == null) {
+                    continue;
+                } else if (matches[i] == null) {
+                    matches[i] = partial[i];
+                } else {
+                    matches[i].or(partial[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.commands.column;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.commands.EngineDependentCommand;
+import com.google.refine.model.AbstractOperation;
+import com.google.refine.model.Project;
+import com.google.refine.operations.column.ColumnSplitOperation;
+import com.google.refine.util.ParsingUtilities;
+
+public class SplitColumnCommand extends EngineDependentCommand {
+    @Override
+    protected AbstractOperation createOperation(Project project,
+            HttpServletRequest request, EngineConfig engineConfig) throws Exception {
+        
+        String columnName = request.getParameter("columnName");
+        boolean guessCellType = Boolean.parseBoolean(request.getParameter("guessCellType"));
+        boolean removeOriginalColumn = Boolean.parseBoolean(request.getParameter("removeOriginalColumn"));
+        String mode = request.getParameter("mode");
+        if ("separator".equals(mode)) {
+            String maxColumns = request.getParameter("maxColumns");
+            
+            return new ColumnSplitOperation(
+                engineConfig, 
+                columnName, 
+                guessCellType,
+                removeOriginalColumn,
+                request.getParameter("separator"),
+                Boolean.parseBoolean(request.getParameter("regex")),
+                maxColumns != null && maxColumns.length() > 0 ? Integer.parseInt(maxColumns) : 0
+            );
+        } else {
+            String s = request.getParameter("fieldLengths");
+            
+            int[] fieldLengths = ParsingUtilities.mapper.readValue(s, new TypeReference<int[]>() {});
+            
+            return new ColumnSplitOperation(
+                engineConfig, 
+                columnName, 
+                guessCellType,
+                removeOriginalColumn,
+                fieldLengths
+            );
+        }
+    }
+}
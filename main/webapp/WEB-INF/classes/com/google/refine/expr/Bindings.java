@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+/**
+ * Bindings in which the variables set for every evaluated cell are stored in
+ * fixed slots rather than in the underlying hashtable. The wrappers exposed as
+ * "row", "cells" and "cell" are only created if the expression reads them, so
+ * that evaluating an expression which only uses "value" allocates nothing.
+ * 
+ * Slots are addressed by name through {@link #get(Object)}, {@link #put(Object, Object)}
+ * and {@link #remove(Object)}, so this can be used wherever plain {@link Properties}
+ * bindings are expected. The enumeration methods inherited from {@link java.util.Hashtable}
+ * only see the other variables.
+ * 
+ * {@link Binder}s can register extra slots for the variables they set with
+ * {@link #registerSlot(String)}.
+ */
+public class Bindings extends Properties {
+
+    private static final long serialVersionUID = 3154727232651716284L;
+
+    static final private Map<String, Integer> s_slotIndices = new ConcurrentHashMap<>();
+    static final private List<String> s_slotNames = new ArrayList<>();
+
+    static final public int VALUE = registerSlot("value");
+    static final public int CELL = registerSlot("cell");
+    static final public int CELLS = registerSlot("cells");
+    static final public int ROW = registerSlot("row");
+    static final public int ROW_INDEX = registerSlot("rowIndex");
+    static final public int COLUMN_NAME = registerSlot("columnName");
+    static final public int RECON = registerSlot("recon");
+
+    /**
+     * Marks a slot whose value is computed from the current row when first read.
+     */
+    static final private Object LAZY = new Object();
+
+    /**
+     * Registers a variable to be stored in a slot. Registering the same name
+     * twice returns the same slot.
+     * 
+     * @param name
+     *            the name of the variable
+     * @return the index of its slot
+     */
+    static synchronized public int registerSlot(String name) {
+        Integer index = s_slotIndices.get(name);
+        if (index == null) {
+            index = s_slotNames.size();
+            s_slotNames.add(name);
+            s_slotIndices.put(name, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the slot of this variable, or -1 if it is not stored in a slot
+     */
+    static public int getSlotIndex(String name) {
+        Integer index = s_slotIndices.get(name);
+        return index == null ? -1 : index;
+    }
+
+    transient protected Object[] _slots;
+
+    transient protected Project _project;
+    transient protected Row _row;
+    transient protected int _rowIndex;
+    transient protected String _cellColumnName;
+    transient protected Cell _cell;
+
+    public Bindings() {
+        _slots = new Object[s_slotNames.size()];
+    }
+
+    /**
+     * Binds the standard variables to a cell. This is what
+     * {@link ExpressionUtils#bind(Properties, Row, int, String, Cell)} does
+     * before running the {@link Binder}s.
+     */
+    public void bind(Project project, Row row, int rowIndex, String columnName, Cell cell) {
+        _project = project;
+        _row = row;
+        _rowIndex = rowIndex;
+        _cell = cell;
+        _cellColumnName = columnName;
+        if (columnName != null) {
+            _slots[COLUMN_NAME] = columnName;
+        }
+
+        _slots[ROW_INDEX] = LAZY;
+        _slots[ROW] = LAZY;
+        _slots[CELLS] = LAZY;
+        if (cell == null) {
+            _slots[CELL] = null;
+            _slots[VALUE] = null;
+            _slots[RECON] = null;
+        } else {
+            _slots[CELL] = LAZY;
+            _slots[VALUE] = cell.value;
+            _slots[RECON] = cell.recon;
+        }
+    }
+
+    public Object getSlot(int index) {
+        if (index >= _slots.length) {
+            return null;
+        }
+        Object v = _slots[index];
+        if (v == LAZY) {
+            v = materialize(index);
+            _slots[index] = v;
+        }
+        return v;
+    }
+
+    public Object setSlot(int index, Object value) {
+        Object previous = getSlot(index);
+        if (index >= _slots.length) {
+            _slots = Arrays.copyOf(_slots, Math.max(index + 1, s_slotNames.size()));
+        }
+        _slots[index] = value;
+        return previous;
+    }
+
+    protected Object materialize(int index) {
+        if (index == ROW_INDEX) {
+            return _rowIndex;
+        } else if (index == ROW) {
+            return new WrappedRow(_project, _rowIndex, _row);
+        } else if (index == CELLS) {
+            return new CellTuple(_project, _row);
+        } else {
+            return new WrappedCell(_project, _cellColumnName, _cell);
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = key instanceof String ? getSlotIndex((String) key) : -1;
+        return index >= 0 ? getSlot(index) : super.get(key);
+    }
+
+    @Override
+    public Object put(Object key, Object value) {
+        int index = key instanceof String ? getSlotIndex((String) key) : -1;
+        if (index >= 0) {
+            if (value == null) {
+                throw new NullPointerException();
+            }
+            return setSlot(index, value);
+        }
+        return super.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int index = key instanceof String ? getSlotIndex((String) key) : -1;
+        return index >= 0 ? setSlot(index, null) : super.remove(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int index = key instanceof String ? getSlotIndex((String) key) : -1;
+        return index >= 0 ? getSlot(index) != null : super.containsKey(key);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.expr;
+
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Interface for evaluable expressions in any arbitrary language.
+ */
+public interface Evaluable {
+    /**
+     * Evaluate this expression in the given environment (bindings).
+     * 
+     * @param bindings
+     * @return
+     */
+    public Object evaluate(Properties bindings);
+
+    /**
+     * Whether this expression can be evaluated concurrently from several threads,
+     * as long as each thread uses its own bindings. Expressions which rely on shared
+     * mutable state (or on an interpreter which is not thread-safe) must return false,
+     * which is the default.
+     * 
+     * @return true if concurrent evaluation is safe
+     */
+    default public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Returns the names of the columns whose cells this expression reads, when
+     * evaluated on a row. Expressions which read other rows, other projects or
+     * anything else outside of the current row must return null, which is the
+     * default.
+     * 
+     * @param baseColumn
+     *            the name of the column the expression is evaluated on, if any
+     * @return the set of column names, or null if it cannot be determined
+     */
+    default public Set<String> getColumnDependencies(String baseColumn) {
+        return null;
+    }
+}
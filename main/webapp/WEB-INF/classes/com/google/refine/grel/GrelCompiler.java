@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.grel;
+
+import java.util.Properties;
+import java.util.Set;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.expr.Bindings;
+import com.google.refine.expr.EvalError;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.grel.ast.ControlCallExpr;
+import com.google.refine.grel.ast.FieldAccessorExpr;
+import com.google.refine.grel.ast.FunctionCallExpr;
+import com.google.refine.grel.ast.LiteralExpr;
+import com.google.refine.grel.ast.OperatorCallExpr;
+import com.google.refine.grel.ast.VariableExpr;
+
+/**
+ * Compiles a parsed GREL expression into a tree of specialized evaluators.
+ * Operators are resolved once at compile time instead of being looked up
+ * by name for every evaluation, operations on literals are folded, calls
+ * are dispatched without intermediate loops and variables stored in
+ * {@link Bindings} slots are read without any lookup. Nodes which have no specialized
+ * form (controls, or expressions from other languages) are kept as they are and
+ * evaluated by the interpreter, so a compiled expression always evaluates to
+ * the same value as its source.
+ */
+public class GrelCompiler {
+
+    static public boolean isEnabled() {
+        return ProjectManager.singleton == null ||
+                ProjectManager.singleton.getPreferenceStore().getBoolean("grel.compileExpressions", true);
+    }
+
+    /**
+     * Compiles an expression. The returned evaluable behaves like the source
+     * expression: it has the same string representation, thread-safety and
+     * column dependencies.
+     * 
+     * @param source
+     *            the parsed expression
+     * @return the compiled expression
+     */
+    static public Evaluable compile(Evaluable source) {
+        if (source instanceof CompiledExpression) {
+            return source;
+        }
+        return new CompiledExpression(source, compileNode(source));
+    }
+
+    static protected Evaluable compileNode(Evaluable node) {
+        if (node instanceof OperatorCallExpr) {
+            OperatorCallExpr expr = (OperatorCallExpr) node;
+            Evaluable[] args = compileNodes(expr.getArgs());
+            Operator op = Operator.fromString(expr.getOperator());
+            if (op == null || args.length != 2) {
+                return new OperatorCallExpr(args, expr.getOperator());
+            }
+            BinaryOperation operation = new BinaryOperation(op, args[0], args[1]);
+            if (args[0] instanceof LiteralExpr && args[1] instanceof LiteralExpr) {
+                return fold(operation);
+            }
+            return operation;
+        } else if (node instanceof FunctionCallExpr) {
+            FunctionCallExpr expr = (FunctionCallExpr) node;
+            Evaluable[] args = compileNodes(expr.getArgs());
+            switch (args.length) {
+            case 1:
+                return new UnaryFunctionCall(expr.getFunction(), args[0]);
+            case 2:
+                return new BinaryFunctionCall(expr.getFunction(), args[0], args[1]);
+            default:
+                return new FunctionCallExpr(args, expr.getFunction());
+            }
+        } else if (node instanceof FieldAccessorExpr) {
+            FieldAccessorExpr expr = (FieldAccessorExpr) node;
+            return new FieldAccessorExpr(compileNode(expr.getInner()), expr.getFieldName());
+        } else if (node instanceof ControlCallExpr) {
+            // controls evaluate their arguments lazily and inspect variable names,
+            // which are left untouched by the compilation
+            ControlCallExpr expr = (ControlCallExpr) node;
+            return new ControlCallExpr(compileNodes(expr.getArgs()), expr.getControl());
+        } else if (node instanceof VariableExpr) {
+            String name = ((VariableExpr) node).getName();
+            int slot = Bindings.getSlotIndex(name);
+            return slot >= 0 ? new SlotVariable(name, slot) : node;
+        }
+        // literals, other variables and foreign expressions
+        return node;
+    }
+
+    static protected Evaluable[] compileNodes(Evaluable[] nodes) {
+        Evaluable[] compiled = new Evaluable[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            compiled[i] = compileNode(nodes[i]);
+        }
+        return compiled;
+    }
+
+    static protected Evaluable fold(Evaluable constantNode) {
+        Object value;
+        try {
+            value = constantNode.evaluate(new Properties());
+        } catch (RuntimeException e) {
+            // keep the failure for evaluation time
+            return constantNode;
+        }
+        if (value == null || value instanceof EvalError) {
+            return constantNode;
+        }
+        return new LiteralExpr(value);
+    }
+
+    /**
+     * A compiled expression, which keeps its source for everything but evaluation.
+     */
+    static public class CompiledExpression implements Evaluable {
+        final protected Evaluable _source;
+        final protected Evaluable _compiled;
+
+        protected CompiledExpression(Evaluable source, Evaluable compiled) {
+            _source = source;
+            _compiled = compiled;
+        }
+
+        @Override
+        public Object evaluate(Properties bindings) {
+            return _compiled.evaluate(bindings);
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return _source.isThreadSafe();
+        }
+
+        @Override
+        public Set<String> getColumnDependencies(String baseColumn) {
+            return _source.getColumnDependencies(baseColumn);
+        }
+
+        public Evaluable getSource() {
+            return _source;
+        }
+
+        @Override
+        public String toString() {
+            return _source.toString();
+        }
+    }
+
+    /**
+     * Binary operators, with the same semantics as {@link OperatorCallExpr}.
+     */
+    static protected enum Operator {
+        PLUS("+") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 + n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 + n2;
+            }
+
+            @Override
+            Object apply(Object o1, Object o2) {
+                return o1 != null && o2 != null ? o1.toString() + o2.toString() : null;
+            }
+        },
+        MINUS("-") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 - n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 - n2;
+            }
+        },
+        TIMES("*") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 * n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 * n2;
+            }
+        },
+        DIVIDE("/") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 / n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 / n2;
+            }
+        },
+        MODULO("%") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 % n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 % n2;
+            }
+        },
+        GREATER(">") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 > n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 > n2;
+            }
+        },
+        GREATER_OR_EQUAL(">=") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 >= n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 >= n2;
+            }
+        },
+        LESS("<") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 < n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 < n2;
+            }
+        },
+        LESS_OR_EQUAL("<=") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 <= n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 <= n2;
+            }
+        },
+        EQUAL("==") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 == n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 == n2;
+            }
+
+            @Override
+            Object apply(Object o1, Object o2) {
+                return o1 != null ? o1.equals(o2) : o2 == null;
+            }
+        },
+        NOT_EQUAL("!=") {
+            @Override
+            Object apply(long n1, long n2) {
+                return n1 != n2;
+            }
+
+            @Override
+            Object apply(double n1, double n2) {
+                return n1 != n2;
+            }
+
+            @Override
+            Object apply(Object o1, Object o2) {
+                return o1 != null ? !o1.equals(o2) : o2 != null;
+            }
+        };
+
+        final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        abstract Object apply(long n1, long n2);
+
+        abstract Object apply(double n1, double n2);
+
+        /**
+         * Applies the operator to operands which are not both numbers.
+         */
+        Object apply(Object o1, Object o2) {
+            return null;
+        }
+
+        static Operator fromString(String symbol) {
+            for (Operator op : values()) {
+                if (op.symbol.equals(symbol)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    static protected class BinaryOperation implements Evaluable {
+        final protected Operator  _op;
+        final protected Evaluable _left;
+        final protected Evaluable _right;
+
+        protected BinaryOperation(Operator op, Evaluable left, Evaluable right) {
+            _op = op;
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        public Object evaluate(Properties bindings) {
+            Object o1 = _left.evaluate(bindings);
+            if (ExpressionUtils.isError(o1)) {
+                return o1;
+            }
+            Object o2 = _right.evaluate(bindings);
+            if (ExpressionUtils.isError(o2)) {
+                return o2;
+            }
+            if (o1 instanceof Number && o2 instanceof Number) {
+                if (isIntegral(o1) && isIntegral(o2)) {
+                    return _op.apply(((Number) o1).longValue(), ((Number) o2).longValue());
+                }
+                return _op.apply(((Number) o1).doubleValue(), ((Number) o2).doubleValue());
+            }
+            return _op.apply(o1, o2);
+        }
+
+        static private boolean isIntegral(Object n) {
+            return n instanceof Long || n instanceof Integer;
+        }
+    }
+
+    /**
+     * A variable read from its slot. It remains a {@link VariableExpr} because
+     * controls expect their variable arguments to be one.
+     */
+    static protected class SlotVariable extends VariableExpr {
+        final protected int _slot;
+
+        protected SlotVariable(String name, int slot) {
+            super(name);
+            _slot = slot;
+        }
+
+        @Override
+        public Object evaluate(Properties bindings) {
+            return bindings instanceof Bindings ? ((Bindings) bindings).getSlot(_slot) : bindings.get(_name);
+        }
+    }
+
+    static protected class UnaryFunctionCall implements Evaluable {
+        final protected Function  _function;
+        final protected Evaluable _arg;
+
+        protected UnaryFunctionCall(Function function, Evaluable arg) {
+            _function = function;
+            _arg = arg;
+        }
+
+        @Override
+        public Object evaluate(Properties bindings) {
+            Object v = _arg.evaluate(bindings);
+            if (ExpressionUtils.isError(v)) {
+                return v;
+            }
+            try {
+                return _function.call(bindings, new Object[] { v });
+            } catch (Exception e) {
+                return new EvalError(e);
+            }
+        }
+    }
+
+    static protected class BinaryFunctionCall implements Evaluable {
+        final protected Function  _function;
+        final protected Evaluable _arg1;
+        final protected Evaluable _arg2;
+
+        protected BinaryFunctionCall(Function function, Evaluable arg1, Evaluable arg2) {
+            _function = function;
+            _arg1 = arg1;
+            _arg2 = arg2;
+        }
+
+        @Override
+        public Object evaluate(Properties bindings) {
+            Object v1 = _arg1.evaluate(bindings);
+            if (ExpressionUtils.isError(v1)) {
+                return v1;
+            }
+            Object v2 = _arg2.evaluate(bindings);
+            if (ExpressionUtils.isError(v2)) {
+                return v2;
+            }
+            try {
+                return _function.call(bindings, new Object[] { v1, v2 });
+            } catch (Exception e) {
+                return new EvalError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.history;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.refine.expr.EvalError;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Recon;
+import com.google.refine.util.ParsingUtilities;
+import com.google.refine.util.Pool;
+
+/**
+ * Reads what a {@link BinaryChangeWriter} wrote.
+ */
+public class BinaryChangeReader {
+
+    final protected DataInputStream _in;
+    final protected Pool _pool;
+    final protected List<String> _dictionary = new ArrayList<>();
+
+    public BinaryChangeReader(InputStream in, Pool pool) {
+        _in = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+        _pool = pool;
+    }
+
+    public Pool getPool() {
+        return _pool;
+    }
+
+    public boolean readBoolean() throws IOException {
+        return _in.readBoolean();
+    }
+
+    public int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    public long readVarLong() throws IOException {
+        long n = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed variable-length integer");
+            }
+            b = _in.readUnsignedByte();
+            n |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return n;
+    }
+
+    public int readSignedVarInt() throws IOException {
+        int n = readVarInt();
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        _in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int[] readRowIndices(int count) throws IOException {
+        int[] rows = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readSignedVarInt();
+            rows[i] = previous;
+        }
+        return rows;
+    }
+
+    public Cell readCell() throws Exception {
+        int tag = _in.readUnsignedByte();
+        Serializable value;
+        switch (tag & ~BinaryChangeWriter.RECON_FLAG) {
+        case BinaryChangeWriter.TAG_NULL_CELL:
+            return null;
+        case BinaryChangeWriter.TAG_NULL_VALUE:
+            value = null;
+            break;
+        case BinaryChangeWriter.TAG_NEW_STRING:
+            value = readString();
+            _dictionary.add((String) value);
+            break;
+        case BinaryChangeWriter.TAG_STRING_REF:
+            value = _dictionary.get(readVarInt());
+            break;
+        case BinaryChangeWriter.TAG_STRING:
+            value = readString();
+            break;
+        case BinaryChangeWriter.TAG_INTEGER:
+            value = _in.readInt();
+            break;
+        case BinaryChangeWriter.TAG_LONG:
+            value = _in.readLong();
+            break;
+        case BinaryChangeWriter.TAG_DOUBLE:
+            value = _in.readDouble();
+            break;
+        case BinaryChangeWriter.TAG_TRUE:
+            value = Boolean.TRUE;
+            break;
+        case BinaryChangeWriter.TAG_FALSE:
+            value = Boolean.FALSE;
+            break;
+        case BinaryChangeWriter.TAG_DATE:
+            value = ParsingUtilities.stringToDate(readString());
+            break;
+        case BinaryChangeWriter.TAG_ERROR:
+            value = new EvalError(readString());
+            break;
+        case BinaryChangeWriter.TAG_JSON:
+            return Cell.loadStreaming(readString(), _pool);
+        default:
+            throw new IOException("Unknown cell tag " + tag);
+        }
+        Recon recon = null;
+        if ((tag & BinaryChangeWriter.RECON_FLAG) != 0) {
+            recon = _pool.getRecon(Long.toString(readVarLong()));
+        }
+        return new Cell(value, recon);
+    }
+}
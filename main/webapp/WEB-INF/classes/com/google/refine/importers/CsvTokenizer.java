@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package com.google.refine.importers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import au.com.bytecode.opencsv.CSVParser;
+
+/**
+ * Splits separator-based text into rows of cells the way {@link CSVParser}
+ * does when fed line by line with {@link SeparatorBasedImporter#getCells},
+ * but works directly on character buffers, reuses its field buffer and does
+ * not go through intermediate strings for each line.
+ * <p>
+ * A tokenizer keeps the state of a record spanning several lines (because of
+ * a quoted field containing line breaks) from one call to the next, and is
+ * not thread-safe.
+ */
+public class CsvTokenizer {
+    final private char[] _separator;
+    final private char _quote;
+    final private boolean _strictQuotes;
+    final private boolean _ignoreQuotations;
+    final private boolean _ignoreLeadingWhiteSpace = CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE;
+
+    // the field being read
+    private char[] _field = new char[128];
+    private int _fieldLength;
+    // the cells of the record being read
+    private String[] _tokens = new String[16];
+    private int _tokenCount;
+    // the start of a quoted field continued on the next line, as in CSVParser
+    private String _pending;
+    private boolean _inField;
+
+    /**
+     * @param separator the separator, which can be longer than one character
+     * @param quote the quote character
+     * @param strictQuotes whether characters outside quotes are ignored
+     * @param ignoreQuotations whether quotes are ignored altogether
+     */
+    public CsvTokenizer(String separator, char quote, boolean strictQuotes, boolean ignoreQuotations) {
+        _separator = separator.toCharArray();
+        _quote = quote;
+        _strictQuotes = strictQuotes;
+        _ignoreQuotations = ignoreQuotations;
+    }
+
+    /**
+     * Tokenizes all the records in a range of a buffer, which must end with a
+     * line break unless it is the end of the input.
+     * 
+     * @param endOfInput
+     *            whether the range is the end of the input: a quoted field
+     *            still open is then closed, as a record of its own would be
+     * @return the rows of cells, which the caller owns
+     */
+    public List<List<Object>> tokenize(char[] buffer, int start, int end, boolean endOfInput) {
+        List<List<Object>> rows = new ArrayList<>();
+        int pos = start;
+        while (pos < end) {
+            int lineEnd = pos;
+            while (lineEnd < end && buffer[lineEnd] != '\n' && buffer[lineEnd] != '\r') {
+                lineEnd++;
+            }
+            boolean pending = tokenizeLine(buffer, pos, lineEnd);
+
+            pos = lineEnd + 1;
+            if (lineEnd + 1 < end && buffer[lineEnd] == '\r' && buffer[lineEnd + 1] == '\n') {
+                pos++;
+            }
+            if (!pending) {
+                rows.add(takeRow());
+            }
+        }
+        if (endOfInput && _pending != null) {
+            addToken(_pending);
+            _pending = null;
+            rows.add(takeRow());
+        }
+        return rows;
+    }
+
+    /**
+     * @return whether the last record read is not complete yet
+     */
+    public boolean isPending() {
+        return _pending != null;
+    }
+
+    /**
+     * Takes over the incomplete record of another tokenizer, so that the
+     * following lines can be read by this one.
+     */
+    public void continueFrom(CsvTokenizer other) {
+        _pending = other._pending;
+        _inField = other._inField;
+        _tokenCount = 0;
+        for (int i = 0; i < other._tokenCount; i++) {
+            addToken(other._tokens[i]);
+        }
+    }
+
+    /**
+     * Mirrors CSVParser.parseLineMulti, without the escape character which the
+     * importer does not use.
+     * 
+     * @return whether the line ends inside a quoted field
+     */
+    protected boolean tokenizeLine(char[] line, int start, int end) {
+        final int n = end - start;
+        final int sepLength = _separator.length;
+        boolean inQuotes = false;
+
+        _fieldLength = 0;
+        if (_pending != null) {
+            append(_pending);
+            _pending = null;
+            inQuotes = !_ignoreQuotations;
+        } else {
+            _inField = false;
+        }
+
+        for (int p = start; p < end; p++) {
+            final char c = line[p];
+            final int i = p - start;
+            if (c == _quote) {
+                if (_inField && i + 1 < n && line[p + 1] == _quote) {
+                    append(line[p + 1]);
+                    p++;
+                } else if (!_strictQuotes && i > 0
+                        && (sepLength > i || !matchesSeparator(line, p - sepLength))
+                        && i < n - 1
+                        && (i + sepLength >= n || !matchesSeparator(line, p + 1))) {
+                    // a quote in the middle of a field
+                    if (_ignoreLeadingWhiteSpace && _fieldLength > 0 && isAllWhiteSpace()) {
+                        _fieldLength = 0;
+                        inQuotes = true;
+                        _inField = true;
+                    } else {
+                        append(c);
+                    }
+                } else {
+                    inQuotes = !inQuotes;
+                    _inField = !_inField;
+                }
+            } else if ((!inQuotes || _ignoreQuotations) && c == _separator[0]
+                    && n >= i + sepLength && matchesSeparator(line, p)) {
+                addToken(new String(_field, 0, _fieldLength));
+                _fieldLength = 0;
+                p += sepLength - 1;
+                _inField = false;
+            } else if (!_strictQuotes || (inQuotes && !_ignoreQuotations)) {
+                append(c);
+                _inField = true;
+            }
+        }
+
+        if (inQuotes && !_ignoreQuotations) {
+            append('\n');
+            _pending = new String(_field, 0, _fieldLength);
+            return true;
+        }
+        addToken(new String(_field, 0, _fieldLength));
+        return false;
+    }
+
+    private boolean matchesSeparator(char[] line, int p) {
+        for (int j = 0; j < _separator.length; j++) {
+            if (line[p + j] != _separator[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAllWhiteSpace() {
+        for (int j = 0; j < _fieldLength; j++) {
+            if (!Character.isWhitespace(_field[j])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void append(char c) {
+        if (_fieldLength == _field.length) {
+            _field = Arrays.copyOf(_field, _field.length * 2);
+        }
+        _field[_fieldLength++] = c;
+    }
+
+    private void append(String s) {
+        for (int j = 0; j < s.length(); j++) {
+            append(s.charAt(j));
+        }
+    }
+
+    private void addToken(String token) {
+        if (_tokenCount == _tokens.length) {
+            _tokens = Arrays.copyOf(_tokens, _tokens.length * 2);
+        }
+        _tokens[_tokenCount++] = token;
+    }
+
+    private List<Object> takeRow() {
+        Object[] cells = Arrays.copyOf(_tokens, _tokenCount, Object[].class);
+        _tokenCount = 0;
+        return Arrays.asList(cells);
+    }
+}
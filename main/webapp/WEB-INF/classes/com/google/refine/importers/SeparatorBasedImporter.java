@@ -0,0 +1,498 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.importers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.refine.ProjectManager;
+import com.google.refine.ProjectMetadata;
+import com.google.refine.importing.ImportingJob;
+import com.google.refine.importing.ImportingUtilities;
+import com.google.refine.model.Project;
+import com.google.refine.util.JSONUtilities;
+
+import au.com.bytecode.opencsv.CSVParser;
+
+public class SeparatorBasedImporter extends TabularImportingParserBase {
+    public SeparatorBasedImporter() {
+        super(false);
+    }
+    
+    @Override
+    public ObjectNode createParserUIInitializationData(ImportingJob job,
+            List<ObjectNode> fileRecords, String format) {
+        ObjectNode options = super.createParserUIInitializationData(job, fileRecords, format);
+        
+        String separator = guessSeparator(job, fileRecords);
+        JSONUtilities.safePut(options, "separator", separator != null ? separator : "\\t");
+        
+        JSONUtilities.safePut(options, "guessCellValueTypes", false);
+        JSONUtilities.safePut(options, "processQuotes", true);
+        JSONUtilities.safePut(options, "quoteCharacter", String.valueOf(CSVParser.DEFAULT_QUOTE_CHARACTER));
+        JSONUtilities.safePut(options, "trimStrings", true);
+
+        return options;
+    }
+    
+    @Override
+    public void parseOneFile(
+        Project project,
+        ProjectMetadata metadata,
+        ImportingJob job,
+        String fileSource,
+        Reader reader,
+        int limit,
+        ObjectNode options,
+        List<Exception> exceptions
+    ) {
+        String sep = JSONUtilities.getString(options, "separator", "\\t");
+        if (sep == null || "".equals(sep)) {
+            sep = "\\t";
+        }
+        sep = StringEscapeUtils.unescapeJava(sep);
+        boolean processQuotes = JSONUtilities.getBoolean(options, "processQuotes", true);
+        boolean strictQuotes = JSONUtilities.getBoolean(options, "strictQuotes", false);
+        
+        
+        List<Object> retrievedColumnNames = null;
+        if (options.has("columnNames")) {
+          String[] strings = JSONUtilities.getStringArray(options, "columnNames");
+          if (strings.length > 0) {
+            retrievedColumnNames = new ArrayList<Object>();
+            for (String s : strings) {
+              s = s.trim();
+              if (!s.isEmpty()) {
+                retrievedColumnNames.add(s);
+              }
+            }
+
+            if (!retrievedColumnNames.isEmpty()) {
+              JSONUtilities.safePut(options, "headerLines", 1);
+            } else {
+              retrievedColumnNames = null;
+            }
+          }
+        }
+        
+        final List<Object> columnNames = retrievedColumnNames;
+        
+        Character quote = CSVParser.DEFAULT_QUOTE_CHARACTER;
+        String quoteCharacter = JSONUtilities.getString(options, "quoteCharacter", null);
+        if (quoteCharacter != null && quoteCharacter.trim().length() == 1) {
+            quote = quoteCharacter.trim().charAt(0);
+        }
+        
+        final CSVParser parser = new CSVParser(
+            sep,
+            quote,
+            (char) 0, // we don't want escape processing
+            strictQuotes,
+            CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE,
+            !processQuotes);
+        
+        int threads = getParsingThreads();
+        if (threads > 1) {
+            ChunkedTableDataReader dataReader = new ChunkedTableDataReader(
+                    reader, columnNames, sep, quote, strictQuotes, !processQuotes, threads, CHUNK_SIZE);
+            try {
+                TabularImportingParserBase.readTable(project, job, dataReader, limit, options, exceptions);
+            } finally {
+                dataReader.close();
+            }
+            return;
+        }
+        
+        final LineNumberReader lnReader = new LineNumberReader(reader);
+        
+        TableDataReader dataReader = new TableDataReader() {
+            boolean usedColumnNames = false;
+            @Override
+            public List<Object> getNextRowOfCells() throws IOException {
+                if (columnNames != null && !usedColumnNames) {
+                    usedColumnNames = true;
+                    return columnNames;
+                } else {
+                    String line = lnReader.readLine();
+                    if (line == null) {
+                        return null;
+                    } else {
+                        return getCells(line, parser, lnReader);
+                    }
+                }
+            }
+        };
+        
+        TabularImportingParserBase.readTable(project, job, dataReader, limit, options, exceptions);
+    }
+    
+    /**
+     * Preference giving the number of threads tokenizing a file. Above 1, the
+     * file is read in chunks which are tokenized concurrently.
+     */
+    static final public String PARSING_THREADS_PREF = "importing.separatorParsingThreads";
+
+    static final protected int CHUNK_SIZE = 1 << 20;
+
+    static protected int getParsingThreads() {
+        if (ProjectManager.singleton == null) {
+            return 1;
+        }
+        return Math.max(1, ProjectManager.singleton.getPreferenceStore().getInteger(PARSING_THREADS_PREF, 1));
+    }
+
+    /**
+     * Reads the text in chunks ending at line breaks, preferably outside of
+     * quotes, and tokenizes them on a pool of threads while returning the rows
+     * of the earlier ones in order.
+     * <p>
+     * Each chunk is tokenized as if it started a record. When a chunk turns out
+     * to end inside a quoted field, the next one is tokenized again once that
+     * field is known, so the rows are always the same as when reading the text
+     * line by line.
+     */
+    static protected class ChunkedTableDataReader implements TableDataReader {
+        final private Reader _reader;
+        final private String _separator;
+        final private char _quote;
+        final private boolean _strictQuotes;
+        final private boolean _ignoreQuotations;
+        final private int _chunkSize;
+        final private int _maxChunksInFlight;
+        final private ExecutorService _executor;
+        final private Deque<Future<Chunk>> _chunks = new ArrayDeque<>();
+
+        private List<Object> _columnNames;
+        private char[] _remainder = new char[0];
+        private boolean _endOfInput;
+        private Chunk _chunk;
+        private int _rowIndex;
+
+        protected ChunkedTableDataReader(Reader reader, List<Object> columnNames, String separator, char quote,
+                boolean strictQuotes, boolean ignoreQuotations, int threads, int chunkSize) {
+            _reader = reader;
+            _columnNames = columnNames;
+            _separator = separator;
+            _quote = quote;
+            _strictQuotes = strictQuotes;
+            _ignoreQuotations = ignoreQuotations;
+            _chunkSize = chunkSize;
+            _maxChunksInFlight = threads * 2;
+            _executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "separator-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public List<Object> getNextRowOfCells() throws IOException {
+            if (_columnNames != null) {
+                List<Object> columnNames = _columnNames;
+                _columnNames = null;
+                return columnNames;
+            }
+            while (_chunk == null || _rowIndex >= _chunk.rows.size()) {
+                Chunk previous = _chunk;
+                while (!_endOfInput && _chunks.size() < _maxChunksInFlight) {
+                    Chunk chunk = readChunk();
+                    _chunks.add(_executor.submit(() -> {
+                        chunk.tokenize(newTokenizer());
+                        return chunk;
+                    }));
+                }
+                if (_chunks.isEmpty()) {
+                    return null;
+                }
+                _chunk = getChunk(_chunks.poll());
+                _rowIndex = 0;
+                if (previous != null && previous.tokenizer.isPending()) {
+                    // the chunk does not start a record after all
+                    CsvTokenizer tokenizer = newTokenizer();
+                    tokenizer.continueFrom(previous.tokenizer);
+                    _chunk.tokenize(tokenizer);
+                }
+            }
+            return _chunk.rows.get(_rowIndex++);
+        }
+
+        protected CsvTokenizer newTokenizer() {
+            return new CsvTokenizer(_separator, _quote, _strictQuotes, _ignoreQuotations);
+        }
+
+        private Chunk getChunk(Future<Chunk> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+
+        /**
+         * Reads at least a chunk's worth of characters, and cuts them after the
+         * last line break where quotes are balanced, or the last line break if
+         * there is none. What follows the cut is kept for the next chunk.
+         */
+        private Chunk readChunk() throws IOException {
+            char[] buffer = Arrays.copyOf(_remainder, Math.max(_chunkSize, _remainder.length * 2));
+            int length = _remainder.length;
+            int cut = -1;
+            while (true) {
+                while (length < buffer.length) {
+                    int read = _reader.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        _endOfInput = true;
+                        break;
+                    }
+                    length += read;
+                }
+                if (_endOfInput) {
+                    _remainder = new char[0];
+                    return new Chunk(buffer, length, true);
+                }
+                cut = findCut(buffer, length);
+                if (cut > 0) {
+                    break;
+                }
+                // a single line longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            _remainder = Arrays.copyOfRange(buffer, cut, length);
+            return new Chunk(buffer, cut, false);
+        }
+
+        private int findCut(char[] buffer, int length) {
+            boolean inQuotes = false;
+            int lastBreak = -1;
+            int lastBalancedBreak = -1;
+            for (int i = 0; i < length; i++) {
+                char c = buffer[i];
+                if (c == _quote && !_ignoreQuotations) {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n') {
+                    lastBreak = i + 1;
+                    if (!inQuotes) {
+                        lastBalancedBreak = i + 1;
+                    }
+                }
+            }
+            return lastBalancedBreak > 0 ? lastBalancedBreak : lastBreak;
+        }
+
+        public void close() {
+            _executor.shutdownNow();
+        }
+
+        static private class Chunk {
+            final char[] buffer;
+            final int length;
+            final boolean isLast;
+            List<List<Object>> rows;
+            CsvTokenizer tokenizer;
+
+            Chunk(char[] buffer, int length, boolean isLast) {
+                this.buffer = buffer;
+                this.length = length;
+                this.isLast = isLast;
+            }
+
+            void tokenize(CsvTokenizer tokenizer) {
+                this.tokenizer = tokenizer;
+                this.rows = tokenizer.tokenize(buffer, 0, length, isLast);
+            }
+        }
+    }
+
+    static protected ArrayList<Object> getCells(String line, CSVParser parser, LineNumberReader lnReader)
+        throws IOException{
+        
+        ArrayList<Object> cells = new ArrayList<Object>();
+        String[] tokens = parser.parseLineMulti(line);
+        cells.addAll(Arrays.asList(tokens));
+        while (parser.isPending()) {
+            tokens = parser.parseLineMulti(lnReader.readLine());
+            cells.addAll(Arrays.asList(tokens));
+        }
+        return cells;
+    }
+    
+    static public String guessSeparator(ImportingJob job, List<ObjectNode> fileRecords) {
+        for (int i = 0; i < 5 && i < fileRecords.size(); i++) {
+            ObjectNode fileRecord = fileRecords.get(i);
+            String encoding = ImportingUtilities.getEncoding(fileRecord);
+            String location = JSONUtilities.getString(fileRecord, "location", null);
+            
+            if (location != null) {
+                File file = new File(job.getRawDataDir(), location);
+                // Quotes are turned on by default, so use that for guessing
+                Separator separator = guessSeparator(file, encoding, true);
+                if (separator != null) {
+                    return StringEscapeUtils.escapeJava(Character.toString(separator.separator));
+                }
+            }
+        }
+        return null;
+    }
+    
+    static public class Separator {
+        char separator;
+        int totalCount = 0;
+        int totalOfSquaredCount = 0;
+        int currentLineCount = 0;
+        
+        double averagePerLine;
+        double stddev;
+    }
+
+    static public Separator guessSeparator(File file, String encoding) {
+        return guessSeparator(file, encoding, false); // quotes off for backward compatibility
+    }
+
+    // TODO: Move this to the CSV project?
+    static public Separator guessSeparator(File file, String encoding, boolean handleQuotes) {
+        try {
+            InputStream is = new FileInputStream(file);
+            Reader reader = encoding != null ? new InputStreamReader(is, encoding) : new InputStreamReader(is);
+            LineNumberReader lineNumberReader = new LineNumberReader(reader);
+
+            try {
+                List<Separator> separators = new ArrayList<SeparatorBasedImporter.Separator>();
+                Map<Character, Separator> separatorMap = new HashMap<Character, SeparatorBasedImporter.Separator>();
+                
+                int totalChars = 0;
+                int lineCount = 0;
+                boolean inQuote = false;
+                String s;
+                while (totalChars < 64 * 1024 &&
+                       lineCount < 100 &&
+                       (s = lineNumberReader.readLine()) != null) {
+                    
+                    totalChars += s.length() + 1; // count the new line character
+                    if (s.length() == 0) {
+                        continue;
+                    }
+                    if (!inQuote) {
+                        lineCount++;
+                    }
+                    
+                    for (int i = 0; i < s.length(); i++) {
+                        char c = s.charAt(i);
+                        if ('"' == c) {
+                            inQuote = !inQuote;
+                        }
+                        if (!Character.isLetterOrDigit(c) 
+                                && !"\"' .-".contains(s.subSequence(i, i + 1)) 
+                                && (!handleQuotes || !inQuote)) {
+                            Separator separator = separatorMap.get(c);
+                            if (separator == null) {
+                                separator = new Separator();
+                                separator.separator = c;
+                                
+                                separatorMap.put(c, separator);
+                                separators.add(separator);
+                            }
+                            separator.currentLineCount++;
+                        }
+                    }
+                    
+                    if (!inQuote) {
+                        for (Separator separator : separators) {
+                            separator.totalCount += separator.currentLineCount;
+                            separator.totalOfSquaredCount += separator.currentLineCount * separator.currentLineCount;
+                            separator.currentLineCount = 0;
+                        }
+                    }
+                }
+                
+                if (separators.size() > 0) {
+                    for (Separator separator : separators) {
+                        separator.averagePerLine = separator.totalCount / (double) lineCount;
+                         separator.stddev = Math.sqrt(
+                                 (((double)lineCount * separator.totalOfSquaredCount) - (separator.totalCount * separator.totalCount))
+                                        / ((double)lineCount*(lineCount-1))
+                            );
+                    }
+                    
+                    Collections.sort(separators, new Comparator<Separator>() {
+                        @Override
+                        public int compare(Separator sep0, Separator sep1) {
+                            return Double.compare(sep0.stddev / sep0.averagePerLine, 
+                            sep1.stddev / sep1.averagePerLine);
+                        }
+                    });
+                    
+                    Separator separator = separators.get(0);
+                    if (separator.stddev / separator.averagePerLine < 0.1) {
+                        return separator;
+                    }
+                   
+                }
+            } finally {
+                lineNumberReader.close();
+                reader.close();
+                is.close();
+            }
+        } catch (UnsupportedEncodingException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,529 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.refine.ProjectManager;
+import com.google.refine.ProjectMetadata;
+import com.google.refine.RefineServlet;
+import com.google.refine.history.History;
+import com.google.refine.model.columnar.ColumnarCellStore;
+import com.google.refine.model.columnar.ColumnarRow;
+import com.google.refine.model.lazy.LazyRowList;
+import com.google.refine.process.ProcessManager;
+import com.google.refine.util.ParsingUtilities;
+import com.google.refine.util.Pool;
+
+public class Project {
+    final static protected Map<String, Class<? extends OverlayModel>> 
+        s_overlayModelClasses = new HashMap<String, Class<? extends OverlayModel>>();
+    
+    final public long                       id;
+    final public List<Row>                  rows;
+    final public ColumnModel                columnModel = new ColumnModel();
+    final public RecordModel                recordModel = new RecordModel();
+    final public Map<String, OverlayModel>  overlayModels = new HashMap<String, OverlayModel>();
+    final public History                    history;
+    
+    transient public ProcessManager processManager = new ProcessManager();
+    transient private LocalDateTime _lastSave = LocalDateTime.now();
+    transient private ColumnarCellStore _cellStore;
+
+    final static Logger logger = LoggerFactory.getLogger("project");
+
+    static public long generateID() {
+        return System.currentTimeMillis() + Math.round(Math.random() * 1000000000000L);
+    }
+
+    public Project() {
+        id = generateID();
+        rows = new ArrayList<Row>();
+        history = new History(this);
+    }
+
+    protected Project(long id) {
+        this(id, new ArrayList<Row>());
+    }
+
+    protected Project(long id, List<Row> rows) {
+        this.id = id;
+        this.rows = rows;
+        this.history = new History(this);
+    }
+    
+    static public void registerOverlayModel(String modelName, Class<? extends OverlayModel> klass) {
+        s_overlayModelClasses.put(modelName, klass);
+    }
+    
+    /**
+     * Free/dispose of project data from memory.
+     */
+    public void dispose() {
+        for (OverlayModel overlayModel : overlayModels.values()) {
+            try {
+                overlayModel.dispose(this);
+            } catch (Exception e) {
+                logger.warn("Error signaling overlay model before disposing", e);
+            }
+        }
+        ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(this.id);
+        if (rows instanceof LazyRowList) {
+            ((LazyRowList) rows).close();
+        }
+        // The rest of the project should get garbage collected when we return.
+    }
+
+    public LocalDateTime getLastSave(){
+        return this._lastSave;
+    }
+    /**
+     * Sets the lastSave time to now
+     */
+    public void setLastSave(){
+        this._lastSave = LocalDateTime.now();
+    }
+
+    /**
+     * Sets the lastSave time to the time a {@link Snapshot} of the project was
+     * taken, so that changes made while it was written are still saved later.
+     */
+    public void setLastSave(LocalDateTime lastSave) {
+        this._lastSave = lastSave;
+    }
+
+    /**
+     * Whether rows should be kept in a {@link ColumnarCellStore} when projects are
+     * loaded or imported, as set by the "storage.columnar" preference.
+     */
+    static public boolean isColumnarStorageEnabled() {
+        return ProjectManager.singleton != null &&
+                ProjectManager.singleton.getPreferenceStore().getBoolean("storage.columnar", false);
+    }
+
+    /**
+     * @return the columnar store backing the compacted rows of this project
+     */
+    public ColumnarCellStore getCellStore() {
+        if (_cellStore == null) {
+            _cellStore = new ColumnarCellStore();
+        }
+        return _cellStore;
+    }
+
+    /**
+     * Moves all rows which are not yet stored in columnar form to the cell store
+     * of this project. The rows of {@link #rows} are replaced by views, so this
+     * should only be called on projects which are not being modified concurrently.
+     */
+    public void compactRows() {
+        ColumnarCellStore store = getCellStore();
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            if (!(row instanceof ColumnarRow && ((ColumnarRow) row).isStoredIn(store))) {
+                rows.set(i, store.append(row));
+            }
+        }
+    }
+
+    /**
+     * Whether rows of saved projects should be read lazily from a memory-mapped file
+     * when they are loaded, as set by the "storage.lazyLoading" preference.
+     */
+    static public boolean isLazyLoadingEnabled() {
+        return ProjectManager.singleton != null &&
+                ProjectManager.singleton.getPreferenceStore().getBoolean("storage.lazyLoading", false);
+    }
+
+    /**
+     * Loads all rows in memory if they are read lazily from disk, so that they can be
+     * modified. This is called before any change is applied to the project.
+     */
+    public void materializeRows() {
+        if (rows instanceof LazyRowList) {
+            ((LazyRowList) rows).materialize();
+        }
+    }
+
+    public ProjectMetadata getMetadata() {
+        return ProjectManager.singleton.getProjectMetadata(id);
+    }
+
+    public void saveToOutputStream(OutputStream out, Pool pool) throws IOException {
+        saveToOutputStream(out, pool, null);
+    }
+
+    /**
+     * Saves the project in the textual format. If a row file name is given, the rows
+     * are not included, and must be saved separately with
+     * {@link #saveRowsToBinaryStream(OutputStream, Pool)} to the stream passed to
+     * {@link #loadFromInputStream(InputStream, long, Pool, InputStream)} when loading.
+     */
+    public void saveToOutputStream(OutputStream out, Pool pool, String rowFileName) throws IOException {
+        signalBeforeSave();
+        
+        Writer writer = new OutputStreamWriter(out, "UTF-8");
+        try {
+            saveToWriter(writer, saveOptions(pool, rowFileName));
+        } finally {
+            writer.flush();
+        }
+        
+        signalAfterSave();
+    }
+
+    private void signalBeforeSave() {
+        for (OverlayModel overlayModel : overlayModels.values()) {
+            try {
+                overlayModel.onBeforeSave(this);
+            } catch (Exception e) {
+                logger.warn("Error signaling overlay model before saving", e);
+            }
+        }
+    }
+
+    private void signalAfterSave() {
+        for (OverlayModel overlayModel : overlayModels.values()) {
+            try {
+                overlayModel.onAfterSave(this);
+            } catch (Exception e) {
+                logger.warn("Error signaling overlay model after saving", e);
+            }
+        }
+    }
+
+    static private Properties saveOptions(Pool pool, String rowFileName) {
+        Properties options = new Properties();
+        options.setProperty("mode", "save");
+        options.put("pool", pool);
+        if (rowFileName != null) {
+            options.setProperty("rowFile", rowFileName);
+        }
+        return options;
+    }
+
+    protected void saveToWriter(Writer writer, Properties options) throws IOException {
+        saveHeaderToWriter(writer, options);
+        if (options.containsKey("rowFile")) {
+            return;
+        }
+        saveRowsToWriter(writer, options, rows);
+    }
+
+    /**
+     * Saves everything but the rows, ending with the row file name if the
+     * options contain one.
+     */
+    protected void saveHeaderToWriter(Writer writer, Properties options) throws IOException {
+        writer.write(RefineServlet.VERSION); writer.write('\n');
+        
+        writer.write("columnModel=\n"); columnModel.save(writer, options);
+        writer.write("history=\n"); history.save(writer, options);
+        
+        for (String modelName : overlayModels.keySet()) {
+            writer.write("overlayModel:");
+            writer.write(modelName);
+            writer.write("=");
+            
+            ParsingUtilities.saveWriter.writeValue(writer, overlayModels.get(modelName));
+            writer.write('\n');
+        }
+        
+        if (options.containsKey("rowFile")) {
+            writer.write("rowFile="); writer.write(options.getProperty("rowFile")); writer.write('\n');
+        }
+    }
+
+    static protected void saveRowsToWriter(Writer writer, Properties options, List<Row> rows) throws IOException {
+        writer.write("rowCount="); writer.write(Integer.toString(rows.size())); writer.write('\n');
+        for (Row row : rows) {
+            row.save(writer, options); writer.write('\n');
+        }
+    }
+
+    /**
+     * Takes a copy of the state of the project, which can then be saved while the
+     * project keeps being changed. The caller must hold the lock of the project.
+     * 
+     * @param pool
+     *            the pool to add the recons of the saved rows to
+     * @param rowFileName
+     *            the name of the binary row file, or null to save the rows in the
+     *            textual format
+     * @param copyRows
+     *            whether to copy the rows, which can be avoided if the lock of the
+     *            project is held until the snapshot is saved
+     */
+    public Snapshot takeSnapshot(Pool pool, String rowFileName, boolean copyRows) throws IOException {
+        LocalDateTime time = LocalDateTime.now();
+
+        signalBeforeSave();
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(header, "UTF-8");
+        try {
+            saveHeaderToWriter(writer, saveOptions(pool, rowFileName));
+        } finally {
+            writer.flush();
+        }
+        signalAfterSave();
+
+        List<Row> rowsToSave = rows;
+        if (copyRows) {
+            rowsToSave = new ArrayList<Row>(rows.size());
+            for (Row row : rows) {
+                rowsToSave.add(row.dup());
+            }
+        }
+        return new Snapshot(time, header.toByteArray(), rowsToSave, rowFileName != null, pool);
+    }
+
+    /**
+     * The state of a project at some point in time, as taken by
+     * {@link Project#takeSnapshot(Pool, String, boolean)}.
+     */
+    static public class Snapshot {
+        final public LocalDateTime time;
+        final private byte[] _header;
+        final private List<Row> _rows;
+        final private boolean _binaryRows;
+        final private Pool _pool;
+
+        private Snapshot(LocalDateTime time, byte[] header, List<Row> rows, boolean binaryRows, Pool pool) {
+            this.time = time;
+            _header = header;
+            _rows = rows;
+            _binaryRows = binaryRows;
+            _pool = pool;
+        }
+
+        /**
+         * Whether the rows are saved separately with
+         * {@link #saveRowsToBinaryStream(OutputStream)}.
+         */
+        public boolean hasBinaryRows() {
+            return _binaryRows;
+        }
+
+        /**
+         * Saves the project in the textual format, like
+         * {@link Project#saveToOutputStream(OutputStream, Pool, String)}.
+         */
+        public void saveToOutputStream(OutputStream out) throws IOException {
+            out.write(_header);
+            if (!_binaryRows) {
+                Writer writer = new OutputStreamWriter(out, "UTF-8");
+                saveRowsToWriter(writer, saveOptions(_pool, null), _rows);
+                writer.flush();
+            }
+        }
+
+        /**
+         * Saves the rows in the {@link BinaryRowFormat}, like
+         * {@link Project#saveRowsToBinaryStream(OutputStream, Pool)}.
+         */
+        public void saveRowsToBinaryStream(OutputStream out) throws IOException {
+            BinaryRowFormat.RowWriter writer = new BinaryRowFormat.RowWriter(out, _pool, _rows.size());
+            for (Row row : _rows) {
+                writer.writeRow(row);
+            }
+            writer.flush();
+        }
+    }
+
+    /**
+     * Saves the rows of the project in the {@link BinaryRowFormat}. The recons of the
+     * cells are added to the given pool.
+     */
+    public void saveRowsToBinaryStream(OutputStream out, Pool pool) throws IOException {
+        BinaryRowFormat.RowWriter writer = new BinaryRowFormat.RowWriter(out, pool, rows.size());
+        for (Row row : rows) {
+            writer.writeRow(row);
+        }
+        writer.flush();
+    }
+    
+    static public Project loadFromInputStream(InputStream is, long id, Pool pool) throws Exception {
+        return loadFromInputStream(is, id, pool, (InputStream) null);
+    }
+
+    /**
+     * @param rowStream
+     *            the rows saved in the {@link BinaryRowFormat}, if the project was
+     *            saved with a row file
+     */
+    static public Project loadFromInputStream(InputStream is, long id, Pool pool, InputStream rowStream) throws Exception {
+        return loadFromReader(new LineNumberReader(new InputStreamReader(is, "UTF-8")), id, pool, rowStream, null);
+    }
+
+    /**
+     * Loads a project saved with a row file, whose rows are read lazily from the
+     * given list rather than from the row file.
+     */
+    static public Project loadFromInputStream(InputStream is, long id, Pool pool, LazyRowList lazyRows) throws Exception {
+        return loadFromReader(new LineNumberReader(new InputStreamReader(is, "UTF-8")), id, pool, null, lazyRows);
+    }
+    
+    static private Project loadFromReader(
+        LineNumberReader reader,
+        long id,
+        Pool pool,
+        InputStream rowStream,
+        LazyRowList lazyRows
+    ) throws Exception {
+        long start = System.currentTimeMillis();
+        
+        // version of Refine which wrote the file
+        /* String version = */ reader.readLine();
+        
+        Project project = lazyRows != null ? new Project(id, lazyRows) : new Project(id);
+        int maxCellCount = lazyRows != null ? lazyRows.getMaxCellCount() : 0;
+        ColumnarCellStore cellStore = isColumnarStorageEnabled() ? project.getCellStore() : null;
+        
+        ObjectMapper mapper = ParsingUtilities.mapper.copy();
+        InjectableValues injections = new InjectableValues.Std().addValue("project", project);
+        mapper.setInjectableValues(injections);
+        
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int equal = line.indexOf('=');
+            String field = line.substring(0, equal);
+            String value = line.substring(equal + 1);
+            
+            // backward compatibility
+            if ("protograph".equals(field)) {
+                field = "overlayModel:freebaseProtograph";
+            }
+            
+            if ("columnModel".equals(field)) {
+                project.columnModel.load(reader);
+            } else if ("history".equals(field)) {
+                project.history.load(project, reader);
+            } else if ("rowCount".equals(field)) {
+                int count = Integer.parseInt(value);
+
+                for (int i = 0; i < count; i++) {
+                    line = reader.readLine();
+                    if (line != null) {
+                        Row row = Row.load(line, pool);
+                        if (cellStore != null) {
+                            row = cellStore.append(row);
+                        }
+                        project.rows.add(row);
+                        maxCellCount = Math.max(maxCellCount, row.cells.size());
+                    }
+                }
+            } else if ("rowFile".equals(field)) {
+                if (lazyRows != null) {
+                    continue; // rows are read on demand
+                } else if (rowStream == null) {
+                    throw new IOException("Missing row file " + value);
+                }
+                BinaryRowFormat.RowReader rowReader = new BinaryRowFormat.RowReader(rowStream, pool);
+                int count = rowReader.getRowCount();
+                for (int i = 0; i < count; i++) {
+                    Row row = rowReader.readRow();
+                    if (row != null) {
+                        if (cellStore != null) {
+                            row = cellStore.append(row);
+                        }
+                        project.rows.add(row);
+                        maxCellCount = Math.max(maxCellCount, row.cells.size());
+                    }
+                }
+            } else if (field.startsWith("overlayModel:")) {
+                String modelName = field.substring("overlayModel:".length());
+                if (s_overlayModelClasses.containsKey(modelName)) {
+                    Class<? extends OverlayModel> klass = s_overlayModelClasses.get(modelName);
+                    
+                    try {
+                        OverlayModel overlayModel = ParsingUtilities.mapper.readValue(value, klass);
+                        
+                        project.overlayModels.put(modelName, overlayModel);
+                    } catch (IOException e) {
+                        logger.error("Failed to load overlay model " + modelName);
+                    }
+                }
+            }
+        }
+
+        project.columnModel.setMaxCellIndex(maxCellCount - 1);
+
+        logger.info(
+            "Loaded project {} from disk in {} sec(s)",id,Long.toString((System.currentTimeMillis() - start) / 1000)
+        );
+
+        project.update();
+
+        return project;
+    }
+
+    public void update() {
+        columnModel.update();
+        recordModel.update(this);
+    }
+
+    /**
+     * Same as {@link #update()}, for changes which only set the given cells of
+     * the given rows: the record model is then only updated for these rows.
+     */
+    public void update(int[] rowIndices, int[] cellIndices) {
+        columnModel.update();
+        recordModel.update(this, rowIndices, cellIndices);
+    }
+
+
+    //wrapper of processManager variable to allow unit testing
+    //TODO make the processManager variable private, and force all calls through this method
+    public ProcessManager getProcessManager() {
+        return this.processManager;
+    }
+}
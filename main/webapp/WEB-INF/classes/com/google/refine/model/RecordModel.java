@@ -0,0 +1,518 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.model.lazy.LazyRowList;
+
+public class RecordModel  {
+    final static Logger logger = LoggerFactory.getLogger("RecordModel");
+
+    final static public class CellDependency {
+        final public int rowIndex;
+        final public int cellIndex;
+
+        public CellDependency(int rowIndex, int cellIndex) {
+            this.rowIndex = rowIndex;
+            this.cellIndex = cellIndex;
+        }
+        
+        @Override
+        public String toString() {
+            return rowIndex+","+cellIndex;
+        }
+    }
+    
+    final static public class RowDependency {
+        public int recordIndex;
+        public CellDependency[] cellDependencies;
+        public List<Integer> contextRows;
+        
+        @Override
+        public String toString() {
+            return "Idx: "+recordIndex+" CellDeps: "+Arrays.toString(cellDependencies)+" Rows:"+contextRows;
+        }
+    }
+
+    /**
+     * For each row which depends on context rows, its cell dependencies packed
+     * as (cell index, context row index, context cell index) triples. Null for
+     * rows without dependencies, which are the ones starting records.
+     */
+    protected int[][] _dependencies;
+    /**
+     * The index of the first row of each record, in increasing order.
+     */
+    protected int[] _recordStarts;
+    protected int _cellIndexCount;
+    protected List<KeyedGroup> _keyedGroups;
+    /**
+     * A project whose rows are still read lazily from disk, for which the model is
+     * only computed once it is first needed, as this reads all the rows.
+     */
+    protected volatile Project _pendingProject;
+
+    /**
+     * @return the dependencies of the row, or null if the row index is out of range.
+     *         The returned object is a copy: modifying it does not affect the model.
+     */
+    public RowDependency getRowDependency(int rowIndex) {
+        computePendingUpdate();
+        if (_dependencies == null || rowIndex < 0 || rowIndex >= _dependencies.length) {
+            return null;
+        }
+        RowDependency rowDependency = new RowDependency();
+        int[] packed = _dependencies[rowIndex];
+        if (packed == null) {
+            rowDependency.recordIndex = Arrays.binarySearch(_recordStarts, rowIndex);
+        } else {
+            rowDependency.recordIndex = -1;
+            rowDependency.cellDependencies = new CellDependency[_cellIndexCount];
+            rowDependency.contextRows = new ArrayList<Integer>(packed.length / 3);
+            for (int i = 0; i < packed.length; i += 3) {
+                rowDependency.cellDependencies[packed[i]] = new CellDependency(packed[i + 1], packed[i + 2]);
+            }
+            for (CellDependency cd : rowDependency.cellDependencies) {
+                if (cd != null) {
+                    rowDependency.contextRows.add(cd.rowIndex);
+                }
+            }
+            Collections.sort(rowDependency.contextRows);
+        }
+        return rowDependency;
+    }
+
+    @JsonIgnore
+    public int getRecordCount() {
+        computePendingUpdate();
+        return _recordStarts.length;
+    }
+
+    public Record getRecord(int recordIndex) {
+        computePendingUpdate();
+        if (_recordStarts == null || recordIndex < 0 || recordIndex >= _recordStarts.length) {
+            return null;
+        }
+        int toRowIndex = recordIndex + 1 < _recordStarts.length ?
+                _recordStarts[recordIndex + 1] : _dependencies.length;
+        return new Record(_recordStarts[recordIndex], toRowIndex, recordIndex);
+    }
+
+    public Record getRecordOfRow(int rowIndex) {
+        computePendingUpdate();
+        if (_dependencies == null || rowIndex < 0 || rowIndex >= _dependencies.length) {
+            return null;
+        }
+        int[] packed = _dependencies[rowIndex];
+        if (packed != null) {
+            // the record of the first context row
+            int contextRowIndex = Integer.MAX_VALUE;
+            for (int i = 1; i < packed.length; i += 3) {
+                contextRowIndex = Math.min(contextRowIndex, packed[i]);
+            }
+            if (_dependencies[contextRowIndex] != null) {
+                return null;
+            }
+            rowIndex = contextRowIndex;
+        }
+        return getRecord(Arrays.binarySearch(_recordStarts, rowIndex));
+    }
+    
+    @JsonProperty("hasRecords")
+    public boolean hasRecords() {
+        computePendingUpdate();
+        return _recordStarts != null && _dependencies != null &&
+                _recordStarts.length < _dependencies.length;
+    }
+
+    static protected class KeyedGroup {
+        int[]   cellIndices;
+        int     keyCellIndex;
+        
+        @Override
+        public String toString() {
+            StringBuffer sb = new StringBuffer();
+            for (int i:cellIndices) {
+                sb.append(i).append(',');
+            }
+            return "key: " + keyCellIndex + " cells: " + sb.toString();
+        }
+    }
+
+    synchronized public void update(Project project) {
+        synchronized (project) {
+            if (project.rows instanceof LazyRowList && !((LazyRowList) project.rows).isMaterialized()) {
+                // loading the project must not read all of its rows
+                _pendingProject = project;
+                _dependencies = null;
+                _recordStarts = null;
+                return;
+            }
+            rebuild(project);
+        }
+    }
+
+    /**
+     * Computes the model of a project loaded lazily, if it has not been yet.
+     * The project is locked before the model, as history entries do when they
+     * update the model of a project they hold.
+     */
+    protected void computePendingUpdate() {
+        Project project = _pendingProject;
+        if (project != null) {
+            synchronized (project) {
+                synchronized (this) {
+                    if (_pendingProject == project) {
+                        rebuild(project);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the whole model. The caller must hold the locks of the model and of
+     * the project.
+     */
+    protected void rebuild(Project project) {
+        List<Row> rows = project.rows;
+        int rowCount = rows.size();
+
+        List<KeyedGroup> keyedGroups = computeKeyedGroups(project.columnModel);
+        int[] lastNonBlankRowsByGroup = new int[keyedGroups.size()];
+        Arrays.fill(lastNonBlankRowsByGroup, -1);
+
+        _dependencies = new int[rowCount][];
+        _keyedGroups = keyedGroups;
+        _cellIndexCount = project.columnModel.getMaxCellIndex() + 1;
+
+        if (!keyedGroups.isEmpty()) {
+            // without columns, rows do not need to be read
+            for (int r = 0; r < rowCount; r++) {
+                _dependencies[r] = computeDependencies(rows.get(r), keyedGroups, lastNonBlankRowsByGroup, r);
+            }
+        }
+        updateRecordStarts();
+        _pendingProject = null;
+    }
+
+    /**
+     * Updates the model after a change which only modified the given cells of
+     * the given rows, without adding, removing or moving rows. Only the
+     * dependencies of those rows are computed again, unless one of the cells is
+     * a key cell or the column groups changed otherwise, in which case the whole
+     * model is rebuilt.
+     */
+    synchronized public void update(Project project, int[] rowIndices, int[] cellIndices) {
+        synchronized (project) {
+            List<Row> rows = project.rows;
+            List<KeyedGroup> keyedGroups = computeKeyedGroups(project.columnModel);
+            if (_dependencies == null || _dependencies.length != rows.size() ||
+                    !isUnaffected(_keyedGroups, keyedGroups, cellIndices)) {
+                update(project);
+                return;
+            }
+            _keyedGroups = keyedGroups;
+            _cellIndexCount = project.columnModel.getMaxCellIndex() + 1;
+            if (keyedGroups.isEmpty()) {
+                return;
+            }
+
+            int[] sortedRows = rowIndices.clone();
+            Arrays.sort(sortedRows);
+
+            boolean recordsChanged = false;
+            int[] lastNonBlankRowsByGroup = null;
+            int position = 0; // lastNonBlankRowsByGroup holds the context of this row
+            for (int r : sortedRows) {
+                if (r < position || r >= rows.size()) {
+                    continue; // duplicate or out of range
+                }
+                if (lastNonBlankRowsByGroup == null || r - position > MAX_FORWARD_SCAN) {
+                    lastNonBlankRowsByGroup = findContextRows(rows, keyedGroups, r);
+                    if (lastNonBlankRowsByGroup == null) {
+                        // sparse keys: reading back to them for each row costs more than a rebuild
+                        update(project);
+                        return;
+                    }
+                } else {
+                    for (; position < r; position++) {
+                        updateContextRows(rows.get(position), keyedGroups, lastNonBlankRowsByGroup, position);
+                    }
+                }
+                int[] dependencies = computeDependencies(rows.get(r), keyedGroups, lastNonBlankRowsByGroup, r);
+                recordsChanged |= (dependencies == null) != (_dependencies[r] == null);
+                _dependencies[r] = dependencies;
+                position = r + 1;
+            }
+            if (recordsChanged) {
+                updateRecordStarts();
+            }
+        }
+    }
+
+    /**
+     * Beyond this distance between two changed rows, the context of the next one
+     * is looked up backwards rather than by reading all the rows in between.
+     */
+    static final protected int MAX_FORWARD_SCAN = 64;
+
+    /**
+     * Beyond this number of rows read backwards without finding the context of
+     * a changed row, the whole model is rebuilt instead.
+     */
+    static final protected int MAX_BACKWARD_SCAN = 1024;
+
+    static protected boolean isUnaffected(List<KeyedGroup> previous, List<KeyedGroup> current, int[] cellIndices) {
+        if (previous == null || previous.size() != current.size()) {
+            return false;
+        }
+        Set<Integer> changed = new HashSet<>();
+        for (int cellIndex : cellIndices) {
+            changed.add(cellIndex);
+        }
+        for (int g = 0; g < current.size(); g++) {
+            KeyedGroup a = previous.get(g);
+            KeyedGroup b = current.get(g);
+            if (a.keyCellIndex != b.keyCellIndex || changed.contains(b.keyCellIndex) ||
+                    !withoutCells(a.cellIndices, changed).equals(withoutCells(b.cellIndices, changed))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static private Set<Integer> withoutCells(int[] cellIndices, Set<Integer> excluded) {
+        Set<Integer> set = new HashSet<>();
+        for (int cellIndex : cellIndices) {
+            if (!excluded.contains(cellIndex)) {
+                set.add(cellIndex);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Finds, for each group, the last row before the given one where the group
+     * has a key, reading rows backwards.
+     * 
+     * @return the context rows, or null if some of them are more than
+     *         {@link #MAX_BACKWARD_SCAN} rows away
+     */
+    protected int[] findContextRows(List<Row> rows, List<KeyedGroup> keyedGroups, int rowIndex) {
+        int groupCount = keyedGroups.size();
+        int[] lastNonBlankRowsByGroup = new int[groupCount];
+        Arrays.fill(lastNonBlankRowsByGroup, -1);
+        int missing = groupCount;
+        for (int r = rowIndex - 1; r >= 0 && missing > 0; r--) {
+            if (rowIndex - r > MAX_BACKWARD_SCAN) {
+                return null;
+            }
+            Row row = rows.get(r);
+            for (int g = 0; g < groupCount; g++) {
+                if (lastNonBlankRowsByGroup[g] < 0 && hasKey(row, keyedGroups, g)) {
+                    lastNonBlankRowsByGroup[g] = r;
+                    missing--;
+                }
+            }
+        }
+        return lastNonBlankRowsByGroup;
+    }
+
+    protected void updateContextRows(Row row, List<KeyedGroup> keyedGroups, int[] lastNonBlankRowsByGroup, int rowIndex) {
+        for (int g = 0; g < keyedGroups.size(); g++) {
+            if (hasKey(row, keyedGroups, g)) {
+                lastNonBlankRowsByGroup[g] = rowIndex;
+            }
+        }
+    }
+
+    static protected boolean hasKey(Row row, List<KeyedGroup> keyedGroups, int g) {
+        return ExpressionUtils.isNonBlankData(row.getCellValue(keyedGroups.get(0).keyCellIndex)) ||
+                ExpressionUtils.isNonBlankData(row.getCellValue(keyedGroups.get(g).keyCellIndex));
+    }
+
+    /**
+     * Computes the dependencies of a row on its context rows, and records the
+     * row as the context of the following ones for the groups it has a key for.
+     * 
+     * @return the packed dependencies, or null if the row starts a record
+     */
+    protected int[] computeDependencies(Row row, List<KeyedGroup> keyedGroups, int[] lastNonBlankRowsByGroup, int rowIndex) {
+        // indexed by dependent cell index, as later groups override earlier ones
+        int[] contextRows = null;
+        int[] contextCells = null;
+        int count = 0;
+
+        for (int g = 0; g < keyedGroups.size(); g++) {
+            KeyedGroup group = keyedGroups.get(g);
+
+            if (!hasKey(row, keyedGroups, g)) {
+                int contextRowIndex = lastNonBlankRowsByGroup[g];
+                if (contextRowIndex >= 0) {
+                    for (int dependentCellIndex : group.cellIndices) {
+                        if (ExpressionUtils.isNonBlankData(row.getCellValue(dependentCellIndex))) {
+                            if (contextRows == null) {
+                                contextRows = new int[_cellIndexCount];
+                                contextCells = new int[_cellIndexCount];
+                                Arrays.fill(contextRows, -1);
+                            }
+                            if (contextRows[dependentCellIndex] < 0) {
+                                count++;
+                            }
+                            contextRows[dependentCellIndex] = contextRowIndex;
+                            contextCells[dependentCellIndex] = group.keyCellIndex;
+                        }
+                    }
+                }
+            } else {
+                lastNonBlankRowsByGroup[g] = rowIndex;
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        }
+        int[] packed = new int[count * 3];
+        int i = 0;
+        for (int cellIndex = 0; cellIndex < contextRows.length; cellIndex++) {
+            if (contextRows[cellIndex] >= 0) {
+                packed[i++] = cellIndex;
+                packed[i++] = contextRows[cellIndex];
+                packed[i++] = contextCells[cellIndex];
+            }
+        }
+        return packed;
+    }
+
+    protected void updateRecordStarts() {
+        int recordCount = 0;
+        for (int[] dependencies : _dependencies) {
+            if (dependencies == null) {
+                recordCount++;
+            }
+        }
+        _recordStarts = new int[recordCount];
+        int i = 0;
+        for (int r = 0; r < _dependencies.length; r++) {
+            if (_dependencies[r] == null) {
+                _recordStarts[i++] = r;
+            }
+        }
+    }
+
+    protected List<KeyedGroup> computeKeyedGroups(ColumnModel columnModel) {
+        List<KeyedGroup> keyedGroups = new ArrayList<KeyedGroup>();
+
+        addRootKeyedGroup(columnModel, keyedGroups);
+
+        for (ColumnGroup group : columnModel.columnGroups) {
+            if (group.keyColumnIndex >= 0) {
+                KeyedGroup keyedGroup = new KeyedGroup();
+                keyedGroup.keyCellIndex = columnModel.columns.get(group.keyColumnIndex).getCellIndex();
+                keyedGroup.cellIndices = new int[group.columnSpan - 1];
+
+                int c = 0;
+                for (int i = 0; i < group.columnSpan; i++) {
+                    int columnIndex = group.startColumnIndex + i;
+                    if (columnIndex != group.keyColumnIndex && columnIndex < columnModel.columns.size()) {
+                        int cellIndex = columnModel.columns.get(columnIndex).getCellIndex();
+                        keyedGroup.cellIndices[c++] = cellIndex;
+                    }
+                }
+
+                keyedGroups.add(keyedGroup);
+            }
+        }
+
+        Collections.sort(keyedGroups, new Comparator<KeyedGroup>() {
+            @Override
+            public int compare(KeyedGroup o1, KeyedGroup o2) {
+                return o2.cellIndices.length - o1.cellIndices.length; // larger groups first
+            }
+        });
+
+        dumpKeyedGroups(keyedGroups, columnModel); // for debug
+        
+        return keyedGroups;
+    }
+    
+    // debugging helper
+    private void dumpKeyedGroups(List<KeyedGroup> groups, ColumnModel columnModel) {
+        for (KeyedGroup g : groups) {
+            String keyColName = columnModel.getColumnByCellIndex(g.keyCellIndex).getName();
+            StringBuffer sb = new StringBuffer();
+            for (int ci : g.cellIndices) {
+                Column col = columnModel.getColumnByCellIndex(ci);
+                if (col != null) {
+                    // Old projects have col 0 slot empty
+                    sb.append(col.getName()).append(',');
+                }
+            }
+            logger.trace("KeyedGroup " + keyColName + "::" + sb.toString());
+        }
+    }
+
+    protected void addRootKeyedGroup(ColumnModel columnModel, List<KeyedGroup> keyedGroups) {
+        int count = columnModel.getMaxCellIndex() + 1;
+        if (count > 0 && columnModel.getKeyColumnIndex() < columnModel.columns.size()) {
+            KeyedGroup rootKeyedGroup = new KeyedGroup();
+
+            rootKeyedGroup.cellIndices = new int[count - 1];
+            rootKeyedGroup.keyCellIndex = columnModel.columns.get(columnModel.getKeyColumnIndex()).getCellIndex();
+
+            for (int i = 0; i < count; i++) {
+                if (i < rootKeyedGroup.keyCellIndex) {
+                    rootKeyedGroup.cellIndices[i] = i;
+                } else if (i > rootKeyedGroup.keyCellIndex) {
+                    rootKeyedGroup.cellIndices[i - 1] = i;
+                }
+            }
+            keyedGroups.add(rootKeyedGroup);
+        }
+    }
+}
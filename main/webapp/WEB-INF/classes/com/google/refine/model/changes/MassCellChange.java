@@ -0,0 +1,337 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.model.changes;
+
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.Writer;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.history.BinaryChange;
+import com.google.refine.history.BinaryChangeReader;
+import com.google.refine.history.BinaryChangeWriter;
+import com.google.refine.history.Change;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+import com.google.refine.model.columnar.CellColumn;
+import com.google.refine.model.columnar.ColumnarCellStore;
+import com.google.refine.model.columnar.ColumnarRow;
+import com.google.refine.util.Pool;
+
+public class MassCellChange implements BinaryChange {
+    /**
+     * Column versions are only used for changes touching at least one
+     * cell in this many slots of the store.
+     */
+    static final protected int MIN_SLOT_RATIO = 4;
+    
+    final protected CellChange[]  _cellChanges;
+    final protected String        _commonColumnName;
+    final protected boolean       _updateRowContextDependencies;
+    
+    // Versions of the column before and after this change, when its rows are kept
+    // in a columnar store. They are soft references so that they can be dropped
+    // under memory pressure, in which case the cells are written one by one again.
+    transient protected SoftReference<CellColumn> _oldColumn;
+    transient protected SoftReference<CellColumn> _newColumn;
+    
+    public MassCellChange(
+            CellChange[] cellChanges, 
+            String commonColumnName, 
+            boolean updateRowContextDependencies) {
+        
+        _cellChanges = cellChanges;
+        _commonColumnName = commonColumnName;
+        _updateRowContextDependencies = updateRowContextDependencies;
+    }
+    
+    public MassCellChange(
+            List<CellChange> cellChanges, 
+            String commonColumnName, 
+            boolean updateRowContextDependencies) {
+        
+        _cellChanges = new CellChange[cellChanges.size()];
+        _commonColumnName = commonColumnName;
+        cellChanges.toArray(_cellChanges);
+        
+        _updateRowContextDependencies = updateRowContextDependencies;
+    }
+    
+    public MassCellChange(CellChange cellChange, String commonColumnName, boolean updateRowContextDependencies) {
+        _cellChanges = new CellChange[1];
+        _cellChanges[0] = cellChange;
+        
+        _commonColumnName = commonColumnName;
+        
+        _updateRowContextDependencies = updateRowContextDependencies;
+    }
+    
+    @Override
+    public void apply(Project project) {
+        synchronized (project) {
+            List<Row> rows = project.rows;
+            
+            if (!swapColumnVersions(project, true)) {
+                for (CellChange cellChange : _cellChanges) {
+                    rows.get(cellChange.row).setCell(cellChange.cellIndex, cellChange.newCell);
+                }
+            }
+            
+            if (_commonColumnName != null) {
+                Column column = project.columnModel.getColumnByName(_commonColumnName);
+                column.clearPrecomputes();
+                ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id, _commonColumnName);
+            }
+            
+            if (_updateRowContextDependencies) {
+                updateRecordModel(project);
+            }
+        }
+    }
+
+    @Override
+    public void revert(Project project) {
+        synchronized (project) {
+            List<Row> rows = project.rows;
+            
+            if (!swapColumnVersions(project, false)) {
+                for (CellChange cellChange : _cellChanges) {
+                    rows.get(cellChange.row).setCell(cellChange.cellIndex, cellChange.oldCell);
+                }
+            }
+            
+            if (_commonColumnName != null) {
+                Column column = project.columnModel.getColumnByName(_commonColumnName);
+                column.clearPrecomputes();
+                ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id, _commonColumnName);
+            }
+            
+            if (_updateRowContextDependencies) {
+                updateRecordModel(project);
+            }
+        }
+    }
+    
+    protected void updateRecordModel(Project project) {
+        int[] rowIndices = new int[_cellChanges.length];
+        Set<Integer> cellIndices = new HashSet<>();
+        for (int i = 0; i < _cellChanges.length; i++) {
+            rowIndices[i] = _cellChanges[i].row;
+            cellIndices.add(_cellChanges[i].cellIndex);
+        }
+        int[] changedCellIndices = new int[cellIndices.size()];
+        int i = 0;
+        for (int cellIndex : cellIndices) {
+            changedCellIndices[i++] = cellIndex;
+        }
+        project.update(rowIndices, changedCellIndices);
+    }
+
+    /**
+     * Applies or reverts this change by installing a whole version of the column in
+     * the columnar store of the project. The first time the change is applied, the
+     * new version is built as a copy of the current one; afterwards undo and redo
+     * only swap versions. Versions are only swapped if the column is still in the
+     * state this change left it in (or found it in), which holds as long as later
+     * changes were undone first.
+     * 
+     * @return false if the cells have to be written one by one instead
+     */
+    protected boolean swapColumnVersions(Project project, boolean apply) {
+        int count = _cellChanges.length;
+        if (count == 0 || !(project.rows.get(_cellChanges[0].row) instanceof ColumnarRow)) {
+            return false;
+        }
+        ColumnarCellStore store = project.getCellStore();
+        int cellIndex = _cellChanges[0].cellIndex;
+        
+        CellColumn oldColumn = _oldColumn != null ? _oldColumn.get() : null;
+        CellColumn newColumn = _newColumn != null ? _newColumn.get() : null;
+        if (oldColumn != null && newColumn != null) {
+            CellColumn current = store.getColumn(cellIndex);
+            if (current == (apply ? oldColumn : newColumn)) {
+                store.swapColumn(cellIndex, apply ? newColumn : oldColumn);
+                return true;
+            }
+        }
+        _oldColumn = null;
+        _newColumn = null;
+        if (!apply || (long) count * MIN_SLOT_RATIO < store.getSlotCount()) {
+            // copying the whole column would cost more than writing these cells
+            return false;
+        }
+        
+        int[] slots = new int[count];
+        Cell[] cells = new Cell[count];
+        for (int i = 0; i < count; i++) {
+            CellChange cellChange = _cellChanges[i];
+            Row row = project.rows.get(cellChange.row);
+            if (cellChange.cellIndex != cellIndex || !(row instanceof ColumnarRow) ||
+                    !((ColumnarRow) row).isStoredIn(store) || cellIndex >= row.cells.size()) {
+                return false;
+            }
+            slots[i] = ((ColumnarRow) row).getSlot();
+            cells[i] = cellChange.newCell;
+        }
+        newColumn = store.copyColumnWith(cellIndex, slots, cells);
+        oldColumn = store.swapColumn(cellIndex, newColumn);
+        if (oldColumn != null) {
+            _oldColumn = new SoftReference<CellColumn>(oldColumn);
+            _newColumn = new SoftReference<CellColumn>(newColumn);
+        }
+        return true;
+    }
+    
+    @Override
+    public void save(Writer writer, Properties options) throws IOException {
+        if (_commonColumnName != null) {
+            writer.write("commonColumnName="); writer.write(_commonColumnName); writer.write('\n');
+        }
+        writer.write("updateRowContextDependencies="); writer.write(Boolean.toString(_updateRowContextDependencies)); writer.write('\n');
+        writer.write("cellChangeCount="); writer.write(Integer.toString(_cellChanges.length)); writer.write('\n');
+        for (CellChange c : _cellChanges) {
+            c.save(writer, options);
+        }
+        writer.write("/ec/\n"); // end of change marker
+    }
+    
+    @Override
+    public void saveBinary(BinaryChangeWriter writer) throws IOException {
+        writer.writeString(_commonColumnName);
+        writer.writeBoolean(_updateRowContextDependencies);
+        saveCellChanges(writer, _cellChanges);
+    }
+    
+    /**
+     * Writes the cell changes column by column: row indices, cell indices,
+     * old cells and then new cells.
+     */
+    static protected void saveCellChanges(BinaryChangeWriter writer, CellChange[] cellChanges) throws IOException {
+        int count = cellChanges.length;
+        writer.writeVarInt(count);
+        
+        int[] rows = new int[count];
+        boolean sameCellIndex = true;
+        for (int i = 0; i < count; i++) {
+            rows[i] = cellChanges[i].row;
+            sameCellIndex &= cellChanges[i].cellIndex == cellChanges[0].cellIndex;
+        }
+        writer.writeRowIndices(rows);
+        
+        writer.writeBoolean(sameCellIndex);
+        if (sameCellIndex) {
+            writer.writeVarInt(count > 0 ? cellChanges[0].cellIndex : 0);
+        } else {
+            for (CellChange c : cellChanges) {
+                writer.writeVarInt(c.cellIndex);
+            }
+        }
+        
+        for (CellChange c : cellChanges) {
+            writer.writeCell(c.oldCell);
+        }
+        for (CellChange c : cellChanges) {
+            writer.writeCell(c.newCell);
+        }
+    }
+    
+    static public Change loadBinary(BinaryChangeReader reader) throws Exception {
+        String commonColumnName = reader.readString();
+        boolean updateRowContextDependencies = reader.readBoolean();
+        CellChange[] cellChanges = loadCellChanges(reader);
+        
+        return new MassCellChange(cellChanges, commonColumnName, updateRowContextDependencies);
+    }
+    
+    static protected CellChange[] loadCellChanges(BinaryChangeReader reader) throws Exception {
+        int count = reader.readVarInt();
+        int[] rows = reader.readRowIndices(count);
+        
+        int[] cellIndices = new int[count];
+        if (reader.readBoolean()) {
+            Arrays.fill(cellIndices, reader.readVarInt());
+        } else {
+            for (int i = 0; i < count; i++) {
+                cellIndices[i] = reader.readVarInt();
+            }
+        }
+        
+        Cell[] oldCells = new Cell[count];
+        for (int i = 0; i < count; i++) {
+            oldCells[i] = reader.readCell();
+        }
+        CellChange[] cellChanges = new CellChange[count];
+        for (int i = 0; i < count; i++) {
+            cellChanges[i] = new CellChange(rows[i], cellIndices[i], oldCells[i], reader.readCell());
+        }
+        return cellChanges;
+    }
+    
+    static public Change load(LineNumberReader reader, Pool pool) throws Exception {
+        String commonColumnName = null;
+        boolean updateRowContextDependencies = false;
+        CellChange[] cellChanges = null;
+        
+        String line;
+        while ((line = reader.readLine()) != null && !"/ec/".equals(line)) {
+            int equal = line.indexOf('=');
+            CharSequence field = line.subSequence(0, equal);
+            
+            if ("commonColumnName".equals(field)) {
+                commonColumnName = line.substring(equal + 1);
+            } else if ("updateRowContextDependencies".equals(field)) {
+                updateRowContextDependencies = Boolean.parseBoolean(line.substring(equal + 1));
+            } else if ("cellChangeCount".equals(field)) {
+                int cellChangeCount = Integer.parseInt(line.substring(equal + 1));
+                
+                cellChanges = new CellChange[cellChangeCount];
+                for (int i = 0; i < cellChangeCount; i++) {
+                    cellChanges[i] = CellChange.load(reader, pool);
+                }
+            }
+        }
+        
+        MassCellChange change = new MassCellChange(cellChanges, commonColumnName, updateRowContextDependencies);
+        
+        return change;
+    }
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.lazy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import com.google.refine.model.Row;
+import com.google.refine.util.Pool;
+
+/**
+ * A list of rows backed by a memory-mapped {@link RowBlockFile}. Rows are decoded
+ * block by block as they are accessed, and only the most recently used blocks are
+ * kept in memory.
+ * <p>
+ * Since rows handed out by this list are not kept once their block is evicted,
+ * modifications made to them would be lost. The list must therefore be
+ * {@link #materialize() materialized} before any change is applied to the project.
+ * This is done automatically by any structural modification of the list.
+ */
+public class LazyRowList extends AbstractList<Row> implements RandomAccess {
+
+    final protected RowBlockFile _file;
+    final protected Pool _pool;
+    final protected Map<Integer, Row[]> _blocks;
+
+    protected volatile List<Row> _materialized;
+
+    /**
+     * @param file
+     *            the block file to read rows from, owned by this list from now on
+     * @param pool
+     *            the pool to resolve recons from
+     * @param maxCachedBlocks
+     *            the number of decoded blocks to keep in memory
+     */
+    public LazyRowList(RowBlockFile file, Pool pool, int maxCachedBlocks) {
+        _file = file;
+        _pool = pool;
+        _blocks = new LinkedHashMap<Integer, Row[]>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Row[]> eldest) {
+                return size() > maxCachedBlocks;
+            }
+        };
+    }
+
+    @Override
+    public Row get(int index) {
+        List<Row> materialized = _materialized;
+        if (materialized != null) {
+            return materialized.get(index);
+        }
+        if (index < 0 || index >= _file.getRowCount()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        int blockSize = _file.getBlockSize();
+        Row[] block = getBlock(index / blockSize);
+        // the list may have been materialized concurrently
+        return block != null ? block[index % blockSize] : _materialized.get(index);
+    }
+
+    @Override
+    public int size() {
+        List<Row> materialized = _materialized;
+        return materialized != null ? materialized.size() : _file.getRowCount();
+    }
+
+    @Override
+    public Row set(int index, Row row) {
+        return materialize().set(index, row);
+    }
+
+    @Override
+    public void add(int index, Row row) {
+        materialize().add(index, row);
+        modCount++;
+    }
+
+    @Override
+    public Row remove(int index) {
+        Row row = materialize().remove(index);
+        modCount++;
+        return row;
+    }
+
+    /**
+     * @return the largest number of cells in a row, as recorded in the block file
+     */
+    public int getMaxCellCount() {
+        return _file.getMaxCellCount();
+    }
+
+    /**
+     * @return the number of decoded blocks currently kept in memory
+     */
+    synchronized public int getCachedBlockCount() {
+        return _blocks.size();
+    }
+
+    public boolean isMaterialized() {
+        return _materialized != null;
+    }
+
+    /**
+     * Decodes all rows and keeps them in memory from now on, releasing the block file.
+     * 
+     * @return the list of all rows, backing this list
+     */
+    synchronized public List<Row> materialize() {
+        if (_materialized == null) {
+            List<Row> rows = new ArrayList<>(_file.getRowCount());
+            for (int b = 0; b < _file.getBlockCount(); b++) {
+                Row[] block = _blocks.get(b);
+                if (block == null) {
+                    block = readBlock(b);
+                }
+                Collections.addAll(rows, block);
+            }
+            _materialized = rows;
+            _blocks.clear();
+            close();
+        }
+        return _materialized;
+    }
+
+    /**
+     * Releases the block file. Rows which are not materialized cannot be accessed
+     * anymore.
+     */
+    synchronized public void close() {
+        try {
+            _file.close();
+        } catch (IOException e) {
+            // the file was only read from
+        }
+    }
+
+    /**
+     * @return the decoded block, or null if the list is materialized
+     */
+    synchronized protected Row[] getBlock(int block) {
+        if (_materialized != null) {
+            return null;
+        }
+        Row[] rows = _blocks.get(block);
+        if (rows == null) {
+            rows = readBlock(block);
+            _blocks.put(block, rows);
+        }
+        return rows;
+    }
+
+    protected Row[] readBlock(int block) {
+        try {
+            return _file.readBlock(block, _pool);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.lazy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.google.refine.model.BinaryRowFormat;
+import com.google.refine.model.Row;
+import com.google.refine.util.Pool;
+
+/**
+ * An uncompressed file holding the rows of a project in blocks, which can be
+ * memory-mapped and decoded independently of each other.
+ * <p>
+ * The file starts with a header recording the modification time and length of the
+ * project archive it was extracted from, so that stale files are detected, followed
+ * by the offsets of all blocks. Each block is encoded in the {@link BinaryRowFormat}.
+ */
+public class RowBlockFile implements Closeable {
+
+    static final int MAGIC = 0x4F52424B; // "ORBK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4;
+
+    static public final int DEFAULT_BLOCK_SIZE = 1024;
+
+    final protected FileChannel _channel;
+    final protected int _rowCount;
+    final protected int _blockSize;
+    final protected int _maxCellCount;
+    final protected long[] _offsets;
+
+    protected RowBlockFile(FileChannel channel, int rowCount, int blockSize, int maxCellCount, long[] offsets) {
+        _channel = channel;
+        _rowCount = rowCount;
+        _blockSize = blockSize;
+        _maxCellCount = maxCellCount;
+        _offsets = offsets;
+    }
+
+    /**
+     * @param file
+     *            the block file
+     * @param source
+     *            the project archive the block file was extracted from
+     * @return the opened block file, or null if it does not exist or does not match
+     *         the given archive anymore
+     */
+    static public RowBlockFile open(File file, File source) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_SIZE));
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != source.lastModified() || header.getLong() != source.length()) {
+                channel.close();
+                return null;
+            }
+            int rowCount = header.getInt();
+            int blockSize = header.getInt();
+            int maxCellCount = header.getInt();
+            int blockCount = header.getInt();
+
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 8L * (blockCount + 1));
+            long[] offsets = new long[blockCount + 1];
+            for (int i = 0; i <= blockCount; i++) {
+                offsets[i] = index.getLong();
+            }
+            return new RowBlockFile(channel, rowCount, blockSize, maxCellCount, offsets);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a block file from rows read sequentially, replacing any existing file
+     * atomically.
+     */
+    static public void write(File file, File source, BinaryRowFormat.RowReader rows, int blockSize) throws IOException {
+        int rowCount = rows.getRowCount();
+        int blockCount = (rowCount + blockSize - 1) / blockSize;
+        long[] offsets = new long[blockCount + 1];
+        long sourceModified = source.lastModified();
+        long sourceLength = source.length();
+
+        File tempFile = new File(file.getParentFile(), file.getName() + ".temp");
+        int maxCellCount = 0;
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = HEADER_SIZE + 8L * (blockCount + 1);
+            Pool scratchPool = new Pool();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            for (int b = 0; b < blockCount; b++) {
+                int size = Math.min(blockSize, rowCount - b * blockSize);
+                buffer.reset();
+                BinaryRowFormat.RowWriter writer = new BinaryRowFormat.RowWriter(buffer, scratchPool, size);
+                for (int r = 0; r < size; r++) {
+                    Row row = rows.readRow();
+                    maxCellCount = Math.max(maxCellCount, row == null ? 0 : row.cells.size());
+                    writer.writeRow(row);
+                }
+                writer.flush();
+
+                offsets[b] = position;
+                position += writeFully(channel, ByteBuffer.wrap(buffer.toByteArray()), position);
+            }
+            offsets[blockCount] = position;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 8 * (blockCount + 1));
+            header.putInt(MAGIC).putInt(VERSION).putLong(sourceModified).putLong(sourceLength)
+                    .putInt(rowCount).putInt(blockSize).putInt(maxCellCount).putInt(blockCount);
+            for (long offset : offsets) {
+                header.putLong(offset);
+            }
+            header.flip();
+            writeFully(channel, header, 0);
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static protected int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    public int getRowCount() {
+        return _rowCount;
+    }
+
+    public int getBlockSize() {
+        return _blockSize;
+    }
+
+    public int getBlockCount() {
+        return _offsets.length - 1;
+    }
+
+    /**
+     * @return the largest number of cells in a row
+     */
+    public int getMaxCellCount() {
+        return _maxCellCount;
+    }
+
+    /**
+     * Decodes a block of rows from the mapped file.
+     * 
+     * @param pool
+     *            the pool to resolve recons from
+     */
+    public Row[] readBlock(int block, Pool pool) throws IOException {
+        long offset = _offsets[block];
+        ByteBuffer buffer = _channel.map(FileChannel.MapMode.READ_ONLY, offset, _offsets[block + 1] - offset);
+        BinaryRowFormat.RowReader reader = new BinaryRowFormat.RowReader(new ByteBufferInputStream(buffer), pool);
+        Row[] rows = new Row[reader.getRowCount()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = reader.readRow();
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _channel.close();
+    }
+
+    static protected class ByteBufferInputStream extends InputStream {
+        final protected ByteBuffer _buffer;
+
+        protected ByteBufferInputStream(ByteBuffer buffer) {
+            _buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return _buffer.hasRemaining() ? _buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!_buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, _buffer.remaining());
+            _buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.oauth;
+
+import oauth.signpost.OAuthConsumer;
+import oauth.signpost.OAuthProvider;
+import oauth.signpost.commonshttp.CommonsHttpOAuthConsumer;
+import oauth.signpost.commonshttp.CommonsHttpOAuthProvider;
+
+public abstract class Provider {
+
+    protected String host;
+    protected OAuthProvider oauthProvider;
+    
+    public Provider() {
+    }
+
+    public Provider(String host) {
+        this.host = host;
+    }
+    
+    public String getHost() {
+        return host;
+    }
+
+    public String getRealm() {
+        return "http://" + host + "/";
+    }
+    
+    abstract public String getRequestTokenServiceURL();
+    abstract public String getAccessTokenServiceURL();
+    abstract public String getUserAuthorizationURL();
+    
+    public OAuthConsumer createConsumer(String consumerKey, String consumerSecret) {
+        return new CommonsHttpOAuthConsumer(consumerKey, consumerSecret);
+    }
+    
+    public synchronized OAuthProvider getProvider() {
+        if (oauthProvider == null) {
+            oauthProvider = new CommonsHttpOAuthProvider(
+                    getRequestTokenServiceURL(), getAccessTokenServiceURL(), getUserAuthorizationURL());
+        }
+        return oauthProvider;
+    }
+}
@@ -0,0 +1,527 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.operations.recon;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.refine.ProjectManager;
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.history.Change;
+import com.google.refine.history.HistoryEntry;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.model.Recon;
+import com.google.refine.model.Row;
+import com.google.refine.model.changes.CellChange;
+import com.google.refine.model.changes.ReconChange;
+import com.google.refine.model.recon.ReconCache;
+import com.google.refine.model.recon.ReconConfig;
+import com.google.refine.model.recon.ReconJob;
+import com.google.refine.model.recon.StandardReconConfig;
+import com.google.refine.operations.EngineDependentOperation;
+import com.google.refine.process.LongRunningProcess;
+import com.google.refine.process.Process;
+import com.google.refine.util.ParsingUtilities;
+
+public class ReconOperation extends EngineDependentOperation {
+    final static Logger logger = LoggerFactory.getLogger("recon-operation");
+    
+    final protected String      _columnName;
+    final protected ReconConfig _reconConfig;
+    
+    @JsonCreator
+    public ReconOperation(
+        @JsonProperty("engineConfig")
+        EngineConfig engineConfig, 
+        @JsonProperty("columnName")
+        String columnName, 
+        @JsonProperty("config")
+        ReconConfig reconConfig
+    ) {
+        super(engineConfig);
+        _columnName = columnName;
+        _reconConfig = reconConfig;
+    }
+
+    @Override
+    public Process createProcess(Project project, Properties options) throws Exception {
+        return new ReconProcess(
+            project, 
+            getEngineConfig(),
+            getBriefDescription(null)
+        );
+    }
+    
+    @Override
+    protected String getBriefDescription(Project project) {
+        return _reconConfig.getBriefDescription(project, _columnName);
+    }
+    
+    @JsonProperty("config")
+    public ReconConfig getReconConfig() {
+        return _reconConfig;
+    }
+    
+    @JsonProperty("columnName")
+    public String getColumnName() {
+        return _columnName;
+    }
+
+    /**
+     * Number of reconciliation batches sent concurrently to the service,
+     * for configurations which support it. 1 sends them one after the other.
+     */
+    static final public String PARALLEL_REQUESTS_PREF = "recon.parallelRequests";
+    static final public String MAX_BATCH_SIZE_PREF = "recon.maxBatchSize";
+    static final public String TARGET_LATENCY_PREF = "recon.targetBatchLatencyMs";
+    
+    static final public int DEFAULT_MAX_BATCH_SIZE = 100;
+    static final public int DEFAULT_TARGET_LATENCY_MS = 2000;
+    
+    static protected int getParallelRequests() {
+        return Math.max(1, getPreference(PARALLEL_REQUESTS_PREF, 1));
+    }
+    
+    static protected int getPreference(String key, int defaultValue) {
+        if (ProjectManager.singleton == null) {
+            return defaultValue;
+        }
+        return ProjectManager.singleton.getPreferenceStore().getInteger(key, defaultValue);
+    }
+    
+    static protected List<ReconJob> getJobs(List<JobGroup> groups) {
+        List<ReconJob> jobs = new ArrayList<ReconJob>(groups.size());
+        for (JobGroup group : groups) {
+            jobs.add(group.job);
+        }
+        return jobs;
+    }
+    
+    static protected class ReconEntry {
+        final public int rowIndex;
+        final public Cell cell;
+        
+        public ReconEntry(int rowIndex, Cell cell) {
+            this.rowIndex = rowIndex;
+            this.cell = cell;
+        }
+    }
+    static protected class JobGroup {
+        final public ReconJob job;
+        final public List<ReconEntry> entries = new ArrayList<ReconEntry>();
+        public int trials = 0;
+        
+        public JobGroup(ReconJob job) {
+            this.job = job;
+        }
+    }
+    
+    public class ReconProcess extends LongRunningProcess implements Runnable {
+        final protected Project      _project;
+        final protected EngineConfig _engineConfig;
+        final protected long         _historyEntryID;
+        protected List<ReconEntry>   _entries;
+        protected int                _cellIndex;
+        protected ReconCache         _cache; // shared with other projects, null if disabled
+        protected int                _doneGroups;
+        protected int                _totalGroups;
+        @JsonProperty("cacheHits")
+        @JsonInclude(Include.NON_DEFAULT)
+        protected int                _cacheHits;
+        @JsonProperty("cacheMisses")
+        @JsonInclude(Include.NON_DEFAULT)
+        protected int                _cacheMisses;
+        
+        protected final String _addJudgmentFacetJson =
+                "{\n" + 
+                "  \"action\" : \"createFacet\",\n" + 
+                "  \"facetConfig\" : {\n" + 
+                "  \"columnName\" : \"" + _columnName + "\",\n" + 
+                "  \"expression\" : \"forNonBlank(cell.recon.judgment, v, v, if(isNonBlank(value), \\\"(unreconciled)\\\", \\\"(blank)\\\"))\",\n" + 
+                "    \"name\" : \"" + _columnName + ": judgment\"\n" + 
+                "    },\n" + 
+                "    \"facetOptions\" : {\n" + 
+                "      \"scroll\" : false\n" + 
+                "    },\n" + 
+                "    \"facetType\" : \"list\"\n" + 
+                " }";
+        protected final String _addScoreFacetJson = 
+                "{\n" + 
+                "  \"action\" : \"createFacet\",\n" + 
+                "  \"facetConfig\" : {\n" + 
+                "    \"columnName\" : \"" + _columnName + "\",\n" + 
+                "    \"expression\" : \"cell.recon.best.score\",\n" + 
+                "    \"mode\" : \"range\",\n" + 
+                "    \"name\" : \"" + _columnName + ": best candidate's score\"\n" + 
+                "         },\n" + 
+                "         \"facetType\" : \"range\"\n" + 
+                "}";
+        protected JsonNode _addJudgmentFacet, _addScoreFacet;
+        
+        public ReconProcess(
+            Project project, 
+            EngineConfig engineConfig, 
+            String description
+        ) {
+            super(description);
+            _project = project;
+            _engineConfig = engineConfig;
+            _historyEntryID = HistoryEntry.allocateID();
+            _cache = ReconCache.getInstance();
+            try {               
+                _addJudgmentFacet = ParsingUtilities.mapper.readValue(_addJudgmentFacetJson, JsonNode.class);
+                _addScoreFacet = ParsingUtilities.mapper.readValue(_addScoreFacetJson, JsonNode.class);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        @JsonProperty("onDone")
+        public List<JsonNode> onDoneActions() {
+            List<JsonNode> onDone = new ArrayList<>();
+            onDone.add(_addJudgmentFacet);
+            if (_reconConfig instanceof StandardReconConfig) {
+                onDone.add(_addScoreFacet);
+            }
+            return onDone;
+        }
+        
+        @Override
+        protected Runnable getRunnable() {
+            return this;
+        }
+        
+        protected void populateEntries() throws Exception {
+            Engine engine = new Engine(_project);
+            engine.initializeFromConfig(_engineConfig);
+            
+            Column column = _project.columnModel.getColumnByName(_columnName);
+            if (column == null) {
+                throw new Exception("No column named " + _columnName);
+            }
+            
+            _entries = new ArrayList<ReconEntry>(_project.rows.size());
+            _cellIndex = column.getCellIndex();
+            
+            FilteredRows filteredRows = engine.getAllFilteredRows();
+            filteredRows.accept(_project, new RowVisitor() {
+                @Override
+                public void start(Project project) {
+                    // nothing to do
+                }
+
+                @Override
+                public void end(Project project) {
+                    // nothing to do
+                }
+                
+                @Override
+                public boolean visit(Project project, int rowIndex, Row row) {
+                    if (_cellIndex < row.cells.size()) {
+                        Cell cell = row.cells.get(_cellIndex);
+                        if (cell != null && ExpressionUtils.isNonBlankData(cell.value)) {
+                            _entries.add(new ReconEntry(rowIndex, cell));
+                        }
+                    }
+                    return false;
+                }
+            });
+        }
+        
+        @Override
+        public void run() {
+            try {
+                populateEntries();
+            } catch (Exception e2) {
+                // TODO : Not sure what to do here?
+                e2.printStackTrace();
+            }
+            
+            Map<String, JobGroup> jobKeyToGroup = new HashMap<String, JobGroup>();
+            
+            for (ReconEntry entry : _entries) {
+                ReconJob job = _reconConfig.createJob(
+                    _project, 
+                    entry.rowIndex, 
+                    _project.rows.get(entry.rowIndex), 
+                    _columnName, 
+                    entry.cell
+                );
+                
+                String key = job.getStringKey();
+                JobGroup group = jobKeyToGroup.get(key);
+                if (group == null) {
+                    group = new JobGroup(job);
+                    jobKeyToGroup.put(key, group);
+                }
+                group.entries.add(entry);
+            }
+            
+            List<CellChange> cellChanges = new ArrayList<CellChange>(_entries.size());
+            List<JobGroup> groups = new ArrayList<JobGroup>(jobKeyToGroup.values());
+            _totalGroups = groups.size();
+            if (_cache != null) {
+                groups = lookUpCachedRecons(groups, cellChanges);
+            }
+            
+            int parallelRequests = getParallelRequests();
+            if (parallelRequests > 1 && _reconConfig.isThreadSafe()) {
+                reconcilePipelined(groups, cellChanges, parallelRequests);
+            } else {
+                reconcileSequentially(groups, cellChanges);
+            }
+            if (_cache != null) {
+                _cache.save();
+            }
+            
+            // TODO: Option to keep partial results after cancellation?
+            if (!_canceled) {
+                Change reconChange = new ReconChange(
+                    cellChanges, 
+                    _columnName, 
+                    _reconConfig,
+                    null
+                );
+                
+                HistoryEntry historyEntry = new HistoryEntry(
+                    _historyEntryID,
+                    _project, 
+                    _description, 
+                    ReconOperation.this, 
+                    reconChange
+                );
+                
+                _project.history.addEntry(historyEntry);
+                _project.processManager.onDoneProcess(this);
+            }
+        }
+        
+        protected void reconcileSequentially(List<JobGroup> groups, List<CellChange> cellChanges) {
+            int batchSize = _reconConfig.getBatchSize();
+            
+            for (int i = 0; i < groups.size(); /* don't increment here */) {
+                List<JobGroup> batch = new ArrayList<JobGroup>(batchSize);
+                while (batch.size() < batchSize && i < groups.size()) {
+                    batch.add(groups.get(i++));
+                }
+                
+                List<Recon> recons = _reconConfig.batchRecon(getJobs(batch), _historyEntryID);
+                cacheRecons(batch, recons);
+                applyRecons(batch, recons, cellChanges);
+                updateProgress(batch.size());
+                
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    if (_canceled) {
+                        break;
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Keeps up to {@code parallelRequests} batches in flight at once. The size
+         * of the batches sent next is adapted to the latency observed on the ones
+         * which came back: it grows while the service answers faster than the target
+         * latency and shrinks when it answers slower. Results are collected on this
+         * thread, so they still end up in a single change.
+         */
+        protected void reconcilePipelined(List<JobGroup> groups, List<CellChange> cellChanges, int parallelRequests) {
+            int minBatchSize = 1;
+            int maxBatchSize = Math.max(_reconConfig.getBatchSize(), getPreference(MAX_BATCH_SIZE_PREF, DEFAULT_MAX_BATCH_SIZE));
+            long targetLatency = TimeUnit.MILLISECONDS.toNanos(getPreference(TARGET_LATENCY_PREF, DEFAULT_TARGET_LATENCY_MS));
+            
+            int batchSize = Math.min(_reconConfig.getBatchSize(), maxBatchSize);
+            int inFlight = 0;
+            int i = 0;
+            
+            ExecutorService executor = Executors.newFixedThreadPool(parallelRequests, runnable -> {
+                Thread thread = new Thread(runnable, "recon-" + _historyEntryID);
+                thread.setDaemon(true);
+                return thread;
+            });
+            CompletionService<ReconBatch> completionService = new ExecutorCompletionService<ReconBatch>(executor);
+            try {
+                while (i < groups.size() || inFlight > 0) {
+                    while (inFlight < parallelRequests && i < groups.size()) {
+                        int end = Math.min(groups.size(), i + batchSize);
+                        ReconBatch batch = new ReconBatch(groups.subList(i, end));
+                        completionService.submit(batch, batch);
+                        inFlight++;
+                        i = end;
+                    }
+                    
+                    ReconBatch batch = completionService.take().get();
+                    inFlight--;
+                    
+                    cacheRecons(batch.groups, batch.recons);
+                    applyRecons(batch.groups, batch.recons, cellChanges);
+                    updateProgress(batch.groups.size());
+                    
+                    if (batch.groups.size() == batchSize) {
+                        if (batch.elapsedNanos < targetLatency / 2) {
+                            batchSize = Math.min(maxBatchSize, batchSize * 2);
+                        } else if (batch.elapsedNanos > targetLatency) {
+                            batchSize = Math.max(minBatchSize, batchSize / 2);
+                        }
+                    }
+                    
+                    if (_canceled) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                if (!_canceled) {
+                    logger.warn("Reconciliation interrupted", e);
+                }
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        
+        /**
+         * Applies the results found in the cache and returns the groups which
+         * still need to be reconciled against the service.
+         */
+        protected List<JobGroup> lookUpCachedRecons(List<JobGroup> groups, List<CellChange> cellChanges) {
+            List<JobGroup> remaining = new ArrayList<JobGroup>(groups.size());
+            for (JobGroup group : groups) {
+                String key = _reconConfig.getCacheKey(group.job);
+                Recon recon = key != null ? _cache.get(key, _historyEntryID) : null;
+                if (recon != null) {
+                    applyRecons(Collections.singletonList(group), Collections.singletonList(recon), cellChanges);
+                    _cacheHits++;
+                    _doneGroups++;
+                } else {
+                    remaining.add(group);
+                    _cacheMisses++;
+                }
+            }
+            updateProgress(0);
+            return remaining;
+        }
+        
+        protected void cacheRecons(List<JobGroup> batch, List<Recon> recons) {
+            if (_cache == null) {
+                return;
+            }
+            for (int j = 0; j < batch.size() && j < recons.size(); j++) {
+                String key = _reconConfig.getCacheKey(batch.get(j).job);
+                if (key != null && recons.get(j) != null) {
+                    _cache.put(key, recons.get(j));
+                }
+            }
+        }
+        
+        protected void updateProgress(int newlyDone) {
+            _doneGroups += newlyDone;
+            _progress = _totalGroups == 0 ? 100 : _doneGroups * 100 / _totalGroups;
+        }
+        
+        protected void applyRecons(List<JobGroup> batch, List<Recon> recons, List<CellChange> cellChanges) {
+            for (int j = batch.size() - 1; j >= 0; j--) {
+                Recon    recon = j < recons.size() ? recons.get(j) : null;
+                List<ReconEntry> entries = batch.get(j).entries;
+                
+                if (recon != null) {
+                    recon.judgmentBatchSize = entries.size();
+                }
+                
+                for (ReconEntry entry : entries) {
+                    if (recon == null) {
+                        // TODO add EvalError instead? That is not so convenient
+                        // for users because they would lose the cell contents.
+                        // Better leave the cell unreconciled so they can be reconciled again later.
+                        continue;
+                    }
+                    Cell oldCell = entry.cell;
+                    Cell newCell = new Cell(oldCell.value, recon);
+                    
+                    CellChange cellChange = new CellChange(
+                        entry.rowIndex, 
+                        _cellIndex, 
+                        oldCell, 
+                        newCell
+                    );
+                    cellChanges.add(cellChange);
+                }
+            }
+        }
+        
+        protected class ReconBatch implements Runnable {
+            final protected List<JobGroup> groups;
+            protected List<Recon> recons = Collections.emptyList();
+            protected long elapsedNanos;
+            
+            protected ReconBatch(List<JobGroup> groups) {
+                this.groups = groups;
+            }
+            
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                recons = _reconConfig.batchRecon(getJobs(groups), _historyEntryID);
+                elapsedNanos = System.nanoTime() - start;
+            }
+        }
+    }
+}
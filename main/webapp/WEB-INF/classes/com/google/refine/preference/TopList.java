@@ -0,0 +1,91 @@
+/*
+
+Copyright 2010, Google Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+    * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following disclaimer
+in the documentation and/or other materials provided with the
+distribution.
+    * Neither the name of Google Inc. nor the names of its
+contributors may be used to endorse or promote products derived from
+this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,           
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY           
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.google.refine.preference;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.collections.list.UnmodifiableList;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+
+public class TopList implements Iterable<String>, PreferenceValue {
+    
+    @JsonProperty("top")
+    protected int          _top = 10;
+    protected List<String> _list = new ArrayList<String>();
+
+    public TopList(int top) {
+        _top = top;
+    }
+    
+    @JsonCreator
+    public TopList(
+    		@JsonProperty("top")
+    		int top,
+    		@JsonProperty("list")
+    		List<String> list) {
+    	_top = top;
+    	_list = list;
+    }
+    
+    @SuppressWarnings("unchecked")
+    @JsonProperty("list")
+    public List<String> getList() {
+        return UnmodifiableList.decorate(_list);
+    }
+    
+    public void add(String element) {
+        _list.remove(element);
+        _list.add(0, element);
+        while (_list.size() > _top) {
+            _list.remove(_list.size() - 1);
+        }
+    }
+    
+    public void remove(String element)
+    {
+        _list.remove(element);
+    }
+    
+    @Override
+    @JsonIgnore
+    public Iterator<String> iterator() {  
+        return _list.iterator();  
+    } 
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (C) 2022, OpenRefine contributors
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket per host, limiting the rate at which requests are sent to each
+ * host independently of the number of threads sending them.
+ * <p>
+ * Each bucket holds at most {@code burst} tokens and gains one every
+ * {@code interval}. A caller which finds the bucket empty reserves the next token
+ * and waits until it is due, so that concurrent callers are served in turn.
+ */
+public class HostRateLimiter {
+
+    final private long _intervalNanos;
+    final private int  _burst;
+    final private Map<String, Bucket> _buckets = new HashMap<>();
+    final private LongSupplier _nanoTime;
+
+    static private class Bucket {
+        double tokens;
+        long   lastRefill;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+    }
+
+    /**
+     * @param intervalMillis
+     *            the minimum average time between two requests to the same host, 0 for no limit
+     * @param burst
+     *            the number of requests which can be sent to a host without waiting
+     */
+    public HostRateLimiter(long intervalMillis, int burst) {
+        this(intervalMillis, burst, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime
+     *            the clock tokens are refilled by, in nanoseconds
+     */
+    protected HostRateLimiter(long intervalMillis, int burst, LongSupplier nanoTime) {
+        _intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, intervalMillis));
+        _burst = Math.max(1, burst);
+        _nanoTime = nanoTime;
+    }
+
+    /**
+     * Waits until a request can be sent to the given host.
+     * 
+     * @param host
+     * @throws InterruptedException
+     *             if the thread was interrupted while waiting, in which case no token is consumed
+     */
+    public void acquire(String host) throws InterruptedException {
+        long wait = reserve(host);
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                release(host);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the host, possibly ahead of time.
+     * 
+     * @param host
+     * @return the time to wait until the token is due, in nanoseconds
+     */
+    protected synchronized long reserve(String host) {
+        if (_intervalNanos == 0) {
+            return 0;
+        }
+        long now = _nanoTime.getAsLong();
+        Bucket bucket = _buckets.get(host);
+        if (bucket == null) {
+            bucket = new Bucket(_burst, now);
+            _buckets.put(host, bucket);
+        } else if (bucket.tokens < _burst) {
+            bucket.tokens = Math.min(_burst, bucket.tokens + (double) (now - bucket.lastRefill) / _intervalNanos);
+        }
+        bucket.lastRefill = now;
+        bucket.tokens -= 1;
+        return bucket.tokens >= 0 ? 0 : (long) (-bucket.tokens * _intervalNanos);
+    }
+
+    /**
+     * Gives back a token which was reserved but not used.
+     */
+    protected synchronized void release(String host) {
+        Bucket bucket = _buckets.get(host);
+        if (bucket != null) {
+            bucket.tokens = Math.min(_burst, bucket.tokens + 1);
+        }
+    }
+}
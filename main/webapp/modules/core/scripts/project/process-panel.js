@@ -154,7 +154,12 @@ ProcessPanel.prototype._render = function(newData) {
       if (process.status != "pending") {
         // TODO: We should be using formatting, not string concatenation here
         Refine.setTitle($.i18n('core-project/percent-complete', process.progress));
-        this._elmts.progressDescription.text(process.description);
+        var description = process.description;
+        if (process.cacheHits) {
+          var cacheHitRate = Math.round(100 * process.cacheHits / (process.cacheHits + (process.cacheMisses || 0)));
+          description += " (" + $.i18n('core-project/recon-cache-hits', cacheHitRate) + ")";
+        }
+        this._elmts.progressDescription.text(description);
         this._elmts.progressSpan.text($.i18n('core-project/percent-complete', process.progress));
       }
       if ("onDone" in process) {
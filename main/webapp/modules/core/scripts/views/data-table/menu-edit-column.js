@@ -117,6 +117,7 @@ DataTableColumnHeaderUI.extendMenu(function(column, columnHeaderUI, menu) {
     elmts.or_views_newCol.text($.i18n('core-views/new-col-name'));
     elmts.or_views_throttle.text($.i18n('core-views/throttle-delay'));
     elmts.or_views_milli.text($.i18n('core-views/milli'));
+    elmts.or_views_concurrency.text($.i18n('core-views/concurrent-requests'));
     elmts.or_views_onErr.text($.i18n('core-views/on-error'));
     elmts.or_views_setBlank.text($.i18n('core-views/set-blank'));
     elmts.or_views_storeErr.text($.i18n('core-views/store-err'));
@@ -165,6 +166,7 @@ DataTableColumnHeaderUI.extendMenu(function(column, columnHeaderUI, menu) {
           newColumnName: columnName, 
           columnInsertIndex: columnIndex + 1,
           delay: elmts.throttleDelayInput[0].value,
+          concurrency: elmts.concurrencyInput[0].value,
           onError: $('input[name="dialog-onerror-choice"]:checked')[0].value,
           cacheResponses: $('input[name="dialog-cache-responses"]')[0].checked,
           httpHeaders: JSON.stringify(elmts.setHttpHeadersContainer.find("input").serializeArray())